@@ -115,6 +115,15 @@ public class CommandContainer extends Command {
         this.prepared = prepared;
     }
 
+    /**
+     * Returns the prepared statement.
+     *
+     * @return the prepared statement
+     */
+    public Prepared getPrepared() {
+        return prepared;
+    }
+
     @Override
     public ArrayList<? extends ParameterInterface> getParameters() {
         ArrayList<Parameter> parameters = prepared.getParameters();
@@ -7,8 +7,10 @@ package org.h2.command;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import org.h2.api.ErrorCode;
 import org.h2.engine.GeneratedKeysMode;
 import org.h2.engine.SessionRemote;
+import org.h2.engine.SessionRemote.PendingResponse;
 import org.h2.engine.SysProperties;
 import org.h2.expression.ParameterInterface;
 import org.h2.expression.ParameterRemote;
@@ -29,6 +31,65 @@ import org.h2.value.ValueNull;
  */
 public class CommandRemote implements CommandInterface {
 
+    /**
+     * The result of an update command that was sent without waiting for the
+     * response.
+     */
+    private static final class PipelinedUpdate extends ResultWithGeneratedKeys implements PendingResponse {
+
+        private final SessionRemote session;
+
+        private boolean read;
+
+        private long updateCount;
+
+        private DbException exception;
+
+        PipelinedUpdate(SessionRemote session) {
+            super(0L);
+            this.session = session;
+        }
+
+        @Override
+        public DbException read(Transfer transfer) throws IOException {
+            try {
+                session.done(transfer);
+            } catch (DbException e) {
+                exception = e;
+                read = true;
+                return e;
+            }
+            updateCount = transfer.readRowCount();
+            session.setAutoCommitFromServer(transfer.readBoolean());
+            read = true;
+            return null;
+        }
+
+        @Override
+        public long getUpdateCount() {
+            synchronized (session) {
+                if (!read) {
+                    session.readPendingResponses(this);
+                    if (!read) {
+                        throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, "pipelined request");
+                    }
+                } else if (exception != null) {
+                    session.removeFailedResponse(this);
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            return updateCount;
+        }
+
+        @Override
+        public boolean isPending() {
+            return !read;
+        }
+
+    }
+
     private final ArrayList<Transfer> transferList;
     private final ArrayList<ParameterInterface> parameters;
     private final Trace trace;
@@ -195,6 +256,12 @@ public class CommandRemote implements CommandInterface {
         boolean readGeneratedKeys = generatedKeysMode != GeneratedKeysMode.NONE;
         int objectId = readGeneratedKeys ? session.getNextId() : 0;
         synchronized (session) {
+            if (!readGeneratedKeys && session.isPipelining() && isDataChange()) {
+                ResultWithGeneratedKeys result = sendUpdate();
+                if (result != null) {
+                    return result;
+                }
+            }
             long updateCount = 0L;
             ResultRemote generatedKeys = null;
             boolean autoCommit = false;
@@ -249,6 +316,42 @@ public class CommandRemote implements CommandInterface {
         }
     }
 
+    private boolean isDataChange() {
+        switch (cmdType) {
+        case INSERT:
+        case UPDATE:
+        case DELETE:
+        case MERGE:
+        case REPLACE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Send the update command without waiting for the response.
+     *
+     * @return the result with pending update count, or {@code null} if the
+     *         command couldn't be sent
+     */
+    private ResultWithGeneratedKeys sendUpdate() {
+        prepareIfRequired();
+        Transfer transfer = transferList.get(0);
+        try {
+            session.tracePipelinedOperation("COMMAND_EXECUTE_UPDATE", id);
+            transfer.writeInt(SessionRemote.COMMAND_EXECUTE_UPDATE).writeInt(id);
+            sendParameters(transfer);
+            transfer.writeInt(GeneratedKeysMode.NONE);
+            PipelinedUpdate result = new PipelinedUpdate(session);
+            session.addPendingResponse(transfer, result);
+            return result;
+        } catch (IOException e) {
+            session.removeServer(e, 0, 1);
+            return null;
+        }
+    }
+
     private void checkParameters() {
         if (cmdType != EXPLAIN) {
             for (ParameterInterface p : parameters) {
@@ -1256,6 +1256,23 @@ public class Parser {
         return columns.toArray(new IndexColumn[0]);
     }
 
+    private IndexColumn[] parseIndexKeyColumnList() {
+        ArrayList<IndexColumn> columns = Utils.newSmallArrayList();
+        do {
+            if (readIf(OPEN_PAREN)) {
+                Expression expression = readExpression();
+                read(CLOSE_PAREN);
+                int sortType = parseSortType();
+                columns.add(expression instanceof ExpressionColumn
+                        ? new IndexColumn(((ExpressionColumn) expression).getOriginalColumnName(), sortType)
+                        : new IndexColumn(expression, sortType));
+            } else {
+                columns.add(new IndexColumn(readIdentifier(), parseSortType()));
+            }
+        } while (readIfMore());
+        return columns.toArray(new IndexColumn[0]);
+    }
+
     private int parseSortType() {
         int sortType = !readIf("ASC") && readIf("DESC") ? SortOrder.DESCENDING : SortOrder.ASCENDING;
         if (readIf("NULLS")) {
@@ -6911,7 +6928,7 @@ public class Parser {
             boolean spatial = false;
             String indexName = null;
             Schema oldSchema = null;
-            boolean ifNotExists = false;
+            boolean ifNotExists = false, concurrently = false;
             if (session.isQuirksMode() && readIf(PRIMARY, KEY)) {
                 if (readIf("HASH")) {
                     hash = true;
@@ -6932,6 +6949,7 @@ public class Parser {
                     spatial = true;
                 }
                 read("INDEX");
+                concurrently = readIf("CONCURRENTLY");
                 if (!isToken(ON)) {
                     ifNotExists = readIfNotExists();
                     indexName = readIdentifierWithSchema(null);
@@ -6960,6 +6978,7 @@ public class Parser {
             }
             CreateIndex command = new CreateIndex(session, getSchema());
             command.setIfNotExists(ifNotExists);
+            command.setConcurrently(concurrently);
             command.setPrimaryKey(primaryKey);
             command.setTableName(tableName);
             command.setHash(hash);
@@ -6975,20 +6994,25 @@ public class Parser {
                 }
                 read(CLOSE_PAREN);
             } else {
-                columns = parseIndexColumnList();
-                if (nullsDistinct != null) {
-                    uniqueColumnCount = columns.length;
-                    if (readIf("INCLUDE")) {
-                        read(OPEN_PAREN);
-                        IndexColumn[] columnsToInclude = parseIndexColumnList();
-                        int nonUniqueCount = columnsToInclude.length;
-                        columns = Arrays.copyOf(columns, uniqueColumnCount + nonUniqueCount);
-                        System.arraycopy(columnsToInclude, 0, columns, uniqueColumnCount, nonUniqueCount);
+                columns = parseIndexKeyColumnList();
+                int keyColumnCount = columns.length;
+                if (nullsDistinct != null || primaryKey) {
+                    uniqueColumnCount = keyColumnCount;
+                }
+                if (!primaryKey && readIf("INCLUDE")) {
+                    read(OPEN_PAREN);
+                    IndexColumn[] columnsToInclude = parseIndexColumnList();
+                    int includedCount = columnsToInclude.length;
+                    columns = Arrays.copyOf(columns, keyColumnCount + includedCount);
+                    System.arraycopy(columnsToInclude, 0, columns, keyColumnCount, includedCount);
+                    if (nullsDistinct == null) {
+                        command.setKeyColumnCount(keyColumnCount);
                     }
-                } else if (primaryKey) {
-                    uniqueColumnCount = columns.length;
                 }
             }
+            if (!primaryKey && readIf(WHERE)) {
+                command.setCondition(readExpression());
+            }
             command.setIndexColumns(columns);
             command.setUnique(nullsDistinct, uniqueColumnCount);
             return command;
@@ -415,7 +415,7 @@ public class AlterTableAddConstraint extends AlterTable {
     }
 
     private static boolean canUseIndex(Index index, Table table, IndexColumn[] cols, NullsDistinct nullsDistinct) {
-        if (index.getTable() != table) {
+        if (index.getTable() != table || index.getCondition() != null) {
             return false;
         }
         int allowedColumns;
@@ -12,11 +12,15 @@ import org.h2.engine.Database;
 import org.h2.engine.Right;
 import org.h2.engine.SessionLocal;
 import org.h2.engine.NullsDistinct;
+import org.h2.expression.Expression;
 import org.h2.index.IndexType;
+import org.h2.index.PartialIndexCondition;
 import org.h2.message.DbException;
 import org.h2.schema.Schema;
+import org.h2.table.Column;
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
+import org.h2.table.TableType;
 
 /**
  * This class represents the statement
@@ -29,10 +33,13 @@ public class CreateIndex extends SchemaCommand {
     private IndexColumn[] indexColumns;
     private NullsDistinct nullsDistinct;
     private int uniqueColumnCount;
+    private int keyColumnCount;
     private boolean primaryKey, hash, spatial;
     private boolean ifTableExists;
     private boolean ifNotExists;
+    private boolean concurrently;
     private String comment;
+    private Expression condition;
 
     public CreateIndex(SessionLocal session, Schema schema) {
         super(session, schema);
@@ -50,6 +57,10 @@ public class CreateIndex extends SchemaCommand {
         this.tableName = tableName;
     }
 
+    public void setConcurrently(boolean concurrently) {
+        this.concurrently = concurrently;
+    }
+
     public void setIndexName(String indexName) {
         this.indexName = indexName;
     }
@@ -76,7 +87,8 @@ public class CreateIndex extends SchemaCommand {
             throw DbException.get(ErrorCode.INDEX_ALREADY_EXISTS_1, indexName);
         }
         session.getUser().checkTableRight(table, Right.SCHEMA_OWNER);
-        table.lock(session, Table.EXCLUSIVE_LOCK);
+        boolean concurrently = this.concurrently && create;
+        table.lock(session, concurrently ? Table.WRITE_LOCK : Table.EXCLUSIVE_LOCK);
         if (!table.isPersistIndexes()) {
             persistent = false;
         }
@@ -100,9 +112,26 @@ public class CreateIndex extends SchemaCommand {
             indexType = IndexType.createUnique(persistent, hash, uniqueColumnCount, nullsDistinct);
         } else {
             indexType = IndexType.createNonUnique(persistent, hash, spatial);
+            indexType.setKeyColumnCount(keyColumnCount);
         }
         IndexColumn.mapColumns(indexColumns, table);
-        table.addIndex(session, indexName, id, indexColumns, uniqueColumnCount, indexType, create, comment);
+        int expressionColumnId = table.getColumns().length;
+        for (IndexColumn c : indexColumns) {
+            if (c.expression != null) {
+                if (primaryKey || hash || spatial || table.getTableType() != TableType.TABLE) {
+                    throw DbException.getUnsupportedException("Index on expression " + c.expression.getTraceSQL());
+                }
+                c.column = Column.createIndexExpressionColumn(session, table, expressionColumnId++, c.expression);
+            }
+        }
+        if (condition != null) {
+            indexType.setCondition(new PartialIndexCondition(session, table, condition));
+        }
+        if (concurrently) {
+            table.addIndexConcurrently(session, indexName, id, indexColumns, uniqueColumnCount, indexType, comment);
+        } else {
+            table.addIndex(session, indexName, id, indexColumns, uniqueColumnCount, indexType, create, comment);
+        }
         return 0;
     }
 
@@ -115,6 +144,10 @@ public class CreateIndex extends SchemaCommand {
         this.uniqueColumnCount = uniqueColumnCount;
     }
 
+    public void setKeyColumnCount(int keyColumnCount) {
+        this.keyColumnCount = keyColumnCount;
+    }
+
     public void setHash(boolean b) {
         this.hash = b;
     }
@@ -127,6 +160,10 @@ public class CreateIndex extends SchemaCommand {
         this.comment = comment;
     }
 
+    public void setCondition(Expression condition) {
+        this.condition = condition;
+    }
+
     @Override
     public int getType() {
         return CommandInterface.CREATE_INDEX;
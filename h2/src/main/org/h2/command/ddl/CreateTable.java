@@ -154,7 +154,14 @@ public class CreateTable extends CommandWithColumns {
                 }
             }
             if (asQuery != null && !withNoData) {
-                insertAsData(isSessionTemporary, db, table);
+                boolean bulkLoad = table.startBulkLoad(session);
+                try {
+                    insertAsData(isSessionTemporary, db, table);
+                } finally {
+                    if (bulkLoad) {
+                        table.finishBulkLoad(session);
+                    }
+                }
             }
         } catch (DbException e) {
             try {
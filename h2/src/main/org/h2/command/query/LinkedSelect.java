@@ -0,0 +1,115 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.command.query;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+
+import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.index.LinkedQueryBuilder;
+import org.h2.result.ResultTarget;
+import org.h2.table.TableLink;
+import org.h2.util.Utils;
+import org.h2.value.Value;
+import org.h2.value.ValueToObjectConverter2;
+
+/**
+ * A query on a single linked table that is evaluated by the target database
+ * of the linked table, including its conditions, grouping, and aggregate
+ * functions. Only the rows of the result are transferred.
+ */
+final class LinkedSelect {
+
+    private final TableLink link;
+
+    private final String sql;
+
+    private final Expression[] parameters;
+
+    private final Expression[] expressions;
+
+    /**
+     * The 1-based indexes of result columns in the query, or 0 for
+     * expressions evaluated locally.
+     */
+    private final int[] remoteIndexes;
+
+    /**
+     * Whether rows are returned in the order of the ORDER BY clause of the
+     * original query, this is required for OFFSET and FETCH clauses.
+     */
+    private final boolean sorted;
+
+    /**
+     * Whether the query has the ORDER BY clause.
+     */
+    private final boolean hasOrderBy;
+
+    LinkedSelect(TableLink link, String sql, Expression[] parameters, Expression[] expressions,
+            int[] remoteIndexes, boolean sorted, boolean hasOrderBy) {
+        this.link = link;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.expressions = expressions;
+        this.remoteIndexes = remoteIndexes;
+        this.sorted = sorted;
+        this.hasOrderBy = hasOrderBy;
+    }
+
+    /**
+     * Returns the query without OFFSET and FETCH clauses.
+     *
+     * @return the query
+     */
+    String getSQL() {
+        return sql;
+    }
+
+    /**
+     * Execute the query and add all rows to the target.
+     *
+     * @param session the session
+     * @param target the target
+     * @param offset the number of rows to skip
+     * @param fetch the maximum number of rows, or -1
+     * @param canLimit whether OFFSET and FETCH clauses may be passed to the
+     *            target database
+     * @return whether OFFSET and FETCH clauses were applied by the target
+     *         database
+     */
+    boolean query(SessionLocal session, ResultTarget target, long offset, long fetch, boolean canLimit) {
+        ArrayList<Value> params = Utils.newSmallArrayList();
+        LinkedQueryBuilder.addParameterValues(session, parameters, params);
+        StringBuilder builder = new StringBuilder(sql);
+        boolean limited = canLimit && sorted && (offset > 0 || fetch >= 0)
+                && link.appendOffsetFetch(builder, params, offset, fetch, hasOrderBy);
+        String s = builder.toString();
+        try {
+            PreparedStatement prep = link.execute(s, params, false, session);
+            ResultSet rs = prep.getResultSet();
+            int columnCount = expressions.length;
+            while (rs.next()) {
+                Value[] row = new Value[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    Expression e = expressions[i];
+                    int index = remoteIndexes[i];
+                    row[i] = index > 0
+                            ? ValueToObjectConverter2.readValue(session, rs, index, e.getType().getValueType())
+                            : e.getValue(session);
+                }
+                target.addRow(row);
+            }
+            rs.close();
+            link.reusePreparedStatement(prep, s);
+        } catch (Exception e) {
+            throw TableLink.wrapException(s, e);
+        }
+        return limited;
+    }
+
+}
@@ -17,6 +17,7 @@ import org.h2.command.CommandInterface;
 import org.h2.command.Prepared;
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
+import org.h2.engine.QueryResultCache;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Alias;
 import org.h2.expression.Expression;
@@ -34,6 +35,7 @@ import org.h2.table.ColumnResolver;
 import org.h2.table.DerivedTable;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.table.TableType;
 import org.h2.util.Utils;
 import org.h2.value.ExtTypeInfoRow;
 import org.h2.value.TypeInfo;
@@ -144,9 +146,16 @@ public abstract class Query extends Prepared {
     private ResultInterface lastResult;
     private Boolean lastExists;
     private Value[] lastParameters;
+    private SessionLocal lastSession;
     private boolean cacheableChecked;
     private boolean neverLazy;
 
+    /**
+     * The plan used as a key in the shared result cache, or an empty string
+     * if results of this query can't be shared between sessions.
+     */
+    private String sharedResultPlan;
+
     boolean checkInit;
 
     boolean isPrepared;
@@ -440,7 +449,7 @@ public abstract class Query extends Prepared {
         this.noCache = true;
     }
 
-    private boolean sameResultAsLast(Value[] params, Value[] lastParams, long lastEval) {
+    private boolean isResultCacheable() {
         if (!cacheableChecked) {
             long max = getMaxDataModificationId();
             noCache = max == Long.MAX_VALUE;
@@ -450,7 +459,11 @@ public abstract class Query extends Prepared {
             }
             cacheableChecked = true;
         }
-        if (noCache) {
+        return !noCache;
+    }
+
+    private boolean sameResultAsLast(Value[] params, Value[] lastParams, long lastEval) {
+        if (!isResultCacheable()) {
             return false;
         }
         for (int i = 0; i < params.length; i++) {
@@ -503,9 +516,11 @@ public abstract class Query extends Prepared {
         }
         Value[] params = getParameterValues();
         long now = getDatabase().getModificationDataId();
+        QueryResultCache resultCache = null;
+        String plan = null;
         if (isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
             if (lastResult != null && !lastResult.isClosed() &&
-                    limit == lastLimit) {
+                    limit == lastLimit && lastSession == session) {
                 if (sameResultAsLast(params, lastParameters, lastEvaluated)) {
                     lastResult = lastResult.createShallowCopy(session);
                     if (lastResult != null) {
@@ -514,17 +529,86 @@ public abstract class Query extends Prepared {
                     }
                 }
             }
+            resultCache = getDatabase().getQueryResultCache();
+            if (resultCache != null) {
+                plan = getSharedResultPlan();
+                if (plan == null || target != null || !QueryResultCache.canUse(session)) {
+                    resultCache = null;
+                } else {
+                    LocalResult r = resultCache.get(session, plan, params, limit, getMaxDataModificationId());
+                    if (r != null) {
+                        lastParameters = params;
+                        closeLastResult();
+                        lastResult = r;
+                        lastExists = null;
+                        lastEvaluated = now;
+                        lastLimit = limit;
+                        lastSession = session;
+                        return r;
+                    }
+                }
+            }
         }
         lastParameters = params;
         closeLastResult();
         ResultInterface r = queryWithoutCacheLazyCheck(limit, target);
+        if (resultCache != null && r instanceof LocalResult) {
+            resultCache.put(session, plan, params, limit, (LocalResult) r, session.getStatementDataModificationId());
+        }
         lastResult = r;
         lastExists = null;
         lastEvaluated = now;
         lastLimit = limit;
+        lastSession = session;
         return r;
     }
 
+    /**
+     * Returns the plan of this query to be used as a key in the shared result
+     * cache. Results of queries that use local temporary tables or system
+     * tables are not shared, because their content depends on the session.
+     *
+     * @return the plan, or {@code null} if results of this query can't be
+     *         shared between sessions
+     */
+    private String getSharedResultPlan() {
+        String plan = sharedResultPlan;
+        if (plan == null) {
+            plan = "";
+            if (isResultCacheable()) {
+                HashSet<DbObject> dependencies = new HashSet<>();
+                if (isEverything(ExpressionVisitor.getDependenciesVisitor(dependencies))) {
+                    plan = getPlanSQL(DEFAULT_SQL_FLAGS);
+                    for (DbObject object : dependencies) {
+                        if (object instanceof Table) {
+                            Table table = (Table) object;
+                            if (table.isTemporary() && !table.isGlobalTemporary()
+                                    || table.getTableType() == TableType.SYSTEM_TABLE) {
+                                plan = "";
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            sharedResultPlan = plan;
+        }
+        return plan.isEmpty() ? null : plan;
+    }
+
+    /**
+     * Forgets the result of the last execution without closing it. This
+     * method is used when the query is handed over to another session, the
+     * result may still be used by the previous one and it may contain
+     * uncommitted data of the previous session.
+     */
+    public void clearLastResult() {
+        lastResult = null;
+        lastExists = null;
+        lastParameters = null;
+        lastSession = null;
+    }
+
     private void closeLastResult() {
         if (lastResult != null) {
             lastResult.close();
@@ -549,7 +633,7 @@ public abstract class Query extends Prepared {
         Value[] params = getParameterValues();
         long now = getDatabase().getModificationDataId();
         if (isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
-            if (lastExists != null) {
+            if (lastExists != null && lastSession == session) {
                 if (sameResultAsLast(params, lastParameters, lastEvaluated)) {
                     return lastExists;
                 }
@@ -560,6 +644,7 @@ public abstract class Query extends Prepared {
         lastExists = exists;
         lastResult = null;
         lastEvaluated = now;
+        lastSession = session;
         return exists;
     }
 
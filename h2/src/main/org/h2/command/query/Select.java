@@ -29,6 +29,8 @@ import org.h2.expression.ExpressionList;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.Parameter;
 import org.h2.expression.Wildcard;
+import org.h2.expression.aggregate.Aggregate;
+import org.h2.expression.aggregate.AggregateType;
 import org.h2.expression.analysis.DataAnalysisOperation;
 import org.h2.expression.analysis.Window;
 import org.h2.expression.condition.Comparison;
@@ -37,11 +39,15 @@ import org.h2.expression.condition.ConditionLocalAndGlobal;
 import org.h2.expression.function.CoalesceFunction;
 import org.h2.index.Cursor;
 import org.h2.index.Index;
+import org.h2.index.LinkedIndex;
+import org.h2.index.LinkedQueryBuilder;
 import org.h2.index.QueryExpressionIndex;
 import org.h2.message.DbException;
+import org.h2.mvstore.db.MVTempResult;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.result.LazyResult;
 import org.h2.result.LocalResult;
+import org.h2.result.ResultExternal;
 import org.h2.result.ResultInterface;
 import org.h2.result.ResultTarget;
 import org.h2.result.Row;
@@ -52,6 +58,7 @@ import org.h2.table.ColumnResolver;
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.table.TableLink;
 import org.h2.table.TableType;
 import org.h2.table.TableView;
 import org.h2.util.ParserUtil;
@@ -156,6 +163,12 @@ public class Select extends Query {
 
     private HashMap<String, Window> windows;
 
+    /**
+     * The query evaluated by the target database of a linked table instead of
+     * this query, or {@code null}.
+     */
+    private LinkedSelect linkedSelect;
+
     public Select(SessionLocal session, Select parentSelect) {
         super(session);
         this.parentSelect = parentSelect;
@@ -372,6 +385,9 @@ public class Select extends Query {
                     // does not allow scanning entries
                     continue;
                 }
+                if (index != topTableFilter.getIndex() && !index.isUsableFor(session, topTableFilter)) {
+                    continue;
+                }
                 if (isGroupSortedIndex(topTableFilter, index)) {
                     return index;
                 }
@@ -635,6 +651,9 @@ public class Select extends Query {
                 if (index.getIndexType().isHash()) {
                     continue;
                 }
+                if (index != topTableFilter.getIndex() && !index.isUsableFor(session, topTableFilter)) {
+                    continue;
+                }
                 IndexColumn[] indexCols = index.getIndexColumns();
                 if (indexCols.length < sortCols.length) {
                     continue;
@@ -719,6 +738,9 @@ public class Select extends Query {
         LazyResultQueryFlat lazyResult = new LazyResultQueryFlat(expressionArray, columnCount, forUpdate != null);
         skipOffset(lazyResult, offset, quickOffset);
         if (result == null) {
+            if (sort != null && !sortUsingIndex) {
+                return new LazyResultQuerySorted(lazyResult, columnCount);
+            }
             return lazyResult;
         }
         if (limitRows < 0 || sort != null && !sortUsingIndex || withTies && !quickOffset) {
@@ -769,7 +791,7 @@ public class Select extends Query {
         long offset = offsetFetch.offset;
         long fetch = offsetFetch.fetch;
         boolean fetchPercent = offsetFetch.fetchPercent;
-        boolean lazy = session.isLazyQueryExecution() &&
+        boolean lazy = session.isLazyQueryExecution() && linkedSelect == null &&
                 target == null && forUpdate == null && !isQuickAggregateQuery &&
                 fetch != 0 && !fetchPercent && !withTies && offset == 0 && isReadOnly();
         int columnCount = expressions.size();
@@ -780,7 +802,7 @@ public class Select extends Query {
         }
         // Do not add rows before OFFSET to result if possible
         boolean quickOffset = !fetchPercent;
-        if (sort != null && (!sortUsingIndex || isAnyDistinct())) {
+        if (sort != null && (!sortUsingIndex || isAnyDistinct()) && !isLazySort(lazy, fetch)) {
             result = createLocalResult(result);
             result.setSortOrder(sort);
             if (!sortUsingIndex) {
@@ -813,7 +835,9 @@ public class Select extends Query {
         if (fetch != 0) {
             // Cannot apply limit now if percent is specified
             long limit = fetchPercent ? -1 : fetch;
-            if (isQuickAggregateQuery) {
+            if (linkedSelect != null) {
+                quickOffset = linkedSelect.query(session, to, offset, fetch, !fetchPercent && !withTies);
+            } else if (isQuickAggregateQuery) {
                 queryQuick(columnCount, to, quickOffset && offset > 0);
             } else if (isWindowQuery) {
                 if (isGroupQuery) {
@@ -847,12 +871,25 @@ public class Select extends Query {
                 return lazyResult;
             }
         }
+        // scans may be stopped before their end by OFFSET and FETCH
+        topTableFilter.close();
         if (result != null) {
             return finishResult(result, offset, fetch, fetchPercent, target);
         }
         return null;
     }
 
+    /**
+     * Returns whether rows of a lazy result should be sorted with an external
+     * merge sort and streamed from it instead of the creation of a local
+     * result. Results with a limit that fits into memory still use a local
+     * result.
+     */
+    private boolean isLazySort(boolean lazy, long fetch) {
+        return lazy && !sortUsingIndex && !isAnyDistinct() && !isWindowQuery && !isGroupQuery
+                && (fetch < 0 || fetch > getDatabase().getMaxMemoryRows());
+    }
+
     private void disableLazyForJoinSubqueries(final TableFilter top) {
         if (session.isLazyQueryExecution()) {
             top.visit(f -> {
@@ -1268,9 +1305,183 @@ public class Select extends Query {
                 }
             }
         }
+        linkedSelect = null;
+        if (!session.isParsingCreateView()) {
+            pushDownToLinkedTables();
+            linkedSelect = prepareLinkedSelect();
+            if (linkedSelect != null) {
+                topTableFilter.setIndex(((LinkedIndex) topTableFilter.getIndex()).withPlanQuery(linkedSelect.getSQL()));
+                sortUsingIndex = false;
+                isGroupSortedQuery = false;
+                isDistinctQuery = false;
+            }
+        }
         isPrepared = true;
     }
 
+    /**
+     * Replace indexes of linked tables with copies that read only the used
+     * columns and pass conditions on these tables to their target databases.
+     */
+    private void pushDownToLinkedTables() {
+        for (TableFilter f : filters) {
+            Index index = f.getIndex();
+            if (!(index instanceof LinkedIndex)) {
+                continue;
+            }
+            Table table = f.getTable();
+            HashSet<Column> used = new HashSet<>();
+            ExpressionVisitor visitor = ExpressionVisitor.getColumnsVisitor(used, table);
+            isEverything(visitor);
+            for (TableFilter f2 : filters) {
+                Expression c = f2.getFilterCondition();
+                if (c != null) {
+                    c.isEverything(visitor);
+                }
+            }
+            ArrayList<Column> columns = new ArrayList<>(used.size());
+            for (Column column : table.getColumns()) {
+                if (used.contains(column)) {
+                    columns.add(column);
+                }
+            }
+            ArrayList<Expression> conditions = Utils.newSmallArrayList();
+            if (!f.isJoinOuter() && !f.isJoinOuterIndirect()) {
+                LinkedQueryBuilder.addConjuncts(condition, conditions);
+            }
+            LinkedQueryBuilder.addConjuncts(f.getJoinCondition(), conditions);
+            LinkedQueryBuilder.addConjuncts(f.getFilterCondition(), conditions);
+            f.setIndex(((LinkedIndex) index).pushDown(f, columns, conditions));
+        }
+    }
+
+    /**
+     * Create a query on the only linked table of this query that evaluates
+     * the whole query, if the target database can evaluate all its
+     * expressions.
+     *
+     * @return the query, or {@code null}
+     */
+    private LinkedSelect prepareLinkedSelect() {
+        TableFilter f = topTableFilter;
+        if (filters.size() != 1 || !(f.getIndex() instanceof LinkedIndex) || f.getJoin() != null
+                || f.getNestedJoin() != null || f.getJoinCondition() != null || f.getFilterCondition() != null
+                || isWindowQuery || qualifyIndex >= 0 || forUpdate != null || distinctExpressions != null
+                || isQuickAggregateQuery) {
+            return null;
+        }
+        LinkedQueryBuilder builder = new LinkedQueryBuilder(f, isGroupQuery);
+        TableLink link = builder.getLink();
+        builder.append(distinct ? "SELECT DISTINCT " : "SELECT ");
+        Expression[] resultExpressions = new Expression[resultColumnCount];
+        int[] remoteIndexes = new int[resultColumnCount];
+        int remoteCount = 0;
+        for (int i = 0; i < resultColumnCount; i++) {
+            Expression e = expressions.get(i);
+            resultExpressions[i] = e;
+            Expression nonAlias = e.getNonAliasExpression();
+            if (nonAlias.isConstant() || nonAlias instanceof Parameter) {
+                // evaluated locally
+                continue;
+            }
+            if (distinct && LinkedQueryBuilder.isCharacterString(nonAlias)) {
+                // the target database may compare strings differently
+                return null;
+            }
+            if (remoteCount > 0) {
+                builder.append(", ");
+            }
+            if (!builder.appendExpression(e)) {
+                return null;
+            }
+            remoteIndexes[i] = ++remoteCount;
+        }
+        if (remoteCount == 0) {
+            return null;
+        }
+        builder.append(" FROM ").append(link.getQualifiedTable()).append(" T");
+        ArrayList<Expression> conditions = Utils.newSmallArrayList();
+        LinkedQueryBuilder.addConjuncts(condition, conditions);
+        if (!conditions.isEmpty()) {
+            builder.append(" WHERE ");
+            if (builder.appendConditions(conditions) != conditions.size()) {
+                return null;
+            }
+        }
+        if (groupIndex != null) {
+            builder.append(" GROUP BY ");
+            for (int i = 0, l = groupIndex.length; i < l; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                // only columns, expressions with parameters can't be matched
+                Expression e = expressions.get(groupIndex[i]).getNonAliasExpression();
+                if (!(e instanceof ExpressionColumn) || LinkedQueryBuilder.isCharacterString(e)
+                        || !builder.appendExpression(e)) {
+                    return null;
+                }
+            }
+        }
+        if (havingIndex >= 0) {
+            builder.append(" HAVING ");
+            if (!builder.appendCondition(expressions.get(havingIndex))) {
+                return null;
+            }
+        }
+        boolean sorted = true, hasOrderBy = false;
+        if (sort != null) {
+            int[] indexes = sort.getQueryColumnIndexes();
+            int[] sortTypes = sort.getSortTypesWithNullOrdering();
+            DefaultNullOrdering remoteNullOrdering = link.getRemoteNullOrdering();
+            StringBuilder orderBy = new StringBuilder();
+            for (int i = 0; i < indexes.length; i++) {
+                int index = indexes[i], remoteIndex = remoteIndexes[index];
+                if (remoteIndex == 0) {
+                    continue;
+                }
+                if (LinkedQueryBuilder.isCharacterString(expressions.get(index))) {
+                    // the target database may sort strings differently
+                    sorted = false;
+                    break;
+                }
+                int sortType = sortTypes[i];
+                orderBy.append(hasOrderBy ? ", " : " ORDER BY ").append(remoteIndex);
+                if ((sortType & SortOrder.DESCENDING) != 0) {
+                    orderBy.append(" DESC");
+                }
+                hasOrderBy = true;
+                if ((remoteNullOrdering == null
+                        || remoteNullOrdering.addExplicitNullOrdering(sortType & SortOrder.DESCENDING) != sortType)
+                        && isNullable(expressions.get(index))) {
+                    if (!link.supportsNullOrdering()) {
+                        // the target database would sort NULL values differently
+                        sorted = false;
+                        break;
+                    }
+                    orderBy.append((sortType & SortOrder.NULLS_FIRST) != 0 ? " NULLS FIRST" : " NULLS LAST");
+                }
+            }
+            if (sorted) {
+                builder.append(orderBy.toString());
+            } else {
+                hasOrderBy = false;
+            }
+        }
+        return new LinkedSelect(link, builder.getSQL(), builder.getParameters(), resultExpressions, remoteIndexes,
+                sorted, hasOrderBy);
+    }
+
+    private static boolean isNullable(Expression e) {
+        e = e.getNonAliasExpression();
+        if (e instanceof ExpressionColumn) {
+            return ((ExpressionColumn) e).getColumn().isNullable();
+        } else if (e instanceof Aggregate) {
+            AggregateType type = ((Aggregate) e).getAggregateType();
+            return type != AggregateType.COUNT_ALL && type != AggregateType.COUNT;
+        }
+        return true;
+    }
+
     private void optimizeExpressionsAndPreserveAliases() {
         for (int i = 0; i < expressions.size(); i++) {
             Expression original = expressions.get(i);
@@ -1824,6 +2035,12 @@ public class Select extends Query {
             setCurrentRowNumber(0);
             rowNumber = 0;
         }
+
+        @Override
+        public void close() {
+            super.close();
+            topTableFilter.close();
+        }
     }
 
     /**
@@ -1871,6 +2088,84 @@ public class Select extends Query {
 
     }
 
+    /**
+     * Lazy execution for a flat query with sorting that doesn't use an index.
+     * Up to the maximum number of rows kept in memory are sorted in memory,
+     * larger results are sorted with an external merge sort and streamed from
+     * its sorted runs.
+     */
+    private final class LazyResultQuerySorted extends LazyResultSelect {
+
+        private final LazyResultQueryFlat source;
+
+        private ArrayList<Value[]> rows;
+
+        private int index;
+
+        private ResultExternal external;
+
+        LazyResultQuerySorted(LazyResultQueryFlat source, int columnCount) {
+            super(expressionArray, columnCount);
+            this.source = source;
+        }
+
+        @Override
+        protected Value[] fetchNextRow() {
+            if (rows == null && external == null) {
+                sortRows();
+            }
+            if (external != null) {
+                return external.next();
+            }
+            return index < rows.size() ? rows.get(index++) : null;
+        }
+
+        private void sortRows() {
+            Database db = getDatabase();
+            int maxMemoryRows = db.getMaxMemoryRows();
+            ArrayList<Value[]> list = new ArrayList<>();
+            while (source.next()) {
+                Value[] row = source.currentRow();
+                if (external != null) {
+                    external.addRow(row);
+                } else {
+                    list.add(row);
+                    if (list.size() > maxMemoryRows) {
+                        external = MVTempResult.ofMergeSort(db, expressionArray, visibleColumnCount, columnCount,
+                                sort);
+                        external.addRows(list);
+                        list = null;
+                    }
+                }
+            }
+            if (external == null) {
+                sort.sort(list);
+                rows = list;
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            // rewind already sorted rows
+            index = 0;
+            if (external != null) {
+                external.reset();
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            source.close();
+            if (external != null) {
+                external.close();
+                external = null;
+            }
+        }
+
+    }
+
     /**
      * Lazy execution for a group sorted query.
      */
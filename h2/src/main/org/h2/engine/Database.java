@@ -209,6 +209,8 @@ public final class Database implements DataHandler, CastDataProvider {
     private volatile boolean queryStatistics;
     private int queryStatisticsMaxEntries = Constants.QUERY_STATISTICS_MAX_ENTRIES;
     private QueryStatisticsData queryStatisticsData;
+    private final QueryPlanCache queryPlanCache;
+    private final QueryResultCache queryResultCache;
     private RowFactory rowFactory = RowFactory.getRowFactory();
     private boolean ignoreCatalogs;
 
@@ -222,6 +224,10 @@ public final class Database implements DataHandler, CastDataProvider {
         }
         String databaseName = ci.getName();
         this.dbSettings = ci.getDbSettings();
+        queryPlanCache = dbSettings.sharedQueryCacheSize > 0 ? new QueryPlanCache(dbSettings.sharedQueryCacheSize)
+                : null;
+        queryResultCache = dbSettings.sharedResultCacheSize > 0
+                ? new QueryResultCache(dbSettings.sharedResultCacheSize * 1024L) : null;
         this.compareMode = CompareMode.getInstance(null, 0);
         this.persistent = ci.isPersistent();
         this.filePasswordHash = ci.getFilePasswordHash();
@@ -2032,6 +2038,24 @@ public final class Database implements DataHandler, CastDataProvider {
         return queryStatisticsData;
     }
 
+    /**
+     * Returns the database-wide cache of idle query plans.
+     *
+     * @return the cache, or {@code null} if it is disabled
+     */
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    /**
+     * Returns the database-wide cache of query results.
+     *
+     * @return the cache, or {@code null} if it is disabled
+     */
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     /**
      * Check if the database is currently opening. This is true until all stored
      * SQL statements have been executed.
@@ -2156,7 +2180,7 @@ public final class Database implements DataHandler, CastDataProvider {
             linkConnections = new HashMap<>();
         }
         return TableLinkConnection.open(linkConnections, driver, url, user,
-                password, dbSettings.shareLinkedConnections);
+                password, dbSettings.shareLinkedConnections, dbSettings.maxLinkedConnections);
     }
 
     @Override
@@ -88,6 +88,16 @@ public class DbSettings extends SettingsBase {
      */
     public final boolean caseInsensitiveIdentifiers = get("CASE_INSENSITIVE_IDENTIFIERS", false);
 
+    /**
+     * Database setting <code>CREATE_INDEX_PARALLELISM</code> (default: the
+     * number of available processors, but not more than 4).
+     * The maximum number of threads that read and sort rows of a large table
+     * when an index is created in a persistent database. Each thread reads its
+     * own range of row keys. Set to 1 to read rows with a single thread.
+     */
+    public final int createIndexParallelism = get("CREATE_INDEX_PARALLELISM",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     /**
      * Database setting <code>DB_CLOSE_ON_EXIT</code> (default: true).
      * Close the database when the virtual machine exits normally, using a
@@ -136,6 +146,15 @@ public class DbSettings extends SettingsBase {
     public final int estimatedFunctionTableRows = get(
             "ESTIMATED_FUNCTION_TABLE_ROWS", 1000);
 
+    /**
+     * Database setting <code>LINKED_SCAN_PARALLELISM</code> (default: 1).
+     * The maximum number of parts a large scan of a linked table with a single
+     * column integer primary key is split into. The parts are read in parallel
+     * using additional connections, if they are available. The default is 1,
+     * meaning scans are not split.
+     */
+    public final int linkedScanParallelism = get("LINKED_SCAN_PARALLELISM", 1);
+
     /**
      * Database setting <code>LOB_TIMEOUT</code> (default: 300000,
      * which means 5 minutes).
@@ -151,6 +170,14 @@ public class DbSettings extends SettingsBase {
      */
     public final int maxCompactTime = get("MAX_COMPACT_TIME", 200);
 
+    /**
+     * Database setting <code>MAX_LINKED_CONNECTIONS</code> (default: 8).
+     * The maximum number of connections to the same target database used by
+     * linked tables at the same time. Sessions wait for a free connection up
+     * to the lock timeout when this limit is reached.
+     */
+    public final int maxLinkedConnections = get("MAX_LINKED_CONNECTIONS", 8);
+
     /**
      * Database setting <code>MAX_QUERY_TIMEOUT</code> (default: 0).
      * The maximum timeout of a query in milliseconds. The default is 0, meaning
@@ -260,6 +287,25 @@ public class DbSettings extends SettingsBase {
     public final boolean shareLinkedConnections = get(
             "SHARE_LINKED_CONNECTIONS", true);
 
+    /**
+     * Database setting <code>SHARED_QUERY_CACHE_SIZE</code> (default: 256).
+     * The size of the database-wide cache of idle query plans, in number of
+     * plans. Plans of SELECT statements that were evicted from the query cache
+     * of a session or left in it when the session was closed are kept there
+     * and handed over to other sessions that prepare the same statement with
+     * the same settings. Set to 0 to disable this cache.
+     */
+    public final int sharedQueryCacheSize = get("SHARED_QUERY_CACHE_SIZE", 256);
+
+    /**
+     * Database setting <code>SHARED_RESULT_CACHE_SIZE</code> (default: 0).
+     * The size of the database-wide cache of query results, in KB. Results of
+     * deterministic queries are shared between sessions with READ COMMITTED
+     * isolation level until one of the tables used by the query is changed.
+     * Set to 0 to disable this cache.
+     */
+    public final int sharedResultCacheSize = get("SHARED_RESULT_CACHE_SIZE", 0);
+
     /**
      * Database setting <code>DEFAULT_TABLE_ENGINE</code>
      * (default: null).
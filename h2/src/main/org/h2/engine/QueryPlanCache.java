@@ -0,0 +1,267 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+import org.h2.command.Prepared;
+import org.h2.command.query.Query;
+import org.h2.expression.ExpressionVisitor;
+import org.h2.expression.Parameter;
+import org.h2.table.QueryExpressionTable;
+import org.h2.table.Table;
+import org.h2.util.TimeZoneProvider;
+
+/**
+ * Database-wide cache of idle query plans.
+ * <p>
+ * Sessions keep prepared statements in their own small query caches. When a
+ * statement is evicted from such cache or the session is closed, the plan of a
+ * query that may be executed by other sessions is moved here. A session that
+ * prepares the same SQL with the same settings takes the plan from this cache
+ * instead of parsing and optimizing the statement again. A plan is owned by
+ * only one session at a time, because it also contains execution state.
+ * </p>
+ */
+public final class QueryPlanCache {
+
+    private final int maxSize;
+
+    /**
+     * Idle plans, the least recently used entries first.
+     */
+    private final LinkedHashMap<Key, ArrayList<Prepared>> plans = new LinkedHashMap<>(64, 0.75f, true);
+
+    private int size;
+
+    private long modificationMetaId = -1L;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates new cache.
+     *
+     * @param maxSize the maximum number of idle plans
+     */
+    QueryPlanCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Takes an idle plan of the specified SQL statement prepared with the same
+     * settings as the current settings of the specified session and binds it
+     * to this session.
+     *
+     * @param session the session
+     * @param sql the SQL statement
+     * @return the plan, or {@code null} if there is no such plan
+     */
+    Prepared take(SessionLocal session, String sql) {
+        Key key = new Key(session, sql);
+        Prepared prepared;
+        synchronized (this) {
+            if (!checkModificationMetaId(session.getDatabase().getModificationMetaId())) {
+                return null;
+            }
+            ArrayList<Prepared> list = plans.get(key);
+            if (list == null) {
+                return null;
+            }
+            prepared = list.remove(list.size() - 1);
+            if (list.isEmpty()) {
+                plans.remove(key);
+            }
+            size--;
+            hits++;
+        }
+        prepared.setSession(session);
+        ((Query) prepared).clearLastResult();
+        for (Parameter p : prepared.getParameters()) {
+            p.setValue(null);
+        }
+        return prepared;
+    }
+
+    /**
+     * Adds an idle plan of the specified SQL statement, if it can be used by
+     * other sessions.
+     *
+     * @param session the session that prepared the plan, its settings must be
+     *            the same as during preparation of the plan
+     * @param sql the SQL statement
+     * @param prepared the plan
+     * @param metaId the modification metadata id during preparation of the
+     *            plan
+     */
+    void offer(SessionLocal session, String sql, Prepared prepared, long metaId) {
+        if (!isShareable(prepared)) {
+            return;
+        }
+        Key key = new Key(session, sql);
+        synchronized (this) {
+            if (!checkModificationMetaId(metaId)) {
+                return;
+            }
+            plans.computeIfAbsent(key, k -> new ArrayList<>(1)).add(prepared);
+            if (++size > maxSize) {
+                Iterator<ArrayList<Prepared>> i = plans.values().iterator();
+                ArrayList<Prepared> eldest = i.next();
+                eldest.remove(eldest.size() - 1);
+                if (eldest.isEmpty()) {
+                    i.remove();
+                }
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Records that the session had to parse a statement whose plan could be
+     * taken from this cache.
+     *
+     * @param prepared the new plan
+     */
+    void recordMiss(Prepared prepared) {
+        if (isShareable(prepared)) {
+            synchronized (this) {
+                misses++;
+            }
+        }
+    }
+
+    private boolean checkModificationMetaId(long metaId) {
+        if (metaId > modificationMetaId) {
+            plans.clear();
+            size = 0;
+            modificationMetaId = metaId;
+        }
+        return metaId == modificationMetaId;
+    }
+
+    /**
+     * Returns whether the plan may be executed by other sessions. Only plans
+     * of queries without derived tables, views, and local temporary tables can
+     * be shared, such tables have indexes bound to the session.
+     *
+     * @param prepared the plan
+     * @return whether the plan may be executed by other sessions
+     */
+    private static boolean isShareable(Prepared prepared) {
+        if (!(prepared instanceof Query) || !prepared.isCacheable() || prepared.getCteCleanups() != null
+                || prepared.isWithParamValues()) {
+            return false;
+        }
+        HashSet<DbObject> dependencies = new HashSet<>();
+        if (!((Query) prepared).isEverything(ExpressionVisitor.getDependenciesVisitor(dependencies))) {
+            return false;
+        }
+        for (DbObject object : dependencies) {
+            if (object instanceof Table) {
+                Table table = (Table) object;
+                if (table instanceof QueryExpressionTable || table.isTemporary() && !table.isGlobalTemporary()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of idle plans.
+     *
+     * @return the number of idle plans
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of plans taken from this cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of shareable statements that were parsed, because
+     * this cache had no plan for them.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Settings of a session that affect parsing and optimization of a
+     * statement.
+     */
+    static final class Key {
+
+        private final String sql;
+
+        private final User user;
+
+        private final String schemaName;
+
+        private final String[] schemaSearchPath;
+
+        private final BitSet nonKeywords;
+
+        private final TimeZoneProvider timeZone;
+
+        private final int flags;
+
+        private final int hash;
+
+        Key(SessionLocal session, String sql) {
+            this.sql = sql;
+            user = session.getUser();
+            schemaName = session.getCurrentSchemaName();
+            schemaSearchPath = session.getSchemaSearchPath();
+            nonKeywords = session.getNonKeywords();
+            timeZone = session.currentTimeZone();
+            flags = (session.isTruncateLargeLength() ? 1 : 0) | (session.isVariableBinary() ? 2 : 0)
+                    | (session.isOldInformationSchema() ? 4 : 0) | (session.isQuirksMode() ? 8 : 0)
+                    | (session.getAllowLiterals() ? 16 : 0);
+            hash = Objects.hash(sql, user, schemaName, Arrays.hashCode(schemaSearchPath), nonKeywords, timeZone,
+                    flags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && sql.equals(other.sql) && user == other.user
+                    && Objects.equals(schemaName, other.schemaName)
+                    && Arrays.equals(schemaSearchPath, other.schemaSearchPath)
+                    && Objects.equals(nonKeywords, other.nonKeywords) && timeZone.equals(other.timeZone)
+                    && flags == other.flags;
+        }
+
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.h2.result.LocalResult;
+import org.h2.value.Value;
+
+/**
+ * Database-wide cache of query results.
+ * <p>
+ * Results are keyed by the plan of the query, the settings of the session that
+ * affect evaluation, the parameter values, and the maximum number of rows. An
+ * entry is valid while the maximum data modification id of the tables used by
+ * the query doesn't exceed the modification id at the start of the statement
+ * that computed the result. Only sessions with READ COMMITTED isolation level
+ * and without uncommitted changes use this cache, other sessions may see
+ * different rows.
+ * </p>
+ */
+public final class QueryResultCache {
+
+    /**
+     * The estimated memory used by an entry in addition to its rows.
+     */
+    private static final int ENTRY_MEMORY = 256;
+
+    private final long maxMemory;
+
+    /**
+     * Cached results, the least recently used entries first.
+     */
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long memory;
+
+    private long modificationMetaId = -1L;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates new cache.
+     *
+     * @param maxMemory the maximum estimated memory used by cached results,
+     *            in bytes
+     */
+    QueryResultCache(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns whether the specified session may use this cache.
+     *
+     * @param session the session
+     * @return whether the session reads the latest committed data
+     */
+    public static boolean canUse(SessionLocal session) {
+        return session.getIsolationLevel() == IsolationLevel.READ_COMMITTED && !session.hasPendingTransaction();
+    }
+
+    /**
+     * Returns a copy of the cached result of the specified query.
+     *
+     * @param session the session
+     * @param plan the plan of the query
+     * @param params the parameter values
+     * @param limit the maximum number of rows
+     * @param dataModificationId the current maximum data modification id of
+     *            the tables used by the query
+     * @return the copy of the result, or {@code null} if there is no valid
+     *         result
+     */
+    public LocalResult get(SessionLocal session, String plan, Value[] params, long limit,
+            long dataModificationId) {
+        Key key = new Key(session, plan, params, limit);
+        LocalResult result;
+        synchronized (this) {
+            Entry entry = checkModificationMetaId(session.getDatabase().getModificationMetaId())
+                    ? results.get(key) : null;
+            if (entry == null || entry.evaluated < dataModificationId) {
+                if (entry != null) {
+                    results.remove(key);
+                    memory -= entry.memory;
+                }
+                misses++;
+                return null;
+            }
+            hits++;
+            result = entry.result;
+        }
+        return result.createShallowCopy(session);
+    }
+
+    /**
+     * Adds the result of the specified query. Results that aren't completely
+     * in memory or that are too large are not cached.
+     *
+     * @param session the session that computed the result
+     * @param plan the plan of the query
+     * @param params the parameter values
+     * @param limit the maximum number of rows
+     * @param result the result
+     * @param evaluated the data modification id at the start of the statement
+     */
+    public void put(SessionLocal session, String plan, Value[] params, long limit, LocalResult result,
+            long evaluated) {
+        long metaId = session.getDatabase().getModificationMetaId();
+        if (!result.isInMemory()) {
+            return;
+        }
+        LocalResult copy = result.createShallowCopy(session);
+        if (copy == null) {
+            return;
+        }
+        long m = ENTRY_MEMORY + plan.length() * 2L;
+        int columnCount = copy.getVisibleColumnCount();
+        while (copy.next()) {
+            m += Constants.MEMORY_ARRAY + columnCount * Constants.MEMORY_POINTER;
+            for (Value v : copy.currentRow()) {
+                m += v.getMemory();
+            }
+            if (m > maxMemory / 4) {
+                return;
+            }
+        }
+        copy.reset();
+        Entry entry = new Entry(copy, evaluated, m);
+        Key key = new Key(session, plan, params, limit);
+        synchronized (this) {
+            if (!checkModificationMetaId(metaId)) {
+                return;
+            }
+            Entry old = results.put(key, entry);
+            if (old != null) {
+                memory -= old.memory;
+            }
+            memory += m;
+            for (Iterator<Entry> i = results.values().iterator(); memory > maxMemory;) {
+                memory -= i.next().memory;
+                i.remove();
+            }
+        }
+    }
+
+    private boolean checkModificationMetaId(long metaId) {
+        if (metaId > modificationMetaId) {
+            results.clear();
+            memory = 0L;
+            modificationMetaId = metaId;
+        }
+        return metaId == modificationMetaId;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int getSize() {
+        return results.size();
+    }
+
+    /**
+     * Returns the estimated memory used by cached results.
+     *
+     * @return the estimated memory in bytes
+     */
+    public synchronized long getMemory() {
+        return memory;
+    }
+
+    /**
+     * Returns the number of results taken from this cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups without a valid result.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static final class Entry {
+
+        final LocalResult result;
+
+        final long evaluated;
+
+        final long memory;
+
+        Entry(LocalResult result, long evaluated, long memory) {
+            this.result = result;
+            this.evaluated = evaluated;
+            this.memory = memory;
+        }
+
+    }
+
+    /**
+     * The key of a cached result.
+     */
+    private static final class Key {
+
+        private final QueryPlanCache.Key planKey;
+
+        private final Value[] params;
+
+        private final long limit;
+
+        private final int hash;
+
+        Key(SessionLocal session, String plan, Value[] params, long limit) {
+            planKey = new QueryPlanCache.Key(session, plan);
+            this.params = params;
+            this.limit = limit;
+            hash = (planKey.hashCode() * 31 + Arrays.hashCode(params)) * 31 + Long.hashCode(limit);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && limit == other.limit && planKey.equals(other.planKey)
+                    && Arrays.equals(params, other.params);
+        }
+
+    }
+
+}
@@ -5,10 +5,13 @@
  */
 package org.h2.engine;
 
+import java.sql.Statement;
 import java.util.ArrayList;
 
+import org.h2.api.ErrorCode;
 import org.h2.command.CommandInterface;
 import org.h2.jdbc.meta.DatabaseMeta;
+import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.result.ResultInterface;
 import org.h2.store.DataHandler;
@@ -98,6 +101,16 @@ public abstract class Session implements CastDataProvider, AutoCloseable {
 
     volatile StaticSettings staticSettings;
 
+    /**
+     * The command of the batch that is currently executed, or {@code null}.
+     */
+    volatile CommandInterface batchCommand;
+
+    /**
+     * Whether the batch that is currently executed was canceled.
+     */
+    volatile boolean batchCanceled;
+
     Session() {
     }
 
@@ -118,6 +131,75 @@ public abstract class Session implements CastDataProvider, AutoCloseable {
      */
     public abstract CommandInterface prepareCommand(String sql, int fetchSize);
 
+    /**
+     * Executes the specified data change or DDL commands as a batch. If a
+     * command fails, the remaining commands are still executed.
+     *
+     * @param batch the SQL commands
+     * @param exceptions the array to store exceptions of failed commands
+     * @return the update counts, {@link Statement#EXECUTE_FAILED} for failed
+     *         commands
+     */
+    public long[] executeBatch(ArrayList<String> batch, DbException[] exceptions) {
+        int size = batch.size();
+        long[] result = new long[size];
+        batchCanceled = false;
+        try {
+            for (int i = 0; i < size; i++) {
+                if (checkBatchCanceled(i, result, exceptions)) {
+                    continue;
+                }
+                try (CommandInterface command = prepareCommand(batch.get(i), Integer.MAX_VALUE)) {
+                    batchCommand = command;
+                    if (batchCanceled) {
+                        command.cancel();
+                    }
+                    result[i] = command.executeUpdate(null).getUpdateCount();
+                } catch (RuntimeException e) {
+                    exceptions[i] = DbException.convert(e);
+                    result[i] = Statement.EXECUTE_FAILED;
+                } finally {
+                    batchCommand = null;
+                }
+            }
+        } finally {
+            batchCanceled = false;
+        }
+        return result;
+    }
+
+    /**
+     * Marks the command with the specified index as failed if the batch was
+     * canceled.
+     *
+     * @param i the index of the command
+     * @param result the update counts
+     * @param exceptions the exceptions of failed commands
+     * @return whether the batch was canceled
+     */
+    final boolean checkBatchCanceled(int i, long[] result, DbException[] exceptions) {
+        if (batchCanceled) {
+            exceptions[i] = DbException.get(ErrorCode.STATEMENT_WAS_CANCELED);
+            result[i] = Statement.EXECUTE_FAILED;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the batch that is executed by
+     * {@link #executeBatch(ArrayList, DbException[])}. The running command is
+     * canceled and the remaining commands are not executed. This method may
+     * be called from another thread.
+     */
+    public void cancelBatch() {
+        batchCanceled = true;
+        CommandInterface command = batchCommand;
+        if (command != null) {
+            command.cancel();
+        }
+    }
+
     /**
      * Roll back pending transactions and close the session.
      */
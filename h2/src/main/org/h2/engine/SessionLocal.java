@@ -5,8 +5,10 @@
  */
 package org.h2.engine;
 
+import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
@@ -22,6 +24,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.h2.api.ErrorCode;
 import org.h2.api.JavaObjectSerializer;
 import org.h2.command.Command;
+import org.h2.command.CommandContainer;
 import org.h2.command.CommandInterface;
 import org.h2.command.Parser;
 import org.h2.command.Prepared;
@@ -37,6 +40,7 @@ import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.message.TraceSystem;
 import org.h2.mvstore.MVMap;
+import org.h2.mvstore.db.IndexBuildProgress;
 import org.h2.mvstore.db.MVIndex;
 import org.h2.mvstore.db.MVTable;
 import org.h2.mvstore.db.Store;
@@ -49,6 +53,7 @@ import org.h2.store.DataHandler;
 import org.h2.store.InDoubtTransaction;
 import org.h2.store.LobStorageFrontend;
 import org.h2.table.Table;
+import org.h2.table.TableLinkConnection;
 import org.h2.util.DateTimeUtils;
 import org.h2.util.HasSQL;
 import org.h2.util.NetworkConnectionInfo;
@@ -171,6 +176,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     private boolean autoCommitAtTransactionEnd;
     private String currentTransactionName;
     private volatile long cancelAtNs;
+    private volatile IndexBuildProgress indexBuildProgress;
     private final ValueTimestampTimeZone sessionStart;
     private Instant commandStartOrEnd;
     private ValueTimestampTimeZone currentTimestamp;
@@ -214,6 +220,12 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     private ArrayList<ValueLob> temporaryLobs;
 
+    /**
+     * The pools of linked table connections with connections used by this
+     * session.
+     */
+    private ArrayList<TableLinkConnection> linkConnections;
+
     private Transaction transaction;
     private final AtomicReference<State> state = new AtomicReference<>(State.INIT);
     private long startStatement = -1;
@@ -232,6 +244,12 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     private long snapshotDataModificationId;
 
+    /**
+     * The data modification id of the database at the start of the current
+     * statement, before its snapshot was taken.
+     */
+    private long statementDataModificationId;
+
     /**
      * Set of database object ids to be released at the end of transaction
      */
@@ -557,6 +575,64 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return prepareLocal(sql);
     }
 
+    /**
+     * Executes the specified data change or DDL commands as a batch. In
+     * auto-commit mode the commands are executed in one transaction that is
+     * committed after the last command. A failed command is rolled back, but
+     * the remaining commands are still executed. If the whole transaction was
+     * rolled back, for example due to a deadlock, previous commands of this
+     * transaction are also reported as failed.
+     *
+     * @param batch the SQL commands
+     * @param exceptions the array to store exceptions of failed commands
+     * @return the update counts, {@link Statement#EXECUTE_FAILED} for
+     *         failed commands
+     */
+    @Override
+    public synchronized long[] executeBatch(ArrayList<String> batch, DbException[] exceptions) {
+        int size = batch.size();
+        long[] result = new long[size];
+        boolean unit = autoCommit;
+        batchCanceled = false;
+        try {
+            for (int i = 0, unitStart = 0; i < size; i++) {
+                if (checkBatchCanceled(i, result, exceptions)) {
+                    continue;
+                }
+                if (unit && autoCommit) {
+                    begin();
+                }
+                if (!hasPendingTransaction()) {
+                    unitStart = i;
+                }
+                try (Command command = prepareLocal(batch.get(i))) {
+                    batchCommand = command;
+                    if (batchCanceled) {
+                        command.cancel();
+                    }
+                    result[i] = command.executeUpdate(null).getUpdateCount();
+                } catch (RuntimeException e) {
+                    exceptions[i] = DbException.convert(e);
+                    result[i] = Statement.EXECUTE_FAILED;
+                    if (unit && autoCommit) {
+                        Arrays.fill(result, unitStart, i, Statement.EXECUTE_FAILED);
+                    }
+                } finally {
+                    batchCommand = null;
+                }
+            }
+            if (unit && !autoCommit && !isClosed()) {
+                commit(false);
+            }
+        } finally {
+            batchCanceled = false;
+            if (unit && !autoCommit && !isClosed()) {
+                rollback();
+            }
+        }
+        return result;
+    }
+
     /**
      * Parse and prepare the given SQL statement. This method also checks the
      * rights.
@@ -629,6 +705,15 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
                 }
             }
         }
+        QueryPlanCache planCache = queryCache != null ? getDatabase().getQueryPlanCache() : null;
+        if (planCache != null) {
+            Prepared prepared = planCache.take(this, sql);
+            if (prepared != null) {
+                command = new CommandContainer(this, sql, prepared);
+                addToQueryCache(sql, command);
+                return command;
+            }
+        }
         Parser parser = new Parser(this);
         try {
             command = parser.prepareCommand(sql);
@@ -638,12 +723,48 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         }
         if (queryCache != null) {
             if (command.isCacheable()) {
-                queryCache.put(sql, command);
+                addToQueryCache(sql, command);
+                if (planCache != null && command instanceof CommandContainer) {
+                    planCache.recordMiss(((CommandContainer) command).getPrepared());
+                }
             }
         }
         return command;
     }
 
+    private void addToQueryCache(String sql, Command command) {
+        if (queryCache.size() >= queryCacheSize && !queryCache.containsKey(sql)) {
+            Iterator<Map.Entry<String, Command>> i = queryCache.entrySet().iterator();
+            Map.Entry<String, Command> eldest = i.next();
+            i.remove();
+            offerQueryPlan(eldest.getKey(), eldest.getValue());
+        }
+        queryCache.put(sql, command);
+    }
+
+    /**
+     * Clears the query cache. Idle plans are moved to the database-wide
+     * cache, so this method must be called before the change of settings
+     * that affect parsing.
+     */
+    private void clearQueryCache() {
+        if (queryCache != null) {
+            if (getDatabase().getQueryPlanCache() != null) {
+                for (Map.Entry<String, Command> entry : queryCache.entrySet()) {
+                    offerQueryPlan(entry.getKey(), entry.getValue());
+                }
+            }
+            queryCache.clear();
+        }
+    }
+
+    private void offerQueryPlan(String sql, Command command) {
+        QueryPlanCache planCache = getDatabase().getQueryPlanCache();
+        if (planCache != null && command.canReuse() && command instanceof CommandContainer) {
+            planCache.offer(this, sql, ((CommandContainer) command).getPrepared(), modificationMetaID);
+        }
+    }
+
     /**
      * Arranges for the specified database object id to be released
      * at the end of the current transaction.
@@ -676,6 +797,9 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
             try {
                 markUsedTablesAsUpdated();
                 transaction.commit();
+                // results evaluated while the transaction was committing
+                // don't contain its changes
+                markUsedTablesAsUpdated();
                 removeTemporaryLobs(true);
                 endTransaction();
             } finally {
@@ -761,6 +885,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     }
 
     private void endTransaction() {
+        releaseLinkConnections(true);
         if (removeLobMap != null && !removeLobMap.isEmpty()) {
             for (ValueLob v : removeLobMap.values()) {
                 v.remove();
@@ -787,6 +912,17 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return snapshotDataModificationId;
     }
 
+    /**
+     * Returns the data modification id of the database at the start of the
+     * current statement. Changes committed after that may be invisible to
+     * the statement.
+     *
+     * @return the data modification id at the start of the statement
+     */
+    public long getStatementDataModificationId() {
+        return statementDataModificationId;
+    }
+
     /**
      * Fully roll back the current transaction.
      */
@@ -834,9 +970,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         // Because cache may have captured query result (in Query.lastResult),
         // which is based on data from uncommitted transaction.,
         // It is not valid after rollback, therefore cache has to be cleared.
-        if (queryCache != null) {
-            queryCache.clear();
-        }
+        clearQueryCache();
     }
 
     @Override
@@ -880,9 +1014,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         // so, we should prevent double-closure
         if (state.getAndSet(State.CLOSED) != State.CLOSED) {
             try {
-                if (queryCache != null) {
-                    queryCache.clear();
-                }
+                clearQueryCache();
                 database.throwLastBackgroundException();
 
                 database.checkPowerOff();
@@ -1292,14 +1424,13 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     }
 
     public void setAllowLiterals(boolean b) {
+        clearQueryCache();
         this.allowLiterals = b;
     }
 
     public void setCurrentSchema(Schema schema) {
         modificationId++;
-        if (queryCache != null) {
-            queryCache.clear();
-        }
+        clearQueryCache();
         this.currentSchemaName = schema.getName();
     }
 
@@ -1415,6 +1546,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
 
     public void setSchemaSearchPath(String[] schemas) {
         modificationId++;
+        clearQueryCache();
         this.schemaSearchPath = schemas;
     }
 
@@ -1605,7 +1737,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
                 getDatabase().shutdownImmediately();
                 throw DbException.get(ErrorCode.DATABASE_IS_CLOSED, backgroundException);
             }
-            transaction = store.getTransactionStore().begin(this, this.lockTimeout, id, isolationLevel);
+            transaction = store.getTransactionStore().beginDeferred(this, this.lockTimeout, id, isolationLevel);
             startStatement = -1;
         }
         return transaction;
@@ -1624,6 +1756,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     @SuppressWarnings("incomplete-switch")
     public void startStatementWithinTransaction(Command command) {
+        statementDataModificationId = getDatabase().getModificationDataId();
         Transaction transaction = getTransaction();
         if (transaction != null) {
             HashSet<MVMap<Object,VersionedValue<Object>>> maps = new HashSet<>();
@@ -1701,12 +1834,44 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     public void endStatement() {
         setCurrentCommand(null);
+        releaseLinkConnections(false);
         if (hasTransaction()) {
             transaction.markStatementEnd();
         }
         startStatement = -1;
     }
 
+    /**
+     * Register a pool of linked table connections with a connection used by
+     * this session. The connection is returned to the pool at the end of the
+     * statement, or at the end of the transaction if it still has open
+     * results.
+     *
+     * @param connection the pool of connections
+     */
+    public void addLinkConnection(TableLinkConnection connection) {
+        if (linkConnections == null) {
+            linkConnections = Utils.newSmallArrayList();
+        } else {
+            for (TableLinkConnection c : linkConnections) {
+                if (c == connection) {
+                    return;
+                }
+            }
+        }
+        linkConnections.add(connection);
+    }
+
+    private void releaseLinkConnections(boolean transactionEnd) {
+        if (linkConnections != null) {
+            for (int i = linkConnections.size() - 1; i >= 0; i--) {
+                if (!linkConnections.get(i).release(this, transactionEnd)) {
+                    linkConnections.remove(i);
+                }
+            }
+        }
+    }
+
     /**
      * Clear the view cache for this session.
      */
@@ -1760,6 +1925,24 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return transaction == null ? 0 : transaction.getBlockerId();
     }
 
+    /**
+     * Returns the progress of an index that is being built by this session.
+     *
+     * @return the progress, or {@code null} if no index is being built
+     */
+    public IndexBuildProgress getIndexBuildProgress() {
+        return indexBuildProgress;
+    }
+
+    /**
+     * Sets the progress of an index that is being built by this session.
+     *
+     * @param indexBuildProgress the progress, or {@code null}
+     */
+    public void setIndexBuildProgress(IndexBuildProgress indexBuildProgress) {
+        this.indexBuildProgress = indexBuildProgress;
+    }
+
     @Override
     public void onRollback(MVMap<Object, VersionedValue<Object>> map, Object key,
                             VersionedValue<Object> existingValue,
@@ -1891,6 +2074,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      * @param nonKeywords set of non-keywords, or {@code null}
      */
     public void setNonKeywords(BitSet nonKeywords) {
+        clearQueryCache();
         this.nonKeywords = nonKeywords;
     }
 
@@ -1922,6 +2106,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     public void setTimeZone(TimeZoneProvider timeZone) {
         if (!timeZone.equals(this.timeZone)) {
+            clearQueryCache();
             this.timeZone = timeZone;
             ValueTimestampTimeZone ts = currentTimestamp;
             if (ts != null) {
@@ -1997,6 +2182,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      *            throw an exception
      */
     public void setTruncateLargeLength(boolean truncateLargeLength) {
+        clearQueryCache();
         this.truncateLargeLength = truncateLargeLength;
     }
 
@@ -2018,6 +2204,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      *            parse it as is
      */
     public void setVariableBinary(boolean variableBinary) {
+        clearQueryCache();
         this.variableBinary = variableBinary;
     }
 
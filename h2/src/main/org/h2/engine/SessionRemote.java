@@ -8,7 +8,11 @@ package org.h2.engine;
 import java.io.IOException;
 import java.net.Socket;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.h2.api.DatabaseEventListener;
 import org.h2.api.ErrorCode;
 import org.h2.api.JavaObjectSerializer;
@@ -25,6 +29,7 @@ import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.message.TraceSystem;
 import org.h2.result.ResultInterface;
+import org.h2.result.ResultRemote;
 import org.h2.store.DataHandler;
 import org.h2.store.FileStore;
 import org.h2.store.LobStorageFrontend;
@@ -73,16 +78,25 @@ public final class SessionRemote extends Session implements DataHandler {
     public static final int LOB_READ = 17;
     public static final int SESSION_PREPARE_READ_PARAMS2 = 18;
     public static final int GET_JDBC_META = 19;
+    public static final int SESSION_EXECUTE_BATCH = 20;
 
     public static final int STATUS_ERROR = 0;
     public static final int STATUS_OK = 1;
     public static final int STATUS_CLOSED = 2;
     public static final int STATUS_OK_STATE_CHANGED = 3;
 
+    /**
+     * The maximum number of pipelined requests whose responses weren't read.
+     * Responses are read when this number is reached, so the server never
+     * blocks on sending them while the client is sending requests.
+     */
+    private static final int MAX_PENDING_RESPONSES = 256;
+
     private TraceSystem traceSystem;
     private Trace trace;
     private ArrayList<Transfer> transferList = Utils.newSmallArrayList();
     private int nextId;
+    private volatile int batchId = -1;
     private boolean autoCommit = true;
     private ConnectionInfo connectionInfo;
     private String databaseName;
@@ -91,6 +105,7 @@ public final class SessionRemote extends Session implements DataHandler {
     private final Object lobSyncObject = new Object();
     private String sessionId;
     private int clientVersion;
+    private String networkCompression;
     private boolean autoReconnect;
     private int lastReconnect;
     private Session embedded;
@@ -109,6 +124,45 @@ public final class SessionRemote extends Session implements DataHandler {
 
     private volatile DynamicSettings dynamicSettings;
 
+    /**
+     * The result with a sent prefetch request whose response wasn't read yet.
+     */
+    private ResultRemote prefetchingResult;
+
+    /**
+     * Whether independent requests are sent without waiting for their
+     * responses.
+     */
+    private boolean pipelining;
+
+    /**
+     * The pipelined requests whose responses weren't read yet, in order of
+     * requests.
+     */
+    private final ArrayDeque<PendingResponse> pendingResponses = new ArrayDeque<>();
+
+    /**
+     * Pipelined requests that failed when their responses were read in
+     * advance, with exceptions that weren't thrown yet.
+     */
+    private final LinkedHashMap<PendingResponse, DbException> failedResponses = new LinkedHashMap<>();
+
+    /**
+     * A response to a request that was sent without waiting for it.
+     */
+    public interface PendingResponse {
+
+        /**
+         * Read the response.
+         *
+         * @param transfer the transfer object
+         * @return the exception sent by the server, or {@code null}
+         * @throws IOException on I/O exception
+         */
+        DbException read(Transfer transfer) throws IOException;
+
+    }
+
     public SessionRemote(ConnectionInfo ci) {
         this.connectionInfo = ci;
         oldInformationSchema = ci.getProperty("OLD_INFORMATION_SCHEMA", false);
@@ -159,8 +213,14 @@ public final class SessionRemote extends Session implements DataHandler {
                     timeZone = DateTimeUtils.getTimeZone();
                 }
                 trans.writeString(timeZone.getId());
+                if (clientVersion >= Constants.TCP_PROTOCOL_VERSION_21) {
+                    trans.writeString(networkCompression);
+                }
             }
             done(trans);
+            if (clientVersion >= Constants.TCP_PROTOCOL_VERSION_21) {
+                trans.setCompression(networkCompression);
+            }
             autoCommit = trans.readBoolean();
             return trans;
         } catch (DbException e) {
@@ -268,6 +328,13 @@ public final class SessionRemote extends Session implements DataHandler {
         for (int i = 0, count = 0; i < transferList.size(); i++) {
             Transfer transfer = transferList.get(i);
             try {
+                if (isPipelining()) {
+                    tracePipelinedOperation("SESSION_SET_AUTOCOMMIT", autoCommit ? 1 : 0);
+                    transfer.writeInt(SessionRemote.SESSION_SET_AUTOCOMMIT).
+                            writeBoolean(autoCommit);
+                    addPendingResponse(transfer, this::readStatus);
+                    return;
+                }
                 traceOperation("SESSION_SET_AUTOCOMMIT", autoCommit ? 1 : 0);
                 transfer.writeInt(SessionRemote.SESSION_SET_AUTOCOMMIT).
                         writeBoolean(autoCommit);
@@ -397,6 +464,12 @@ public final class SessionRemote extends Session implements DataHandler {
             serverList = StringUtils.quoteStringSQL(server);
             ci.setProperty("CLUSTER", Constants.CLUSTERING_ENABLED);
         }
+        String compression = ci.removeProperty("NETWORK_COMPRESSION", null);
+        if (compression != null) {
+            // Negotiated with the server, older servers don't know it
+            networkCompression = Transfer.normalizeCompression(compression);
+        }
+        pipelining = ci.removeProperty("NETWORK_PIPELINING", false);
         autoReconnect = ci.getProperty("AUTO_RECONNECT", false);
         // AUTO_SERVER implies AUTO_RECONNECT
         boolean autoServer = ci.getProperty("AUTO_SERVER", false);
@@ -480,6 +553,60 @@ public final class SessionRemote extends Session implements DataHandler {
         return new CommandRemote(this, transferList, sql, fetchSize);
     }
 
+    /**
+     * Executes the specified commands as a batch. All commands are sent to
+     * the server in one request, and the server executes them like an
+     * embedded session does.
+     */
+    @Override
+    public long[] executeBatch(ArrayList<String> batch, DbException[] exceptions) {
+        if (cluster || clientVersion < Constants.TCP_PROTOCOL_VERSION_22) {
+            return super.executeBatch(batch, exceptions);
+        }
+        int size = batch.size();
+        long[] result = new long[size];
+        synchronized (this) {
+            checkClosed();
+            Transfer transfer = transferList.get(0);
+            int id = getNextId();
+            try {
+                traceOperation("SESSION_EXECUTE_BATCH", id);
+                transfer.writeInt(SESSION_EXECUTE_BATCH).writeInt(id).writeInt(size);
+                for (String sql : batch) {
+                    transfer.writeString(sql);
+                }
+                batchId = id;
+                try {
+                    done(transfer);
+                } finally {
+                    batchId = -1;
+                }
+                for (int i = 0; i < size; i++) {
+                    result[i] = transfer.readRowCount();
+                    if (transfer.readBoolean()) {
+                        exceptions[i] = readException(transfer);
+                    }
+                }
+                setAutoCommitFromServer(transfer.readBoolean());
+            } catch (IOException e) {
+                removeServer(e, 0, 1);
+                throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, e, e.toString());
+            }
+            readSessionState();
+        }
+        return result;
+    }
+
+    @Override
+    public void cancelBatch() {
+        int id = batchId;
+        if (id >= 0) {
+            cancelStatement(id);
+        } else {
+            super.cancelBatch();
+        }
+    }
+
     /**
      * Automatically re-connect if necessary and if configured to do so.
      *
@@ -549,6 +676,12 @@ public final class SessionRemote extends Session implements DataHandler {
         RuntimeException closeError = null;
         if (transferList != null) {
             synchronized (this) {
+                try {
+                    readPendingResponses(null);
+                } catch (DbException e) {
+                    // nothing depends on the results of pipelined requests
+                    trace.error(e, "close");
+                }
                 for (Transfer transfer : transferList) {
                     try {
                         traceOperation("SESSION_CLOSE", 0);
@@ -657,17 +790,155 @@ public final class SessionRemote extends Session implements DataHandler {
     }
 
     /**
-     * Write the operation to the trace system if debug trace is enabled.
+     * Write the operation to the trace system if debug trace is enabled. This
+     * method is called before each operation, it also reads the response to
+     * the pending prefetch request of a result and the responses to pipelined
+     * requests, if any, because responses are received in order of requests.
      *
      * @param operation the operation performed
      * @param id the id of the operation
+     * @throws DbException if one of the pipelined requests failed
      */
     public void traceOperation(String operation, int id) {
+        tracePipelinedOperation(operation, id);
+        readPendingResponses(null);
+    }
+
+    /**
+     * Write the operation to the trace system if debug trace is enabled. This
+     * method is called before each operation that is sent without waiting
+     * for its response, responses to previous pipelined requests are not read.
+     *
+     * @param operation the operation performed
+     * @param id the id of the operation
+     */
+    public void tracePipelinedOperation(String operation, int id) {
+        ResultRemote result = prefetchingResult;
+        if (result != null) {
+            prefetchingResult = null;
+            result.readPrefetchedRows();
+        }
         if (trace.isDebugEnabled()) {
             trace.debug("{0} {1}", operation, id);
         }
     }
 
+    /**
+     * Returns whether independent requests may be sent without waiting for
+     * their responses. Pipelining is enabled with the NETWORK_PIPELINING
+     * setting and is not used in cluster mode.
+     *
+     * @return whether pipelining is used
+     */
+    public boolean isPipelining() {
+        return pipelining && !cluster;
+    }
+
+    /**
+     * Send the written request and remember that its response should be read
+     * later.
+     *
+     * @param transfer the transfer object
+     * @param response the reader of the response
+     * @throws IOException on I/O exception
+     */
+    public void addPendingResponse(Transfer transfer, PendingResponse response) throws IOException {
+        transfer.flush();
+        pendingResponses.add(response);
+        if (pendingResponses.size() >= MAX_PENDING_RESPONSES) {
+            // the server doesn't read further requests when its responses
+            // aren't read, exceptions are thrown later
+            try {
+                PendingResponse r;
+                while ((r = pendingResponses.poll()) != null) {
+                    DbException e = r.read(transfer);
+                    if (e != null) {
+                        failedResponses.put(r, e);
+                    }
+                }
+            } catch (IOException e) {
+                pendingResponses.clear();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Remove the exception of the specified response read in advance,
+     * because it was thrown by the owner of the response.
+     *
+     * @param response the response
+     */
+    public void removeFailedResponse(PendingResponse response) {
+        failedResponses.remove(response);
+    }
+
+    /**
+     * Read the responses to pipelined requests. The exception of the
+     * specified response is not thrown, it should be reported by its owner.
+     *
+     * @param response the last response to read, or {@code null} to read all
+     *            pending responses
+     * @throws DbException the first exception of other pipelined requests,
+     *             if any
+     */
+    public void readPendingResponses(PendingResponse response) {
+        DbException exception = null;
+        for (Iterator<Map.Entry<PendingResponse, DbException>> i = failedResponses.entrySet().iterator();
+                i.hasNext();) {
+            Map.Entry<PendingResponse, DbException> e = i.next();
+            if (e.getKey() != response) {
+                exception = e.getValue();
+                i.remove();
+                break;
+            }
+        }
+        if (pendingResponses.isEmpty()) {
+            if (exception != null) {
+                throw exception;
+            }
+            return;
+        }
+        Transfer transfer = transferList.get(0);
+        try {
+            PendingResponse r;
+            do {
+                r = pendingResponses.remove();
+                DbException e = r.read(transfer);
+                if (e != null && r != response && exception == null) {
+                    exception = e;
+                }
+            } while (r != response && !pendingResponses.isEmpty());
+        } catch (IOException e) {
+            // responses to the remaining requests are lost
+            pendingResponses.clear();
+            removeServer(e, 0, 1);
+            throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, e, e.toString());
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private DbException readStatus(Transfer transfer) throws IOException {
+        try {
+            done(transfer);
+            return null;
+        } catch (DbException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Set the result with a pending prefetch request.
+     *
+     * @param result the result, or {@code null} if its prefetch request was
+     *            completed
+     */
+    public void setPrefetchingResult(ResultRemote result) {
+        prefetchingResult = result;
+    }
+
     @Override
     public void checkPowerOff() {
         // ok
@@ -19,6 +19,8 @@ import org.h2.expression.analysis.WindowFrameBound;
 import org.h2.expression.analysis.WindowFrameBoundType;
 import org.h2.expression.analysis.WindowFrameExclusion;
 import org.h2.expression.analysis.WindowFrameUnits;
+import org.h2.message.DbException;
+import org.h2.result.SortOrder;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
 import org.h2.value.TypeInfo;
@@ -29,6 +31,30 @@ import org.h2.value.Value;
  */
 public abstract class AbstractAggregate extends DataAnalysisOperation {
 
+    /**
+     * Moving window frames are evaluated by aggregation of all rows in each
+     * frame.
+     */
+    static final int MOVING_FRAME_RECOMPUTE = 0;
+
+    /**
+     * Moving window frames are evaluated incrementally by adding rows that
+     * enter the frame and removing rows that leave it.
+     */
+    static final int MOVING_FRAME_INVERSE = 1;
+
+    /**
+     * Moving window frames are evaluated with a monotonic deque of minimal
+     * values.
+     */
+    static final int MOVING_FRAME_MIN = 2;
+
+    /**
+     * Moving window frames are evaluated with a monotonic deque of maximal
+     * values.
+     */
+    static final int MOVING_FRAME_MAX = 3;
+
     /**
      * is this a DISTINCT aggregate
      */
@@ -155,6 +181,19 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
                 return;
             }
         }
+        if (!variableBounds && frame.getExclusion() == WindowFrameExclusion.EXCLUDE_NO_OTHERS) {
+            switch (getMovingFrameMode()) {
+            case MOVING_FRAME_INVERSE:
+                aggregateMovingFrameInverse(session, result, ordered, rowIdColumn, grouped);
+                return;
+            case MOVING_FRAME_MIN:
+                aggregateMovingFrameMinMax(session, result, ordered, rowIdColumn, grouped, true);
+                return;
+            case MOVING_FRAME_MAX:
+                aggregateMovingFrameMinMax(session, result, ordered, rowIdColumn, grouped, false);
+                return;
+            }
+        }
         // All other types of frames (slow)
         int size = ordered.size();
         for (int i = 0; i < size;) {
@@ -240,6 +279,97 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
         }
     }
 
+    /**
+     * Evaluates a frame with constant bounds and without exclusions. Both ends
+     * of such frame normally move only forward, so rows leaving the frame are
+     * removed from the aggregate data and rows entering it are added.
+     */
+    private void aggregateMovingFrameInverse(SessionLocal session, HashMap<Integer, Value> result,
+            ArrayList<Value[]> ordered, int rowIdColumn, boolean grouped) {
+        WindowFrame frame = over.getWindowFrame();
+        SortOrder sortOrder = getOverOrderBySort();
+        Object aggregateData = createAggregateData();
+        int size = ordered.size();
+        // Rows from start (inclusive) to end (exclusive) are aggregated
+        int start = 0, end = 0;
+        Value r = null;
+        for (int i = 0; i < size;) {
+            int newStart = frame.getStartIndex(session, ordered, sortOrder, i);
+            int newEnd = Math.max(WindowFrame.getEndIndex(over, session, ordered, sortOrder, i) + 1, newStart);
+            if (newStart != start || newEnd != end || r == null) {
+                if (newStart >= end || newStart < start || newEnd < end) {
+                    if (start != end) {
+                        aggregateData = createAggregateData();
+                    }
+                    start = end = newStart;
+                } else {
+                    for (; start < newStart; start++) {
+                        removeFromExpressions(session, aggregateData, ordered.get(start));
+                    }
+                }
+                for (; end < newEnd; end++) {
+                    updateFromExpressions(session, aggregateData, ordered.get(end));
+                }
+                r = getAggregatedValue(session, aggregateData);
+            }
+            i = processGroup(result, r, ordered, rowIdColumn, i, size, grouped);
+        }
+    }
+
+    /**
+     * Evaluates a frame with constant bounds and without exclusions for MIN
+     * or MAX aggregate. Indexes of rows with monotonic values are kept in a
+     * deque, the head of the deque points to the row with the result.
+     */
+    private void aggregateMovingFrameMinMax(SessionLocal session, HashMap<Integer, Value> result,
+            ArrayList<Value[]> ordered, int rowIdColumn, boolean grouped, boolean min) {
+        WindowFrame frame = over.getWindowFrame();
+        SortOrder sortOrder = getOverOrderBySort();
+        int size = ordered.size();
+        // Each row is added at most once, so the deque never wraps around
+        int[] deque = new int[size];
+        int head = 0, tail = 0;
+        int start = 0, end = 0;
+        Value r = null;
+        for (int i = 0; i < size;) {
+            int newStart = frame.getStartIndex(session, ordered, sortOrder, i);
+            int newEnd = WindowFrame.getEndIndex(over, session, ordered, sortOrder, i) + 1;
+            boolean changed = r == null;
+            if (newStart < start || newEnd < end) {
+                head = tail = 0;
+                end = newStart;
+                changed = true;
+            }
+            start = newStart;
+            for (; end < newEnd; end++) {
+                Value v = getMovingFrameValue(ordered.get(end));
+                if (v != null) {
+                    while (tail > head) {
+                        int cmp = session.compare(getMovingFrameValue(ordered.get(deque[tail - 1])), v);
+                        if (min ? cmp <= 0 : cmp >= 0) {
+                            break;
+                        }
+                        tail--;
+                    }
+                    deque[tail++] = end;
+                    changed = true;
+                }
+            }
+            while (head < tail && deque[head] < start) {
+                head++;
+                changed = true;
+            }
+            if (changed) {
+                Object aggregateData = createAggregateData();
+                if (head < tail) {
+                    updateFromExpressions(session, aggregateData, ordered.get(deque[head]));
+                }
+                r = getAggregatedValue(session, aggregateData);
+            }
+            i = processGroup(result, r, ordered, rowIdColumn, i, size, grouped);
+        }
+    }
+
     private int processGroup(HashMap<Integer, Value> result, Value r, ArrayList<Value[]> ordered,
             int rowIdColumn, int i, int size, boolean grouped) {
         Value[] firstRowInGroup = ordered.get(i), currentRowInGroup = firstRowInGroup;
@@ -276,6 +406,45 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
      */
     protected abstract void updateFromExpressions(SessionLocal session, Object aggregateData, Value[] array);
 
+    /**
+     * Returns how moving window frames with constant bounds and without
+     * exclusions can be evaluated for this aggregate.
+     *
+     * @return one of MOVING_FRAME_* constants
+     */
+    int getMovingFrameMode() {
+        return MOVING_FRAME_RECOMPUTE;
+    }
+
+    /**
+     * Removes the remembered expressions from the provided aggregate data.
+     * This method may be invoked only if {@link #getMovingFrameMode()} returns
+     * {@link #MOVING_FRAME_INVERSE}.
+     *
+     * @param session
+     *            the session
+     * @param aggregateData
+     *            aggregate data
+     * @param array
+     *            values of expressions
+     */
+    void removeFromExpressions(SessionLocal session, Object aggregateData, Value[] array) {
+        throw DbException.getInternalError();
+    }
+
+    /**
+     * Returns the value to compare from the remembered expressions. This
+     * method may be invoked only if {@link #getMovingFrameMode()} returns
+     * {@link #MOVING_FRAME_MIN} or {@link #MOVING_FRAME_MAX}.
+     *
+     * @param array
+     *            values of expressions
+     * @return the value, or {@code null} if this row should be ignored
+     */
+    Value getMovingFrameValue(Value[] array) {
+        throw DbException.getInternalError();
+    }
+
     @Override
     protected void updateAggregate(SessionLocal session, SelectGroups groupData, int groupRowId) {
         if (filterCondition == null || filterCondition.getBooleanValue(session)) {
@@ -411,6 +411,70 @@ public class Aggregate extends AbstractAggregate implements ExpressionWithFlags
         }
     }
 
+    @Override
+    int getMovingFrameMode() {
+        switch (aggregateType) {
+        case MIN:
+            return MOVING_FRAME_MIN;
+        case MAX:
+            return MOVING_FRAME_MAX;
+        default:
+        }
+        if (distinct) {
+            return MOVING_FRAME_RECOMPUTE;
+        }
+        switch (aggregateType) {
+        case COUNT_ALL:
+        case COUNT:
+            return MOVING_FRAME_INVERSE;
+        case SUM:
+        case AVG: {
+            // Only exact numeric types, sums of DOUBLE PRECISION and DECFLOAT
+            // values can't be reverted due to rounding and special values
+            int valueType = type.getValueType();
+            switch (valueType) {
+            case Value.BIGINT:
+            case Value.NUMERIC:
+                return MOVING_FRAME_INVERSE;
+            case Value.DOUBLE:
+                switch (args[0].getType().getValueType()) {
+                case Value.TINYINT:
+                case Value.SMALLINT:
+                case Value.INTEGER:
+                    return MOVING_FRAME_INVERSE;
+                default:
+                    return MOVING_FRAME_RECOMPUTE;
+                }
+            default:
+                return DataType.isIntervalType(valueType) ? MOVING_FRAME_INVERSE : MOVING_FRAME_RECOMPUTE;
+            }
+        }
+        default:
+            // Removal of values from the running mean and sum of squares of
+            // STDDEV_* and VAR_* isn't stable for values of different
+            // magnitude and for special values
+            return MOVING_FRAME_RECOMPUTE;
+        }
+    }
+
+    @Override
+    void removeFromExpressions(SessionLocal session, Object aggregateData, Value[] array) {
+        if (filterCondition == null || array[getNumExpressions() - 1].isTrue()) {
+            ((AggregateData) aggregateData).remove(session, args.length == 0 ? null : array[0]);
+        }
+    }
+
+    @Override
+    Value getMovingFrameValue(Value[] array) {
+        if (filterCondition == null || array[getNumExpressions() - 1].isTrue()) {
+            Value v = array[0];
+            if (v != ValueNull.INSTANCE) {
+                return v;
+            }
+        }
+        return null;
+    }
+
     @Override
     protected Object createAggregateData() {
         switch (aggregateType) {
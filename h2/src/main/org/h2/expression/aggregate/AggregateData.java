@@ -6,6 +6,7 @@
 package org.h2.expression.aggregate;
 
 import org.h2.engine.SessionLocal;
+import org.h2.message.DbException;
 import org.h2.value.Value;
 
 /**
@@ -21,6 +22,18 @@ abstract class AggregateData {
      */
     abstract void add(SessionLocal session, Value v);
 
+    /**
+     * Remove a previously added value from this aggregate. Only aggregates
+     * with an inverse operation support this method, it is used for
+     * incremental evaluation of moving window frames.
+     *
+     * @param session the session
+     * @param v the value
+     */
+    void remove(SessionLocal session, Value v) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
     /**
      * Get the aggregate result.
      *
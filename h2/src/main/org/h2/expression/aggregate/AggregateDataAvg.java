@@ -62,6 +62,30 @@ final class AggregateDataAvg extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        if (v == ValueNull.INSTANCE) {
+            return;
+        }
+        if (--count == 0) {
+            doubleValue = 0d;
+            decimalValue = null;
+            integerValue = null;
+            return;
+        }
+        switch (dataType.getValueType()) {
+        case Value.DOUBLE:
+            doubleValue -= v.getDouble();
+            break;
+        case Value.NUMERIC:
+        case Value.DECFLOAT:
+            decimalValue = decimalValue.subtract(v.getBigDecimal());
+            break;
+        default:
+            integerValue = integerValue.subtract(IntervalUtils.intervalToAbsolute((ValueInterval) v));
+        }
+    }
+
     @Override
     Value getValue(SessionLocal session) {
         if (count == 0) {
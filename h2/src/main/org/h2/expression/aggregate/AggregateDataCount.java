@@ -30,6 +30,13 @@ final class AggregateDataCount extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        if (all || v != ValueNull.INSTANCE) {
+            count--;
+        }
+    }
+
     @Override
     Value getValue(SessionLocal session) {
         return ValueBigint.get(count);
@@ -21,6 +21,7 @@ final class AggregateDataDefault extends AggregateData {
     private final AggregateType aggregateType;
     private final TypeInfo dataType;
     private Value value;
+    private long count;
 
     /**
      * @param aggregateType the type of the aggregate operation
@@ -38,6 +39,7 @@ final class AggregateDataDefault extends AggregateData {
         }
         switch (aggregateType) {
         case SUM:
+            count++;
             if (value == null) {
                 value = v.convertTo(dataType.getValueType());
             } else {
@@ -100,6 +102,21 @@ final class AggregateDataDefault extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        if (v == ValueNull.INSTANCE) {
+            return;
+        }
+        if (aggregateType != AggregateType.SUM) {
+            throw DbException.getInternalError("type=" + aggregateType);
+        }
+        if (--count == 0) {
+            value = null;
+        } else {
+            value = value.subtract(v.convertTo(value.getValueType()));
+        }
+    }
+
     @SuppressWarnings("incomplete-switch")
     @Override
     Value getValue(SessionLocal session) {
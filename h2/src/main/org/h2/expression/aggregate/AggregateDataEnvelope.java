@@ -45,7 +45,8 @@ final class AggregateDataEnvelope extends AggregateData {
                     if (indexes != null) {
                         for (int i = 1, size = indexes.size(); i < size; i++) {
                             Index index = indexes.get(i);
-                            if (index instanceof MVSpatialIndex && index.isFirstColumn(column)) {
+                            if (index instanceof MVSpatialIndex && index.isFirstColumn(column)
+                                    && index.getCondition() == null) {
                                 return index;
                             }
                         }
@@ -133,6 +133,24 @@ public final class BetweenPredicate extends Condition {
         }
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public boolean isNot() {
+        return not;
+    }
+
+    /**
+     * Returns whether this predicate is symmetric.
+     *
+     * @return whether this predicate is symmetric
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
     @Override
     public boolean isWhenConditionOperand() {
         return whenOperand;
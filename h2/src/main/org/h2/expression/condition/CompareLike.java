@@ -410,6 +410,35 @@ public final class CompareLike extends Condition {
                         si, ignoreCase));
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public boolean isNot() {
+        return not;
+    }
+
+    /**
+     * Returns the type of this predicate.
+     *
+     * @return the type of this predicate
+     */
+    public LikeType getLikeType() {
+        return likeType;
+    }
+
+    /**
+     * Returns the escape character used when the ESCAPE clause is not
+     * specified.
+     *
+     * @return the default escape character, or {@code null} or an empty string
+     *         if there is no default escape character
+     */
+    public String getDefaultEscape() {
+        return defaultEscape;
+    }
+
     @Override
     public boolean isWhenConditionOperand() {
         return whenOperand;
@@ -336,6 +336,15 @@ public final class Comparison extends Condition {
         return result;
     }
 
+    /**
+     * Returns the type of this comparison.
+     *
+     * @return the type of this comparison
+     */
+    public int getCompareType() {
+        return compareType;
+    }
+
     @Override
     public boolean isWhenConditionOperand() {
         return whenOperand;
@@ -437,6 +446,15 @@ public final class Comparison extends Condition {
         }
         // one side must be from the current filter
         if ((l == null) == (r == null)) {
+            if (l == null && compareType != SPATIAL_INTERSECTS) {
+                // or an expression of an index
+                for (ExpressionColumn c : filter.getIndexExpressionColumns(left)) {
+                    createIndexConditions(filter, c, right, compareType);
+                }
+                for (ExpressionColumn c : filter.getIndexExpressionColumns(right)) {
+                    createIndexConditions(filter, c, left, getReversedCompareType(compareType));
+                }
+            }
             return;
         }
         if (l == null) {
@@ -474,6 +492,16 @@ public final class Comparison extends Condition {
         }
     }
 
+    private static void createIndexConditions(TableFilter filter, ExpressionColumn column, Expression expression,
+            int compareType) {
+        if (expression.isEverything(ExpressionVisitor.getNotFromResolverVisitor(filter))) {
+            TypeInfo colType = column.getType();
+            if (TypeInfo.haveSameOrdering(colType, TypeInfo.getHigherType(colType, expression.getType()))) {
+                filter.addIndexCondition(IndexCondition.get(compareType, column, expression));
+            }
+        }
+    }
+
     private static void createIndexConditions(TableFilter filter, ExpressionList left, ExpressionList right,
             int compareType) {
         int c = left.getSubexpressionCount();
@@ -49,7 +49,12 @@ public class ConditionAndOr extends Condition {
         this.right = right;
     }
 
-    int getAndOrType() {
+    /**
+     * Returns the type of this condition.
+     *
+     * @return {@link ConditionAndOr#AND} or {@link ConditionAndOr#OR}
+     */
+    public int getAndOrType() {
         return this.andOrType;
     }
 
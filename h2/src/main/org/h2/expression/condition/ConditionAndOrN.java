@@ -51,7 +51,12 @@ public class ConditionAndOrN extends Condition {
         this.expressions = expressions;
     }
 
-    int getAndOrType() {
+    /**
+     * Returns the type of this condition.
+     *
+     * @return {@link ConditionAndOr#AND} or {@link ConditionAndOr#OR}
+     */
+    public int getAndOrType() {
         return andOrType;
     }
 
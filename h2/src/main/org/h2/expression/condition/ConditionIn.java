@@ -81,6 +81,15 @@ public final class ConditionIn extends Condition {
         return ValueBoolean.get(not);
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public boolean isNot() {
+        return not;
+    }
+
     @Override
     public boolean isWhenConditionOperand() {
         return whenOperand;
@@ -160,13 +169,17 @@ public final class ConditionIn extends Condition {
         if (left instanceof ExpressionColumn) {
             ExpressionColumn l = (ExpressionColumn) left;
             if (filter == l.getTableFilter()) {
-                createIndexConditions(filter, l, valueList);
+                createIndexConditions(filter, l, valueList, null);
             }
         } else if (left instanceof ExpressionList) {
             ExpressionList list = (ExpressionList) left;
             if (!list.isArray()) {
                 createIndexConditions(filter, list);
             }
+        } else {
+            for (ExpressionColumn l : filter.getIndexExpressionColumns(left)) {
+                createIndexConditions(filter, l, valueList, null);
+            }
         }
     }
 
@@ -199,14 +212,14 @@ public final class ConditionIn extends Condition {
                             return;
                         }
                     }
-                    createIndexConditions(filter, l, subList);
+                    createIndexConditions(filter, l, subList, valueList);
                 }
             }
         }
     }
 
     private static void createIndexConditions(TableFilter filter, ExpressionColumn l, //
-            ArrayList<Expression> valueList) {
+            ArrayList<Expression> valueList, ArrayList<Expression> rowValueList) {
         ExpressionVisitor visitor = ExpressionVisitor.getNotFromResolverVisitor(filter);
         TypeInfo colType = l.getType();
         for (Expression e : valueList) {
@@ -215,7 +228,7 @@ public final class ConditionIn extends Condition {
                 return;
             }
         }
-        filter.addIndexCondition(IndexCondition.getInList(l, valueList));
+        filter.addIndexCondition(IndexCondition.getInList(l, valueList, rowValueList));
     }
 
     @Override
@@ -102,6 +102,15 @@ public final class ConditionInConstantSet extends Condition {
         return ValueBoolean.get(not ^ result);
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public boolean isNot() {
+        return not;
+    }
+
     @Override
     public boolean isWhenConditionOperand() {
         return whenOperand;
@@ -134,13 +143,17 @@ public final class ConditionInConstantSet extends Condition {
         if (left instanceof ExpressionColumn) {
             ExpressionColumn l = (ExpressionColumn) left;
             if (filter == l.getTableFilter()) {
-                createIndexConditions(filter, l, valueList, type);
+                createIndexConditions(filter, l, valueList, type, null);
             }
         } else if (left instanceof ExpressionList) {
             ExpressionList list = (ExpressionList) left;
             if (!list.isArray()) {
                 createIndexConditions(filter, list);
             }
+        } else {
+            for (ExpressionColumn l : filter.getIndexExpressionColumns(left)) {
+                createIndexConditions(filter, l, valueList, type, null);
+            }
         }
     }
 
@@ -177,17 +190,17 @@ public final class ConditionInConstantSet extends Condition {
                     for (Expression expression : subList) {
                         type = TypeInfo.getHigherType(type, expression.getType());
                     }
-                    createIndexConditions(filter, l, subList, type);
+                    createIndexConditions(filter, l, subList, type, valueList);
                 }
             }
         }
     }
 
     private static void createIndexConditions(TableFilter filter, ExpressionColumn l, ArrayList<Expression> valueList,
-            TypeInfo type) {
+            TypeInfo type, ArrayList<Expression> rowValueList) {
         TypeInfo colType = l.getType();
         if (TypeInfo.haveSameOrdering(colType, TypeInfo.getHigherType(colType, type))) {
-            filter.addIndexCondition(IndexCondition.getInList(l, valueList));
+            filter.addIndexCondition(IndexCondition.getInList(l, valueList, rowValueList));
         }
     }
 
@@ -90,6 +90,15 @@ public abstract class SimplePredicate extends Condition {
         throw new IndexOutOfBoundsException();
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public final boolean isNot() {
+        return not;
+    }
+
     @Override
     public final boolean isWhenConditionOperand() {
         return whenOperand;
@@ -50,4 +50,12 @@ public interface Cursor {
      */
     boolean previous();
 
+    /**
+     * Release the resources of this cursor if it is not read to the end. The
+     * cursor can't be used after that.
+     */
+    default void close() {
+        // nothing to do
+    }
+
 }
@@ -7,6 +7,7 @@ package org.h2.index;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 
 import org.h2.api.ErrorCode;
 import org.h2.command.query.AllColumnsForPlan;
@@ -14,6 +15,9 @@ import org.h2.engine.Constants;
 import org.h2.engine.DbObject;
 import org.h2.engine.NullsDistinct;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionVisitor;
+import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.result.Row;
@@ -36,6 +40,12 @@ import org.h2.value.ValueNull;
  */
 public abstract class Index extends SchemaObject {
 
+    /**
+     * The estimated cost of a lookup of the next distinct value of the first
+     * column and of the search for rows with this value in a skip scan.
+     */
+    private static final int SKIP_SCAN_PREFIX_COST = 10;
+
     /**
      * Check that the index columns are not CLOB or BLOB.
      *
@@ -82,6 +92,11 @@ public abstract class Index extends SchemaObject {
 
     private final RowFactory rowFactory;
 
+    /**
+     * Columns with values computed with expressions, or {@code null}.
+     */
+    private final Column[] expressionColumns;
+
     private final RowFactory uniqueRowFactory;
 
     /**
@@ -101,20 +116,38 @@ public abstract class Index extends SchemaObject {
         this.uniqueColumnColumn = uniqueColumnCount;
         this.indexType = newIndexType;
         this.table = newTable;
+        Column[] tableColumns = table.getColumns();
+        Column[] expressionColumns = null;
         if (newIndexColumns != null) {
             this.indexColumns = newIndexColumns;
             columns = new Column[newIndexColumns.length];
             int len = columns.length;
             columnIds = new int[len];
+            int expressionCount = 0;
             for (int i = 0; i < len; i++) {
                 Column col = newIndexColumns[i].column;
                 columns[i] = col;
                 columnIds[i] = col.getColumnId();
+                if (col.getIndexExpression() != null) {
+                    expressionCount++;
+                }
+            }
+            if (expressionCount > 0) {
+                int tableColumnCount = tableColumns.length;
+                expressionColumns = new Column[expressionCount];
+                tableColumns = Arrays.copyOf(tableColumns, tableColumnCount + expressionCount);
+                for (Column col : columns) {
+                    if (col.getIndexExpression() != null) {
+                        int columnId = col.getColumnId();
+                        expressionColumns[columnId - tableColumnCount] = col;
+                        tableColumns[columnId] = col;
+                    }
+                }
             }
         }
+        this.expressionColumns = expressionColumns;
         RowFactory databaseRowFactory = database.getRowFactory();
         CompareMode compareMode = database.getCompareMode();
-        Column[] tableColumns = table.getColumns();
         rowFactory = databaseRowFactory.createRowFactory(database, compareMode, database, tableColumns,
                 newIndexType.isScan() ? null : newIndexColumns, true);
         RowFactory uniqueRowFactory;
@@ -163,7 +196,12 @@ public abstract class Index extends SchemaObject {
             builder.append(" COMMENT ");
             StringUtils.quoteStringSQL(builder, comment);
         }
-        return getColumnListSQL(builder, DEFAULT_SQL_FLAGS).toString();
+        getColumnListSQL(builder, DEFAULT_SQL_FLAGS);
+        PartialIndexCondition condition = indexType.getCondition();
+        if (condition != null) {
+            condition.getSQL(builder.append(" WHERE "), DEFAULT_SQL_FLAGS);
+        }
+        return builder.toString();
     }
 
 
@@ -176,9 +214,10 @@ public abstract class Index extends SchemaObject {
     private StringBuilder getColumnListSQL(StringBuilder builder, int sqlFlags) {
         builder.append('(');
         int length = indexColumns.length;
-        if (uniqueColumnColumn > 0 && uniqueColumnColumn < length) {
-            IndexColumn.writeColumns(builder, indexColumns, 0, uniqueColumnColumn, sqlFlags).append(") INCLUDE(");
-            IndexColumn.writeColumns(builder, indexColumns, uniqueColumnColumn, length, sqlFlags);
+        int keyColumnCount = getKeyColumnCount();
+        if (keyColumnCount < length) {
+            IndexColumn.writeColumns(builder, indexColumns, 0, keyColumnCount, sqlFlags).append(") INCLUDE(");
+            IndexColumn.writeColumns(builder, indexColumns, keyColumnCount, length, sqlFlags);
         } else {
             IndexColumn.writeColumns(builder, indexColumns, 0, length, sqlFlags);
         }
@@ -319,6 +358,100 @@ public abstract class Index extends SchemaObject {
         throw DbException.getInternalError(toString());
     }
 
+    /**
+     * Check if a skip scan should be used with the specified conditions. A
+     * skip scan enumerates distinct values of the first column of the index
+     * with {@link #findNext(SessionLocal, SearchRow, SearchRow)} and searches
+     * rows with conditions on the next columns for each of them. It is used
+     * when there are no conditions on the first column and the estimated
+     * count of its distinct values is small enough.
+     *
+     * @param session the session
+     * @param masks per-column comparison bit masks, null means 'always false',
+     *              see constants in IndexCondition
+     * @param filter the table filter with index conditions, or {@code null}
+     * @return true if a skip scan should be used
+     */
+    public final boolean isSkipScan(SessionLocal session, int[] masks, TableFilter filter) {
+        if (masks == null || !canFindNext()) {
+            return false;
+        }
+        long rowCount = getRowCountApproximation(session) + Constants.COST_ROW_OFFSET;
+        return getCostSkipScan(masks, rowCount, filter) < rowCount;
+    }
+
+    /**
+     * Estimate the cost of a skip scan.
+     *
+     * @param masks per-column comparison bit masks
+     * @param rowCount the estimated number of rows
+     * @param filter the table filter with index conditions, or {@code null}
+     * @return the estimated cost, or {@link Long#MAX_VALUE} if a skip scan
+     *         can't be used
+     */
+    private long getCostSkipScan(int[] masks, long rowCount, TableFilter filter) {
+        int len = columns.length;
+        if (len < 2 || masks[columns[0].getColumnId()] != 0) {
+            return Long.MAX_VALUE;
+        }
+        long rowsCost = rowCount;
+        boolean used = false;
+        int totalSelectivity = 0;
+        for (int i = 1; i < len; i++) {
+            Column column = columns[i];
+            int mask = masks[column.getColumnId()];
+            if (filter != null) {
+                mask &= getSkipScanMask(filter, column);
+            }
+            if ((mask & IndexCondition.EQUALITY) == IndexCondition.EQUALITY) {
+                totalSelectivity = 100 - ((100 - totalSelectivity) * (100 - column.getSelectivity()) / 100);
+                rowsCost = Math.max(rowCount / Math.max(rowCount * totalSelectivity / 100, 1), 1);
+                used = true;
+                continue;
+            } else if ((mask & IndexCondition.RANGE) == IndexCondition.RANGE) {
+                rowsCost /= 4;
+                used = true;
+            } else if ((mask & (IndexCondition.START | IndexCondition.END)) != 0) {
+                rowsCost /= 3;
+                used = true;
+            }
+            break;
+        }
+        if (!used) {
+            return Long.MAX_VALUE;
+        }
+        long prefixes = Math.max(rowCount * columns[0].getSelectivity() / 100, 1);
+        return 2 + prefixes * SKIP_SCAN_PREFIX_COST + rowsCost;
+    }
+
+    /**
+     * Returns the comparison bit mask of conditions on the specified column
+     * that can be used by a skip scan. IN(..) conditions on the next columns
+     * don't limit the search for each value of the first column, they are
+     * excluded.
+     *
+     * @param filter the table filter
+     * @param column the column
+     * @return the comparison bit mask
+     */
+    private static int getSkipScanMask(TableFilter filter, Column column) {
+        ArrayList<IndexCondition> indexConditions = filter.getIndexConditions();
+        int mask = 0;
+        for (IndexCondition condition : indexConditions) {
+            if (condition.getColumn() == column && condition.isEvaluatable()) {
+                switch (condition.getCompareType()) {
+                case Comparison.IN_LIST:
+                case Comparison.IN_ARRAY:
+                case Comparison.IN_QUERY:
+                    break;
+                default:
+                    mask |= condition.getMask(indexConditions);
+                }
+            }
+        }
+        return mask;
+    }
+
     /**
      * Find the first (or last) value of this index. The cursor returned is
      * positioned on the correct row, or on null if no row has been found.
@@ -462,6 +595,21 @@ public abstract class Index extends SchemaObject {
         return uniqueColumnColumn;
     }
 
+    /**
+     * Returns count of key columns. Key columns are always first columns in
+     * the lists, they may be followed by additional columns from the INCLUDE
+     * clause.
+     *
+     * @return count of key columns
+     */
+    public final int getKeyColumnCount() {
+        if (uniqueColumnColumn > 0) {
+            return uniqueColumnColumn;
+        }
+        int keyColumnCount = indexType.getKeyColumnCount();
+        return keyColumnCount > 0 ? keyColumnCount : indexColumns.length;
+    }
+
     /**
      * Get the index type.
      *
@@ -471,6 +619,133 @@ public abstract class Index extends SchemaObject {
         return indexType;
     }
 
+    /**
+     * Returns the condition of a partial index.
+     *
+     * @return the condition, or {@code null} if all rows are indexed
+     */
+    public final PartialIndexCondition getCondition() {
+        return indexType.getCondition();
+    }
+
+    /**
+     * Returns whether the specified row belongs to this index.
+     *
+     * @param session the session
+     * @param row the row
+     * @return {@code true} if this index isn't partial or the row satisfies
+     *         its condition
+     */
+    public final boolean isIndexed(SessionLocal session, Row row) {
+        PartialIndexCondition condition = indexType.getCondition();
+        return condition == null || condition.test(session, row);
+    }
+
+    /**
+     * Returns columns of this index with values computed with expressions.
+     * Ids of these columns follow ids of columns of the table.
+     *
+     * @return the expression columns, or {@code null} if there are no such
+     *         columns
+     */
+    public final Column[] getExpressionColumns() {
+        return expressionColumns;
+    }
+
+    /**
+     * Returns the specified row of the table with computed values of
+     * expression columns of this index.
+     *
+     * @param session the session
+     * @param row the row of the table, or the row with values of expression
+     *            columns
+     * @return the row with values of expression columns, or the specified row
+     *         if this index doesn't have expression columns or the row already
+     *         has their values
+     */
+    public final Row getRowWithExpressionValues(SessionLocal session, Row row) {
+        Column[] expressionColumns = this.expressionColumns;
+        if (expressionColumns == null) {
+            return row;
+        }
+        int tableColumnCount = table.getColumns().length;
+        Value[] data = row.getValueList();
+        if (data.length > tableColumnCount) {
+            return row;
+        }
+        data = Arrays.copyOf(data, tableColumnCount + expressionColumns.length);
+        for (Column column : expressionColumns) {
+            data[column.getColumnId()] = column.getIndexExpressionValue(session, row);
+        }
+        return Row.get(data, SearchRow.MEMORY_CALCULATE, row.getKey());
+    }
+
+    /**
+     * Returns the search masks for columns of this index. Different indexes
+     * may have different expression columns with the same id, so masks of
+     * expression columns are computed from index conditions of the filter.
+     *
+     * @param masks per-column comparison bit masks for columns of the table,
+     *            or {@code null}
+     * @param filter the table filter, or {@code null}
+     * @return the masks with masks of expression columns of this index
+     */
+    public final int[] getMasks(int[] masks, TableFilter filter) {
+        Column[] expressionColumns = this.expressionColumns;
+        if (expressionColumns == null || masks == null) {
+            return masks;
+        }
+        int tableColumnCount = masks.length;
+        masks = Arrays.copyOf(masks, tableColumnCount + expressionColumns.length);
+        if (filter != null) {
+            ArrayList<IndexCondition> indexConditions = filter.getIndexConditions();
+            for (IndexCondition condition : indexConditions) {
+                if (condition.isEvaluatable()) {
+                    Column column = condition.getColumn();
+                    int id = column.getColumnId();
+                    if (id >= tableColumnCount && expressionColumns[id - tableColumnCount] == column) {
+                        masks[id] |= condition.getMask(indexConditions);
+                    }
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Returns the columns of the table referenced by this index, including
+     * columns referenced by expressions and by the condition of the index.
+     *
+     * @return the referenced columns
+     */
+    public HashSet<Column> getReferencedColumns() {
+        PartialIndexCondition condition = indexType.getCondition();
+        HashSet<Column> result = condition != null ? condition.getReferencedColumns() : new HashSet<>();
+        for (Column column : columns) {
+            Expression expression = column.getIndexExpression();
+            if (expression != null) {
+                expression.isEverything(ExpressionVisitor.getColumnsVisitor(result, table));
+            } else {
+                result.add(column);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether this index contains all rows that may be selected by the
+     * specified table filter.
+     *
+     * @param session the session
+     * @param filter the table filter, or {@code null}
+     * @return {@code true} if this index isn't partial or the index conditions
+     *         of the filter imply its condition
+     */
+    public final boolean isUsableFor(SessionLocal session, TableFilter filter) {
+        PartialIndexCondition condition = indexType.getCondition();
+        return condition == null || filter != null && condition.isImpliedBy(session, filter.getIndexConditions());
+    }
+
     /**
      * Get the table on which this index is based.
      *
@@ -500,6 +775,43 @@ public abstract class Index extends SchemaObject {
         return false;
     }
 
+    /**
+     * Does cursor of this index return search rows with values of all indexed
+     * columns, so rows don't need to be read from the table if the query
+     * doesn't use other columns?
+     *
+     * @return true if it does
+     */
+    public boolean isIndexOnlyScanSupported() {
+        return false;
+    }
+
+    /**
+     * Check if this index contains all columns of the table used by the query.
+     *
+     * @param allColumnsSet the set of all columns
+     * @return true if it does
+     */
+    public boolean isCovering(AllColumnsForPlan allColumnsSet) {
+        ArrayList<Column> foundCols = allColumnsSet.get(getTable());
+        if (foundCols != null) {
+            int main = table.getMainIndexColumn();
+            loop: for (Column c : foundCols) {
+                int id = c.getColumnId();
+                if (id == SearchRow.ROWID_INDEX || id == main) {
+                    continue;
+                }
+                for (Column c2 : columns) {
+                    if (c == c2) {
+                        continue loop;
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Can this index iterate over all rows?
      *
@@ -565,6 +877,7 @@ public abstract class Index extends SchemaObject {
         rowCount += Constants.COST_ROW_OFFSET;
         int totalSelectivity = 0;
         long rowsCost = rowCount;
+        masks = getMasks(masks, filters == null ? null : filters[filter]);
         if (masks != null) {
             int i = 0, len = columns.length;
             boolean tryAdditional = false;
@@ -611,6 +924,10 @@ public abstract class Index extends SchemaObject {
                     rowsCost--;
                 }
             }
+            if (i == 0 && canFindNext()) {
+                rowsCost = Math.min(rowsCost,
+                        getCostSkipScan(masks, rowCount, filters == null ? null : filters[filter]));
+            }
             // Increase cost of indexes with additional unused columns
             rowsCost += len - i;
         }
@@ -661,29 +978,7 @@ public abstract class Index extends SchemaObject {
         // If we have two indexes with the same cost, and one of the indexes can
         // satisfy the query without needing to read from the primary table
         // (scan index), make that one slightly lower cost.
-        boolean needsToReadFromScanIndex;
-        if (!isScanIndex && allColumnsSet != null) {
-            needsToReadFromScanIndex = false;
-            ArrayList<Column> foundCols = allColumnsSet.get(getTable());
-            if (foundCols != null) {
-                int main = table.getMainIndexColumn();
-                loop: for (Column c : foundCols) {
-                    int id = c.getColumnId();
-                    if (id == SearchRow.ROWID_INDEX || id == main) {
-                        continue;
-                    }
-                    for (Column c2 : columns) {
-                        if (c == c2) {
-                            continue loop;
-                        }
-                    }
-                    needsToReadFromScanIndex = true;
-                    break;
-                }
-            }
-        } else {
-            needsToReadFromScanIndex = true;
-        }
+        boolean needsToReadFromScanIndex = isScanIndex || allColumnsSet == null || !isCovering(allColumnsSet);
         long rc;
         if (isScanIndex) {
             rc = rowsCost + sortingCost + 20;
@@ -72,6 +72,7 @@ public class IndexCondition {
 
     private final Expression expression;
     private List<Expression> expressionList;
+    private List<Expression> rowValueList;
     private Query expressionQuery;
 
     /**
@@ -115,6 +116,24 @@ public class IndexCondition {
         return cond;
     }
 
+    /**
+     * Create an index condition with the compare type IN_LIST for a column of
+     * a row value IN predicate. The expressions of the list are the components
+     * of the row values at the position of the column, in the same order as
+     * the row values.
+     *
+     * @param column the column
+     * @param list the expression list
+     * @param rowValueList the list of row values
+     * @return the index condition
+     */
+    public static IndexCondition getInList(ExpressionColumn column,
+            List<Expression> list, List<Expression> rowValueList) {
+        IndexCondition cond = getInList(column, list);
+        cond.rowValueList = rowValueList;
+        return cond;
+    }
+
     /**
      * Create an index condition with the compare type IN_ARRAY and with the
      * given parameters.
@@ -383,6 +402,17 @@ public class IndexCondition {
         return expressionList;
     }
 
+    /**
+     * Get the list of row values of the row value IN predicate this condition
+     * was created for. Conditions created for different columns of the same
+     * predicate return the same list.
+     *
+     * @return the list of row values, or {@code null}
+     */
+    public List<Expression> getRowValueList() {
+        return rowValueList;
+    }
+
     /**
      * Get expression query.
      *
@@ -6,8 +6,11 @@
 package org.h2.index;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
 import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
 import org.h2.result.ResultInterface;
@@ -23,7 +26,9 @@ import org.h2.value.ValueNull;
 
 /**
  * The filter used to walk through an index. This class supports IN(..)
- * and IN(SELECT ...) optimizations.
+ * and IN(SELECT ...) optimizations. IN(..) conditions on several leading
+ * columns of the index, including conditions with row values, are combined
+ * into a sorted list of keys.
  *
  * @author Thomas Mueller
  * @author Noel Grandin
@@ -31,6 +36,13 @@ import org.h2.value.ValueNull;
  */
 public class IndexCursor implements Cursor {
 
+    /**
+     * The maximum number of keys in the cartesian product of IN(..)
+     * conditions on different columns. Conditions on next columns are not
+     * used for a lookup if the product is larger.
+     */
+    private static final int MAX_IN_KEYS = 10_000;
+
     private SessionLocal session;
     private Index index;
     private Table table;
@@ -40,9 +52,13 @@ public class IndexCursor implements Cursor {
     private SearchRow start, end, intersects;
     private Cursor cursor;
     private Column inColumn;
-    private int inListIndex;
-    private Value[] inList;
+    private int[] inColumnIds;
+    private int inKeyIndex;
+    private ArrayList<Value[]> inKeys;
     private ResultInterface inResult;
+    private boolean skipScan;
+    private int skipColumnId = -1;
+    private SearchRow skipPrefix;
 
     public IndexCursor() {
     }
@@ -50,7 +66,14 @@ public class IndexCursor implements Cursor {
     public void setIndex(Index index) {
         this.index = index;
         this.table = index.getTable();
+        skipScan = false;
         Column[] columns = table.getColumns();
+        Column[] expressionColumns = index.getExpressionColumns();
+        if (expressionColumns != null) {
+            columns = Arrays.copyOf(columns, columns.length + expressionColumns.length);
+            System.arraycopy(expressionColumns, 0, columns, columns.length - expressionColumns.length,
+                    expressionColumns.length);
+        }
         indexColumns = new IndexColumn[columns.length];
         IndexColumn[] idxCols = index.getIndexColumns();
         if (idxCols != null) {
@@ -63,6 +86,27 @@ public class IndexCursor implements Cursor {
         }
     }
 
+    /**
+     * Enables or disables a skip scan. A skip scan enumerates distinct values
+     * of the first column of the index and searches rows with the conditions
+     * on the next columns for each of them.
+     *
+     * @param skipScan whether a skip scan should be used
+     * @see Index#isSkipScan(SessionLocal, int[], org.h2.table.TableFilter)
+     */
+    public void setSkipScan(boolean skipScan) {
+        this.skipScan = skipScan;
+    }
+
+    /**
+     * Check if a skip scan is enabled.
+     *
+     * @return true if it is
+     */
+    public boolean isSkipScan() {
+        return skipScan;
+    }
+
     /**
      * Prepare this index cursor to make a lookup in index.
      *
@@ -73,10 +117,14 @@ public class IndexCursor implements Cursor {
         session = s;
         alwaysFalse = false;
         start = end = null;
-        inList = null;
         inColumn = null;
+        inColumnIds = null;
+        inKeys = null;
         inResult = null;
         intersects = null;
+        skipColumnId = -1;
+        skipPrefix = null;
+        ArrayList<IndexCondition> inConditions = null;
         for (IndexCondition condition : indexConditions) {
             if (condition.isAlwaysFalse()) {
                 alwaysFalse = true;
@@ -91,21 +139,11 @@ public class IndexCursor implements Cursor {
             switch (condition.getCompareType()) {
             case Comparison.IN_LIST:
             case Comparison.IN_ARRAY:
-                if (start == null && end == null) {
-                    if (canUseIndexForIn(column)) {
-                        this.inColumn = column;
-                        inList = condition.getCurrentValueList(s);
-                        inListIndex = 0;
-                    }
-                }
-                break;
             case Comparison.IN_QUERY:
-                if (start == null && end == null) {
-                    if (canUseIndexForIn(column)) {
-                        this.inColumn = column;
-                        inResult = condition.getCurrentResult();
-                    }
+                if (inConditions == null) {
+                    inConditions = new ArrayList<>();
                 }
+                inConditions.add(condition);
                 break;
             default:
                 Value v = condition.getCurrentValue(s);
@@ -133,21 +171,205 @@ public class IndexCursor implements Cursor {
                 if (isIntersects) {
                     intersects = getSpatialSearchRow(intersects, columnId, v);
                 }
+                break;
+            }
+        }
+        if (inConditions != null && !alwaysFalse) {
+            prepareIn(inConditions);
+        }
+    }
+
+    /**
+     * Choose the IN(..) conditions used for the lookup. A condition can be
+     * used if the previous columns of the index are restricted to a single
+     * value by X=? conditions or by other IN(..) conditions, the values of
+     * these columns are searched for each combination of values of these
+     * conditions, in the order of the index.
+     *
+     * @param inConditions the IN(..) conditions
+     */
+    private void prepareIn(ArrayList<IndexCondition> inConditions) {
+        IndexColumn[] cols = index.getIndexColumns();
+        if (cols == null || cols[0] == null) {
+            // VIEW index, multiple IN conditions or IN combined with other
+            // conditions are not supported, see IndexCondition.getMask
+            start = end = null;
+            prepareIn(inConditions.get(0));
+            return;
+        }
+        ArrayList<IndexCondition> keyConditions = new ArrayList<>();
+        for (IndexColumn col : cols) {
+            Column column = col.column;
+            if (isSingleValue(column.getColumnId())) {
                 // An X=? condition will produce less rows than
-                // an X IN(..) condition, unless the X IN condition can use the index.
-                if ((isStart || isEnd) && !canUseIndexFor(inColumn)) {
-                    inColumn = null;
-                    inList = null;
-                    inResult = null;
+                // an X IN(..) condition
+                continue;
+            }
+            IndexCondition in = null;
+            for (IndexCondition condition : inConditions) {
+                if (condition.getColumn() == column) {
+                    in = condition;
+                    break;
+                }
+            }
+            if (in == null) {
+                break;
+            }
+            if (in.getCompareType() == Comparison.IN_QUERY) {
+                // rows of a query are read one by one
+                if (keyConditions.isEmpty()) {
+                    prepareIn(in);
+                    return;
                 }
                 break;
             }
+            keyConditions.add(in);
+        }
+        if (!keyConditions.isEmpty()) {
+            prepareInKeys(keyConditions);
+        }
+    }
+
+    private void prepareIn(IndexCondition condition) {
+        if (condition.getCompareType() == Comparison.IN_QUERY) {
+            inColumn = condition.getColumn();
+            inResult = condition.getCurrentResult();
+        } else {
+            ArrayList<IndexCondition> list = new ArrayList<>(1);
+            list.add(condition);
+            prepareInKeys(list);
+        }
+        if (start == null) {
+            start = getTemplateRow();
         }
-        if (inColumn != null) {
-            start = table.getTemplateRow();
+        if (end == null) {
+            end = getTemplateRow();
         }
     }
 
+    private boolean isSingleValue(int columnId) {
+        if (columnId == SearchRow.ROWID_INDEX || start == null || end == null) {
+            return false;
+        }
+        Value a = start.getValue(columnId), b = end.getValue(columnId);
+        if (a == null || b == null) {
+            return false;
+        } else if (a == ValueNull.INSTANCE || b == ValueNull.INSTANCE) {
+            return a == b;
+        }
+        return session.compare(a, b) == 0;
+    }
+
+    private void prepareInKeys(ArrayList<IndexCondition> keyConditions) {
+        int size = keyConditions.size();
+        ArrayList<Value[]> keys = new ArrayList<>();
+        keys.add(new Value[size]);
+        boolean[] used = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            if (used[i]) {
+                continue;
+            }
+            // conditions of the same row value IN predicate are combined
+            // with each other by position, not by cartesian product
+            List<Expression> rowValueList = keyConditions.get(i).getRowValueList();
+            int[] positions = new int[size];
+            int count = 0;
+            for (int j = i; j < size; j++) {
+                if (j == i || rowValueList != null && keyConditions.get(j).getRowValueList() == rowValueList) {
+                    positions[count++] = j;
+                    used[j] = true;
+                }
+            }
+            ArrayList<Value[]> values = getInValues(keyConditions, positions, count);
+            if (i > 0 && (long) keys.size() * values.size() > MAX_IN_KEYS) {
+                size = i;
+                break;
+            }
+            ArrayList<Value[]> product = new ArrayList<>(keys.size() * values.size());
+            for (Value[] key : keys) {
+                for (Value[] v : values) {
+                    Value[] k = key.clone();
+                    for (int j = 0; j < count; j++) {
+                        k[positions[j]] = v[j];
+                    }
+                    product.add(k);
+                }
+            }
+            keys = product;
+        }
+        inColumnIds = new int[size];
+        boolean[] descending = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            int columnId = keyConditions.get(i).getColumn().getColumnId();
+            inColumnIds[i] = columnId;
+            IndexColumn idxCol = columnId != SearchRow.ROWID_INDEX ? indexColumns[columnId] : null;
+            descending[i] = idxCol != null && (idxCol.sortType & SortOrder.DESCENDING) != 0;
+        }
+        int length = size;
+        keys.sort((a, b) -> {
+            for (int i = 0; i < length; i++) {
+                int comp = session.compare(a[i], b[i]);
+                if (comp != 0) {
+                    return descending[i] ? -comp : comp;
+                }
+            }
+            return 0;
+        });
+        // keys may be equal if the same row value is specified twice or if
+        // not all columns of a row value are used
+        inKeys = new ArrayList<>(keys.size());
+        Value[] last = null;
+        for (Value[] key : keys) {
+            if (last == null || !equalKeys(last, key, length)) {
+                inKeys.add(key);
+                last = key;
+            }
+        }
+        inKeyIndex = 0;
+        if (start == null) {
+            start = getTemplateRow();
+        }
+        if (end == null) {
+            end = getTemplateRow();
+        }
+    }
+
+    private ArrayList<Value[]> getInValues(ArrayList<IndexCondition> keyConditions, int[] positions, int count) {
+        ArrayList<Value[]> values = new ArrayList<>();
+        IndexCondition condition = keyConditions.get(positions[0]);
+        if (count == 1) {
+            Column column = condition.getColumn();
+            for (Value v : condition.getCurrentValueList(session)) {
+                if (v != ValueNull.INSTANCE) {
+                    values.add(new Value[] { column.convert(session, v) });
+                }
+            }
+            return values;
+        }
+        rows: for (int i = 0, l = condition.getExpressionList().size(); i < l; i++) {
+            Value[] row = new Value[count];
+            for (int j = 0; j < count; j++) {
+                IndexCondition c = keyConditions.get(positions[j]);
+                Value v = c.getExpressionList().get(i).getValue(session);
+                if (v == ValueNull.INSTANCE) {
+                    continue rows;
+                }
+                row[j] = c.getColumn().convert(session, v);
+            }
+            values.add(row);
+        }
+        return values;
+    }
+
+    private boolean equalKeys(Value[] a, Value[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (session.compare(a[i], b[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Re-evaluate the start and end values of the index search for rows.
      *
@@ -155,43 +377,53 @@ public class IndexCursor implements Cursor {
      * @param indexConditions the index conditions
      */
     public void find(SessionLocal s, ArrayList<IndexCondition> indexConditions) {
+        // the previous scan may be not read to the end
+        close();
         prepare(s, indexConditions);
-        if (inColumn != null) {
+        if (inKeys != null || inResult != null) {
             return;
         }
         if (!alwaysFalse) {
             if (intersects != null && index instanceof SpatialIndex) {
                 cursor = ((SpatialIndex) index).findByGeometry(session, start, end, intersects);
+            } else if (skipScan && (start != null || end != null)) {
+                int columnId = index.getColumns()[0].getColumnId();
+                if ((start == null || start.getValue(columnId) == null)
+                        && (end == null || end.getValue(columnId) == null)) {
+                    // rows are searched for each value of the first column
+                    if (start == null) {
+                        start = getTemplateRow();
+                    }
+                    if (end == null) {
+                        end = getTemplateRow();
+                    }
+                    skipColumnId = columnId;
+                    cursor = null;
+                } else {
+                    cursor = index.find(session, start, end);
+                }
             } else if (index != null) {
                 cursor = index.find(session, start, end);
             }
         }
     }
 
-    private boolean canUseIndexForIn(Column column) {
-        if (inColumn != null) {
-            // only one IN(..) condition can be used at the same time
-            return false;
-        }
-        return canUseIndexFor(column);
-    }
-
-    private boolean canUseIndexFor(Column column) {
-        // The first column of the index must match this column,
-        // or it must be a VIEW index (where the column is null).
-        // Multiple IN conditions with views are not supported, see
-        // IndexCondition.getMask.
-        IndexColumn[] cols = index.getIndexColumns();
-        if (cols == null) {
-            return true;
+    /**
+     * Creates a new search row with space for values of expression columns of
+     * the index.
+     */
+    private SearchRow getTemplateRow() {
+        Column[] expressionColumns = index.getExpressionColumns();
+        if (expressionColumns == null) {
+            return table.getTemplateRow();
         }
-        IndexColumn idxCol = cols[0];
-        return idxCol == null || idxCol.column == column;
+        return table.createRow(new Value[table.getColumns().length + expressionColumns.length],
+                SearchRow.MEMORY_CALCULATE);
     }
 
     private SearchRow getSpatialSearchRow(SearchRow row, int columnId, Value v) {
         if (row == null) {
-            row = table.getTemplateRow();
+            row = getTemplateRow();
         } else if (row.getValue(columnId) != null) {
             // if an object needs to overlap with both a and b,
             // then it needs to overlap with the union of a and b
@@ -209,7 +441,7 @@ public class IndexCursor implements Cursor {
 
     private SearchRow getSearchRow(SearchRow row, int columnId, Value v, boolean max) {
         if (row == null) {
-            row = table.getTemplateRow();
+            row = getTemplateRow();
         } else {
             v = getMax(row.getValue(columnId), v, max);
         }
@@ -296,14 +528,35 @@ public class IndexCursor implements Cursor {
         }
     }
 
+    @Override
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
     private void nextCursor() {
-        if (inList != null) {
-            while (inListIndex < inList.length) {
-                Value v = inList[inListIndex++];
-                if (v != ValueNull.INSTANCE) {
-                    find(v);
-                    break;
+        if (skipColumnId >= 0) {
+            Cursor c = index.findNext(session, skipPrefix, null);
+            if (c.next()) {
+                Value v = c.getSearchRow().getValue(skipColumnId);
+                if (skipPrefix == null) {
+                    skipPrefix = index.getRowFactory().createRow();
+                }
+                skipPrefix.setValue(skipColumnId, v);
+                start.setValue(skipColumnId, v);
+                end.setValue(skipColumnId, v);
+                cursor = index.find(session, start, end);
+            }
+        } else if (inKeys != null) {
+            if (inKeyIndex < inKeys.size()) {
+                Value[] key = inKeys.get(inKeyIndex++);
+                for (int i = 0, l = inColumnIds.length; i < l; i++) {
+                    start.setValue(inColumnIds[i], key[i]);
+                    end.setValue(inColumnIds[i], key[i]);
                 }
+                cursor = index.find(session, start, end);
             }
         } else if (inResult != null) {
             while (inResult.next()) {
@@ -320,7 +573,8 @@ public class IndexCursor implements Cursor {
         v = inColumn.convert(session, v);
         int id = inColumn.getColumnId();
         start.setValue(id, v);
-        cursor = index.find(session, start, start);
+        end.setValue(id, v);
+        cursor = index.find(session, start, end);
     }
 
     @Override
@@ -18,6 +18,10 @@ public class IndexType {
     private boolean belongsToConstraint;
     private NullsDistinct nullsDistinct;
 
+    private int keyColumnCount;
+
+    private PartialIndexCondition condition;
+
     /**
      * Create a primary key index.
      *
@@ -112,6 +116,43 @@ public class IndexType {
         return belongsToConstraint;
     }
 
+    /**
+     * Sets count of key columns of a non-unique index with included columns.
+     *
+     * @param keyColumnCount count of key columns
+     */
+    public void setKeyColumnCount(int keyColumnCount) {
+        this.keyColumnCount = keyColumnCount;
+    }
+
+    /**
+     * Returns count of key columns of a non-unique index with included columns.
+     *
+     * @return count of key columns, or 0 if all columns are key columns or
+     *         index is unique
+     */
+    public int getKeyColumnCount() {
+        return keyColumnCount;
+    }
+
+    /**
+     * Sets the condition of a partial index.
+     *
+     * @param condition the condition, or {@code null} if all rows are indexed
+     */
+    public void setCondition(PartialIndexCondition condition) {
+        this.condition = condition;
+    }
+
+    /**
+     * Returns the condition of a partial index.
+     *
+     * @return the condition, or {@code null} if all rows are indexed
+     */
+    public PartialIndexCondition getCondition() {
+        return condition;
+    }
+
     /**
      * Is this a hash index?
      *
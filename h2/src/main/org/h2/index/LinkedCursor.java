@@ -13,6 +13,7 @@ import org.h2.message.DbException;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.table.TableLink;
+import org.h2.value.ValueNull;
 import org.h2.value.ValueToObjectConverter2;
 
 /**
@@ -25,15 +26,18 @@ public class LinkedCursor implements Cursor {
     private final String sql;
     private final SessionLocal session;
     private final ResultSet rs;
+    private final int[] columnIds;
     private Row current;
+    private boolean closed;
 
     LinkedCursor(TableLink tableLink, ResultSet rs, SessionLocal session,
-            String sql, PreparedStatement prep) {
+            String sql, PreparedStatement prep, int[] columnIds) {
         this.session = session;
         this.tableLink = tableLink;
         this.rs = rs;
         this.sql = sql;
         this.prep = prep;
+        this.columnIds = columnIds;
     }
 
     @Override
@@ -48,28 +52,70 @@ public class LinkedCursor implements Cursor {
 
     @Override
     public boolean next() {
+        if (closed) {
+            return false;
+        }
         try {
-            boolean result = rs.next();
-            if (!result) {
-                rs.close();
-                tableLink.reusePreparedStatement(prep, sql);
-                current = null;
+            if (!rs.next()) {
+                close();
                 return false;
             }
         } catch (SQLException e) {
             throw DbException.convert(e);
         }
-        current = tableLink.getTemplateRow();
-        for (int i = 0; i < current.getColumnCount(); i++) {
-            current.setValue(i, ValueToObjectConverter2.readValue(session, rs, i + 1,
-                    tableLink.getColumn(i).getType().getValueType()));
-        }
+        current = readRow(tableLink, session, rs, columnIds);
         return true;
     }
 
+    /**
+     * Read the current row of the result set.
+     *
+     * @param tableLink the linked table
+     * @param session the session
+     * @param rs the result set
+     * @param columnIds the ids of columns in the result set, or {@code null}
+     *            if the result set contains all columns
+     * @return the row
+     */
+    static Row readRow(TableLink tableLink, SessionLocal session, ResultSet rs, int[] columnIds) {
+        Row row = tableLink.getTemplateRow();
+        if (columnIds == null) {
+            for (int i = 0; i < row.getColumnCount(); i++) {
+                row.setValue(i, ValueToObjectConverter2.readValue(session, rs, i + 1,
+                        tableLink.getColumn(i).getType().getValueType()));
+            }
+        } else {
+            // only the columns used by the query are read
+            for (int i = 0; i < row.getColumnCount(); i++) {
+                row.setValue(i, ValueNull.INSTANCE);
+            }
+            for (int i = 0; i < columnIds.length; i++) {
+                int id = columnIds[i];
+                row.setValue(id, ValueToObjectConverter2.readValue(session, rs, i + 1,
+                        tableLink.getColumn(id).getType().getValueType()));
+            }
+        }
+        return row;
+    }
+
     @Override
     public boolean previous() {
         throw DbException.getInternalError(toString());
     }
 
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            throw DbException.convert(e);
+        }
+        tableLink.reusePreparedStatement(prep, sql);
+    }
+
 }
@@ -5,13 +5,18 @@
  */
 package org.h2.index;
 
+import java.math.BigInteger;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 
 import org.h2.command.query.AllColumnsForPlan;
 import org.h2.engine.Constants;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.jdbc.JdbcConnection;
 import org.h2.message.DbException;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
@@ -20,27 +25,135 @@ import org.h2.table.Column;
 import org.h2.table.IndexColumn;
 import org.h2.table.TableFilter;
 import org.h2.table.TableLink;
+import org.h2.table.TableLinkConnection;
+import org.h2.table.TableLinkConnection.PooledConnection;
+import org.h2.util.JdbcUtils;
 import org.h2.util.Utils;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
 import org.h2.value.ValueNull;
 
 /**
  * A linked index is a index for a linked (remote) table.
  * It is backed by an index on the remote table which is accessed over JDBC.
+ * <p>
+ * A query may use a copy of the index that reads only the columns used by the
+ * query and passes conditions on the linked table to the target database, see
+ * {@link #pushDown(TableFilter, Collection, ArrayList)}.
+ * </p>
+ * <p>
+ * Large scans of tables with an integer primary key may be split into ranges
+ * of the key that are read in parallel, see
+ * {@link org.h2.engine.DbSettings#linkedScanParallelism}.
+ * </p>
  */
 public class LinkedIndex extends Index {
 
+    /**
+     * The minimum number of rows in a part of a parallel scan.
+     */
+    private static final long MIN_PART_ROWS = 10_000L;
+
     private final TableLink link;
     private final String targetTableName;
     private long rowCount;
 
     private final int sqlFlags = QUOTE_ONLY_WHEN_REQUIRED;
 
+    /**
+     * The ids of columns to read, or {@code null} to read all columns.
+     */
+    private final int[] columnIds;
+
+    /**
+     * The select list and the FROM clause of the query.
+     */
+    private final String select;
+
+    /**
+     * The condition evaluated by the target database, or {@code null}.
+     */
+    private final String condition;
+
+    /**
+     * The constants and parameters of the condition.
+     */
+    private final Expression[] conditionParameters;
+
+    /**
+     * The query shown in the execution plan, or {@code null}.
+     */
+    private final String planQuery;
+
     public LinkedIndex(TableLink table, int id, IndexColumn[] columns, int uniqueColumnCount, IndexType indexType) {
         super(table, id, null, columns, uniqueColumnCount, indexType);
         link = table;
         targetTableName = link.getQualifiedTable();
+        columnIds = null;
+        select = "SELECT * FROM " + targetTableName + " T";
+        condition = null;
+        conditionParameters = null;
+        planQuery = null;
+    }
+
+    private LinkedIndex(LinkedIndex index, int[] columnIds, String select, String condition,
+            Expression[] conditionParameters, String planQuery) {
+        super(index.link, index.getId(), null, index.getIndexColumns(), index.uniqueColumnColumn,
+                index.getIndexType());
+        link = index.link;
+        targetTableName = index.targetTableName;
+        rowCount = index.rowCount;
+        this.columnIds = columnIds;
+        this.select = select;
+        this.condition = condition;
+        this.conditionParameters = conditionParameters;
+        this.planQuery = planQuery;
+    }
+
+    /**
+     * Create a copy of this index for the specified table filter that reads
+     * only the specified columns and passes the conditions that the target
+     * database can evaluate to it. Other conditions are ignored, all
+     * conditions still need to be checked by the caller.
+     *
+     * @param filter the table filter
+     * @param columns the columns used by the query
+     * @param conditions the conditions on rows of this table
+     * @return the copy of this index
+     */
+    public LinkedIndex pushDown(TableFilter filter, Collection<Column> columns, ArrayList<Expression> conditions) {
+        StringBuilder builder = new StringBuilder("SELECT ");
+        int[] ids = new int[columns.size()];
+        int i = 0;
+        for (Column column : columns) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            link.appendRemoteColumnName(builder, column);
+            ids[i++] = column.getColumnId();
+        }
+        if (i == 0) {
+            builder.append('1');
+        }
+        String select = builder.append(" FROM ").append(targetTableName).append(" T").toString();
+        LinkedQueryBuilder where = new LinkedQueryBuilder(filter, false);
+        if (where.appendConditions(conditions) == 0) {
+            return new LinkedIndex(this, ids, select, null, null, select);
+        }
+        String condition = where.getSQL();
+        return new LinkedIndex(this, ids, select, condition, where.getParameters(), select + " WHERE " + condition);
+    }
+
+    /**
+     * Create a copy of this index that shows the specified query in the
+     * execution plan.
+     *
+     * @param query the query executed instead of this index
+     * @return the copy of this index
+     */
+    public LinkedIndex withPlanQuery(String query) {
+        return new LinkedIndex(this, columnIds, select, condition, conditionParameters, query);
     }
 
     @Override
@@ -48,6 +161,15 @@ public class LinkedIndex extends Index {
         return null;
     }
 
+    @Override
+    public String getPlanSQL() {
+        String sql = super.getPlanSQL();
+        if (planQuery != null) {
+            sql = sql + " (" + planQuery + ')';
+        }
+        return sql;
+    }
+
     @Override
     public void close(SessionLocal session) {
         // nothing to do
@@ -88,9 +210,23 @@ public class LinkedIndex extends Index {
 
     @Override
     public Cursor find(SessionLocal session, SearchRow first, SearchRow last) {
+        if (first == null && last == null) {
+            int parallelism = session.getDatabase().getSettings().linkedScanParallelism;
+            if (parallelism > 1) {
+                Cursor cursor = findParallel(session, parallelism);
+                if (cursor != null) {
+                    return cursor;
+                }
+            }
+        }
         ArrayList<Value> params = Utils.newSmallArrayList();
-        StringBuilder builder = new StringBuilder("SELECT * FROM ").append(targetTableName).append(" T");
+        StringBuilder builder = new StringBuilder(select);
         boolean f = false;
+        if (condition != null) {
+            builder.append(" WHERE ").append(condition);
+            f = true;
+            LinkedQueryBuilder.addParameterValues(session, conditionParameters, params);
+        }
         for (int i = 0; first != null && i < first.getColumnCount(); i++) {
             Value v = first.getValue(i);
             if (v != null) {
@@ -127,40 +263,140 @@ public class LinkedIndex extends Index {
         try {
             PreparedStatement prep = link.execute(sql, params, false, session);
             ResultSet rs = prep.getResultSet();
-            return new LinkedCursor(link, rs, session, sql, prep);
+            return new LinkedCursor(link, rs, session, sql, prep, columnIds);
         } catch (Exception e) {
             throw TableLink.wrapException(sql, e);
         }
     }
 
-    private void addColumnName(StringBuilder builder, Column col) {
-        String identifierQuoteString = link.getIdentifierQuoteString();
-        String name = col.getName();
-        if (identifierQuoteString == null || identifierQuoteString.isEmpty() || identifierQuoteString.equals(" ")) {
-            builder.append(name);
-        } else if (identifierQuoteString.equals("\"")) {
-            /*
-             * StringUtils.quoteIdentifier() can produce Unicode identifiers,
-             * but target DBMS isn't required to support them
-             */
-            builder.append('"');
-            int i = name.indexOf('"');
-            if (i < 0) {
-                builder.append(name);
-            } else {
-                builder.append(name, 0, ++i).append('"');
-                for (int l = name.length(); i < l; i++) {
-                    char c = name.charAt(i);
-                    if (c == '"') {
-                        builder.append('"');
-                    }
-                    builder.append(c);
+    /**
+     * Split the scan into ranges of the primary key that are read in parallel.
+     *
+     * @param session the session
+     * @param parallelism the maximum number of parts
+     * @return the cursor, or {@code null} if the scan can't be split
+     */
+    private Cursor findParallel(SessionLocal session, int parallelism) {
+        Column key = link.getPartitionColumn();
+        if (key == null) {
+            return null;
+        }
+        // values of other data types may need the session to be read
+        if (columnIds != null) {
+            for (int id : columnIds) {
+                if (!LinkedQueryBuilder.isSupportedType(table.getColumn(id).getType())) {
+                    return null;
                 }
             }
-            builder.append('"');
         } else {
-            builder.append(identifierQuoteString).append(name).append(identifierQuoteString);
+            for (Column column : table.getColumns()) {
+                if (!LinkedQueryBuilder.isSupportedType(column.getType())) {
+                    return null;
+                }
+            }
+        }
+        ArrayList<Value> conditionValues = Utils.newSmallArrayList();
+        if (condition != null) {
+            LinkedQueryBuilder.addParameterValues(session, conditionParameters, conditionValues);
+        }
+        StringBuilder builder = new StringBuilder("SELECT MIN(");
+        addColumnName(builder, key);
+        builder.append("), MAX(");
+        addColumnName(builder, key);
+        builder.append("), COUNT(*) FROM ").append(targetTableName).append(" T");
+        if (condition != null) {
+            builder.append(" WHERE ").append(condition);
+        }
+        String sql = builder.toString();
+        long min, max, count;
+        try {
+            PreparedStatement prep = link.execute(sql, conditionValues, false, session);
+            ResultSet rs = prep.getResultSet();
+            rs.next();
+            min = rs.getLong(1);
+            max = rs.getLong(2);
+            count = rs.getLong(3);
+            rs.close();
+            link.reusePreparedStatement(prep, sql);
+        } catch (Exception e) {
+            throw TableLink.wrapException(sql, e);
         }
+        int partCount = (int) Math.min(parallelism, count / MIN_PART_ROWS);
+        if (partCount < 2) {
+            return null;
+        }
+        TableLinkConnection pool = link.getLinkConnection();
+        ArrayList<PooledConnection> connections = Utils.newSmallArrayList();
+        while (connections.size() < partCount - 1) {
+            PooledConnection c = pool.tryGetConnection(session);
+            if (c == null) {
+                break;
+            }
+            connections.add(c);
+        }
+        partCount = connections.size() + 1;
+        if (partCount < 2) {
+            return null;
+        }
+        // the first part reads keys below the first bound, the last part
+        // reads all keys above the last bound
+        Value[] bounds = new Value[partCount - 1];
+        BigInteger low = BigInteger.valueOf(min), range = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+        for (int i = 1; i < partCount; i++) {
+            bounds[i - 1] = ValueBigint.get(low.add(range.multiply(BigInteger.valueOf(i))
+                    .divide(BigInteger.valueOf(partCount))).longValue());
+        }
+        String keyName = link.appendRemoteColumnName(new StringBuilder(), key).toString();
+        builder.setLength(0);
+        builder.append(select).append(" WHERE ");
+        if (condition != null) {
+            builder.append(condition).append(" AND ");
+        }
+        String base = builder.append(keyName).toString();
+        LinkedParallelCursor.Part[] parts = new LinkedParallelCursor.Part[partCount - 1];
+        PreparedStatement[] statements = new PreparedStatement[parts.length];
+        JdbcConnection ownConnection = session.createConnection(false);
+        int fetchSize = link.getFetchSize();
+        for (int i = 0; i < parts.length; i++) {
+            PooledConnection c = connections.get(i);
+            boolean hasUpperBound = i + 1 < bounds.length;
+            String partSql = hasUpperBound ? base + ">=? AND " + keyName + "<?" : base + ">=?";
+            try {
+                PreparedStatement prep = c.prepareStatement(partSql, fetchSize);
+                statements[i] = prep;
+                int index = 1;
+                for (Value v : conditionValues) {
+                    JdbcUtils.set(prep, index++, v, ownConnection);
+                }
+                JdbcUtils.set(prep, index++, bounds[i], ownConnection);
+                if (hasUpperBound) {
+                    JdbcUtils.set(prep, index, bounds[i + 1], ownConnection);
+                }
+                parts[i] = new LinkedParallelCursor.Part(link, pool, c, prep, partSql, session, columnIds);
+            } catch (SQLException e) {
+                for (int j = 0; j < parts.length; j++) {
+                    JdbcUtils.closeSilently(statements[j]);
+                    pool.releaseConnection(connections.get(j));
+                }
+                throw TableLink.wrapException(partSql, e);
+            }
+        }
+        for (LinkedParallelCursor.Part part : parts) {
+            part.execute("H2 linked scan " + link.getName());
+        }
+        sql = base + "<?";
+        conditionValues.add(bounds[0]);
+        try {
+            PreparedStatement prep = link.execute(sql, conditionValues, false, session);
+            ResultSet rs = prep.getResultSet();
+            return new LinkedParallelCursor(new LinkedCursor(link, rs, session, sql, prep, columnIds), parts);
+        } catch (Exception e) {
+            throw TableLink.wrapException(sql, e);
+        }
+    }
+
+    private void addColumnName(StringBuilder builder, Column col) {
+        link.appendRemoteColumnName(builder, col);
     }
 
     private void addParameter(StringBuilder builder, Column col) {
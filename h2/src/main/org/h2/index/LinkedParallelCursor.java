@@ -0,0 +1,235 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.index;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.api.ErrorCode;
+import org.h2.engine.SessionLocal;
+import org.h2.message.DbException;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.table.TableLink;
+import org.h2.table.TableLinkConnection;
+import org.h2.table.TableLinkConnection.PooledConnection;
+import org.h2.util.Task;
+
+/**
+ * The cursor of a linked table scan that is split into parts. The first part
+ * is read with the connection of the session, other parts are read in
+ * parallel by background threads with additional connections. Rows are
+ * returned in the order they become available. If the cursor is closed before
+ * its end, the background threads stop reading and return their connections.
+ */
+final class LinkedParallelCursor implements Cursor {
+
+    /**
+     * The maximum number of rows buffered for each part.
+     */
+    private static final int QUEUE_SIZE = 1024;
+
+    /**
+     * The marker of the end of a part.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * A part of the scan that is read by a background thread.
+     */
+    static final class Part extends Task {
+
+        private final TableLink link;
+
+        private final TableLinkConnection pool;
+
+        private final PooledConnection connection;
+
+        private final PreparedStatement prep;
+
+        private final String sql;
+
+        private final SessionLocal session;
+
+        private final int[] columnIds;
+
+        /**
+         * The rows read by the background thread.
+         */
+        final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+        private volatile boolean stopped;
+
+        Part(TableLink link, TableLinkConnection pool, PooledConnection connection, PreparedStatement prep,
+                String sql, SessionLocal session, int[] columnIds) {
+            this.link = link;
+            this.pool = pool;
+            this.connection = connection;
+            this.prep = prep;
+            this.sql = sql;
+            this.session = session;
+            this.columnIds = columnIds;
+        }
+
+        @Override
+        public void call() throws Exception {
+            boolean success = false;
+            try {
+                prep.execute();
+                try (ResultSet rs = prep.getResultSet()) {
+                    while (!stopped && rs.next()) {
+                        put(LinkedCursor.readRow(link, session, rs, columnIds));
+                    }
+                }
+                pool.reuseStatement(prep, sql);
+                success = true;
+            } finally {
+                if (success) {
+                    pool.releaseConnection(connection);
+                } else {
+                    pool.discardConnection(connection);
+                }
+            }
+            put(END);
+        }
+
+        private void put(Object row) throws InterruptedException {
+            while (!stopped && !queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                if (connection.isCanceled()) {
+                    throw DbException.get(ErrorCode.STATEMENT_WAS_CANCELED);
+                }
+            }
+        }
+
+        /**
+         * Stop reading of this part, the background thread closes the result
+         * set and returns the connection to the pool.
+         */
+        void stop() {
+            stopped = true;
+            // wake up the background thread if it waits for free space
+            queue.clear();
+        }
+
+        /**
+         * Throw the exception of the background thread, if any.
+         */
+        void checkException() {
+            Exception e = getException();
+            if (e != null) {
+                throw TableLink.wrapException(sql, e);
+            }
+        }
+
+    }
+
+    private Cursor cursor;
+
+    private final Part[] parts;
+
+    private int remaining;
+
+    private int nextPart;
+
+    private Row current;
+
+    LinkedParallelCursor(Cursor cursor, Part[] parts) {
+        this.cursor = cursor;
+        this.parts = parts;
+        remaining = parts.length;
+    }
+
+    @Override
+    public Row get() {
+        return current;
+    }
+
+    @Override
+    public SearchRow getSearchRow() {
+        return current;
+    }
+
+    @Override
+    public boolean next() {
+        try {
+            while (true) {
+                // rows already read by background threads
+                for (int i = 0, l = parts.length; i < l; i++) {
+                    int index = nextPart;
+                    nextPart = (index + 1) % l;
+                    Part part = parts[index];
+                    if (part != null && poll(index, part.queue.poll())) {
+                        return true;
+                    }
+                }
+                if (cursor != null) {
+                    if (cursor.next()) {
+                        current = cursor.get();
+                        return true;
+                    }
+                    cursor = null;
+                }
+                if (remaining == 0) {
+                    current = null;
+                    return false;
+                }
+                for (int index = 0;; index++) {
+                    Part part = parts[index];
+                    if (part != null) {
+                        if (poll(index, part.queue.poll(10, TimeUnit.MILLISECONDS))) {
+                            return true;
+                        }
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            throw DbException.convert(e);
+        }
+    }
+
+    private boolean poll(int index, Object row) {
+        Part part = parts[index];
+        if (row == null) {
+            if (!part.isFinished() || !part.queue.isEmpty()) {
+                return false;
+            }
+            // the part was stopped or failed
+        } else if (row != END) {
+            current = (Row) row;
+            return true;
+        }
+        part.checkException();
+        parts[index] = null;
+        remaining--;
+        return false;
+    }
+
+    @Override
+    public boolean previous() {
+        throw DbException.getInternalError(toString());
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, l = parts.length; i < l; i++) {
+            Part part = parts[i];
+            if (part != null) {
+                part.stop();
+                parts[i] = null;
+            }
+        }
+        remaining = 0;
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+        current = null;
+    }
+
+}
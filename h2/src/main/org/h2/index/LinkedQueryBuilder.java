@@ -0,0 +1,583 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.index;
+
+import java.util.ArrayList;
+
+import org.h2.engine.SessionLocal;
+import org.h2.expression.BinaryOperation;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.Parameter;
+import org.h2.expression.UnaryOperation;
+import org.h2.expression.ValueExpression;
+import org.h2.expression.aggregate.Aggregate;
+import org.h2.expression.aggregate.AggregateType;
+import org.h2.expression.condition.BetweenPredicate;
+import org.h2.expression.condition.CompareLike;
+import org.h2.expression.condition.Comparison;
+import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionAndOrN;
+import org.h2.expression.condition.ConditionIn;
+import org.h2.expression.condition.ConditionInConstantSet;
+import org.h2.expression.condition.ConditionNot;
+import org.h2.expression.condition.NullPredicate;
+import org.h2.expression.function.CastSpecification;
+import org.h2.table.Column;
+import org.h2.table.TableFilter;
+import org.h2.table.TableLink;
+import org.h2.util.StringUtils;
+import org.h2.util.Utils;
+import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueTimestamp;
+import org.h2.value.ValueVarchar;
+
+/**
+ * Builds a query for the target database of a linked table.
+ * <p>
+ * Only expressions of a small subset of SQL that has the same meaning in most
+ * database systems may be evaluated by the target database: columns of the
+ * linked table, comparisons of operands of the same data type, logical
+ * operations, simple predicates, arithmetic, and aggregate functions COUNT,
+ * SUM, AVG, MIN, and MAX. Constants and parameters are passed to the target
+ * database as parameters of the statement, so their literals don't need to be
+ * converted.
+ * </p>
+ */
+public final class LinkedQueryBuilder {
+
+    private final TableLink link;
+
+    private final TableFilter filter;
+
+    private final boolean allowAggregates;
+
+    private final StringBuilder builder = new StringBuilder();
+
+    private final ArrayList<Expression> parameters = Utils.newSmallArrayList();
+
+    /**
+     * Creates a new query builder.
+     *
+     * @param filter the table filter of the linked table
+     * @param allowAggregates whether aggregate functions are allowed
+     */
+    public LinkedQueryBuilder(TableFilter filter, boolean allowAggregates) {
+        this.link = (TableLink) filter.getTable();
+        this.filter = filter;
+        this.allowAggregates = allowAggregates;
+    }
+
+    /**
+     * Returns the linked table.
+     *
+     * @return the linked table
+     */
+    public TableLink getLink() {
+        return link;
+    }
+
+    /**
+     * Append the specified SQL text.
+     *
+     * @param sql the SQL text
+     * @return this
+     */
+    public LinkedQueryBuilder append(String sql) {
+        builder.append(sql);
+        return this;
+    }
+
+    /**
+     * Append the name of the specified column of the linked table.
+     *
+     * @param column the column
+     * @return this
+     */
+    public LinkedQueryBuilder appendColumn(Column column) {
+        link.appendRemoteColumnName(builder, column);
+        return this;
+    }
+
+    /**
+     * Append the specified expression if the target database can evaluate
+     * it. Nothing is appended otherwise.
+     *
+     * @param expression the expression
+     * @return whether the expression was appended
+     */
+    public boolean appendExpression(Expression expression) {
+        return append(expression, false);
+    }
+
+    /**
+     * Append the specified condition if the target database can evaluate it.
+     * Nothing is appended otherwise.
+     *
+     * @param condition the condition
+     * @return whether the condition was appended
+     */
+    public boolean appendCondition(Expression condition) {
+        return append(condition, true);
+    }
+
+    /**
+     * Append the conditions that the target database can evaluate combined
+     * with AND. Other conditions are skipped.
+     *
+     * @param conditions the conditions
+     * @return the number of appended conditions
+     */
+    public int appendConditions(ArrayList<Expression> conditions) {
+        int count = 0;
+        for (Expression condition : conditions) {
+            int length = builder.length();
+            if (count > 0) {
+                builder.append(" AND ");
+            }
+            if (append(condition, true)) {
+                count++;
+            } else {
+                builder.setLength(length);
+            }
+        }
+        return count;
+    }
+
+    private boolean append(Expression expression, boolean condition) {
+        int length = builder.length(), count = parameters.size();
+        if (condition ? writeCondition(expression) : writeValue(expression.getNonAliasExpression())) {
+            return true;
+        }
+        builder.setLength(length);
+        while (parameters.size() > count) {
+            parameters.remove(parameters.size() - 1);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the SQL text built so far.
+     *
+     * @return the SQL text
+     */
+    public String getSQL() {
+        return builder.toString();
+    }
+
+    /**
+     * Returns the constants and parameters of the query in the order of their
+     * placeholders.
+     *
+     * @return the expressions to evaluate for the placeholders
+     */
+    public Expression[] getParameters() {
+        return parameters.toArray(new Expression[0]);
+    }
+
+    /**
+     * Evaluate the parameters of the query.
+     *
+     * @param session the session
+     * @param parameters the expressions returned by {@link #getParameters()}
+     * @param target the list to add the values to
+     */
+    public static void addParameterValues(SessionLocal session, Expression[] parameters,
+            ArrayList<Value> target) {
+        for (Expression e : parameters) {
+            target.add(e.getValue(session));
+        }
+    }
+
+    /**
+     * Add all the conditions combined with AND into the specified list.
+     *
+     * @param condition the condition, or {@code null}
+     * @param target the list
+     */
+    public static void addConjuncts(Expression condition, ArrayList<Expression> target) {
+        if (condition == null) {
+            return;
+        }
+        if (condition instanceof ConditionAndOr
+                && ((ConditionAndOr) condition).getAndOrType() == ConditionAndOr.AND
+                || condition instanceof ConditionAndOrN
+                        && ((ConditionAndOrN) condition).getAndOrType() == ConditionAndOr.AND) {
+            for (int i = 0, l = condition.getSubexpressionCount(); i < l; i++) {
+                addConjuncts(condition.getSubexpression(i), target);
+            }
+        } else {
+            target.add(condition);
+        }
+    }
+
+    private boolean writeCondition(Expression e) {
+        if (e.isWhenConditionOperand()) {
+            return false;
+        }
+        if (e instanceof ConditionAndOr || e instanceof ConditionAndOrN) {
+            String op = (e instanceof ConditionAndOr ? ((ConditionAndOr) e).getAndOrType()
+                    : ((ConditionAndOrN) e).getAndOrType()) == ConditionAndOr.AND ? " AND " : " OR ";
+            builder.append('(');
+            for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+                if (i > 0) {
+                    builder.append(op);
+                }
+                if (!writeCondition(e.getSubexpression(i))) {
+                    return false;
+                }
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof ConditionNot) {
+            builder.append("(NOT ");
+            if (!writeCondition(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof Comparison) {
+            String op;
+            switch (((Comparison) e).getCompareType()) {
+            case Comparison.EQUAL:
+                op = " = ";
+                break;
+            case Comparison.NOT_EQUAL:
+                op = " <> ";
+                break;
+            case Comparison.SMALLER:
+                op = " < ";
+                break;
+            case Comparison.SMALLER_EQUAL:
+                op = " <= ";
+                break;
+            case Comparison.BIGGER:
+                op = " > ";
+                break;
+            case Comparison.BIGGER_EQUAL:
+                op = " >= ";
+                break;
+            default:
+                return false;
+            }
+            if (!hasSameTypes(e)) {
+                return false;
+            }
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(op);
+            if (!writeValue(e.getSubexpression(1))) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof NullPredicate) {
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(((NullPredicate) e).isNot() ? " IS NOT NULL)" : " IS NULL)");
+            return true;
+        } else if (e instanceof BetweenPredicate) {
+            BetweenPredicate between = (BetweenPredicate) e;
+            if (between.isSymmetric() || !hasSameTypes(e)) {
+                return false;
+            }
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(between.isNot() ? " NOT BETWEEN " : " BETWEEN ");
+            if (!writeValue(e.getSubexpression(1))) {
+                return false;
+            }
+            builder.append(" AND ");
+            if (!writeValue(e.getSubexpression(2))) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof ConditionIn || e instanceof ConditionInConstantSet) {
+            boolean not = e instanceof ConditionIn ? ((ConditionIn) e).isNot()
+                    : ((ConditionInConstantSet) e).isNot();
+            if (!hasSameTypes(e)) {
+                return false;
+            }
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(not ? " NOT IN(" : " IN(");
+            for (int i = 1, l = e.getSubexpressionCount(); i < l; i++) {
+                if (i > 1) {
+                    builder.append(", ");
+                }
+                if (!writeValue(e.getSubexpression(i))) {
+                    return false;
+                }
+            }
+            builder.append("))");
+            return true;
+        } else if (e instanceof CompareLike) {
+            CompareLike like = (CompareLike) e;
+            if (like.getLikeType() != CompareLike.LikeType.LIKE) {
+                return false;
+            }
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(like.isNot() ? " NOT LIKE " : " LIKE ");
+            if (!writeValue(e.getSubexpression(1))) {
+                return false;
+            }
+            if (e.getSubexpressionCount() > 2) {
+                builder.append(" ESCAPE ");
+                if (!writeValue(e.getSubexpression(2))) {
+                    return false;
+                }
+            } else {
+                // the default escape character of H2 is not standard
+                String escape = like.getDefaultEscape();
+                if (!StringUtils.isNullOrEmpty(escape)) {
+                    builder.append(" ESCAPE ?");
+                    parameters.add(ValueExpression.get(ValueVarchar.get(escape)));
+                }
+            }
+            builder.append(')');
+            return true;
+        }
+        return false;
+    }
+
+    private boolean writeValue(Expression e) {
+        if (e instanceof ExpressionColumn) {
+            ExpressionColumn c = (ExpressionColumn) e;
+            if (c.getTableFilter() != filter || !isSupportedType(c.getType())) {
+                return false;
+            }
+            link.appendRemoteColumnName(builder, c.getColumn());
+            return true;
+        } else if (e instanceof Parameter) {
+            TypeInfo type = e.getType();
+            if (!isSupportedType(type)) {
+                return false;
+            }
+            builder.append('?');
+            // values of a later execution may have other data types
+            parameters.add(new CastSpecification(e, getParameterType(type)));
+            return true;
+        } else if (e instanceof ValueExpression) {
+            if (e.isNullConstant() || !isSupportedType(e.getType())) {
+                return false;
+            }
+            builder.append('?');
+            parameters.add(e);
+            return true;
+        } else if (e instanceof BinaryOperation) {
+            if (!isNumeric(e) || !isNumeric(e.getSubexpression(0)) || !isNumeric(e.getSubexpression(1))) {
+                return false;
+            }
+            String op;
+            switch (((BinaryOperation) e).getOperationType()) {
+            case PLUS:
+                op = " + ";
+                break;
+            case MINUS:
+                op = " - ";
+                break;
+            case MULTIPLY:
+                op = " * ";
+                break;
+            case DIVIDE:
+                // results of integer division are different
+                if (!isApproximateOrDecimal(e.getType())) {
+                    return false;
+                }
+                op = " / ";
+                break;
+            default:
+                return false;
+            }
+            builder.append('(');
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(op);
+            if (!writeValue(e.getSubexpression(1))) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof UnaryOperation) {
+            if (!isNumeric(e)) {
+                return false;
+            }
+            builder.append("(- ");
+            if (!writeValue(e.getSubexpression(0))) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof Aggregate) {
+            return allowAggregates && writeAggregate((Aggregate) e);
+        }
+        return false;
+    }
+
+    private boolean writeAggregate(Aggregate a) {
+        if (a.getFilterCondition() != null || a.getOverCondition() != null) {
+            return false;
+        }
+        AggregateType type = a.getAggregateType();
+        if (type == AggregateType.COUNT_ALL) {
+            builder.append("COUNT(*)");
+            return true;
+        }
+        if (a.getSubexpressionCount() != 1) {
+            return false;
+        }
+        Expression arg = a.getSubexpression(0);
+        String name;
+        switch (type) {
+        case COUNT:
+            name = "COUNT(";
+            break;
+        case SUM:
+            name = "SUM(";
+            break;
+        case AVG:
+            // AVG of integer values is truncated by some databases
+            if (!isApproximateOrDecimal(arg.getType())) {
+                return false;
+            }
+            name = "AVG(";
+            break;
+        case MIN:
+            name = "MIN(";
+            break;
+        case MAX:
+            name = "MAX(";
+            break;
+        default:
+            return false;
+        }
+        if ((type != AggregateType.COUNT || a.isDistinct()) && isCharacterString(arg)) {
+            // strings are compared with collations of the target database
+            return false;
+        }
+        builder.append(name);
+        if (a.isDistinct()) {
+            builder.append("DISTINCT ");
+        }
+        if (!writeValue(arg)) {
+            return false;
+        }
+        builder.append(')');
+        return true;
+    }
+
+    /**
+     * Returns whether all operands of the specified predicate have the same
+     * data type. Database systems convert operands of different data types in
+     * different ways, and some of them reject such comparisons.
+     *
+     * @param e the predicate
+     * @return whether all operands have the same data type
+     */
+    private static boolean hasSameTypes(Expression e) {
+        int valueType = e.getSubexpression(0).getType().getValueType();
+        for (int i = 1, l = e.getSubexpressionCount(); i < l; i++) {
+            if (e.getSubexpression(i).getType().getValueType() != valueType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the data type to convert values of a parameter to. Values are
+     * converted to the data type of the parameter at the time of preparation,
+     * but they are not padded, truncated, or rounded to its precision or
+     * scale.
+     *
+     * @param type the data type of the parameter
+     * @return the data type for conversion
+     */
+    private static TypeInfo getParameterType(TypeInfo type) {
+        int valueType = type.getValueType();
+        switch (valueType) {
+        case Value.CHAR:
+        case Value.VARCHAR:
+            return TypeInfo.TYPE_VARCHAR;
+        case Value.NUMERIC:
+            return TypeInfo.TYPE_DECFLOAT;
+        case Value.TIME:
+        case Value.TIMESTAMP:
+            return TypeInfo.getTypeInfo(valueType, -1L, ValueTimestamp.MAXIMUM_SCALE, null);
+        default:
+            return TypeInfo.getTypeInfo(valueType);
+        }
+    }
+
+    /**
+     * Returns whether values of the specified data type can be passed to the
+     * target database and read from it without conversions specific to the
+     * session.
+     *
+     * @param type the data type
+     * @return whether the data type is supported
+     */
+    static boolean isSupportedType(TypeInfo type) {
+        switch (type.getValueType()) {
+        case Value.CHAR:
+        case Value.VARCHAR:
+        case Value.BOOLEAN:
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+        case Value.NUMERIC:
+        case Value.REAL:
+        case Value.DOUBLE:
+        case Value.DECFLOAT:
+        case Value.DATE:
+        case Value.TIME:
+        case Value.TIMESTAMP:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the specified expression returns character strings.
+     * Target databases may compare them with different collations, so they
+     * can't be grouped, sorted, or compared with each other by the target
+     * database if the results aren't checked locally.
+     *
+     * @param e the expression
+     * @return whether the expression returns character strings
+     */
+    public static boolean isCharacterString(Expression e) {
+        return DataType.isCharacterStringType(e.getType().getValueType());
+    }
+
+    private static boolean isNumeric(Expression e) {
+        int valueType = e.getType().getValueType();
+        return valueType >= Value.TINYINT && valueType <= Value.DECFLOAT;
+    }
+
+    private static boolean isApproximateOrDecimal(TypeInfo type) {
+        int valueType = type.getValueType();
+        return valueType >= Value.NUMERIC && valueType <= Value.DECFLOAT;
+    }
+
+}
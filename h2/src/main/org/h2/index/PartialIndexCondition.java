@@ -0,0 +1,358 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.ExpressionVisitor;
+import org.h2.expression.Parameter;
+import org.h2.expression.Subquery;
+import org.h2.expression.ValueExpression;
+import org.h2.expression.condition.BetweenPredicate;
+import org.h2.expression.condition.Comparison;
+import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionAndOrN;
+import org.h2.expression.condition.ConditionIn;
+import org.h2.expression.condition.ConditionInConstantSet;
+import org.h2.expression.condition.NullPredicate;
+import org.h2.message.DbException;
+import org.h2.result.Row;
+import org.h2.table.Column;
+import org.h2.table.Table;
+import org.h2.table.TableFilter;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+
+/**
+ * The condition of a partial index. Only rows that satisfy the condition are
+ * stored in the index.
+ *
+ * <p>
+ * An index with a condition may only be used by a query if conditions of the
+ * query imply the condition of the index. The implication is detected only for
+ * conditions of the index that are AND-ed comparisons of columns with
+ * constants, BETWEEN and IN predicates with constants, NULL predicates, and
+ * boolean columns, and only for constant conditions of the query.
+ * </p>
+ */
+public final class PartialIndexCondition {
+
+    private final Expression expression;
+
+    private final TableFilter filter;
+
+    /**
+     * Index conditions equivalent to the AND-ed parts of the condition, or
+     * {@code null} if the condition has other parts.
+     */
+    private final IndexCondition[] parts;
+
+    /**
+     * Creates a new condition of a partial index.
+     *
+     * @param session the session
+     * @param table the table
+     * @param expression the condition
+     */
+    public PartialIndexCondition(SessionLocal session, Table table, Expression expression) {
+        TableFilter filter = new TableFilter(session, table, null, false, null, 0, null);
+        expression.mapColumns(filter, 0, Expression.MAP_INITIAL);
+        expression = expression.optimize(session);
+        if (!isAllowed(expression) || !expression.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
+            throw DbException.getUnsupportedException("Index condition " + expression.getTraceSQL());
+        }
+        this.expression = expression;
+        this.filter = filter;
+        parts = getParts(session, expression, filter);
+    }
+
+    private static boolean isAllowed(Expression e) {
+        if (e instanceof Subquery || e instanceof Parameter) {
+            return false;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (!isAllowed(e.getSubexpression(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IndexCondition[] getParts(SessionLocal session, Expression expression, TableFilter filter) {
+        ArrayList<Expression> and = new ArrayList<>();
+        addAndParts(expression, and);
+        ArrayList<IndexCondition> indexConditions = filter.getIndexConditions();
+        ArrayList<IndexCondition> result = new ArrayList<>();
+        try {
+            for (Expression e : and) {
+                if (e.isConstant() && e.getBooleanValue(session)) {
+                    continue;
+                }
+                if (e instanceof NullPredicate && ((NullPredicate) e).isNot()) {
+                    Expression c = e.getSubexpression(0);
+                    if (!(c instanceof ExpressionColumn)) {
+                        return null;
+                    }
+                    result.add(IndexCondition.get(Comparison.NOT_EQUAL_NULL_SAFE, (ExpressionColumn) c,
+                            ValueExpression.NULL));
+                    continue;
+                }
+                int count = getIndexConditionCount(e);
+                if (count == 0) {
+                    return null;
+                }
+                e.createIndexConditions(session, filter);
+                if (indexConditions.size() != count) {
+                    return null;
+                }
+                for (IndexCondition c : indexConditions) {
+                    if (getValues(session, c) == null) {
+                        return null;
+                    }
+                }
+                result.addAll(indexConditions);
+                indexConditions.clear();
+            }
+        } finally {
+            indexConditions.clear();
+        }
+        return result.toArray(new IndexCondition[0]);
+    }
+
+    private static void addAndParts(Expression e, ArrayList<Expression> and) {
+        if (e instanceof ConditionAndOr && ((ConditionAndOr) e).getAndOrType() == ConditionAndOr.AND
+                || e instanceof ConditionAndOrN && ((ConditionAndOrN) e).getAndOrType() == ConditionAndOr.AND) {
+            for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+                addAndParts(e.getSubexpression(i), and);
+            }
+        } else {
+            and.add(e);
+        }
+    }
+
+    /**
+     * Returns the number of index conditions that are equivalent to the
+     * specified part of the condition.
+     *
+     * @return the number of index conditions, or 0 if index conditions aren't
+     *         equivalent to this part
+     */
+    private static int getIndexConditionCount(Expression e) {
+        if (e instanceof ExpressionColumn) {
+            return 1;
+        }
+        if (e instanceof Comparison) {
+            return e.getSubexpression(0) instanceof ExpressionColumn
+                    || e.getSubexpression(1) instanceof ExpressionColumn ? 1 : 0;
+        }
+        if (e instanceof BetweenPredicate) {
+            return e.getSubexpression(0) instanceof ExpressionColumn ? 2 : 0;
+        }
+        if (e instanceof NullPredicate || e instanceof ConditionIn || e instanceof ConditionInConstantSet) {
+            return e.getSubexpression(0) instanceof ExpressionColumn ? 1 : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns constant values of an equality or IN list index condition, or of
+     * a range index condition.
+     *
+     * @return the values, or {@code null} if condition is not supported
+     */
+    private static Value[] getValues(SessionLocal session, IndexCondition c) {
+        switch (c.getCompareType()) {
+        case Comparison.EQUAL:
+        case Comparison.EQUAL_NULL_SAFE:
+        case Comparison.BIGGER:
+        case Comparison.BIGGER_EQUAL:
+        case Comparison.SMALLER:
+        case Comparison.SMALLER_EQUAL:
+        case Comparison.NOT_EQUAL_NULL_SAFE: {
+            Expression e = c.getExpression();
+            return e.isConstant() ? new Value[] { e.getValue(session) } : null;
+        }
+        case Comparison.IN_LIST: {
+            if (c.getRowValueList() != null) {
+                return null;
+            }
+            List<Expression> list = c.getExpressionList();
+            for (Expression e : list) {
+                if (!e.isConstant()) {
+                    return null;
+                }
+            }
+            return c.getCurrentValueList(session);
+        }
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Returns the condition.
+     *
+     * @return the condition
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Appends the SQL of the condition to the specified builder.
+     *
+     * @param builder the string builder
+     * @param sqlFlags formatting flags
+     * @return the specified string builder
+     */
+    public StringBuilder getSQL(StringBuilder builder, int sqlFlags) {
+        return expression.getUnenclosedSQL(builder, sqlFlags);
+    }
+
+    /**
+     * Returns the columns referenced by the condition.
+     *
+     * @return the columns
+     */
+    public HashSet<Column> getReferencedColumns() {
+        HashSet<Column> columns = new HashSet<>();
+        expression.isEverything(ExpressionVisitor.getColumnsVisitor(columns, filter.getTable()));
+        return columns;
+    }
+
+    /**
+     * Returns whether the specified row satisfies the condition.
+     *
+     * @param session the session
+     * @param row the row
+     * @return {@code true} if the condition is TRUE for the row
+     */
+    public boolean test(SessionLocal session, Row row) {
+        synchronized (this) {
+            filter.set(row);
+            return expression.getBooleanValue(session);
+        }
+    }
+
+    /**
+     * Returns whether the specified index conditions imply this condition.
+     * Only constant index conditions are considered.
+     *
+     * @param session the session
+     * @param indexConditions the index conditions of a query
+     * @return {@code true} if every row that satisfies the index conditions
+     *         satisfies this condition too
+     */
+    public boolean isImpliedBy(SessionLocal session, ArrayList<IndexCondition> indexConditions) {
+        if (parts == null) {
+            return false;
+        }
+        loop: for (IndexCondition part : parts) {
+            Column column = part.getColumn();
+            for (IndexCondition c : indexConditions) {
+                if (c.getColumn() == column && implies(session, c, part)) {
+                    continue loop;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean implies(SessionLocal session, IndexCondition c, IndexCondition part) {
+        Value[] values = getValues(session, c);
+        if (values == null) {
+            return false;
+        }
+        int compareType = c.getCompareType();
+        switch (compareType) {
+        case Comparison.EQUAL:
+        case Comparison.EQUAL_NULL_SAFE:
+        case Comparison.IN_LIST:
+            for (Value v : values) {
+                if (!test(session, part, v)) {
+                    return false;
+                }
+            }
+            return true;
+        default: {
+            int partType = part.getCompareType();
+            if (partType == Comparison.NOT_EQUAL_NULL_SAFE) {
+                // range conditions don't select NULL values
+                return true;
+            }
+            Value v = values[0], partValue = getValues(session, part)[0];
+            if (v == ValueNull.INSTANCE || partValue == ValueNull.INSTANCE) {
+                return false;
+            }
+            int comp = session.compare(v, partValue);
+            switch (compareType) {
+            case Comparison.BIGGER:
+                return partType == Comparison.BIGGER_EQUAL ? comp >= 0 : partType == Comparison.BIGGER && comp >= 0;
+            case Comparison.BIGGER_EQUAL:
+                return partType == Comparison.BIGGER_EQUAL ? comp >= 0 : partType == Comparison.BIGGER && comp > 0;
+            case Comparison.SMALLER:
+                return partType == Comparison.SMALLER_EQUAL ? comp <= 0
+                        : partType == Comparison.SMALLER && comp <= 0;
+            default:
+                return partType == Comparison.SMALLER_EQUAL ? comp <= 0
+                        : partType == Comparison.SMALLER && comp < 0;
+            }
+        }
+        }
+    }
+
+    /**
+     * Returns whether the specified value of the column satisfies the
+     * specified part of the condition.
+     */
+    private static boolean test(SessionLocal session, IndexCondition part, Value v) {
+        Value[] values = getValues(session, part);
+        int compareType = part.getCompareType();
+        if (compareType == Comparison.EQUAL_NULL_SAFE) {
+            Value partValue = values[0];
+            return v == ValueNull.INSTANCE ? partValue == ValueNull.INSTANCE
+                    : partValue != ValueNull.INSTANCE && session.compare(v, partValue) == 0;
+        }
+        if (v == ValueNull.INSTANCE) {
+            return false;
+        }
+        if (compareType == Comparison.NOT_EQUAL_NULL_SAFE) {
+            return true;
+        }
+        if (compareType == Comparison.IN_LIST) {
+            for (Value partValue : values) {
+                if (partValue != ValueNull.INSTANCE && session.compare(v, partValue) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Value partValue = values[0];
+        if (partValue == ValueNull.INSTANCE) {
+            return false;
+        }
+        int comp = session.compare(v, partValue);
+        switch (compareType) {
+        case Comparison.EQUAL:
+            return comp == 0;
+        case Comparison.BIGGER:
+            return comp > 0;
+        case Comparison.BIGGER_EQUAL:
+            return comp >= 0;
+        case Comparison.SMALLER:
+            return comp < 0;
+        default:
+            return comp <= 0;
+        }
+    }
+
+}
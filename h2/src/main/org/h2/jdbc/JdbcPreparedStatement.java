@@ -202,22 +202,28 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
     }
 
     private long executeUpdateInternal() {
+        synchronized (session) {
+            updateCount = executeUpdateCommand().getUpdateCount();
+        }
+        return updateCount;
+    }
+
+    private ResultWithGeneratedKeys executeUpdateCommand() {
         closeOldResultSet();
         synchronized (session) {
             try {
                 setExecutingStatement(command);
                 ResultWithGeneratedKeys result = command.executeUpdate(generatedKeysRequest);
-                updateCount = result.getUpdateCount();
                 ResultInterface gk = result.getGeneratedKeys();
                 if (gk != null) {
                     int id = getNextId(TraceObject.RESULT_SET);
                     generatedKeys = new JdbcResultSet(conn, this, command, gk, id, true, false, false);
                 }
+                return result;
             } finally {
                 setExecutingStatement(null);
             }
         }
-        return updateCount;
     }
 
     /**
@@ -252,7 +258,7 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                     } else {
                         returnsResultSet = false;
                         ResultWithGeneratedKeys result = command.executeUpdate(generatedKeysRequest);
-                        updateCount = result.getUpdateCount();
+                        setUpdateResult(result);
                         ResultInterface gk = result.getGeneratedKeys();
                         if (gk != null) {
                             generatedKeys = new JdbcResultSet(conn, this, command, gk, id, true, false, false);
@@ -1259,8 +1265,9 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
             int[] result = new int[size];
             SQLException exception = new SQLException();
             checkClosed();
+            long[] updateCounts = executeBatchElements(exception);
             for (int i = 0; i < size; i++) {
-                long updateCount = executeBatchElement(batchParameters.get(i), exception);
+                long updateCount = updateCounts[i];
                 result[i] = updateCount <= Integer.MAX_VALUE ? (int) updateCount : SUCCESS_NO_INFO;
             }
             batchParameters = null;
@@ -1289,13 +1296,9 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                 batchParameters = new ArrayList<>();
             }
             batchIdentities = new MergedResult();
-            int size = batchParameters.size();
-            long[] result = new long[size];
             SQLException exception = new SQLException();
             checkClosed();
-            for (int i = 0; i < size; i++) {
-                result[i] = executeBatchElement(batchParameters.get(i), exception);
-            }
+            long[] result = executeBatchElements(exception);
             batchParameters = null;
             exception = exception.getNextException();
             if (exception != null) {
@@ -1307,22 +1310,59 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
         }
     }
 
-    private long executeBatchElement(Value[] set, SQLException exception) {
+    /**
+     * Executes all batched commands. With a pipelining remote session all
+     * commands are sent first and their update counts are read after that.
+     *
+     * @param exception the exception to chain the exceptions of failed
+     *            commands to
+     * @return the update counts
+     */
+    private long[] executeBatchElements(SQLException exception) {
+        int size = batchParameters.size();
+        long[] result = new long[size];
+        SQLException[] exceptions = new SQLException[size];
+        ResultWithGeneratedKeys[] pending = new ResultWithGeneratedKeys[size];
+        for (int i = 0; i < size; i++) {
+            pending[i] = executeBatchElement(batchParameters.get(i), i, result, exceptions);
+        }
+        for (int i = 0; i < size; i++) {
+            ResultWithGeneratedKeys r = pending[i];
+            if (r != null) {
+                try {
+                    result[i] = updateCount = r.getUpdateCount();
+                } catch (Exception e) {
+                    exceptions[i] = logAndConvert(e);
+                    result[i] = Statement.EXECUTE_FAILED;
+                }
+            }
+            if (exceptions[i] != null) {
+                exception.setNextException(exceptions[i]);
+            }
+        }
+        return result;
+    }
+
+    private ResultWithGeneratedKeys executeBatchElement(Value[] set, int index, long[] result,
+            SQLException[] exceptions) {
         ArrayList<? extends ParameterInterface> parameters = command.getParameters();
         for (int i = 0, l = set.length; i < l; i++) {
             parameters.get(i).setValue(set[i], false);
         }
-        long updateCount;
         try {
-            updateCount = executeUpdateInternal();
+            ResultWithGeneratedKeys r = executeUpdateCommand();
+            if (r.isPending()) {
+                return r;
+            }
+            result[index] = updateCount = r.getUpdateCount();
             // Cannot use own implementation, it returns batch identities
             ResultSet rs = super.getGeneratedKeys();
             batchIdentities.add(((JdbcResultSet) rs).result);
         } catch (Exception e) {
-            exception.setNextException(logAndConvert(e));
-            updateCount = Statement.EXECUTE_FAILED;
+            exceptions[index] = logAndConvert(e);
+            result[index] = Statement.EXECUTE_FAILED;
         }
-        return updateCount;
+        return null;
     }
 
     @Override
@@ -53,10 +53,15 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
     protected long maxRows;
     protected int fetchSize = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
     protected long updateCount;
+    /**
+     * The result of a pipelined update whose update count wasn't read yet.
+     */
+    private ResultWithGeneratedKeys pendingUpdate;
     protected JdbcResultSet generatedKeys;
     protected final int resultSetType;
     protected final int resultSetConcurrency;
     private volatile CommandInterface executingCommand;
+    private volatile boolean executingBatch;
     private ArrayList<String> batchCommands;
     private boolean escapeProcessing = true;
     private volatile boolean cancelled;
@@ -250,7 +255,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
                 } else {
                     returnsResultSet = false;
                     ResultWithGeneratedKeys result = command.executeUpdate(generatedKeysRequest);
-                    updateCount = result.getUpdateCount();
+                    setUpdateResult(result);
                     ResultInterface gk = result.getGeneratedKeys();
                     if (gk != null) {
                         generatedKeys = new JdbcResultSet(conn, this, command, gk, id, true, false, false);
@@ -305,6 +310,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
         try {
             debugCodeCall("getUpdateCount");
             checkClosed();
+            long updateCount = readUpdateCount();
             return updateCount <= Integer.MAX_VALUE ? (int) updateCount : SUCCESS_NO_INFO;
         } catch (Exception e) {
             throw logAndConvert(e);
@@ -325,7 +331,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
         try {
             debugCodeCall("getLargeUpdateCount");
             checkClosed();
-            return updateCount;
+            return readUpdateCount();
         } catch (Exception e) {
             throw logAndConvert(e);
         }
@@ -673,6 +679,9 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
                 if (c != null) {
                     c.cancel();
                     cancelled = true;
+                } else if (executingBatch) {
+                    session.cancelBatch();
+                    cancelled = true;
                 }
             } finally {
                 setExecutingStatement(null);
@@ -790,8 +799,9 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
             int size = batchCommands.size();
             int[] result = new int[size];
             SQLException exception = new SQLException();
+            long[] updateCounts = executeBatchCommands(exception);
             for (int i = 0; i < size; i++) {
-                long updateCount = executeBatchElement(batchCommands.get(i), exception);
+                long updateCount = updateCounts[i];
                 result[i] = updateCount <= Integer.MAX_VALUE ? (int) updateCount : SUCCESS_NO_INFO;
             }
             batchCommands = null;
@@ -819,12 +829,8 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
             if (batchCommands == null) {
                 batchCommands = new ArrayList<>();
             }
-            int size = batchCommands.size();
-            long[] result = new long[size];
             SQLException exception = new SQLException();
-            for (int i = 0; i < size; i++) {
-                result[i] = executeBatchElement(batchCommands.get(i), exception);
-            }
+            long[] result = executeBatchCommands(exception);
             batchCommands = null;
             exception = exception.getNextException();
             if (exception != null) {
@@ -836,15 +842,36 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
         }
     }
 
-    private long executeBatchElement(String sql, SQLException exception) {
-        long updateCount;
-        try {
-            updateCount = executeUpdateInternal(sql, null);
-        } catch (Exception e) {
-            exception.setNextException(logAndConvert(e));
-            updateCount = Statement.EXECUTE_FAILED;
+    /**
+     * Executes all batched commands. In auto-commit mode they are committed
+     * together after the last command, a remote session sends all of them in
+     * one request.
+     *
+     * @param exception the exception to chain the exceptions of failed
+     *            commands to
+     * @return the update counts
+     */
+    private long[] executeBatchCommands(SQLException exception) {
+        closeOldResultSet();
+        int size = batchCommands.size();
+        DbException[] exceptions = new DbException[size];
+        long[] result;
+        synchronized (session) {
+            conn.setExecutingStatement(this);
+            executingBatch = true;
+            try {
+                result = session.executeBatch(batchCommands, exceptions);
+            } finally {
+                executingBatch = false;
+                conn.setExecutingStatement(null);
+            }
         }
-        return updateCount;
+        for (int i = 0; i < size; i++) {
+            if (exceptions[i] != null) {
+                exception.setNextException(logAndConvert(exceptions[i]));
+            }
+        }
+        return result;
     }
 
     /**
@@ -1289,10 +1316,36 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
             cancelled = false;
             resultSet = null;
             updateCount = -1;
+            pendingUpdate = null;
             generatedKeys = null;
         }
     }
 
+    /**
+     * INTERNAL.
+     * Set the update count from the result of an update command. The update
+     * count of a pipelined command is read when it is requested.
+     *
+     * @param result the result of the command
+     */
+    void setUpdateResult(ResultWithGeneratedKeys result) {
+        if (result.isPending()) {
+            pendingUpdate = result;
+            updateCount = 0L;
+        } else {
+            updateCount = result.getUpdateCount();
+        }
+    }
+
+    private long readUpdateCount() {
+        ResultWithGeneratedKeys result = pendingUpdate;
+        if (result != null) {
+            pendingUpdate = null;
+            updateCount = result.getUpdateCount();
+        }
+        return updateCount;
+    }
+
     /**
      * INTERNAL.
      * Set the statement that is currently running.
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore;
+
+import static org.h2.engine.Constants.MEMORY_POINTER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.h2.mvstore.type.DataType;
+
+/**
+ * A loader of entries with ascending keys into an empty map. Leaf pages are
+ * filled up to the fill factor and node pages are built above them, bottom-up,
+ * without descending from the root for each entry. Built pages are attached to
+ * the right edge of the tree of the map atomically with {@link #finish()}.
+ *
+ * <p>
+ * Loaded entries are not visible before that. In a persistent map built pages
+ * are also attached when their size reaches the auto-commit memory of the
+ * store, so they can be saved and evicted from memory; these entries become
+ * visible before the load is finished. The map must not be modified by other
+ * means until the load is finished. If the load is abandoned, the map may
+ * contain some of the loaded entries.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BulkLoader<K, V> {
+
+    /**
+     * Pages of one level of a tree that are not referenced by a parent page
+     * yet.
+     */
+    private static final class Level<K, V> {
+
+        final ArrayList<Page<K,V>> pages = new ArrayList<>();
+
+        final ArrayList<K> firstKeys = new ArrayList<>();
+
+        int memory;
+
+        Level() {
+        }
+
+    }
+
+    private final MVMap<K,V> map;
+
+    private final MVStore store;
+
+    private final DataType<K> keyType;
+
+    private final boolean persistent;
+
+    private final K[] keys;
+
+    private final V[] values;
+
+    private final ArrayList<Level<K,V>> levels = new ArrayList<>();
+
+    private int maxKeys;
+
+    private int maxMemory;
+
+    private int keyCount;
+
+    private int leafMemory;
+
+    private K lastKey;
+
+    private long count;
+
+    /**
+     * The memory of built pages that were not installed yet.
+     */
+    private int unsavedMemory;
+
+    private boolean finished;
+
+    /**
+     * Creates a new loader with the fill factor of 100%.
+     *
+     * @param map the empty map to load entries into
+     * @throws IllegalArgumentException if the map is not empty
+     */
+    public BulkLoader(MVMap<K,V> map) {
+        RootReference<K,V> rootReference = map.flushAndGetRoot();
+        DataUtils.checkArgument(rootReference.getTotalCount() == 0, "Map {0} is not empty", map.getName());
+        this.map = map;
+        store = map.store;
+        keyType = map.getKeyType();
+        persistent = map.isPersistent();
+        int keysPerPage = store.getKeysPerPage();
+        keys = keyType.createStorage(keysPerPage);
+        values = map.getValueType().createStorage(keysPerPage);
+        setFillFactor(100);
+    }
+
+    /**
+     * Sets the fill factor of pages. Loaded pages with lower fill factor need
+     * fewer splits on later insertions into the map.
+     *
+     * @param percent the percentage of keys per page and of maximum page size
+     *            to fill, from 1 to 100
+     * @return this loader
+     * @throws IllegalArgumentException if the fill factor is out of range or
+     *             some entries were already added
+     */
+    public BulkLoader<K,V> setFillFactor(int percent) {
+        DataUtils.checkArgument(percent > 0 && percent <= 100, "Fill factor {0} is out of range", percent);
+        DataUtils.checkArgument(count == 0, "Entries were already added");
+        maxKeys = Math.max(1, store.getKeysPerPage() * percent / 100);
+        maxMemory = (int) Math.min(Integer.MAX_VALUE, store.getMaxPageSize() * percent / 100);
+        return this;
+    }
+
+    /**
+     * Adds an entry. The key must be larger than keys of all previously added
+     * entries.
+     *
+     * @param key the key (may not be null)
+     * @param value the value (may not be null)
+     * @throws IllegalArgumentException if the key is not in ascending order
+     */
+    public void add(K key, V value) {
+        DataUtils.checkArgument(!finished, "The load is finished");
+        DataUtils.checkArgument(value != null, "The value may not be null");
+        if (lastKey != null && keyType.compare(key, lastKey) <= 0) {
+            throw DataUtils.newIllegalArgumentException("Key {0} is not larger than the previous key {1}", key,
+                    lastKey);
+        }
+        keys[keyCount] = key;
+        values[keyCount++] = value;
+        lastKey = key;
+        count++;
+        if (persistent) {
+            leafMemory += 2 * MEMORY_POINTER + map.evaluateMemoryForKey(key) + map.evaluateMemoryForValue(value);
+        }
+        if (keyCount >= maxKeys || persistent && leafMemory >= maxMemory) {
+            addPage(0, createLeaf(), keys[0]);
+            keyCount = 0;
+            leafMemory = 0;
+            int autoCommitMemory = store.getAutoCommitMemory();
+            if (persistent && autoCommitMemory > 0 && unsavedMemory >= autoCommitMemory) {
+                install(false);
+            }
+        }
+    }
+
+    /**
+     * Adds all entries from the specified iterator. Keys of entries must be in
+     * ascending order.
+     *
+     * @param iterator the iterator
+     * @throws IllegalArgumentException if keys are not in ascending order
+     */
+    public void addAll(Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator) {
+        while (iterator.hasNext()) {
+            Map.Entry<? extends K, ? extends V> e = iterator.next();
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Returns the number of added entries.
+     *
+     * @return the number of added entries
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds the remaining built pages to the map. Entries can't be added after
+     * that.
+     */
+    public void finish() {
+        if (!finished) {
+            install(true);
+            finished = true;
+        }
+    }
+
+    private Page<K,V> createLeaf() {
+        Page<K,V> page = Page.createLeaf(map, Arrays.copyOf(keys, keyCount), Arrays.copyOf(values, keyCount), 0);
+        if (persistent) {
+            unsavedMemory += page.getMemory();
+        }
+        return page;
+    }
+
+    /**
+     * Adds a complete page to the specified level and creates a node page on
+     * the next level if the level is full.
+     *
+     * @param level the level, 0 for leaves
+     * @param page the page
+     * @param firstKey the first key in the page or its subtree
+     */
+    private void addPage(int level, Page<K,V> page, K firstKey) {
+        if (level == levels.size()) {
+            levels.add(new Level<>());
+        }
+        Level<K,V> l = levels.get(level);
+        l.pages.add(page);
+        l.firstKeys.add(firstKey);
+        int size = l.pages.size();
+        if (persistent) {
+            l.memory += 2 * MEMORY_POINTER + Page.PAGE_MEMORY_CHILD + map.evaluateMemoryForKey(firstKey);
+        }
+        if (size > maxKeys || persistent && size > 1 && l.memory >= maxMemory) {
+            Page<K,V> node = createNode(l, null, null);
+            K nodeFirstKey = l.firstKeys.get(0);
+            l.pages.clear();
+            l.firstKeys.clear();
+            l.memory = 0;
+            addPage(level + 1, node, nodeFirstKey);
+        }
+    }
+
+    /**
+     * Creates a node page with pages of the specified level.
+     *
+     * @param l the level
+     * @param last the additional last child page, or {@code null}
+     * @param lastFirstKey the first key in the additional last child page
+     * @return the node page
+     */
+    private Page<K,V> createNode(Level<K,V> l, Page<K,V> last, K lastFirstKey) {
+        int size = l.pages.size(), childCount = last != null ? size + 1 : size;
+        K[] nodeKeys = keyType.createStorage(childCount - 1);
+        Page.PageReference<K,V>[] children = Page.createRefStorage(childCount);
+        long totalCount = 0;
+        for (int i = 0; i < childCount; i++) {
+            Page<K,V> child = i < size ? l.pages.get(i) : last;
+            if (i > 0) {
+                nodeKeys[i - 1] = i < size ? l.firstKeys.get(i) : lastFirstKey;
+            }
+            children[i] = new Page.PageReference<>(child);
+            totalCount += child.getTotalCount();
+        }
+        Page<K,V> page = Page.createNode(map, nodeKeys, children, totalCount, 0);
+        if (persistent) {
+            unsavedMemory += page.getMemory();
+        }
+        return page;
+    }
+
+    /**
+     * Appends complete pages to the right edge of the tree of the map.
+     *
+     * @param withLastLeaf whether the incomplete last leaf page should be
+     *            appended too
+     */
+    private void install(boolean withLastLeaf) {
+        ArrayList<Page<K,V>> pages = new ArrayList<>();
+        ArrayList<K> firstKeys = new ArrayList<>();
+        int count = 0;
+        for (Level<K,V> l : levels) {
+            count += l.pages.size();
+        }
+        if (withLastLeaf && keyCount > 0) {
+            count++;
+        }
+        int[] heights = new int[count];
+        // pages of upper levels contain smaller keys
+        for (int level = levels.size() - 1; level >= 0; level--) {
+            Level<K,V> l = levels.get(level);
+            for (int i = 0, size = l.pages.size(); i < size; i++) {
+                heights[pages.size()] = level;
+                pages.add(l.pages.get(i));
+                firstKeys.add(l.firstKeys.get(i));
+            }
+            l.pages.clear();
+            l.firstKeys.clear();
+            l.memory = 0;
+        }
+        if (withLastLeaf && keyCount > 0) {
+            pages.add(createLeaf());
+            firstKeys.add(keys[0]);
+            keyCount = 0;
+            leafMemory = 0;
+        }
+        if (!pages.isEmpty()) {
+            map.appendPages(pages, firstKeys, heights, maxKeys, maxMemory, unsavedMemory);
+        }
+        unsavedMemory = 0;
+    }
+
+}
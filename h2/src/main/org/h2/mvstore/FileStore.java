@@ -196,6 +196,18 @@ public abstract class FileStore<C extends Chunk<C>>
 
     private final Deque<C> deadChunks = new ArrayDeque<>();
 
+    /**
+     * The metadata of chunks in the layout of a refreshed read-only store, by
+     * chunk id.
+     */
+    private Map<Integer, String> layoutChunks;
+
+    /**
+     * The chunks removed from the layout of a refreshed read-only store,
+     * which are kept for the retention time for readers of older versions.
+     */
+    private final Map<Integer, C> retiredChunks = new HashMap<>();
+
     /**
      * Reference to a background thread, which is expected to be running, if any.
      */
@@ -503,6 +515,99 @@ public abstract class FileStore<C extends Chunk<C>>
         clearCaches();
     }
 
+    /**
+     * Switch a read-only store to the specified chunk, which was written to the
+     * file by a replication source after this store was opened. The chunk and
+     * all chunks it refers to must be completely written.
+     *
+     * @param block the first block of the chunk
+     * @param chunkId the id of the chunk
+     * @param fileSize the new size of the file
+     * @return whether the chunk is valid
+     */
+    final boolean refresh(long block, int chunkId, long fileSize) {
+        assert isReadOnly();
+        saveChunkLock.lock();
+        try {
+            C chunk = readChunkHeaderAndFooter(block, chunkId);
+            if (chunk == null) {
+                return false;
+            }
+            Map<Integer, String> oldChunks = layoutChunks != null ? layoutChunks : getChunkMetadata();
+            setSize(fileSize);
+            // the map of chunks is not cleared, concurrent readers of older
+            // versions need to find their chunks
+            lastChunk = chunk;
+            lastChunkId = chunk.id;
+            chunks.put(chunk.id, chunk);
+            layout.setRootPos(chunk.layoutRootPos, chunk.version);
+            Map<Integer, String> newChunks = getChunkMetadata();
+            layoutChunks = newChunks;
+            long time = getTimeSinceCreation();
+            Set<Integer> reused = new HashSet<>();
+            for (Map.Entry<Integer, String> e : oldChunks.entrySet()) {
+                Integer id = e.getKey();
+                if (!newChunks.containsKey(id)) {
+                    C c = createChunk(e.getValue());
+                    c.unused = time;
+                    retiredChunks.put(id, c);
+                    chunks.putIfAbsent(id, c);
+                }
+            }
+            for (Map.Entry<Integer, String> e : newChunks.entrySet()) {
+                Integer id = e.getKey();
+                String s = e.getValue();
+                C c;
+                if (!s.equals(oldChunks.get(id)) && (c = chunks.get(id)) != null) {
+                    C n = createChunk(s);
+                    if (n.version != c.version) {
+                        reused.add(id);
+                    } else if (n.block != c.block) {
+                        // moved chunk
+                        chunks.put(id, n);
+                    }
+                }
+            }
+            for (Iterator<C> i = retiredChunks.values().iterator(); i.hasNext();) {
+                C c = i.next();
+                if (newChunks.containsKey(c.id)) {
+                    reused.add(c.id);
+                    i.remove();
+                } else if (time - c.unused > getRetentionTime()) {
+                    chunks.remove(c.id, c);
+                    i.remove();
+                }
+            }
+            for (Integer id : reused) {
+                chunks.remove(id);
+            }
+            if (!reused.isEmpty() && cache != null) {
+                // the source may reuse ids of dropped chunks, pages of such
+                // chunks must not be found in the cache
+                for (Long pos : cache.keySet()) {
+                    if (reused.contains(DataUtils.getPageChunkId(pos))) {
+                        cache.remove(pos);
+                    }
+                }
+            }
+            return true;
+        } finally {
+            saveChunkLock.unlock();
+        }
+    }
+
+    private Map<Integer, String> getChunkMetadata() {
+        Map<Integer, String> map = new HashMap<>();
+        for (Cursor<String, String> cursor = layout.cursor(DataUtils.META_CHUNK); cursor.hasNext();) {
+            String key = cursor.next();
+            if (!key.startsWith(DataUtils.META_CHUNK)) {
+                break;
+            }
+            map.put(DataUtils.parseHexInt(key.substring(DataUtils.META_CHUNK.length())), cursor.getValue());
+        }
+        return map;
+    }
+
     protected final void initializeCommonHeaderAttributes(long time) {
         setLastChunk(null);
         creationTime = time;
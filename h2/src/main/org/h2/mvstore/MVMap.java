@@ -486,6 +486,81 @@ public class MVMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V
         }
     }
 
+    /**
+     * Append pages built by a {@link BulkLoader} to the right edge of the
+     * tree. Each page is added as the last child of the node on the right edge
+     * whose children have the same height, nodes are split when they are full.
+     * All pages are appended atomically.
+     *
+     * @param pages the pages, with keys larger than all keys in this map, in
+     *            ascending order of keys
+     * @param firstKeys the first keys in subtrees of the pages
+     * @param heights the heights of the pages, 0 for leaves
+     * @param maxKeys the maximum number of keys in a node page
+     * @param maxMemory the maximum memory of a node page
+     * @param unsavedMemory the memory of the pages
+     */
+    final void appendPages(List<Page<K,V>> pages, List<K> firstKeys, int[] heights, int maxKeys, int maxMemory,
+            int unsavedMemory) {
+        beforeWrite();
+        IntValueHolder unsavedMemoryHolder = new IntValueHolder();
+        unsavedMemoryHolder.value = unsavedMemory;
+        RootReference<K,V> rootReference = lockRoot(flushAndGetRoot(), 1);
+        Page<K,V> rootPage = rootReference.root;
+        try {
+            long version = rootReference.version;
+            for (int i = 0, size = pages.size(); i < size; i++) {
+                Page<K,V> page = pages.get(i);
+                if (rootPage.getTotalCount() == 0) {
+                    unsavedMemoryHolder.value += rootPage.removePage(version);
+                    rootPage = page;
+                    continue;
+                }
+                K key = firstKeys.get(i);
+                // the rightmost page with the same height
+                CursorPos<K,V> pos = rootPage.getAppendCursorPos(null);
+                for (int h = heights[i]; h > 0 && pos.parent != null; h--) {
+                    pos = pos.parent;
+                }
+                Page<K,V> p = pos.page;
+                pos = pos.parent;
+                CursorPos<K,V> tip = pos;
+                while (true) {
+                    if (pos == null) {
+                        K[] keys = p.createKeyStorage(1);
+                        keys[0] = key;
+                        Page.PageReference<K,V>[] children = Page.createRefStorage(2);
+                        children[0] = new Page.PageReference<>(p);
+                        children[1] = new Page.PageReference<>(page);
+                        p = Page.createNode(this, keys, children, p.getTotalCount() + page.getTotalCount(), 0);
+                        break;
+                    }
+                    Page<K,V> c = p;
+                    p = pos.page.copy();
+                    int index = pos.index;
+                    pos = pos.parent;
+                    p.setChild(index, page);
+                    p.insertNode(index, key, c);
+                    int keyCount = p.getKeyCount();
+                    int at = keyCount - 2;
+                    if (keyCount <= maxKeys && (!isPersistent() || p.getMemory() < maxMemory || at <= 0)) {
+                        break;
+                    }
+                    key = p.getKey(at);
+                    page = p.split(at);
+                    unsavedMemoryHolder.value += p.getMemory() + page.getMemory();
+                }
+                rootPage = replacePage(pos, p, unsavedMemoryHolder);
+                if (isPersistent() && tip != null) {
+                    unsavedMemoryHolder.value += tip.processRemovalInfo(version);
+                }
+            }
+        } finally {
+            unlockRoot(rootPage);
+        }
+        registerUnsavedMemory(unsavedMemoryHolder.value);
+    }
+
     protected final void registerUnsavedMemory(int memory) {
         if (isPersistent()) {
             store.registerUnsavedMemory(memory);
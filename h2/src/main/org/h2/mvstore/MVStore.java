@@ -239,6 +239,10 @@ public class MVStore implements AutoCloseable {
      */
     private volatile LongConsumer oldestVersionTracker;
 
+    /**
+     * Callback invoked before changes are written to the file store
+     */
+    private volatile Runnable beforeStoreCallback;
 
     /**
      * Create and open the store.
@@ -796,6 +800,9 @@ public class MVStore implements AutoCloseable {
         if (isOpenOrStopping() && hasUnsavedChanges() && storeOperationInProgress.compareAndSet(false, true)) {
             try {
                 storeOperationInProgress.compareAndSet(false, true);
+                if (fileStore != null && !fileStore.isReadOnly()) {
+                    beforeStore();
+                }
                 @SuppressWarnings({"NonAtomicVolatileUpdate", "NonAtomicOperationOnVolatileField"})
                 long result = ++currentVersion;
                 if (fileStore == null) {
@@ -830,11 +837,21 @@ public class MVStore implements AutoCloseable {
 
     @SuppressWarnings({"NonAtomicVolatileUpdate", "NonAtomicOperationOnVolatileField"})
     void storeNow() {
+        beforeStore();
         // it is ok, since that path suppose to be single-threaded under storeLock
         ++currentVersion;
         storeNow(true);
     }
 
+    private void beforeStore() {
+        Runnable callback = beforeStoreCallback;
+        if (callback != null) {
+            // invoked before the version is incremented, maps created by the
+            // callback are written too
+            callback.run();
+        }
+    }
+
     private void storeNow(boolean syncWrite) {
         try {
             int currentUnsavedMemory = unsavedMemory;
@@ -1206,6 +1223,17 @@ public class MVStore implements AutoCloseable {
         oldestVersionTracker = callback;
     }
 
+    /**
+     * Set the callback to be invoked under the store lock before changes are
+     * written to the file store. It may be used to write data buffered
+     * elsewhere into maps of this store.
+     *
+     * @param callback the callback, or {@code null}
+     */
+    public void setBeforeStoreCallback(Runnable callback) {
+        beforeStoreCallback = callback;
+    }
+
     /**
      * Check whether all data can be read from this version. This requires that
      * all chunks referenced by this version are still available (not
@@ -1374,6 +1402,43 @@ public class MVStore implements AutoCloseable {
         }
     }
 
+    /**
+     * Switch a read-only store of a replica to a newer version, written to the
+     * file by the replication source. Open maps are switched to the new
+     * version, operations that have already obtained a root of a map continue
+     * to use the older version.
+     *
+     * @param block the first block of the last chunk
+     * @param chunkId the id of the last chunk
+     * @param fileSize the new size of the file
+     * @return whether the chunk is valid
+     */
+    boolean refresh(long block, int chunkId, long fileSize) {
+        storeLock.lock();
+        try {
+            checkOpen();
+            if (!fileStore.refresh(block, chunkId, fileSize)) {
+                return false;
+            }
+            long version = fileStore.lastChunkVersion();
+            currentVersion = version;
+            meta.setRootPos(getRootPos(meta.getId()), version);
+            for (MVMap<?, ?> m : new ArrayList<>(maps.values())) {
+                int id = m.getId();
+                if (meta.containsKey(MVMap.getMapKey(id))) {
+                    m.setRootPos(getRootPos(id), version);
+                } else {
+                    m.close();
+                    maps.remove(id);
+                }
+            }
+            onVersionChange(version);
+            return true;
+        } finally {
+            unlockAndCheckPanicCondition();
+        }
+    }
+
     private long getRootPos(int mapId) {
         return fileStore == null ? 0 : fileStore.getRootPos(mapId);
     }
@@ -2005,6 +2070,18 @@ public class MVStore implements AutoCloseable {
             return set("backgroundExceptionHandler", exceptionHandler);
         }
 
+        /**
+         * Ship all writes to the file to the replicas of the specified
+         * replication source. A replication source may be used only by one
+         * store. This setting is ignored by read-only stores.
+         *
+         * @param source the replication source
+         * @return this
+         */
+        public Builder replicationSource(ReplicationSource source) {
+            return set("replicationSource", source);
+        }
+
         /**
          * Use the provided file store instead of the default one.
          * <p>
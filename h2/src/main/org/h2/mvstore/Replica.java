@@ -0,0 +1,317 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.h2.security.SHA256;
+import org.h2.store.fs.FileUtils;
+
+/**
+ * An asynchronous read-only replica of a store.
+ * <p>
+ * The replica copies the file of the source store into a local file, applies
+ * all subsequent writes of the source in a background thread, and switches its
+ * read-only store to every new chunk written by the source, see
+ * {@link ReplicationSource}. Each chunk contains a complete version of the
+ * source store, so readers see consistent snapshots.
+ * </p>
+ * <p>
+ * Readers should not use the same version of a map for longer than the
+ * retention time of the source store, the source may overwrite old chunks
+ * after that time.
+ * </p>
+ * <p>
+ * If the connection is lost, the replica stops following the source, but its
+ * store remains readable. A new replica needs to be opened to resume
+ * replication.
+ * </p>
+ */
+public final class Replica implements AutoCloseable {
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final FileChannel file;
+
+    private final MVStore store;
+
+    private final Thread thread;
+
+    private long fileSize;
+
+    private volatile long version;
+
+    private volatile long sourceVersion;
+
+    private volatile long syncTime;
+
+    private volatile boolean connected = true;
+
+    private volatile boolean closed;
+
+    private Replica(Socket socket, DataInputStream in, FileChannel file, MVStore store, long fileSize,
+            long version) {
+        this.socket = socket;
+        this.in = in;
+        this.file = file;
+        this.store = store;
+        this.fileSize = fileSize;
+        this.version = version;
+        sourceVersion = version;
+        syncTime = System.currentTimeMillis();
+        thread = new Thread(this::receive, "H2 replica " + socket.getRemoteSocketAddress());
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Connect to a replication source, copy the file of the source store into
+     * the specified file, and open the replica. The file is overwritten.
+     *
+     * @param host the host name of the source
+     * @param port the port of the source
+     * @param fileName the name of the local file
+     * @param secret the shared secret of the source
+     * @return the replica
+     */
+    public static Replica open(String host, int port, String fileName, String secret) {
+        byte[] secretBytes = ReplicationSource.getSecret(secret);
+        Socket socket = null;
+        FileChannel file = null;
+        MVStore store = null;
+        try {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            if (in.readInt() != ReplicationSource.MAGIC) {
+                throw DataUtils.newMVStoreException(DataUtils.ERROR_UNSUPPORTED_FORMAT,
+                        "Not a replication source: {0}:{1}", host, port);
+            }
+            int protocolVersion = in.readInt();
+            if (protocolVersion != ReplicationSource.PROTOCOL_VERSION) {
+                throw DataUtils.newMVStoreException(DataUtils.ERROR_UNSUPPORTED_FORMAT,
+                        "Unsupported replication protocol version {0}", protocolVersion);
+            }
+            byte[] challenge = new byte[ReplicationSource.CHALLENGE_LENGTH];
+            in.readFully(challenge);
+            OutputStream out = socket.getOutputStream();
+            out.write(SHA256.getHMAC(secretBytes, challenge));
+            out.flush();
+            if (!in.readBoolean()) {
+                throw DataUtils.newMVStoreException(DataUtils.ERROR_READING_FAILED,
+                        "Wrong secret of replication source {0}:{1}", host, port);
+            }
+            long size = in.readLong();
+            int chunkId = in.readInt();
+            long block = in.readLong();
+            long version = in.readLong();
+            file = FileUtils.open(fileName, "rw");
+            file.truncate(0L);
+            byte[] buff = new byte[64 * 1024];
+            for (long pos = 0; pos < size;) {
+                int len = (int) Math.min(size - pos, buff.length);
+                in.readFully(buff, 0, len);
+                DataUtils.writeFully(file, pos, ByteBuffer.wrap(buff, 0, len));
+                pos += len;
+            }
+            store = new MVStore.Builder().fileName(fileName).readOnly().open();
+            if (chunkId >= 0 && !store.refresh(block, chunkId, size)) {
+                throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT,
+                        "Chunk {0} is invalid", chunkId);
+            }
+            Replica replica = new Replica(socket, in, file, store, size, version);
+            replica.thread.start();
+            return replica;
+        } catch (IOException | MVStoreException e) {
+            if (store != null) {
+                store.closeImmediately();
+            }
+            closeSilently(file);
+            closeSilently(socket);
+            if (e instanceof MVStoreException) {
+                throw (MVStoreException) e;
+            }
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_READING_FAILED,
+                    "Could not replicate {0}:{1}", host, port, e);
+        }
+    }
+
+    private void receive() {
+        byte[] buff = new byte[0];
+        try {
+            while (!closed) {
+                int type = in.read();
+                switch (type) {
+                case ReplicationSource.WRITE: {
+                    long pos = in.readLong();
+                    int len = in.readInt();
+                    if (buff.length < len) {
+                        buff = new byte[len];
+                    }
+                    in.readFully(buff, 0, len);
+                    DataUtils.writeFully(file, pos, ByteBuffer.wrap(buff, 0, len));
+                    fileSize = Math.max(fileSize, pos + len);
+                    break;
+                }
+                case ReplicationSource.TRUNCATE: {
+                    long size = in.readLong();
+                    file.truncate(size);
+                    fileSize = Math.min(fileSize, size);
+                    break;
+                }
+                case ReplicationSource.CHUNK: {
+                    int chunkId = in.readInt();
+                    long block = in.readLong();
+                    long chunkVersion = in.readLong();
+                    long time = in.readLong();
+                    if (!store.refresh(block, chunkId, fileSize)) {
+                        throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT,
+                                "Chunk {0} is invalid", chunkId);
+                    }
+                    synchronized (this) {
+                        version = chunkVersion;
+                        if (chunkVersion > sourceVersion) {
+                            sourceVersion = chunkVersion;
+                        }
+                        syncTime = time;
+                        notifyAll();
+                    }
+                    break;
+                }
+                case ReplicationSource.HEARTBEAT: {
+                    long heartbeatVersion = in.readLong();
+                    long time = in.readLong();
+                    if (heartbeatVersion > sourceVersion) {
+                        sourceVersion = heartbeatVersion;
+                    }
+                    if (heartbeatVersion <= version) {
+                        syncTime = time;
+                    }
+                    break;
+                }
+                case -1:
+                    return;
+                default:
+                    throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT,
+                            "Unknown replication message {0}", type);
+                }
+            }
+        } catch (IOException | MVStoreException e) {
+            // the connection is lost or the source is closed
+        } finally {
+            synchronized (this) {
+                connected = false;
+                notifyAll();
+            }
+            closeSilently(socket);
+        }
+    }
+
+    /**
+     * Get the read-only store of this replica.
+     *
+     * @return the store
+     */
+    public MVStore getStore() {
+        return store;
+    }
+
+    /**
+     * Check whether this replica still receives changes from the source.
+     *
+     * @return whether this replica is connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Get the version of the source store visible in this replica.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the last known version of the source store, it may be not yet
+     * received or applied.
+     *
+     * @return the version of the source store
+     */
+    public long getSourceVersion() {
+        return sourceVersion;
+    }
+
+    /**
+     * Get the replication lag. The data visible in this replica is at least as
+     * recent as the data of the source store the returned number of
+     * milliseconds ago. The lag is measured with the clocks of both systems,
+     * and it grows after the connection is lost.
+     *
+     * @return the replication lag in milliseconds
+     */
+    public long getLag() {
+        return Math.max(0L, System.currentTimeMillis() - syncTime);
+    }
+
+    /**
+     * Wait until the specified version of the source store is visible in this
+     * replica.
+     *
+     * @param version the version
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return whether the version is visible
+     * @throws InterruptedException if the current thread was interrupted
+     */
+    public synchronized boolean waitForVersion(long version, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (this.version < version) {
+            long remaining = deadline - System.nanoTime();
+            if (!connected || remaining <= 0) {
+                return false;
+            }
+            wait(Math.max(1L, remaining / 1_000_000L));
+        }
+        return true;
+    }
+
+    /**
+     * Disconnect from the source and close the store and the file of this
+     * replica.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeSilently(socket);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+        closeSilently(file);
+    }
+
+    private static void closeSilently(AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignore) {
+                // ignore
+            }
+        }
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.h2.security.SHA256;
+import org.h2.store.fs.FileUtils;
+import org.h2.util.MathUtils;
+import org.h2.util.Utils;
+
+/**
+ * The source of asynchronous replication of a store.
+ * <p>
+ * All writes to the file of the store are shipped to the connected replicas in
+ * the same order, see {@link Replica}. When a replica connects, it receives a
+ * copy of the file first, writes to the store aren't blocked by the copy. The
+ * file is always consistent after a complete chunk is written, so a replica
+ * switches to every new chunk and never sees partially written data.
+ * </p>
+ * <p>
+ * The source listens on the loopback interface unless another address is
+ * specified. Replicas need to know the shared secret of the source, it is
+ * verified with a challenge before any data is sent.
+ * </p>
+ * <p>
+ * Writes are queued for each replica separately. A replica that doesn't keep up
+ * with the source is disconnected when its queue is too large, the store is
+ * never blocked by replicas.
+ * </p>
+ */
+public final class ReplicationSource {
+
+    /**
+     * The magic number of the replication protocol.
+     */
+    static final int MAGIC = 0x48325250;
+
+    /**
+     * The version of the replication protocol.
+     */
+    static final int PROTOCOL_VERSION = 2;
+
+    /**
+     * The length of the challenge and of the response.
+     */
+    static final int CHALLENGE_LENGTH = 32;
+
+    /**
+     * The timeout of authentication of a replica, in milliseconds.
+     */
+    private static final int AUTHENTICATION_TIMEOUT = 10_000;
+
+    /**
+     * A write operation: position, length, and data.
+     */
+    static final int WRITE = 1;
+
+    /**
+     * A truncate operation: the new size of the file.
+     */
+    static final int TRUNCATE = 2;
+
+    /**
+     * A complete chunk: id, block, version of the store, and time.
+     */
+    static final int CHUNK = 3;
+
+    /**
+     * The replica has received all writes: version of the store, and time.
+     */
+    static final int HEARTBEAT = 4;
+
+    private final ServerSocket serverSocket;
+
+    private final byte[] secret;
+
+    private final ArrayList<Sender> senders = new ArrayList<>();
+
+    private volatile long maxQueueSize = 64L * 1024 * 1024;
+
+    private volatile int heartbeatInterval = 100;
+
+    private volatile boolean closed;
+
+    private SingleFileStore store;
+
+    private int lastChunkId = -1;
+
+    private long lastChunkBlock;
+
+    /**
+     * The version of the store in the last written chunk.
+     */
+    private volatile long version;
+
+    /**
+     * Create a new replication source and start listening for replicas on the
+     * loopback interface.
+     *
+     * @param port the port, or 0 to use any free port
+     * @param secret the shared secret of the source and its replicas
+     */
+    public ReplicationSource(int port, String secret) {
+        this(InetAddress.getLoopbackAddress(), port, secret);
+    }
+
+    /**
+     * Create a new replication source and start listening for replicas on the
+     * specified address. Replicas on other hosts can connect only if the
+     * address is reachable from them, the wildcard address accepts
+     * connections on all interfaces.
+     *
+     * @param bindAddress the local address to listen on
+     * @param port the port, or 0 to use any free port
+     * @param secret the shared secret of the source and its replicas
+     */
+    public ReplicationSource(InetAddress bindAddress, int port, String secret) {
+        if (bindAddress == null) {
+            throw DataUtils.newIllegalArgumentException("Bind address is not specified");
+        }
+        this.secret = getSecret(secret);
+        try {
+            serverSocket = new ServerSocket(port, 0, bindAddress);
+        } catch (IOException e) {
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_WRITING_FAILED,
+                    "Could not listen on port {0}", port, e);
+        }
+        Thread listener = new Thread(this::listen, "H2 replication source " + getPort());
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Get the port this source listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Set the maximum size of data queued for one replica. A replica is
+     * disconnected if the source has more data to send. The default is 64 MB.
+     *
+     * @param bytes the maximum size in bytes
+     */
+    public void setMaxQueueSize(long bytes) {
+        maxQueueSize = bytes;
+    }
+
+    /**
+     * Set the interval of heartbeat messages sent to replicas without pending
+     * writes, they are used by replicas to measure their lag. The default is
+     * 100 ms.
+     *
+     * @param millis the interval in milliseconds
+     */
+    public void setHeartbeatInterval(int millis) {
+        heartbeatInterval = millis;
+    }
+
+    /**
+     * Get the number of connected replicas.
+     *
+     * @return the number of connected replicas
+     */
+    public synchronized int getReplicaCount() {
+        return senders.size();
+    }
+
+    /**
+     * Stop listening for replicas and disconnect all replicas.
+     */
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+            // ignore
+        }
+        synchronized (this) {
+            for (Sender sender : senders) {
+                sender.close();
+            }
+            senders.clear();
+        }
+    }
+
+    /**
+     * Attach this source to the store.
+     *
+     * @param store the store
+     */
+    synchronized void attach(SingleFileStore store) {
+        if (this.store != null && this.store != store) {
+            throw DataUtils.newIllegalArgumentException("Replication source is already used by {0}", this.store);
+        }
+        this.store = store;
+    }
+
+    /**
+     * Ship data written to the file of the store. Must be called while the
+     * file of the store can't be modified by other threads.
+     *
+     * @param chunk the complete chunk, or {@code null} for other writes
+     * @param pos the position in the file
+     * @param data the written data
+     */
+    void written(SFChunk chunk, long pos, ByteBuffer data) {
+        assert Thread.holdsLock(this);
+        if (!senders.isEmpty()) {
+            int len = data.remaining();
+            ByteBuffer frame = ByteBuffer.allocate(13 + len);
+            frame.put((byte) WRITE).putLong(pos).putInt(len).put(data);
+            offer(frame.array());
+        }
+        if (chunk != null) {
+            lastChunkId = chunk.id;
+            lastChunkBlock = chunk.block;
+            version = chunk.version;
+            if (!senders.isEmpty()) {
+                ByteBuffer frame = ByteBuffer.allocate(29);
+                frame.put((byte) CHUNK).putInt(chunk.id).putLong(chunk.block).putLong(chunk.version)
+                        .putLong(System.currentTimeMillis());
+                offer(frame.array());
+            }
+        }
+    }
+
+    /**
+     * Ship truncation of the file of the store. Must be called while the file
+     * of the store can't be modified by other threads.
+     *
+     * @param size the new size of the file
+     */
+    void truncated(long size) {
+        assert Thread.holdsLock(this);
+        if (!senders.isEmpty()) {
+            ByteBuffer frame = ByteBuffer.allocate(9);
+            frame.put((byte) TRUNCATE).putLong(size);
+            offer(frame.array());
+        }
+    }
+
+    private void offer(byte[] frame) {
+        for (Iterator<Sender> i = senders.iterator(); i.hasNext();) {
+            Sender sender = i.next();
+            if (!sender.offer(frame)) {
+                i.remove();
+                sender.close();
+            }
+        }
+    }
+
+    /**
+     * Convert the shared secret to bytes.
+     *
+     * @param secret the secret
+     * @return the bytes of the secret
+     */
+    static byte[] getSecret(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw DataUtils.newIllegalArgumentException("Replication secret is not specified");
+        }
+        return secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private synchronized void remove(Sender sender) {
+        senders.remove(sender);
+    }
+
+    private void listen() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                continue;
+            }
+            Sender sender = new Sender(socket);
+            try {
+                socket.setTcpNoDelay(true);
+                Thread thread = new Thread(sender, "H2 replication sender " + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (Exception e) {
+                sender.close();
+            }
+        }
+    }
+
+    /**
+     * Start shipping of subsequent writes to the new replica. The file of the
+     * store is copied by the sender, so writes to the store aren't blocked.
+     *
+     * @param sender the sender of the new authenticated replica
+     */
+    private synchronized void start(Sender sender) throws IOException {
+        if (closed || store == null) {
+            throw new IOException("Replication source is not used");
+        }
+        int chunkId = lastChunkId;
+        long block = lastChunkBlock, version = this.version;
+        if (chunkId < 0) {
+            // nothing was written since the store was opened
+            SFChunk chunk = store.lastChunk;
+            if (chunk != null) {
+                chunkId = chunk.id;
+                block = chunk.block;
+                version = chunk.version;
+            }
+        }
+        sender.setSnapshot(store, store.size(), chunkId, block, version);
+        senders.add(sender);
+    }
+
+    /**
+     * Sends the copy of the file and subsequent writes to one replica.
+     */
+    private final class Sender implements Runnable {
+
+        final Socket socket;
+
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+
+        private long queuedBytes;
+
+        private boolean closed;
+
+        private SingleFileStore store;
+
+        private String snapshotName;
+
+        private long snapshotSize;
+
+        private int chunkId;
+
+        private long block, version;
+
+        Sender(Socket socket) {
+            this.socket = socket;
+        }
+
+        void setSnapshot(SingleFileStore store, long snapshotSize, int chunkId, long block, long version) {
+            this.store = store;
+            this.snapshotSize = snapshotSize;
+            this.chunkId = chunkId;
+            this.block = block;
+            this.version = version;
+        }
+
+        synchronized boolean offer(byte[] frame) {
+            if (closed || queuedBytes + frame.length > maxQueueSize) {
+                return false;
+            }
+            queue.add(frame);
+            queuedBytes += frame.length;
+            notifyAll();
+            return true;
+        }
+
+        private synchronized byte[] poll(long timeout) throws InterruptedException {
+            if (queue.isEmpty() && !closed) {
+                wait(timeout);
+            }
+            byte[] frame = queue.poll();
+            if (frame != null) {
+                queuedBytes -= frame.length;
+            }
+            return frame;
+        }
+
+        private synchronized byte[] pollNow() {
+            byte[] frame = queue.poll();
+            if (frame != null) {
+                queuedBytes -= frame.length;
+            }
+            return frame;
+        }
+
+        private synchronized boolean isIdle() {
+            return queue.isEmpty();
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+
+        /**
+         * Copy the file of the store into a temporary file. The store can be
+         * modified during the copy, all these writes are queued and applied to
+         * the copy afterwards, so it ends with the last queued complete chunk.
+         */
+        private void createSnapshot() throws IOException {
+            snapshotName = FileUtils.createTempFile(store.getFileName(), ".repl.temp.db", true);
+            try (FileChannel snapshot = FileUtils.open(snapshotName, "rw")) {
+                for (long pos = 0; pos < snapshotSize && !isClosed();) {
+                    // a concurrent truncation is applied from the queue
+                    int len = (int) Math.min(Math.min(snapshotSize, store.size()) - pos, 1024 * 1024);
+                    if (len <= 0) {
+                        break;
+                    }
+                    DataUtils.writeFully(snapshot, pos, store.readFully((SFChunk) null, pos, len));
+                    pos += len;
+                }
+                for (byte[] frame; (frame = pollNow()) != null;) {
+                    ByteBuffer buff = ByteBuffer.wrap(frame, 1, frame.length - 1);
+                    switch (frame[0]) {
+                    case WRITE: {
+                        long pos = buff.getLong();
+                        int len = buff.getInt();
+                        DataUtils.writeFully(snapshot, pos, buff);
+                        snapshotSize = Math.max(snapshotSize, pos + len);
+                        break;
+                    }
+                    case TRUNCATE: {
+                        long size = buff.getLong();
+                        snapshot.truncate(size);
+                        snapshotSize = Math.min(snapshotSize, size);
+                        break;
+                    }
+                    case CHUNK:
+                        chunkId = buff.getInt();
+                        block = buff.getLong();
+                        version = buff.getLong();
+                        break;
+                    default:
+                        throw new IOException("Unknown replication message " + frame[0]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Send a random challenge to the replica and check its response, it
+         * must be the HMAC of the challenge with the shared secret.
+         *
+         * @param out the output stream
+         * @return whether the replica knows the secret
+         */
+        private boolean authenticate(DataOutputStream out) throws IOException {
+            byte[] challenge = MathUtils.secureRandomBytes(CHALLENGE_LENGTH);
+            out.writeInt(MAGIC);
+            out.writeInt(PROTOCOL_VERSION);
+            out.write(challenge);
+            out.flush();
+            socket.setSoTimeout(AUTHENTICATION_TIMEOUT);
+            byte[] response = new byte[CHALLENGE_LENGTH];
+            new DataInputStream(socket.getInputStream()).readFully(response);
+            socket.setSoTimeout(0);
+            boolean authenticated = Utils.compareSecure(response, SHA256.getHMAC(secret, challenge));
+            out.writeBoolean(authenticated);
+            out.flush();
+            return authenticated;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+                if (!authenticate(out)) {
+                    return;
+                }
+                start(this);
+                createSnapshot();
+                out.writeLong(snapshotSize);
+                out.writeInt(chunkId);
+                out.writeLong(block);
+                out.writeLong(version);
+                try (FileChannel snapshot = FileUtils.open(snapshotName, "r")) {
+                    byte[] buff = new byte[64 * 1024];
+                    for (long pos = 0; pos < snapshotSize;) {
+                        int len = (int) Math.min(snapshotSize - pos, buff.length);
+                        DataUtils.readFully(snapshot, pos, ByteBuffer.wrap(buff, 0, len));
+                        out.write(buff, 0, len);
+                        pos += len;
+                    }
+                }
+                FileUtils.delete(snapshotName);
+                snapshotName = null;
+                out.flush();
+                while (!isClosed()) {
+                    byte[] frame = poll(heartbeatInterval);
+                    if (frame != null) {
+                        out.write(frame);
+                        if (isIdle()) {
+                            out.flush();
+                        }
+                    } else if (!isClosed()) {
+                        out.writeByte(HEARTBEAT);
+                        out.writeLong(ReplicationSource.this.version);
+                        out.writeLong(System.currentTimeMillis());
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException | MVStoreException e) {
+                // the replica is disconnected or not authenticated, or the
+                // store is closed
+            } finally {
+                remove(this);
+                close();
+                if (snapshotName != null) {
+                    FileUtils.tryDelete(snapshotName);
+                }
+            }
+        }
+
+    }
+
+}
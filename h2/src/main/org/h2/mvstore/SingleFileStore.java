@@ -10,6 +10,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.zip.ZipEntry;
@@ -44,10 +45,17 @@ public class SingleFileStore extends RandomAccessStore {
 
     private final Map<String, Object> config;
 
+    /**
+     * The replication source that ships writes to replicas, or {@code null}.
+     */
+    private final ReplicationSource replicationSource;
+
 
     public SingleFileStore(Map<String, Object> config) {
         super(config);
         this.config = config;
+        replicationSource = config.containsKey("readOnly") ? null
+                : (ReplicationSource) config.get("replicationSource");
     }
 
     @Override
@@ -62,6 +70,19 @@ public class SingleFileStore extends RandomAccessStore {
 
     @Override
     protected void writeFully(SFChunk chunk, long pos, ByteBuffer src) {
+        ReplicationSource source = replicationSource;
+        if (source == null) {
+            writeToFile(pos, src);
+        } else {
+            ByteBuffer data = src.duplicate();
+            synchronized (source) {
+                writeToFile(pos, src);
+                source.written(chunk, pos, data);
+            }
+        }
+    }
+
+    private void writeToFile(long pos, ByteBuffer src) {
         int len = src.remaining();
         setSize(Math.max(super.size(), pos + len));
         DataUtils.writeFully(fileChannel, pos, src);
@@ -86,6 +107,12 @@ public class SingleFileStore extends RandomAccessStore {
 
     @Override
     public SingleFileStore open(String fileName, boolean readOnly) {
+        Map<String, Object> config = this.config;
+        if (replicationSource != null) {
+            // writes to other files are not replicated
+            config = new HashMap<>(config);
+            config.remove("replicationSource");
+        }
         SingleFileStore result = new SingleFileStore(config);
         result.open(fileName, readOnly, originalFileChannel == null ? null :
                 fileChannel -> new FileEncrypt(fileName, (FileEncrypt)this.fileChannel, fileChannel));
@@ -121,6 +148,9 @@ public class SingleFileStore extends RandomAccessStore {
             } finally {
                 saveChunkLock.unlock();
             }
+            if (replicationSource != null && !readOnly) {
+                replicationSource.attach(this);
+            }
         } catch (IOException e) {
             try { close(); } catch (Exception ignore) {}
             throw DataUtils.newMVStoreException(
@@ -191,8 +221,20 @@ public class SingleFileStore extends RandomAccessStore {
      * @param size the new file size
      */
     @Override
-    @SuppressWarnings("ThreadPriorityCheck")
     public void truncate(long size) {
+        ReplicationSource source = replicationSource;
+        if (source == null) {
+            truncateFile(size);
+        } else {
+            synchronized (source) {
+                truncateFile(size);
+                source.truncated(size);
+            }
+        }
+    }
+
+    @SuppressWarnings("ThreadPriorityCheck")
+    private void truncateFile(long size) {
         int attemptCount = 0;
         while (true) {
             try {
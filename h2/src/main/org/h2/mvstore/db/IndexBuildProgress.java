@@ -0,0 +1,149 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.h2.engine.SessionLocal;
+import org.h2.index.Index;
+import org.h2.util.DateTimeUtils;
+import org.h2.value.ValueTimestampTimeZone;
+
+/**
+ * The progress of an index that is being built for existing rows of a table.
+ * Rows may be read by several threads, all of them update the same counter.
+ */
+public final class IndexBuildProgress {
+
+    /**
+     * The rows of the table are read and sorted.
+     */
+    public static final String SCANNING = "SCANNING";
+
+    /**
+     * The sorted blocks of rows are merged into the index.
+     */
+    public static final String MERGING = "MERGING";
+
+    /**
+     * Rows changed by other transactions during a concurrent build are applied
+     * to the index.
+     */
+    public static final String APPLYING_CHANGES = "APPLYING CHANGES";
+
+    private final Index index;
+
+    private final long rowCount;
+
+    private final ValueTimestampTimeZone start;
+
+    private final AtomicLong processedRows = new AtomicLong();
+
+    private volatile String phase = SCANNING;
+
+    private volatile int threads = 1;
+
+    private volatile boolean canceled;
+
+    /**
+     * Creates a new progress of an index build.
+     *
+     * @param session the session that builds the index
+     * @param index the index
+     * @param rowCount the number of rows in the table
+     */
+    IndexBuildProgress(SessionLocal session, Index index, long rowCount) {
+        this.index = index;
+        this.rowCount = rowCount;
+        start = DateTimeUtils.currentTimestamp(session.currentTimeZone());
+    }
+
+    /**
+     * Returns the index.
+     *
+     * @return the index
+     */
+    public Index getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of rows that were already read.
+     *
+     * @return the number of processed rows
+     */
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    /**
+     * Increments the number of processed rows.
+     *
+     * @return the new number of processed rows
+     */
+    long incrementProcessedRows() {
+        return processedRows.incrementAndGet();
+    }
+
+    /**
+     * Returns the current phase, {@link #SCANNING}, {@link #MERGING}, or
+     * {@link #APPLYING_CHANGES}.
+     *
+     * @return the phase
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Returns the number of threads that read rows of the table.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns when the build was started.
+     *
+     * @return the start time
+     */
+    public ValueTimestampTimeZone getStart() {
+        return start;
+    }
+
+    /**
+     * Returns whether the build was canceled and other threads should stop.
+     *
+     * @return whether the build was canceled
+     */
+    boolean isCanceled() {
+        return canceled;
+    }
+
+    void cancel() {
+        canceled = true;
+    }
+
+}
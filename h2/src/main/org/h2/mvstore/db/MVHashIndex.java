@@ -0,0 +1,558 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.h2.api.ErrorCode;
+import org.h2.command.query.AllColumnsForPlan;
+import org.h2.engine.Constants;
+import org.h2.engine.Database;
+import org.h2.engine.SessionLocal;
+import org.h2.index.Cursor;
+import org.h2.index.IndexCondition;
+import org.h2.index.IndexType;
+import org.h2.message.DbException;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.tx.Transaction;
+import org.h2.mvstore.tx.TransactionMap;
+import org.h2.mvstore.tx.TransactionMap.TMIterator;
+import org.h2.result.Row;
+import org.h2.result.RowFactory;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
+import org.h2.table.Column;
+import org.h2.table.IndexColumn;
+import org.h2.table.TableFilter;
+import org.h2.value.CompareMode;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueDate;
+import org.h2.value.ValueInteger;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueTime;
+import org.h2.value.ValueTimestamp;
+import org.h2.value.ValueUuid;
+import org.h2.value.VersionedValue;
+
+/**
+ * A hash index stored in a MVStore.
+ *
+ * <p>
+ * Entries of the index contain only a hash code of the indexed values and the
+ * key of the row, so they have the same small size for all data types.
+ * Equality lookups read the entries with the hash code of the searched values
+ * and check the values of their rows. The index can't be used for range
+ * conditions and sorting.
+ * </p>
+ * <p>
+ * Hash codes are stored, so they are computed with a function that doesn't
+ * depend on the JVM, see {@link #hash(Value)}. Only data types with equality
+ * consistent with this function are supported, see
+ * {@link #isSupported(Database, IndexColumn[], int, IndexType)}.
+ * </p>
+ */
+public final class MVHashIndex extends MVIndex<SearchRow, Value> {
+
+    /**
+     * The multi-value table.
+     */
+    private final MVTable mvTable;
+
+    /**
+     * The factory of entries.
+     */
+    private final RowFactory keyFactory;
+
+    private final TransactionMap<SearchRow, Value> dataMap;
+
+    public MVHashIndex(Database db, MVTable table, int id, String indexName, IndexColumn[] columns,
+            int uniqueColumnCount, IndexType indexType) {
+        super(table, id, indexName, columns, uniqueColumnCount, indexType);
+        this.mvTable = table;
+        if (!database.isStarting()) {
+            checkIndexColumnTypes(columns);
+        }
+        keyFactory = RowFactory.getDefaultRowFactory().createRowFactory(db, db.getCompareMode(), db,
+                new int[] { SortOrder.ASCENDING }, new int[] { 0 }, new TypeInfo[] { TypeInfo.TYPE_INTEGER }, 1,
+                true);
+        String mapName = "index." + getId();
+        RowDataType keyType = keyFactory.getRowDataType();
+        Transaction t = mvTable.getTransactionBegin();
+        if (db.isStarting() && db.getStore().getMvStore().hasMap(mapName)) {
+            TransactionMap<?, ?> map = t.openMap(mapName);
+            if (!keyType.equals(map.getKeyType())) {
+                // created by an older version as a regular index, it is
+                // rebuilt
+                t.removeMap(map);
+            }
+        }
+        dataMap = t.openMap(mapName, keyType, NullValueDataType.INSTANCE);
+        dataMap.map.setVolatile(!table.isPersistData() || !indexType.isPersistent());
+        if (!db.isStarting()) {
+            dataMap.clear();
+        }
+        t.commit();
+    }
+
+    /**
+     * Check whether a hash index can be created on the specified columns.
+     * Collations other than the default binary one and data types with
+     * different values that are equal to each other, such as
+     * {@code TIMESTAMP WITH TIME ZONE}, aren't supported.
+     *
+     * @param db the database
+     * @param columns the indexed columns
+     * @param uniqueColumnCount count of unique columns
+     * @param indexType the index type
+     * @return whether a hash index can be used
+     */
+    static boolean isSupported(Database db, IndexColumn[] columns, int uniqueColumnCount, IndexType indexType) {
+        if (uniqueColumnCount != 0 && uniqueColumnCount != columns.length) {
+            return false;
+        }
+        int keyColumnCount = indexType.getKeyColumnCount();
+        if (keyColumnCount != 0 && keyColumnCount != columns.length) {
+            return false;
+        }
+        for (IndexColumn col : columns) {
+            switch (col.column.getType().getValueType()) {
+            case Value.CHAR:
+            case Value.VARCHAR:
+            case Value.VARCHAR_IGNORECASE:
+                if (!CompareMode.OFF.equals(db.getCompareMode().getName())) {
+                    return false;
+                }
+                break;
+            case Value.BINARY:
+            case Value.VARBINARY:
+            case Value.BOOLEAN:
+            case Value.TINYINT:
+            case Value.SMALLINT:
+            case Value.INTEGER:
+            case Value.BIGINT:
+            case Value.NUMERIC:
+            case Value.REAL:
+            case Value.DOUBLE:
+            case Value.DATE:
+            case Value.TIME:
+            case Value.TIMESTAMP:
+            case Value.UUID:
+            case Value.ENUM:
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the hash code of a value of a supported data type. Values equal
+     * to each other have the same hash code, the result doesn't depend on the
+     * JVM.
+     *
+     * @param v the value
+     * @return the hash code
+     */
+    static int hash(Value v) {
+        switch (v.getValueType()) {
+        case Value.NULL:
+            return 0;
+        case Value.CHAR: {
+            // trailing spaces are ignored in comparison
+            String s = v.getString();
+            int l = s.length();
+            while (l > 0 && s.charAt(l - 1) == ' ') {
+                l--;
+            }
+            int h = 0;
+            for (int i = 0; i < l; i++) {
+                h = 31 * h + s.charAt(i);
+            }
+            return h;
+        }
+        case Value.VARCHAR:
+            return v.getString().hashCode();
+        case Value.VARCHAR_IGNORECASE: {
+            // consistent with String.compareToIgnoreCase()
+            String s = v.getString();
+            int h = 0;
+            for (int i = 0, l = s.length(); i < l; i++) {
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+            }
+            return h;
+        }
+        case Value.BINARY:
+        case Value.VARBINARY: {
+            byte[] bytes = v.getBytesNoCopy();
+            int h = 1;
+            for (byte b : bytes) {
+                h = 31 * h + b;
+            }
+            return h;
+        }
+        case Value.BOOLEAN:
+            return v.getBoolean() ? 1231 : 1237;
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.ENUM:
+            return v.getInt();
+        case Value.BIGINT:
+            return Long.hashCode(v.getLong());
+        case Value.NUMERIC:
+            // 1.0 and 1.00 are equal
+            return v.getBigDecimal().stripTrailingZeros().hashCode();
+        case Value.REAL:
+            return Float.hashCode(v.getFloat());
+        case Value.DOUBLE:
+            return Double.hashCode(v.getDouble());
+        case Value.DATE:
+            return Long.hashCode(((ValueDate) v).getDateValue());
+        case Value.TIME:
+            return Long.hashCode(((ValueTime) v).getNanos());
+        case Value.TIMESTAMP: {
+            ValueTimestamp ts = (ValueTimestamp) v;
+            return 31 * Long.hashCode(ts.getDateValue()) + Long.hashCode(ts.getTimeNanos());
+        }
+        case Value.UUID: {
+            ValueUuid uuid = (ValueUuid) v;
+            return 31 * Long.hashCode(uuid.getHigh()) + Long.hashCode(uuid.getLow());
+        }
+        default:
+            throw DbException.getInternalError("type=" + v.getValueType());
+        }
+    }
+
+    private int getHash(SearchRow row) {
+        int h = 0;
+        for (int columnId : columnIds) {
+            h = 31 * h + hash(row.getValue(columnId));
+        }
+        return h;
+    }
+
+    private SearchRow getKey(int hash, long key) {
+        SearchRow row = keyFactory.createRow();
+        row.setValue(0, ValueInteger.get(hash));
+        row.setKey(key);
+        return row;
+    }
+
+    @Override
+    public void addRowsToBuffer(List<Row> rows, String bufferName) {
+        throw DbException.getInternalError();
+    }
+
+    @Override
+    public void addBufferedRows(List<String> bufferNames) {
+        throw DbException.getInternalError();
+    }
+
+    @Override
+    public void close(SessionLocal session) {
+        // ok
+    }
+
+    @Override
+    public void add(SessionLocal session, Row row) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        int hash = getHash(row);
+        boolean checkRequired = needsUniqueCheck(row);
+        if (checkRequired) {
+            boolean repeatableRead = !session.getTransaction().allowNonRepeatableRead();
+            checkUnique(session, repeatableRead, map, row, hash, Long.MIN_VALUE);
+        }
+        try {
+            map.put(getKey(hash, row.getKey()), ValueNull.INSTANCE);
+        } catch (MVStoreException e) {
+            throw mvTable.convertException(e);
+        }
+        if (checkRequired) {
+            checkUnique(session, false, map, row, hash, row.getKey());
+        }
+    }
+
+    private void checkUnique(SessionLocal session, boolean repeatableRead, TransactionMap<SearchRow, Value> map,
+            SearchRow row, int hash, long newKey) {
+        SearchRow from = getKey(hash, Long.MIN_VALUE);
+        SearchRow to = getKey(hash, Long.MAX_VALUE);
+        if (repeatableRead) {
+            // see MVSecondaryIndex.checkUnique()
+            TMIterator<SearchRow, Value, SearchRow> it = map.keyIterator(from, to);
+            for (SearchRow k; (k = it.fetchNext()) != null;) {
+                long key = k.getKey();
+                if (newKey != key && !map.isDeletedByCurrentTransaction(k)
+                        && compareRows(mvTable.getRow(session, key), row) == 0) {
+                    throw getDuplicateKeyException(row, key);
+                }
+            }
+        }
+        MVMap<Long, VersionedValue<SearchRow>> rowMap = mvTable.getPrimaryIndex().getMVMap();
+        TMIterator<SearchRow, Value, SearchRow> it = map.keyIteratorUncommitted(from, to);
+        for (SearchRow k; (k = it.fetchNext()) != null;) {
+            long key = k.getKey();
+            if (newKey != key) {
+                // entries contain only hash codes, values are checked in rows
+                boolean committed = map.getImmediate(k) != null;
+                VersionedValue<SearchRow> v = rowMap.get(key);
+                SearchRow r = v == null ? null : committed ? v.getCommittedValue() : v.getCurrentValue();
+                if (r != null && compareRows(r, row) == 0) {
+                    if (committed) {
+                        throw getDuplicateKeyException(row, key);
+                    }
+                    throw DbException.get(ErrorCode.CONCURRENT_UPDATE_1, table.getName());
+                }
+            }
+        }
+    }
+
+    private DbException getDuplicateKeyException(SearchRow row, long key) {
+        SearchRow r = getRowFactory().createRow();
+        r.copyFrom(row);
+        r.setKey(key);
+        return getDuplicateKeyException(r.toString());
+    }
+
+    @Override
+    public void remove(SessionLocal session, Row row) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        try {
+            if (map.remove(getKey(getHash(row), row.getKey())) == null) {
+                StringBuilder builder = new StringBuilder();
+                getSQL(builder, TRACE_SQL_FLAGS).append(": ").append(row.getKey());
+                throw DbException.get(ErrorCode.ROW_NOT_FOUND_WHEN_DELETING_1, builder.toString());
+            }
+        } catch (MVStoreException e) {
+            throw mvTable.convertException(e);
+        }
+    }
+
+    @Override
+    public void update(SessionLocal session, Row oldRow, Row newRow) {
+        if (oldRow.getKey() != newRow.getKey() || !valuesAreEqual(oldRow, newRow)) {
+            super.update(session, oldRow, newRow);
+        }
+    }
+
+    private boolean valuesAreEqual(SearchRow rowOne, SearchRow rowTwo) {
+        for (int index : columnIds) {
+            if (!Objects.equals(rowOne.getValue(index), rowTwo.getValue(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Cursor find(SessionLocal session, SearchRow first, SearchRow last) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        SearchRow search = getSearchRow(session, first, last);
+        TMIterator<SearchRow, Value, SearchRow> it;
+        if (search != null) {
+            int hash = getHash(search);
+            it = map.keyIterator(getKey(hash, Long.MIN_VALUE), getKey(hash, Long.MAX_VALUE));
+        } else {
+            // not a lookup of a single value, all rows are checked
+            it = map.keyIterator(null, null);
+        }
+        return new MVHashCursor(session, it, first, last);
+    }
+
+    /**
+     * Returns the searched values converted to data types of columns, or
+     * {@code null} if the specified range doesn't contain a single value of
+     * each column.
+     */
+    private SearchRow getSearchRow(SessionLocal session, SearchRow first, SearchRow last) {
+        if (first == null || last == null) {
+            return null;
+        }
+        SearchRow row = getRowFactory().createRow();
+        for (IndexColumn col : indexColumns) {
+            Column column = col.column;
+            int index = column.getColumnId();
+            Value v1 = first.getValue(index), v2 = last.getValue(index);
+            if (v1 == null || v2 == null || table.compareValues(database, v1, v2) != 0) {
+                return null;
+            }
+            if (v1 != ValueNull.INSTANCE) {
+                Value v;
+                try {
+                    v = column.convert(session, v1);
+                } catch (DbException e) {
+                    return null;
+                }
+                if (table.compareValues(database, v, v1) != 0) {
+                    return null;
+                }
+                v1 = v;
+            }
+            row.setValue(index, v1);
+        }
+        return row;
+    }
+
+    @Override
+    public MVTable getTable() {
+        return mvTable;
+    }
+
+    @Override
+    public double getCost(SessionLocal session, int[] masks, TableFilter[] filters, int filter,
+            SortOrder sortOrder, AllColumnsForPlan allColumnsSet) {
+        if (masks == null) {
+            return Long.MAX_VALUE;
+        }
+        long rowCount;
+        try {
+            rowCount = dataMap.sizeAsLongMax() + Constants.COST_ROW_OFFSET;
+        } catch (MVStoreException e) {
+            throw DbException.get(ErrorCode.OBJECT_CLOSED, e);
+        }
+        int totalSelectivity = 0;
+        for (Column column : columns) {
+            if ((masks[column.getColumnId()] & IndexCondition.EQUALITY) != IndexCondition.EQUALITY) {
+                // never used without equality conditions on all columns
+                return Long.MAX_VALUE;
+            }
+            totalSelectivity = 100 - ((100 - totalSelectivity) * (100 - column.getSelectivity()) / 100);
+        }
+        long rowsCost;
+        if (uniqueColumnColumn > 0) {
+            rowsCost = 2;
+        } else {
+            long distinctRows = Math.max(rowCount * totalSelectivity / 100, 1);
+            rowsCost = 1 + Math.max(rowCount / distinctRows, 1);
+        }
+        // entries are not sorted, rows are always read from the table
+        long sortingCost = sortOrder != null ? 100 + rowCount / 10 : 0;
+        return 10 * (rowsCost + rowsCost + sortingCost + 20);
+    }
+
+    @Override
+    public void remove(SessionLocal session) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        if (!map.isClosed()) {
+            Transaction t = session.getTransaction();
+            t.removeMap(map);
+        }
+    }
+
+    @Override
+    public void truncate(SessionLocal session) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        map.clear();
+    }
+
+    @Override
+    public boolean canScan() {
+        return false;
+    }
+
+    @Override
+    public boolean needRebuild() {
+        try {
+            return dataMap.sizeAsLongMax() == 0;
+        } catch (MVStoreException e) {
+            throw DbException.get(ErrorCode.OBJECT_CLOSED, e);
+        }
+    }
+
+    @Override
+    public long getRowCount(SessionLocal session) {
+        TransactionMap<SearchRow, Value> map = getMap(session);
+        return map.sizeAsLong();
+    }
+
+    @Override
+    public long getRowCountApproximation(SessionLocal session) {
+        try {
+            return dataMap.sizeAsLongMax();
+        } catch (MVStoreException e) {
+            throw DbException.get(ErrorCode.OBJECT_CLOSED, e);
+        }
+    }
+
+    @Override
+    public long getDiskSpaceUsed() {
+        return dataMap.map.getRootPage().getDiskSpaceUsed();
+    }
+
+    /**
+     * Get the map to store the data.
+     *
+     * @param session the session
+     * @return the map
+     */
+    private TransactionMap<SearchRow, Value> getMap(SessionLocal session) {
+        if (session == null) {
+            return dataMap;
+        }
+        Transaction t = session.getTransaction();
+        return dataMap.getInstance(t);
+    }
+
+    @Override
+    public MVMap<SearchRow, VersionedValue<Value>> getMVMap() {
+        return dataMap.map;
+    }
+
+    /**
+     * A cursor. Rows of entries are read from the table and returned only if
+     * their values are in the searched range, because different values may
+     * have the same hash code.
+     */
+    private final class MVHashCursor implements Cursor {
+
+        private final SessionLocal session;
+        private final TMIterator<SearchRow, Value, SearchRow> it;
+        private final SearchRow first, last;
+        private Row current;
+
+        MVHashCursor(SessionLocal session, TMIterator<SearchRow, Value, SearchRow> it, SearchRow first,
+                SearchRow last) {
+            this.session = session;
+            this.it = it;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public Row get() {
+            return current;
+        }
+
+        @Override
+        public SearchRow getSearchRow() {
+            return current;
+        }
+
+        @Override
+        public boolean next() {
+            for (SearchRow k; (k = it.fetchNext()) != null;) {
+                Row row = mvTable.getRow(session, k.getKey());
+                if ((first == null || compareRows(row, first) >= 0)
+                        && (last == null || compareRows(row, last) <= 0)) {
+                    current = row;
+                    return true;
+                }
+            }
+            current = null;
+            return false;
+        }
+
+        @Override
+        public boolean previous() {
+            throw DbException.getUnsupportedException("previous");
+        }
+
+    }
+
+}
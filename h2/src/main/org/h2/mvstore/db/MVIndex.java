@@ -29,7 +29,7 @@ public abstract class MVIndex<K,V> extends Index {
      * Add the rows to a temporary storage (not to the index yet). The rows are
      * sorted by the index columns. This is to more quickly build the index.
      *
-     * @param rows the rows
+     * @param rows the rows with values of expression columns of the index
      * @param bufferName the name of the temporary storage
      */
     public abstract void addRowsToBuffer(List<Row> rows, String bufferName);
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+import org.h2.engine.Database;
+import org.h2.expression.Expression;
+import org.h2.message.DbException;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVMap.Builder;
+import org.h2.mvstore.type.LongDataType;
+import org.h2.result.ResultExternal;
+import org.h2.result.RowFactory.DefaultRowFactory;
+import org.h2.result.SortOrder;
+import org.h2.value.Value;
+import org.h2.value.ValueRow;
+
+/**
+ * Sorted temporary result produced by an external merge sort.
+ *
+ * <p>
+ * Rows are collected in memory until the maximum number of rows kept in memory
+ * is reached, sorted, and written to the temporary storage as a run. Rows are
+ * returned by merging all runs, so they are read sequentially and only the
+ * current row of each run is kept in memory. If there are too many runs they
+ * are merged into larger runs first.
+ * </p>
+ * <p>
+ * This result doesn't support removal of rows, {@link #contains(Value[])}, and
+ * shallow copies.
+ * </p>
+ */
+class MVMergeSortTempResult extends MVTempResult {
+
+    /**
+     * The maximum number of runs that are merged at once.
+     */
+    private static final int MERGE_FACTOR = 64;
+
+    /**
+     * The current row of a run.
+     */
+    private static final class RunCursor {
+
+        final int run;
+
+        final Cursor<Long, ValueRow> cursor;
+
+        Value[] current;
+
+        RunCursor(int run, MVMap<Long, ValueRow> map) {
+            this.run = run;
+            cursor = map.cursor(null);
+        }
+
+        boolean next() {
+            if (cursor.hasNext()) {
+                cursor.next();
+                current = cursor.getValue().getList();
+                return true;
+            }
+            current = null;
+            return false;
+        }
+
+    }
+
+    private final SortOrder sort;
+
+    private final int maxMemoryRows;
+
+    private final Builder<Long, ValueRow> builder;
+
+    /**
+     * Rows that weren't written to a run yet.
+     */
+    private ArrayList<Value[]> buffer = new ArrayList<>();
+
+    /**
+     * Sorted runs.
+     */
+    private ArrayList<MVMap<Long, ValueRow>> runs = new ArrayList<>();
+
+    private int mapId;
+
+    /**
+     * The merge of all runs, or {@code null} if merge wasn't started yet.
+     */
+    private PriorityQueue<RunCursor> merge;
+
+    /**
+     * Creates a new temporary result.
+     *
+     * @param database
+     *            database
+     * @param expressions
+     *            column expressions
+     * @param visibleColumnCount
+     *            count of visible columns
+     * @param resultColumnCount
+     *            total count of columns
+     * @param sort
+     *            sort order
+     */
+    MVMergeSortTempResult(Database database, Expression[] expressions, int visibleColumnCount,
+            int resultColumnCount, SortOrder sort) {
+        super(database, expressions, visibleColumnCount, resultColumnCount);
+        this.sort = sort;
+        maxMemoryRows = Math.max(database.getMaxMemoryRows(), 1);
+        ValueDataType valueType = new ValueDataType(database, new int[resultColumnCount]);
+        valueType.setRowFactory(DefaultRowFactory.INSTANCE.createRowFactory(database, database.getCompareMode(),
+                database, expressions, null, false));
+        builder = new MVMap.Builder<Long, ValueRow>().keyType(LongDataType.INSTANCE).valueType(valueType)
+                .singleWriter();
+    }
+
+    @Override
+    public int addRow(Value[] values) {
+        if (merge != null) {
+            throw DbException.getInternalError();
+        }
+        buffer.add(values);
+        if (buffer.size() >= maxMemoryRows) {
+            writeRun();
+        }
+        return ++rowCount;
+    }
+
+    @Override
+    public int addRows(Collection<Value[]> rows) {
+        for (Value[] row : rows) {
+            addRow(row);
+        }
+        return rowCount;
+    }
+
+    private void writeRun() {
+        sort.sort(buffer);
+        MVMap<Long, ValueRow> map = store.openMap("run" + mapId++, builder);
+        long key = 0L;
+        for (Value[] row : buffer) {
+            map.append(key++, ValueRow.get(row));
+        }
+        runs.add(map);
+        buffer = new ArrayList<>();
+    }
+
+    @Override
+    public Value[] next() {
+        if (merge == null) {
+            startMerge();
+        }
+        RunCursor c = merge.poll();
+        if (c == null) {
+            return null;
+        }
+        Value[] row = c.current;
+        if (c.next()) {
+            merge.add(c);
+        }
+        return row;
+    }
+
+    private void startMerge() {
+        if (!buffer.isEmpty()) {
+            writeRun();
+        }
+        buffer = null;
+        while (runs.size() > MERGE_FACTOR) {
+            ArrayList<MVMap<Long, ValueRow>> merged = new ArrayList<>();
+            for (int i = 0, size = runs.size(); i < size; i += MERGE_FACTOR) {
+                ArrayList<MVMap<Long, ValueRow>> list = new ArrayList<>(
+                        runs.subList(i, Math.min(i + MERGE_FACTOR, size)));
+                merged.add(list.size() == 1 ? list.get(0) : mergeRuns(list));
+            }
+            runs = merged;
+        }
+        merge = openRuns(runs);
+    }
+
+    private MVMap<Long, ValueRow> mergeRuns(ArrayList<MVMap<Long, ValueRow>> list) {
+        PriorityQueue<RunCursor> queue = openRuns(list);
+        MVMap<Long, ValueRow> map = store.openMap("run" + mapId++, builder);
+        long key = 0L;
+        for (RunCursor c; (c = queue.poll()) != null;) {
+            map.append(key++, ValueRow.get(c.current));
+            if (c.next()) {
+                queue.add(c);
+            }
+        }
+        for (MVMap<Long, ValueRow> m : list) {
+            store.removeMap(m);
+        }
+        return map;
+    }
+
+    private PriorityQueue<RunCursor> openRuns(ArrayList<MVMap<Long, ValueRow>> list) {
+        int size = list.size();
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(size, 1), (a, b) -> {
+            int comp = sort.compare(a.current, b.current);
+            // rows from earlier runs first to keep the sort stable
+            return comp != 0 ? comp : Integer.compare(a.run, b.run);
+        });
+        for (int i = 0; i < size; i++) {
+            RunCursor c = new RunCursor(i, list.get(i));
+            if (c.next()) {
+                queue.add(c);
+            }
+        }
+        return queue;
+    }
+
+    @Override
+    public void reset() {
+        if (merge != null) {
+            merge = openRuns(runs);
+        }
+    }
+
+    @Override
+    public int removeRow(Value[] values) {
+        throw DbException.getUnsupportedException("removeRow()");
+    }
+
+    @Override
+    public boolean contains(Value[] values) {
+        throw DbException.getUnsupportedException("contains()");
+    }
+
+    @Override
+    public ResultExternal createShallowCopy() {
+        return null;
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package org.h2.mvstore.db;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
@@ -16,8 +17,10 @@ import org.h2.index.Cursor;
 import org.h2.index.IndexType;
 import org.h2.index.SingleRowCursor;
 import org.h2.message.DbException;
+import org.h2.mvstore.BulkLoader;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.tx.ChangeCapture;
 import org.h2.mvstore.tx.Transaction;
 import org.h2.mvstore.tx.TransactionMap;
 import org.h2.mvstore.tx.TransactionMap.TMIterator;
@@ -44,6 +47,12 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
     private final AtomicLong lastKey = new AtomicLong();
     private int mainIndexColumn = SearchRow.ROWID_INDEX;
 
+    /**
+     * The loader of committed rows into the empty map, or {@code null}.
+     */
+    private BulkLoader<Long, VersionedValue<SearchRow>> bulkLoader;
+    private long bulkLoadLastKey;
+
     public MVPrimaryIndex(Database db, MVTable table, int id, IndexColumn[] columns, IndexType indexType) {
         super(table, id, table.getName() + "_DATA", columns, 0, indexType);
         this.mvTable = table;
@@ -107,23 +116,37 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
             }
         }
 
-        TransactionMap<Long,SearchRow> map = getMap(session);
         long rowKey = row.getKey();
-        try {
-            Row old = (Row)map.putIfAbsent(rowKey, row);
-            if (old != null) {
-                int errorCode = ErrorCode.CONCURRENT_UPDATE_1;
-                if (map.getImmediate(rowKey) != null || map.getFromSnapshot(rowKey) != null) {
-                    // committed
-                    errorCode = ErrorCode.DUPLICATE_KEY_1;
+        BulkLoader<Long, VersionedValue<SearchRow>> loader = bulkLoader;
+        if (loader != null && (loader.getCount() == 0 || rowKey > bulkLoadLastKey)) {
+            try {
+                loader.add(rowKey, TransactionMap.getCommittedValue(row));
+            } catch (MVStoreException e) {
+                throw mvTable.convertException(e);
+            }
+            bulkLoadLastKey = rowKey;
+        } else {
+            if (loader != null) {
+                // keys aren't ascending, duplicates are detected by the map
+                finishBulkLoad();
+            }
+            TransactionMap<Long,SearchRow> map = getMap(session);
+            try {
+                Row old = (Row)map.putIfAbsent(rowKey, row);
+                if (old != null) {
+                    int errorCode = ErrorCode.CONCURRENT_UPDATE_1;
+                    if (map.getImmediate(rowKey) != null || map.getFromSnapshot(rowKey) != null) {
+                        // committed
+                        errorCode = ErrorCode.DUPLICATE_KEY_1;
+                    }
+                    DbException e = DbException.get(errorCode,
+                            getDuplicatePrimaryKeyMessage(mainIndexColumn).append(' ').append(old).toString());
+                    e.setSource(this);
+                    throw e;
                 }
-                DbException e = DbException.get(errorCode,
-                        getDuplicatePrimaryKeyMessage(mainIndexColumn).append(' ').append(old).toString());
-                e.setSource(this);
-                throw e;
+            } catch (MVStoreException e) {
+                throw mvTable.convertException(e);
             }
-        } catch (MVStoreException e) {
-            throw mvTable.convertException(e);
         }
         // because it's possible to directly update the key using the _rowid_
         // syntax
@@ -133,6 +156,26 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
         }
     }
 
+    /**
+     * Starts loading of rows with ascending keys directly into the empty map.
+     * Rows are stored as committed ones.
+     */
+    void startBulkLoad() {
+        bulkLoader = new BulkLoader<>(dataMap.map);
+    }
+
+    /**
+     * Adds the rows loaded since {@link #startBulkLoad()} to the map, if they
+     * weren't added yet.
+     */
+    void finishBulkLoad() {
+        BulkLoader<Long, VersionedValue<SearchRow>> loader = bulkLoader;
+        if (loader != null) {
+            bulkLoader = null;
+            loader.finish();
+        }
+    }
+
     @Override
     public void remove(SessionLocal session, Row row) {
         if (mvTable.getContainsLargeObject()) {
@@ -365,6 +408,48 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Splits the rows into ranges of keys with approximately the same number
+     * of rows and opens a cursor for each range. The cursors don't depend on
+     * each other and may be read by different threads.
+     *
+     * @param session the session
+     * @param count the maximum number of ranges
+     * @return the cursors, in order of their keys
+     */
+    Cursor[] findRanges(SessionLocal session, int count) {
+        MVMap<Long, VersionedValue<SearchRow>> map = dataMap.map;
+        long size = map.sizeAsLong();
+        ArrayList<Long> bounds = new ArrayList<>(count - 1);
+        long previous = Long.MIN_VALUE;
+        for (int i = 1; i < count; i++) {
+            Long key = map.getKey(size * i / count);
+            if (key != null && key > previous) {
+                bounds.add(key);
+                previous = key;
+            }
+        }
+        TransactionMap<Long,SearchRow> transactionMap = getMap(session);
+        int l = bounds.size();
+        Cursor[] cursors = new Cursor[l + 1];
+        for (int i = 0; i <= l; i++) {
+            Long first = i == 0 ? null : bounds.get(i - 1);
+            Long last = i == l ? null : bounds.get(i) - 1;
+            cursors[i] = new MVStoreCursor(transactionMap.entryIterator(first, last));
+        }
+        return cursors;
+    }
+
+    /**
+     * Starts capturing keys of rows changed by any transaction.
+     *
+     * @param session the session
+     * @return the capture, must be closed after use
+     */
+    ChangeCapture<Long, SearchRow> captureChanges(SessionLocal session) {
+        return getMap(session).captureChanges();
+    }
+
     private Cursor find(SessionLocal session, Long first, Long last) {
         TransactionMap<Long,SearchRow> map = getMap(session);
         if (first != null && last != null && first.longValue() == last.longValue()) {
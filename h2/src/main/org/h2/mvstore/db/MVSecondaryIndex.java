@@ -5,6 +5,7 @@
  */
 package org.h2.mvstore.db;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -18,6 +19,7 @@ import org.h2.index.Cursor;
 import org.h2.index.IndexType;
 import org.h2.index.SingleRowCursor;
 import org.h2.message.DbException;
+import org.h2.mvstore.BulkLoader;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreException;
@@ -40,6 +42,12 @@ import org.h2.value.VersionedValue;
  */
 public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
+    /**
+     * The fill factor of pages built from sorted rows, some space is left for
+     * later insertions.
+     */
+    private static final int BULK_LOAD_FILL_FACTOR = 90;
+
     /**
      * The multi-value table.
      */
@@ -130,21 +138,46 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
             }
         }
 
+        // rows are merged in ascending order, pages of an empty index are built
+        // directly and duplicates of unique columns are adjacent
+        BulkLoader<SearchRow, VersionedValue<Value>> loader = dataMap.map.isEmpty()
+                ? new BulkLoader<>(dataMap.map).setFillFactor(BULK_LOAD_FILL_FACTOR) : null;
+        RowDataType rowDataType = getRowFactory().getRowDataType();
+        SearchRow previous = null, unique = null;
         try {
             while (!queue.isEmpty()) {
                 Source s = queue.poll();
                 SearchRow row = s.next();
 
-                if (needsUniqueCheck(row)) {
-                    checkUnique(false, dataMap, row, Long.MIN_VALUE);
+                if (loader != null) {
+                    if (needsUniqueCheck(row)) {
+                        if (previous != null) {
+                            if (unique == null) {
+                                unique = getUniqueRowFactory().createRow();
+                            }
+                            unique.copyFrom(previous);
+                            unique.setKey(SearchRow.MATCH_ALL_ROW_KEY);
+                            if (rowDataType.compare(unique, row) == 0) {
+                                throw getDuplicateKeyException(previous.toString());
+                            }
+                        }
+                        previous = row;
+                    }
+                    loader.add(row, ValueNull.INSTANCE);
+                } else {
+                    if (needsUniqueCheck(row)) {
+                        checkUnique(false, dataMap, row, Long.MIN_VALUE);
+                    }
+                    dataMap.putCommitted(row, ValueNull.INSTANCE);
                 }
 
-                dataMap.putCommitted(row, ValueNull.INSTANCE);
-
                 if (s.hasNext()) {
                     queue.offer(s);
                 }
             }
+            if (loader != null) {
+                loader.finish();
+            }
         } finally {
             MVStore mvStore = database.getStore().getMvStore();
             for (String tempMapName : bufferNames) {
@@ -176,6 +209,7 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
     @Override
     public void add(SessionLocal session, Row row) {
+        row = getRowWithExpressionValues(session, row);
         TransactionMap<SearchRow,Value> map = getMap(session);
         SearchRow key = convertToKey(row, null);
         boolean checkRequired = needsUniqueCheck(row);
@@ -229,6 +263,7 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
     @Override
     public void remove(SessionLocal session, Row row) {
+        row = getRowWithExpressionValues(session, row);
         SearchRow searchRow = convertToKey(row, null);
         TransactionMap<SearchRow,Value> map = getMap(session);
         try {
@@ -244,6 +279,8 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
     @Override
     public void update(SessionLocal session, Row oldRow, Row newRow) {
+        oldRow = getRowWithExpressionValues(session, oldRow);
+        newRow = getRowWithExpressionValues(session, newRow);
         SearchRow searchRowOld = convertToKey(oldRow, null);
         SearchRow searchRowNew = convertToKey(newRow, null);
         if (!rowsAreEqual(searchRowOld, searchRowNew)) {
@@ -321,6 +358,11 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
         map.clear();
     }
 
+    @Override
+    public boolean isIndexOnlyScanSupported() {
+        return true;
+    }
+
     @Override
     public boolean canGetFirstOrLast() {
         return true;
@@ -397,20 +439,52 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
     }
 
     /**
-     * A cursor.
+     * A cursor. Rows are fetched from the primary index in batches of rows of
+     * subsequent index entries. Rows of a batch are fetched in order of their
+     * keys, so each page of the primary index is read only once for all rows
+     * of the batch stored in it, and are returned in order of the index.
+     * Batches are only read when rows are requested, and their size grows from
+     * one row up to {@link #MAX_BATCH_SIZE} rows.
      */
     static final class MVStoreCursor implements Cursor {
 
+        /**
+         * The maximum number of rows in a batch.
+         */
+        static final int MAX_BATCH_SIZE = 64;
+
         private final SessionLocal             session;
         private final TMIterator<SearchRow, Value, SearchRow> it;
         private final MVTable             mvTable;
         private       SearchRow           current;
         private       Row                 row;
 
+        /**
+         * Index entries of the current batch.
+         */
+        private       SearchRow[]         searchRows;
+
+        /**
+         * Rows of the current batch.
+         */
+        private       Row[]               rows;
+
+        /**
+         * Positions of entries of the current batch ordered by row keys.
+         */
+        private       int[]               order;
+
+        private       int                 position;
+        private       int                 count;
+        private       int                 batchSize = 1;
+        private final int                 maxBatchSize;
+        private       boolean             end;
+
         MVStoreCursor(SessionLocal session, TMIterator<SearchRow, Value, SearchRow> it, MVTable mvTable) {
             this.session = session;
             this.it = it;
             this.mvTable = mvTable;
+            maxBatchSize = Math.max(Math.min(mvTable.getDatabase().getMaxMemoryRows(), MAX_BATCH_SIZE), 1);
         }
 
         @Override
@@ -418,12 +492,58 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
             if (row == null) {
                 SearchRow r = getSearchRow();
                 if (r != null) {
-                    row = mvTable.getRow(session, r.getKey());
+                    if (batchSize <= 1) {
+                        row = mvTable.getRow(session, r.getKey());
+                        batchSize = Math.min(2, maxBatchSize);
+                    } else {
+                        fetchBatch();
+                    }
                 }
             }
             return row;
         }
 
+        private void fetchBatch() {
+            int size = batchSize;
+            if (size < maxBatchSize) {
+                batchSize = Math.min(size << 1, maxBatchSize);
+            }
+            if (searchRows == null || searchRows.length < size) {
+                searchRows = new SearchRow[size];
+                rows = new Row[size];
+                order = new int[size];
+            }
+            SearchRow[] searchRows = this.searchRows;
+            Row[] rows = this.rows;
+            int[] order = this.order;
+            searchRows[0] = current;
+            int count = 1;
+            while (count < size && !end) {
+                SearchRow r = it.fetchNext();
+                if (r == null) {
+                    end = true;
+                } else {
+                    searchRows[count++] = r;
+                }
+            }
+            // insertion sort, keys of subsequent entries are often ordered
+            for (int i = 0; i < count; i++) {
+                long key = searchRows[i].getKey();
+                int j = i;
+                for (; j > 0 && searchRows[order[j - 1]].getKey() > key; j--) {
+                    order[j] = order[j - 1];
+                }
+                order[j] = i;
+            }
+            for (int i = 0; i < count; i++) {
+                int p = order[i];
+                rows[p] = mvTable.getRow(session, searchRows[p].getKey());
+            }
+            this.count = count;
+            position = 0;
+            row = rows[0];
+        }
+
         @Override
         public SearchRow getSearchRow() {
             return current;
@@ -431,7 +551,17 @@ public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
         @Override
         public boolean next() {
-            current = it.fetchNext();
+            if (++position < count) {
+                current = searchRows[position];
+                row = rows[position];
+                return true;
+            }
+            if (count > 0) {
+                Arrays.fill(searchRows, 0, count, null);
+                Arrays.fill(rows, 0, count, null);
+                count = 0;
+            }
+            current = end ? null : it.fetchNext();
             row = null;
             return current != null;
         }
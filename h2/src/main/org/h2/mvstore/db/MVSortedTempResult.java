@@ -7,10 +7,12 @@ package org.h2.mvstore.db;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collection;
 
 import org.h2.engine.Database;
 import org.h2.expression.Expression;
 import org.h2.message.DbException;
+import org.h2.mvstore.BulkLoader;
 import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVMap.Builder;
@@ -275,6 +277,36 @@ class MVSortedTempResult extends MVTempResult {
         return rowCount;
     }
 
+    @Override
+    public int addRows(Collection<Value[]> rows) {
+        assert parent == null;
+        if (index != null || !map.isEmpty()) {
+            return super.addRows(rows);
+        }
+        // rows spilled from memory are sorted and loaded into pages directly
+        int size = rows.size();
+        ValueRow[] keys = new ValueRow[size];
+        int i = 0;
+        for (Value[] row : rows) {
+            keys[i++] = getKey(row);
+        }
+        DataType<ValueRow> keyType = map.getKeyType();
+        Arrays.sort(keys, keyType);
+        BulkLoader<ValueRow, Long> loader = new BulkLoader<>(map);
+        for (i = 0; i < size;) {
+            ValueRow key = keys[i];
+            int j = i + 1;
+            while (j < size && keyType.compare(key, keys[j]) == 0) {
+                j++;
+            }
+            loader.add(key, distinct ? 1L : (long) (j - i));
+            i = j;
+        }
+        loader.finish();
+        rowCount = distinct ? (int) loader.getCount() : size;
+        return rowCount;
+    }
+
     @Override
     public boolean contains(Value[] values) {
         // Only parent result maintains the index
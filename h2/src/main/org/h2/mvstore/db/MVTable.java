@@ -28,7 +28,9 @@ import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.tx.ChangeCapture;
 import org.h2.mvstore.tx.Transaction;
 import org.h2.mvstore.tx.TransactionStore;
 import org.h2.result.Row;
@@ -40,6 +42,7 @@ import org.h2.table.Table;
 import org.h2.table.TableBase;
 import org.h2.table.TableType;
 import org.h2.util.DebuggingThreadLocal;
+import org.h2.util.Task;
 import org.h2.util.Utils;
 import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
@@ -88,6 +91,64 @@ public class MVTable extends TableBase {
     }
     private static final String NO_EXTRA_INFO = "";
 
+    /**
+     * The minimum number of rows in a range of row keys that is read by a
+     * separate thread when an index is built.
+     */
+    private static final long MIN_INDEX_BUILD_PART_ROWS = 100_000L;
+
+    /**
+     * The maximum number of rounds of applying concurrent changes to an index
+     * built concurrently before the table is locked exclusively.
+     */
+    private static final int MAX_CATCH_UP_ROUNDS = 10;
+
+    /**
+     * The number of concurrent changes that are applied to an index built
+     * concurrently under the exclusive lock without further rounds.
+     */
+    private static final int MAX_FINAL_CHANGES = 1_000;
+
+    /**
+     * A range of row keys that is read and sorted by a background thread when
+     * an index is built.
+     */
+    private final class IndexBuildPart extends Task {
+
+        private final SessionLocal session;
+
+        private final MVIndex<?,?> index;
+
+        private final Cursor cursor;
+
+        private final int bufferSize;
+
+        private final IndexBuildProgress progress;
+
+        /**
+         * The names of temporary maps with sorted blocks of rows.
+         */
+        final ArrayList<String> bufferNames = Utils.newSmallArrayList();
+
+        IndexBuildPart(SessionLocal session, MVIndex<?,?> index, Cursor cursor, int bufferSize,
+                IndexBuildProgress progress) {
+            this.session = session;
+            this.index = index;
+            this.cursor = cursor;
+            this.bufferSize = bufferSize;
+            this.progress = progress;
+        }
+
+        @Override
+        public void call() {
+            ArrayList<Row> buffer = readSortedBlocks(session, index, cursor, bufferSize, progress, null, bufferNames);
+            if (!buffer.isEmpty() && !progress.isCanceled()) {
+                writeSortedBlock(index, buffer, bufferNames);
+            }
+        }
+
+    }
+
     static {
         if (SysProperties.THREAD_DEADLOCK_DETECTOR) {
             WAITING_FOR_LOCK = new DebuggingThreadLocal<>();
@@ -321,6 +382,31 @@ public class MVTable extends TableBase {
         }
     }
 
+    /**
+     * Replaces the exclusive lock of the session with a shared write lock.
+     *
+     * @param session the session
+     */
+    private void downgradeLock(SessionLocal session) {
+        if (lockExclusiveSession == session) {
+            lockSharedSessions.put(session, session);
+            lockExclusiveSession = null;
+            if (SysProperties.THREAD_DEADLOCK_DETECTOR) {
+                ArrayList<String> exclusiveLocks = EXCLUSIVE_LOCKS.get();
+                if (exclusiveLocks != null) {
+                    exclusiveLocks.remove(getName());
+                }
+                addLockToDebugList(SHARED_LOCKS);
+            }
+            traceLock(session, Table.WRITE_LOCK, TraceLockEvent.TRACE_LOCK_OK, NO_EXTRA_INFO);
+            if (!waitingSessions.isEmpty()) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
     @Override
     public void close(SessionLocal session) {
         // ignore
@@ -359,6 +445,9 @@ public class MVTable extends TableBase {
         } else if (indexType.isSpatial()) {
             index = new MVSpatialIndex(session.getDatabase(), this, indexId,
                     indexName, cols, uniqueColumnCount, indexType);
+        } else if (indexType.isHash() && MVHashIndex.isSupported(database, cols, uniqueColumnCount, indexType)) {
+            index = new MVHashIndex(session.getDatabase(), this, indexId,
+                    indexName, cols, uniqueColumnCount, indexType);
         } else {
             index = new MVSecondaryIndex(session.getDatabase(), this, indexId,
                     indexName, cols, uniqueColumnCount, indexType);
@@ -380,13 +469,148 @@ public class MVTable extends TableBase {
         return index;
     }
 
+    @Override
+    public Index addIndexConcurrently(SessionLocal session, String indexName, int indexId, IndexColumn[] cols,
+            int uniqueColumnCount, IndexType indexType, String indexComment) {
+        if (isTemporary() || indexType.isPrimaryKey() || indexType.isSpatial() || indexType.isHash()
+                || database.getLockMode() == Constants.LOCK_MODE_OFF || primaryIndex.getRowCountMax() == 0) {
+            return super.addIndexConcurrently(session, indexName, indexId, cols, uniqueColumnCount, indexType,
+                    indexComment);
+        }
+        cols = prepareColumns(database, cols, indexType);
+        // wait for transactions with uncommitted changes in this table, the
+        // capture of changes and the snapshot for the build are started
+        // under the exclusive lock
+        lock(session, Table.EXCLUSIVE_LOCK);
+        MVSecondaryIndex index = new MVSecondaryIndex(database, this, indexId, indexName, cols, uniqueColumnCount,
+                indexType);
+        IndexBuildProgress progress = null;
+        try (ChangeCapture<Long, SearchRow> capture = primaryIndex.captureChanges(session)) {
+            progress = new IndexBuildProgress(session, index, primaryIndex.getRowCount(session));
+            Cursor[] cursors = openIndexBuildCursors(session, progress.getRowCount());
+            downgradeLock(session);
+            session.setIndexBuildProgress(progress);
+            rebuildIndexBlockMerge(session, index, cursors, progress);
+            progress.setPhase(IndexBuildProgress.APPLYING_CHANGES);
+            for (int i = 0; i < MAX_CATCH_UP_ROUNDS; i++) {
+                if (applyChanges(session, index, capture) <= MAX_FINAL_CHANGES) {
+                    break;
+                }
+            }
+            lock(session, Table.EXCLUSIVE_LOCK);
+            applyChanges(session, index, capture);
+            database.lockMeta(session);
+            if (getSchema().findIndex(session, indexName) != null) {
+                throw DbException.get(ErrorCode.INDEX_ALREADY_EXISTS_1, indexName);
+            }
+        } catch (DbException e) {
+            getSchema().freeUniqueName(indexName);
+            try {
+                index.remove(session);
+            } catch (DbException e2) {
+                trace.error(e2, "could not remove index");
+                throw e2;
+            }
+            throw e;
+        } finally {
+            if (progress != null) {
+                session.setIndexBuildProgress(null);
+            }
+        }
+        index.setTemporary(false);
+        index.setComment(indexComment);
+        database.addSchemaObject(session, index);
+        indexes.add(index);
+        setModified();
+        return index;
+    }
+
+    @Override
+    public boolean startBulkLoad(SessionLocal session) {
+        if (isTemporary() || database.getLockMode() == Constants.LOCK_MODE_OFF
+                || primaryIndex.getRowCountMax() != 0) {
+            return false;
+        }
+        for (Index index : indexes) {
+            if (index != primaryIndex && !(index instanceof MVDelegateIndex)) {
+                return false;
+            }
+        }
+        ArrayList<Constraint> constraints = getConstraints();
+        if (constraints != null) {
+            for (Constraint constraint : constraints) {
+                if (constraint.getConstraintType() == Constraint.Type.REFERENTIAL) {
+                    return false;
+                }
+            }
+        }
+        lock(session, Table.EXCLUSIVE_LOCK);
+        primaryIndex.startBulkLoad();
+        return true;
+    }
+
+    @Override
+    public void finishBulkLoad(SessionLocal session) {
+        try {
+            primaryIndex.finishBulkLoad();
+        } catch (MVStoreException e) {
+            throw convertException(e);
+        }
+    }
+
+    /**
+     * Applies changes of rows made by other transactions to an index that
+     * isn't maintained by them yet. Old entries are removed before new ones
+     * are added to avoid false violations of unique indexes.
+     *
+     * @param session the session
+     * @param index the index
+     * @param capture the capture of changed rows
+     * @return the number of changed rows
+     */
+    private static int applyChanges(SessionLocal session, Index index, ChangeCapture<Long, SearchRow> capture) {
+        ArrayList<Row> removed = new ArrayList<>(), added = new ArrayList<>();
+        int count = capture.processChanges((key, oldValue, newValue) -> {
+            if (oldValue != null) {
+                Row row = setRowKey((Row) oldValue, key);
+                if (index.isIndexed(session, row)) {
+                    removed.add(row);
+                }
+            }
+            if (newValue != null) {
+                Row row = setRowKey((Row) newValue, key);
+                if (index.isIndexed(session, row)) {
+                    added.add(row);
+                }
+            }
+        });
+        for (Row row : removed) {
+            index.remove(session, row);
+        }
+        for (Row row : added) {
+            index.add(session, row);
+        }
+        return count;
+    }
+
+    private static Row setRowKey(Row row, long key) {
+        if (row.getKey() == 0) {
+            row.setKey(key);
+        }
+        return row;
+    }
+
     private void rebuildIndex(SessionLocal session, MVIndex<?,?> index, String indexName) {
+        IndexBuildProgress progress = new IndexBuildProgress(session, index, primaryIndex.getRowCount(session));
+        session.setIndexBuildProgress(progress);
         try {
-            if (!session.getDatabase().isPersistent() || index instanceof MVSpatialIndex) {
+            if (!session.getDatabase().isPersistent() || index instanceof MVSpatialIndex
+                    || index instanceof MVHashIndex) {
                 // in-memory
-                rebuildIndexBuffered(session, index);
+                rebuildIndexBuffered(session, index, progress);
             } else {
-                rebuildIndexBlockMerge(session, index);
+                rebuildIndexBlockMerge(session, index, openIndexBuildCursors(session, progress.getRowCount()),
+                        progress);
             }
         } catch (DbException e) {
             getSchema().freeUniqueName(indexName);
@@ -400,75 +624,158 @@ public class MVTable extends TableBase {
                 throw e2;
             }
             throw e;
+        } finally {
+            session.setIndexBuildProgress(null);
         }
     }
 
-    private void rebuildIndexBlockMerge(SessionLocal session, MVIndex<?,?> index) {
+    /**
+     * Opens cursors over all rows for an index build. Large tables are split
+     * into ranges of row keys that are read by different threads.
+     *
+     * @param session the session
+     * @param total the number of rows
+     * @return the cursors
+     */
+    private Cursor[] openIndexBuildCursors(SessionLocal session, long total) {
+        int parts = (int) Math.min(database.getSettings().createIndexParallelism, total / MIN_INDEX_BUILD_PART_ROWS);
+        return parts > 1 ? primaryIndex.findRanges(session, parts)
+                : new Cursor[] { primaryIndex.find(session, null, null) };
+    }
+
+    private void rebuildIndexBlockMerge(SessionLocal session, MVIndex<?,?> index, Cursor[] cursors,
+            IndexBuildProgress progress) {
         // Read entries in memory, sort them, write to a new map (in sorted
         // order); repeat (using a new map for every block of 1 MB) until all
         // record are read. Merge all maps to the target (using merge sort;
         // duplicates are detected in the target). For randomly ordered data,
         // this should use relatively few write operations.
+        // Large tables are split into ranges of row keys, each range is read
+        // and sorted by its own thread into its own blocks.
         // A possible optimization is: change the buffer size from "row count"
         // to "amount of memory", and buffer index keys instead of rows.
-        Index scan = getScanIndex(session);
-        long remaining = scan.getRowCount(session);
-        long total = remaining;
-        Cursor cursor = scan.find(session, null, null);
-        long i = 0;
-        Store store = session.getDatabase().getStore();
-
-        int bufferSize = (int) Math.min(total, database.getMaxMemoryRows() / 2);
-        ArrayList<Row> buffer = new ArrayList<>(bufferSize);
-        String n = getName() + ':' + index.getName();
+        long total = progress.getRowCount();
+        int parts = cursors.length;
+        progress.setThreads(parts);
+        int bufferSize = (int) Math.min(total, Math.max(database.getMaxMemoryRows() / 2 / parts, 1));
         ArrayList<String> bufferNames = Utils.newSmallArrayList();
-        while (cursor.next()) {
-            Row row = cursor.get();
-            buffer.add(row);
-            database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, n, i++, total);
-            if (buffer.size() >= bufferSize) {
-                sortRows(buffer, index);
-                String mapName = store.nextTemporaryMapName();
-                index.addRowsToBuffer(buffer, mapName);
-                bufferNames.add(mapName);
-                buffer.clear();
+        ArrayList<IndexBuildPart> tasks = new ArrayList<>(parts - 1);
+        String n = getName() + ':' + index.getName();
+        ArrayList<Row> buffer;
+        boolean success = false;
+        try {
+            for (int i = 1; i < parts; i++) {
+                IndexBuildPart task = new IndexBuildPart(session, index, cursors[i], bufferSize, progress);
+                task.execute("H2 index build " + n);
+                tasks.add(task);
+            }
+            buffer = readSortedBlocks(session, index, cursors[0], bufferSize, progress, n, bufferNames);
+            if (parts > 1) {
+                if (!buffer.isEmpty()) {
+                    writeSortedBlock(index, buffer, bufferNames);
+                }
+                for (IndexBuildPart task : tasks) {
+                    Exception e = task.getException();
+                    if (e != null) {
+                        throw DbException.convert(e);
+                    }
+                }
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                progress.cancel();
+            }
+            for (IndexBuildPart task : tasks) {
+                task.join();
+                bufferNames.addAll(task.bufferNames);
+            }
+            if (!success) {
+                MVStore mvStore = store.getMvStore();
+                for (String bufferName : bufferNames) {
+                    mvStore.removeMap(bufferName);
+                }
             }
-            remaining--;
         }
-        sortRows(buffer, index);
         if (!bufferNames.isEmpty()) {
-            String mapName = store.nextTemporaryMapName();
-            index.addRowsToBuffer(buffer, mapName);
-            bufferNames.add(mapName);
-            buffer.clear();
+            if (!buffer.isEmpty()) {
+                writeSortedBlock(index, buffer, bufferNames);
+            }
+            progress.setPhase(IndexBuildProgress.MERGING);
             index.addBufferedRows(bufferNames);
         } else {
             addRowsToIndex(session, buffer, index);
         }
+        long remaining = total - progress.getProcessedRows();
         if (remaining != 0) {
             throw DbException.getInternalError("rowcount remaining=" + remaining + ' ' + getName());
         }
     }
 
-    private void rebuildIndexBuffered(SessionLocal session, Index index) {
-        Index scan = getScanIndex(session);
-        long remaining = scan.getRowCount(session);
-        long total = remaining;
-        Cursor cursor = scan.find(session, null, null);
-        long i = 0;
+    /**
+     * Reads rows from the specified cursor, sorts them in blocks, and writes
+     * all full blocks to temporary maps.
+     *
+     * @param session the session
+     * @param index the index to build
+     * @param cursor the cursor
+     * @param bufferSize the number of rows in a block
+     * @param progress the progress of the build
+     * @param progressName the name for the database event listener, or
+     *            {@code null} if progress shouldn't be reported to it
+     * @param bufferNames the list to add names of temporary maps to
+     * @return the sorted rows of the last block that wasn't written
+     */
+    private ArrayList<Row> readSortedBlocks(SessionLocal session, MVIndex<?,?> index, Cursor cursor, int bufferSize,
+            IndexBuildProgress progress, String progressName, ArrayList<String> bufferNames) {
+        long total = progress.getRowCount();
+        ArrayList<Row> buffer = new ArrayList<>(bufferSize);
+        while (cursor.next()) {
+            Row row = cursor.get();
+            if (index.isIndexed(session, row)) {
+                buffer.add(index.getRowWithExpressionValues(session, row));
+            }
+            long i = progress.incrementProcessedRows();
+            if (progressName != null) {
+                database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, progressName, i - 1, total);
+            } else if (progress.isCanceled()) {
+                break;
+            }
+            if (buffer.size() >= bufferSize) {
+                writeSortedBlock(index, buffer, bufferNames);
+            }
+        }
+        sortRows(buffer, index);
+        return buffer;
+    }
+
+    private void writeSortedBlock(MVIndex<?,?> index, ArrayList<Row> buffer, ArrayList<String> bufferNames) {
+        sortRows(buffer, index);
+        String mapName = store.nextTemporaryMapName();
+        index.addRowsToBuffer(buffer, mapName);
+        bufferNames.add(mapName);
+        buffer.clear();
+    }
+
+    private void rebuildIndexBuffered(SessionLocal session, Index index, IndexBuildProgress progress) {
+        long total = progress.getRowCount();
+        Cursor cursor = primaryIndex.find(session, null, null);
         int bufferSize = (int) Math.min(total, database.getMaxMemoryRows());
         ArrayList<Row> buffer = new ArrayList<>(bufferSize);
         String n = getName() + ':' + index.getName();
         while (cursor.next()) {
             Row row = cursor.get();
-            buffer.add(row);
-            database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, n, i++, total);
+            if (index.isIndexed(session, row)) {
+                buffer.add(index.getRowWithExpressionValues(session, row));
+            }
+            database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, n, progress.incrementProcessedRows() - 1,
+                    total);
             if (buffer.size() >= bufferSize) {
                 addRowsToIndex(session, buffer, index);
             }
-            remaining--;
         }
         addRowsToIndex(session, buffer, index);
+        long remaining = total - progress.getProcessedRows();
         if (remaining != 0) {
             throw DbException.getInternalError("rowcount remaining=" + remaining + ' ' + getName());
         }
@@ -482,7 +789,9 @@ public class MVTable extends TableBase {
         try {
             for (int i = indexes.size() - 1; i >= 0; i--) {
                 Index index = indexes.get(i);
-                index.remove(session, row);
+                if (index.isIndexed(session, row)) {
+                    index.remove(session, row);
+                }
             }
         } catch (Throwable e) {
             try {
@@ -516,7 +825,9 @@ public class MVTable extends TableBase {
         long savepoint = t.setSavepoint();
         try {
             for (Index index : indexes) {
-                index.add(session, row);
+                if (index.isIndexed(session, row)) {
+                    index.add(session, row);
+                }
             }
         } catch (Throwable e) {
             try {
@@ -537,7 +848,11 @@ public class MVTable extends TableBase {
         long savepoint = t.setSavepoint();
         try {
             for (Index index : indexes) {
-                index.update(session, oldRow, newRow);
+                if (index.getCondition() == null) {
+                    index.update(session, oldRow, newRow);
+                } else {
+                    updatePartialIndex(session, index, oldRow, newRow);
+                }
             }
         } catch (Throwable e) {
             try {
@@ -550,6 +865,19 @@ public class MVTable extends TableBase {
         analyzeIfRequired(session);
     }
 
+    private static void updatePartialIndex(SessionLocal session, Index index, Row oldRow, Row newRow) {
+        boolean oldIndexed = index.isIndexed(session, oldRow), newIndexed = index.isIndexed(session, newRow);
+        if (oldIndexed) {
+            if (newIndexed) {
+                index.update(session, oldRow, newRow);
+            } else {
+                index.remove(session, oldRow);
+            }
+        } else if (newIndexed) {
+            index.add(session, newRow);
+        }
+    }
+
     @Override
     public Row lockRow(SessionLocal session, Row row, int timeoutMillis) {
         Row lockedRow = primaryIndex.lockRow(session, row, timeoutMillis);
@@ -576,6 +904,15 @@ public class MVTable extends TableBase {
         return primaryIndex;
     }
 
+    /**
+     * Get the primary index of this table.
+     *
+     * @return the primary index
+     */
+    MVPrimaryIndex getPrimaryIndex() {
+        return primaryIndex;
+    }
+
     @Override
     public ArrayList<Index> getIndexes() {
         return indexes;
@@ -85,6 +85,30 @@ public abstract class MVTempResult implements ResultExternal {
                 : new MVPlainTempResult(database, expressions, visibleColumnCount, resultColumnCount);
     }
 
+    /**
+     * Creates MVStore-based temporary result that sorts rows with an external
+     * merge sort. Rows of this result can be read only after all rows were
+     * added, and only the rows that weren't written to the storage yet and the
+     * current row of each sorted run are kept in memory.
+     *
+     * @param database
+     *            database
+     * @param expressions
+     *            expressions
+     * @param visibleColumnCount
+     *            count of visible columns
+     * @param resultColumnCount
+     *            the number of columns including visible columns and additional
+     *            virtual columns for ORDER BY clause
+     * @param sort
+     *            sort order
+     * @return temporary result
+     */
+    public static ResultExternal ofMergeSort(Database database, Expression[] expressions, int visibleColumnCount,
+            int resultColumnCount, SortOrder sort) {
+        return new MVMergeSortTempResult(database, expressions, visibleColumnCount, resultColumnCount, sort);
+    }
+
     private final Database database;
 
     /**
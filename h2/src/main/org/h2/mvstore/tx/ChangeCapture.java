@@ -0,0 +1,150 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.tx;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.h2.mvstore.MVStore.TxCounter;
+import org.h2.value.VersionedValue;
+
+/**
+ * Captures keys of a transactional map that are changed by any transaction,
+ * and provides committed values of changed keys from consecutive snapshots of
+ * the map. The first snapshot is taken when the capture is started.
+ *
+ * <p>
+ * A key changed by a transaction that is still open is reported again after
+ * that transaction is committed or rolled back. Old versions of the map are
+ * retained until the capture is closed.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class ChangeCapture<K, V> implements AutoCloseable {
+
+    /**
+     * A handler of changed entries.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    public interface Handler<K, V> {
+
+        /**
+         * Called for a changed entry.
+         *
+         * @param key the key
+         * @param oldValue the committed value in the previous snapshot, or
+         *            {@code null} if entry didn't exist
+         * @param newValue the committed value in the new snapshot, or
+         *            {@code null} if entry doesn't exist
+         */
+        void changed(K key, V oldValue, V newValue);
+
+    }
+
+    private final TransactionMap<K, V> map;
+
+    private final TransactionStore store;
+
+    private final TxCounter txCounter;
+
+    /**
+     * Changed keys and transactions that changed them.
+     */
+    private final ConcurrentHashMap<K, Transaction> changes = new ConcurrentHashMap<>();
+
+    private Snapshot<K, VersionedValue<V>> snapshot;
+
+    private boolean closed;
+
+    ChangeCapture(TransactionMap<K, V> map) {
+        this.map = map;
+        store = map.getTransaction().store;
+        txCounter = store.store.isVersioningRequired() ? store.store.registerVersionUsage() : null;
+        store.addChangeCapture(map.map.getId(), this);
+        // the snapshot is taken after registration, changes made after it are
+        // not lost
+        snapshot = map.useSnapshot(Snapshot::new);
+    }
+
+    /**
+     * Adds a key changed by the specified transaction.
+     *
+     * @param key the key
+     * @param transaction the transaction
+     */
+    @SuppressWarnings("unchecked")
+    void add(Object key, Transaction transaction) {
+        changes.put((K) key, transaction);
+    }
+
+    /**
+     * Returns the number of captured keys that weren't processed yet.
+     *
+     * @return the number of captured keys
+     */
+    public int getChangeCount() {
+        return changes.size();
+    }
+
+    /**
+     * Takes a new snapshot of the map and passes entries that were changed
+     * since the previous snapshot to the specified handler. Entries with the
+     * same committed value in both snapshots are skipped.
+     *
+     * @param handler the handler
+     * @return the number of processed keys
+     */
+    public int processChanges(Handler<K, V> handler) {
+        ArrayList<K> keys = new ArrayList<>();
+        ArrayList<Map.Entry<K, Transaction>> open = new ArrayList<>();
+        for (Map.Entry<K, Transaction> e : changes.entrySet()) {
+            K key = e.getKey();
+            Transaction t = e.getValue();
+            if (changes.remove(key, t)) {
+                keys.add(key);
+                // status is checked before the snapshot is taken, a closed
+                // transaction is either visible as committed or rolled back
+                if (t.getStatus() != Transaction.STATUS_CLOSED) {
+                    open.add(e);
+                }
+            }
+        }
+        Snapshot<K, VersionedValue<V>> previous = snapshot, current = map.useSnapshot(Snapshot::new);
+        snapshot = current;
+        for (K key : keys) {
+            V oldValue = map.getFromSnapshot(previous.root, previous.committingTransactions, key);
+            V newValue = map.getFromSnapshot(current.root, current.committingTransactions, key);
+            if (oldValue != newValue) {
+                handler.changed(key, oldValue, newValue);
+            }
+        }
+        for (Map.Entry<K, Transaction> e : open) {
+            changes.putIfAbsent(e.getKey(), e.getValue());
+        }
+        return keys.size();
+    }
+
+    /**
+     * Stops the capture.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            store.removeChangeCapture(map.map.getId(), this);
+            if (txCounter != null) {
+                store.store.deregisterVersionUsage(txCounter);
+            }
+            changes.clear();
+        }
+    }
+
+}
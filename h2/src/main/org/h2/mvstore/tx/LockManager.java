@@ -0,0 +1,362 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.tx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coordinates transactions waiting for map entries locked by other
+ * transactions.
+ * <p>
+ * Transactions waiting for the same entry are queued in FIFO order, only the
+ * first one in the queue may retry when the blocking transaction ends, the
+ * others wait for it. Waiting threads are parked with {@link LockSupport}
+ * instead of using monitors of blocking transactions. Deadlocks are detected
+ * by a background thread that runs only while there are waiting transactions.
+ */
+public final class LockManager {
+
+    /**
+     * The maximum number of entries with lock wait statistics. When this
+     * limit is reached, the least contended entry is evicted for a new one.
+     */
+    private static final int MAX_STATISTICS_ENTRIES = 1_000;
+
+    /**
+     * The interval between two checks for deadlocks, in nanoseconds.
+     */
+    private static final long DEADLOCK_DETECTION_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Queues of waiters for contended entries.
+     */
+    private final ConcurrentHashMap<LockKey, WaitQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * All currently waiting transactions.
+     */
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Lock wait statistics for contended entries.
+     */
+    private final ConcurrentHashMap<LockKey, LockWaitStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the deadlock detector thread is running.
+     */
+    private final AtomicBoolean detectorRunning = new AtomicBoolean();
+
+    /**
+     * Creates a waiter and adds it to the end of the queue for the specified
+     * entry.
+     *
+     * @param transaction the waiting transaction
+     * @param mapName the name of the map with the entry
+     * @param key the key of the entry
+     * @return the new waiter
+     */
+    Waiter enqueue(Transaction transaction, String mapName, Object key) {
+        Waiter waiter;
+        if (isHashable(key)) {
+            LockKey lockKey = new LockKey(mapName, key);
+            Waiter[] result = new Waiter[1];
+            queues.compute(lockKey, (k, q) -> {
+                if (q == null) {
+                    q = new WaitQueue(k);
+                }
+                q.add(result[0] = new Waiter(transaction, q));
+                return q;
+            });
+            waiter = result[0];
+        } else {
+            // Such keys can't be shared, waiter has its own queue
+            WaitQueue q = new WaitQueue(new LockKey(mapName, String.valueOf(key)));
+            q.add(waiter = new Waiter(transaction, q));
+        }
+        waiters.add(waiter);
+        if (detectorRunning.compareAndSet(false, true)) {
+            startDetector();
+        }
+        return waiter;
+    }
+
+    /**
+     * Removes the specified waiter from its queue and wakes up the next waiter
+     * in the queue, if any.
+     *
+     * @param waiter the waiter
+     */
+    void dequeue(Waiter waiter) {
+        waiters.remove(waiter);
+        WaitQueue q = waiter.queue;
+        LockKey lockKey = q.lockKey;
+        if (queues.get(lockKey) == q) {
+            queues.computeIfPresent(lockKey, (k, v) -> {
+                v.remove(waiter);
+                return v.isEmpty() ? null : v;
+            });
+        } else {
+            q.remove(waiter);
+        }
+        Waiter next = q.peek();
+        if (next != null) {
+            LockSupport.unpark(next.thread);
+        }
+        long time = System.nanoTime() - waiter.startNanos;
+        LockWaitStatistics s = statistics.get(lockKey);
+        if (s == null) {
+            if (statistics.size() >= MAX_STATISTICS_ENTRIES) {
+                evictLeastContended();
+            }
+            s = statistics.computeIfAbsent(lockKey, LockWaitStatistics::new);
+        }
+        s.add(time, waiter.timedOut);
+    }
+
+    /**
+     * Removes the statistics entry with the lowest wait count, entries with
+     * waiting transactions are kept.
+     */
+    private void evictLeastContended() {
+        LockWaitStatistics min = null;
+        long minCount = Long.MAX_VALUE;
+        for (LockWaitStatistics s : statistics.values()) {
+            long count = s.getWaitCount();
+            if (count < minCount && !queues.containsKey(s.lockKey)) {
+                min = s;
+                minCount = count;
+            }
+        }
+        if (min != null) {
+            statistics.remove(min.lockKey, min);
+        }
+    }
+
+    /**
+     * Wakes up all transactions waiting for the specified transaction.
+     *
+     * @param transaction the transaction that was closed or rolled back
+     */
+    static void wakeUpWaiters(Transaction transaction) {
+        for (Waiter waiter : transaction.waiters) {
+            LockSupport.unpark(waiter.thread);
+        }
+    }
+
+    /**
+     * Returns lock wait statistics for contended entries.
+     *
+     * @return lock wait statistics
+     */
+    public List<LockWaitStatistics> getStatistics() {
+        return new ArrayList<>(statistics.values());
+    }
+
+    /**
+     * Returns the number of transactions currently waiting for the specified
+     * entry.
+     *
+     * @param s the statistics entry
+     * @return the number of waiting transactions
+     */
+    public int getWaitingCount(LockWaitStatistics s) {
+        WaitQueue q = queues.get(s.lockKey);
+        return q == null ? 0 : q.size();
+    }
+
+    private void startDetector() {
+        Thread t = new Thread(this::detectDeadlocksWhileWaiting, "H2 deadlock detector");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void detectDeadlocksWhileWaiting() {
+        for (;;) {
+            LockSupport.parkNanos(this, DEADLOCK_DETECTION_INTERVAL);
+            for (Waiter waiter : waiters) {
+                Transaction victim = waiter.transaction.getDeadlockVictim();
+                if (victim != null) {
+                    victim.markAsDeadlockVictim();
+                }
+            }
+            if (waiters.isEmpty()) {
+                detectorRunning.set(false);
+                // A new waiter could be added concurrently
+                if (waiters.isEmpty() || !detectorRunning.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean isHashable(Object key) {
+        return key instanceof Long || key instanceof Integer || key instanceof String;
+    }
+
+    /**
+     * A transaction waiting for a map entry.
+     */
+    static final class Waiter {
+
+        /**
+         * The waiting transaction.
+         */
+        final Transaction transaction;
+
+        /**
+         * The thread of the waiting transaction.
+         */
+        final Thread thread;
+
+        /**
+         * The queue of this waiter.
+         */
+        final WaitQueue queue;
+
+        /**
+         * The time when this waiter was created.
+         */
+        final long startNanos;
+
+        /**
+         * Whether the wait has timed out.
+         */
+        boolean timedOut;
+
+        Waiter(Transaction transaction, WaitQueue queue) {
+            this.transaction = transaction;
+            this.thread = Thread.currentThread();
+            this.queue = queue;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Returns the transaction of the first waiter in the queue, if this
+         * waiter isn't the first one.
+         *
+         * @return the transaction of the first waiter, or {@code null} if this
+         *         waiter is the first one
+         */
+        Transaction getPredecessor() {
+            Waiter head = queue.peek();
+            return head == null || head == this ? null : head.transaction;
+        }
+
+    }
+
+    /**
+     * A FIFO queue of waiters for a map entry.
+     */
+    private static final class WaitQueue extends ConcurrentLinkedQueue<Waiter> {
+
+        private static final long serialVersionUID = 1L;
+
+        final LockKey lockKey;
+
+        WaitQueue(LockKey lockKey) {
+            this.lockKey = lockKey;
+        }
+
+    }
+
+    /**
+     * An identifier of a map entry.
+     */
+    private static final class LockKey {
+
+        final String mapName;
+
+        final Object key;
+
+        LockKey(String mapName, Object key) {
+            this.mapName = mapName;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return mapName.hashCode() * 31 + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LockKey)) {
+                return false;
+            }
+            LockKey other = (LockKey) obj;
+            return mapName.equals(other.mapName) && key.equals(other.key);
+        }
+
+    }
+
+    /**
+     * Lock wait statistics for a map entry.
+     */
+    public static final class LockWaitStatistics {
+
+        final LockKey lockKey;
+
+        private long waitCount;
+
+        private long timeoutCount;
+
+        private long waitTimeCumulativeNanos;
+
+        private long waitTimeMaxNanos;
+
+        LockWaitStatistics(LockKey lockKey) {
+            this.lockKey = lockKey;
+        }
+
+        synchronized void add(long nanos, boolean timedOut) {
+            waitCount++;
+            if (timedOut) {
+                timeoutCount++;
+            }
+            waitTimeCumulativeNanos += nanos;
+            if (nanos > waitTimeMaxNanos) {
+                waitTimeMaxNanos = nanos;
+            }
+        }
+
+        public String getMapName() {
+            return lockKey.mapName;
+        }
+
+        public String getKey() {
+            return lockKey.key.toString();
+        }
+
+        public synchronized long getWaitCount() {
+            return waitCount;
+        }
+
+        public synchronized long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public synchronized long getWaitTimeCumulativeNanos() {
+            return waitTimeCumulativeNanos;
+        }
+
+        public synchronized long getWaitTimeMaxNanos() {
+            return waitTimeMaxNanos;
+        }
+
+    }
+
+}
@@ -10,7 +10,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.h2.engine.IsolationLevel;
 import org.h2.mvstore.DataUtils;
 import org.h2.mvstore.MVMap;
@@ -93,15 +96,17 @@ public final class Transaction {
     final TransactionStore.RollbackListener listener;
 
     /**
-     * The transaction id.
+     * The transaction id, or 0 if it wasn't allocated yet. Transactions
+     * started with a deferred id get it on the first change, read-only
+     * transactions never get it.
      * More appropriate name for this field would be "slotId"
      */
-    final int transactionId;
+    int transactionId;
 
     /**
      * This is really a transaction identity, because it's not re-used.
      */
-    final long sequenceNum;
+    long sequenceNum;
 
     /*
      * Transaction state is an atomic composite field:
@@ -129,6 +134,30 @@ public final class Transaction {
      */
     boolean wasStored;
 
+    /**
+     * Undo log records of this transaction kept in memory until the
+     * transaction becomes large or its changes need to be stored. Guarded by
+     * this transaction.
+     */
+    Record<?,?>[] undoBuffer;
+
+    /**
+     * The number of records in the undo buffer.
+     */
+    volatile int undoBufferSize;
+
+    /**
+     * Whether undo log records of this transaction are written to the undo
+     * log map. After that records are never buffered in memory.
+     */
+    volatile boolean undoLogSpilled;
+
+    /**
+     * Whether undo log records of this transaction are being written to the
+     * undo log map. Guarded by this transaction.
+     */
+    boolean undoLogSpilling;
+
     /**
      * How long to wait for blocking transaction to commit or rollback.
      */
@@ -156,9 +185,14 @@ public final class Transaction {
     private Object blockingKey;
 
     /**
-     * Whether other transaction(s) are waiting for this to close.
+     * Transactions waiting for this transaction to close.
      */
-    private volatile boolean notificationRequested;
+    final ConcurrentLinkedQueue<LockManager.Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The current lock waiter of this transaction, if any.
+     */
+    private volatile LockManager.Waiter lockWaiter;
 
     /**
      * RootReferences for undo log snapshots
@@ -176,13 +210,13 @@ public final class Transaction {
     final IsolationLevel isolationLevel;
 
 
-    Transaction(TransactionStore store, int transactionId, long sequenceNum, int status,
+    Transaction(TransactionStore store, int status,
                 String name, long logId, int timeoutMillis, int ownerId,
                 IsolationLevel isolationLevel, TransactionStore.RollbackListener listener) {
         this.store = store;
-        this.transactionId = transactionId;
-        this.sequenceNum = sequenceNum;
         this.statusAndLogId = new AtomicLong(composeState(status, logId, false));
+        // recovered transactions have their records in the undo log map
+        this.undoLogSpilled = logId != 0;
         this.name = name;
         setTimeoutMillis(timeoutMillis);
         this.ownerId = ownerId;
@@ -190,6 +224,12 @@ public final class Transaction {
         this.listener = listener;
     }
 
+    /**
+     * Returns the transaction id.
+     *
+     * @return the transaction id, or 0 if this transaction was started with a
+     *         deferred id and has no changes
+     */
     public int getId() {
         return transactionId;
     }
@@ -269,6 +309,7 @@ public final class Transaction {
 
     public void setName(String name) {
         checkNotClosed();
+        allocateId();
         this.name = name;
         store.storeTransaction(this);
     }
@@ -343,7 +384,8 @@ public final class Transaction {
                 committingTransactions = store.committingTransactions.get();
                 for (MVMap<Object,VersionedValue<Object>> map : maps) {
                     TransactionMap<?,?> txMap = openMapX(map);
-                    txMap.setStatementSnapshot(new Snapshot(map.flushAndGetRoot(), committingTransactions));
+                    txMap.setStatementSnapshot(
+                            (Snapshot) store.getSnapshot(map.getId(), map.flushAndGetRoot(), committingTransactions));
                 }
                 if (isReadCommitted()) {
                     undoLogRootReferences = store.collectUndoLogRootReferences();
@@ -397,6 +439,10 @@ public final class Transaction {
      * @return key for the newly added undo log entry
      */
     long log(Record<?,?> logRecord) {
+        if (transactionId == 0) {
+            checkOpen(getStatus());
+            allocateId();
+        }
         long currentState = statusAndLogId.getAndIncrement();
         long logId = getLogId(currentState);
         if (logId >= LOG_ID_LIMIT) {
@@ -407,7 +453,8 @@ public final class Transaction {
         }
         int currentStatus = getStatus(currentState);
         checkOpen(currentStatus);
-        long undoKey = store.addUndoLogRecord(transactionId, logId, logRecord);
+        store.captureChange(this, logRecord);
+        long undoKey = store.addUndoLogRecord(this, logId, logRecord);
         return undoKey;
     }
 
@@ -425,7 +472,7 @@ public final class Transaction {
         }
         int currentStatus = getStatus(currentState);
         checkOpen(currentStatus);
-        store.removeUndoLogRecord(transactionId);
+        store.removeUndoLogRecord(this);
     }
 
     /**
@@ -483,6 +530,7 @@ public final class Transaction {
      */
     public void prepare() {
         setStatus(STATUS_PREPARED);
+        allocateId();
         store.storeTransaction(this);
     }
 
@@ -490,7 +538,7 @@ public final class Transaction {
      * Commit the transaction. Afterwards, this transaction is closed.
      */
     public void commit() {
-        assert store.openTransactions.get().get(transactionId);
+        assert transactionId == 0 || store.openTransactions.get().get(transactionId);
         markTransactionEnd();
         Throwable ex = null;
         boolean hasChanges = false;
@@ -616,6 +664,15 @@ public final class Transaction {
         return getLogId(statusAndLogId.get());
     }
 
+    /**
+     * Allocates the transaction id, if this transaction doesn't have it yet.
+     */
+    private void allocateId() {
+        if (transactionId == 0) {
+            store.registerTransaction(this, 0);
+        }
+    }
+
     /**
      * Check whether this transaction is open.
      */
@@ -650,10 +707,8 @@ public final class Transaction {
     }
 
     private void notifyAllWaitingTransactions() {
-        if (notificationRequested) {
-            synchronized (this) {
-                notifyAll();
-            }
+        if (!waiters.isEmpty()) {
+            LockManager.wakeUpWaiters(this);
         }
     }
 
@@ -668,45 +723,117 @@ public final class Transaction {
      * @return true if other transaction was closed and this one can proceed, false if timed out
      */
     public boolean waitFor(Transaction toWaitFor, String mapName, Object key, int timeoutMillis) {
-        blockingTransaction = toWaitFor;
+        LockManager.Waiter waiter = lockWaiter;
+        if (waiter == null) {
+            lockWaiter = waiter = store.lockManager.enqueue(this, mapName, key);
+        }
         blockingMapName = mapName;
         blockingKey = key;
-        if (isDeadlocked(toWaitFor)) {
-            tryThrowDeadLockException(false);
-        }
-        boolean result = toWaitFor.waitForThisToEnd(timeoutMillis == -1 ? this.timeoutMillis : timeoutMillis, this);
+        boolean result = waitForLock(waiter, toWaitFor, timeoutMillis == -1 ? this.timeoutMillis : timeoutMillis);
         blockingMapName = null;
         blockingKey = null;
         blockingTransaction = null;
+        if (!result) {
+            waiter.timedOut = true;
+        }
         return result;
     }
 
-    private boolean isDeadlocked(Transaction toWaitFor) {
+    /**
+     * Notifies the lock manager that this transaction doesn't wait for the
+     * map entry any more, because it was locked, or the operation failed.
+     */
+    public void lockWaitCompleted() {
+        LockManager.Waiter waiter = lockWaiter;
+        if (waiter != null) {
+            lockWaiter = null;
+            store.lockManager.dequeue(waiter);
+        }
+    }
+
+    private boolean waitForLock(LockManager.Waiter waiter, Transaction toWaitFor, int millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        toWaitFor.waiters.add(waiter);
+        try {
+            for (;;) {
+                if (getStatus() != STATUS_OPEN) {
+                    // chosen as a deadlock victim
+                    tryThrowDeadLockException(true);
+                }
+                Transaction blocker = toWaitFor;
+                if (!blocker.isBlocking()) {
+                    // Other transactions queued earlier for the same entry
+                    // retry first
+                    blocker = waiter.getPredecessor();
+                    if (blocker == null) {
+                        return true;
+                    }
+                }
+                blockingTransaction = blocker;
+                long dur = until - System.nanoTime();
+                if (dur <= 0) {
+                    Transaction victim = getDeadlockVictim();
+                    if (victim == this) {
+                        tryThrowDeadLockException(true);
+                    } else if (victim != null) {
+                        victim.markAsDeadlockVictim();
+                    }
+                    return false;
+                }
+                LockSupport.parkNanos(this, dur);
+                if (Thread.interrupted()) {
+                    return false;
+                }
+            }
+        } finally {
+            toWaitFor.waiters.remove(waiter);
+        }
+    }
+
+    private boolean isBlocking() {
+        long state = statusAndLogId.get();
+        int status = getStatus(state);
+        return status != STATUS_CLOSED && status != STATUS_ROLLED_BACK && !hasRollback(state);
+    }
+
+    /**
+     * Checks whether this transaction is a part of a cycle of waiting
+     * transactions.
+     *
+     * @return the youngest transaction in the cycle that should be selected as
+     *         a victim, or {@code null} if there is no deadlock
+     */
+    Transaction getDeadlockVictim() {
         // use transaction sequence No as a tie-breaker
         // the youngest transaction should be selected as a victim
-        Transaction youngest = toWaitFor;
+        Transaction youngest = this;
         int backstop = store.getMaxTransactionId();
-        for(Transaction tx = toWaitFor, nextTx;
-            (nextTx = tx.blockingTransaction) != null && tx.getStatus() == Transaction.STATUS_OPEN && backstop > 0;
-            tx = nextTx, --backstop) {
-
+        for (Transaction tx = this, nextTx;
+                (nextTx = tx.blockingTransaction) != null && tx.getStatus() == STATUS_OPEN && backstop > 0;
+                tx = nextTx, --backstop) {
             if (nextTx.sequenceNum > youngest.sequenceNum) {
                 youngest = nextTx;
             }
-
             if (nextTx == this) {
-                if (youngest == this) {
-                    return true;
-                }
-                Transaction btx = youngest.blockingTransaction;
-                if (btx != null) {
-                    youngest.setStatus(STATUS_ROLLING_BACK);
-                    btx.notifyAllWaitingTransactions();
-                    return false;
-                }
+                return youngest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks this waiting transaction as a deadlock victim and wakes it up, it
+     * will throw a deadlock exception.
+     */
+    void markAsDeadlockVictim() {
+        LockManager.Waiter waiter = lockWaiter;
+        if (waiter != null && blockingTransaction != null) {
+            long state = statusAndLogId.get();
+            if (getStatus(state) == STATUS_OPEN && statusAndLogId.compareAndSet(state,
+                    composeState(STATUS_ROLLING_BACK, getLogId(state), hasRollback(state)))) {
+                LockSupport.unpark(waiter.thread);
             }
         }
-        return false;
     }
 
     private void tryThrowDeadLockException(boolean throwIt) {
@@ -728,29 +855,6 @@ public final class Transaction {
         }
     }
 
-    private synchronized boolean waitForThisToEnd(int millis, Transaction waiter) {
-        long until = System.currentTimeMillis() + millis;
-        notificationRequested = true;
-        long state;
-        int status;
-        while((status = getStatus(state = statusAndLogId.get())) != STATUS_CLOSED
-                && status != STATUS_ROLLED_BACK && !hasRollback(state)) {
-            if (waiter.getStatus() != STATUS_OPEN) {
-                waiter.tryThrowDeadLockException(true);
-            }
-            long dur = until - System.currentTimeMillis();
-            if(dur <= 0) {
-                return false;
-            }
-            try {
-                wait(dur);
-            } catch (InterruptedException ex) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Remove the map.
      *
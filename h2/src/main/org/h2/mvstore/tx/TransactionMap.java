@@ -345,6 +345,18 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
         return result;
     }
 
+    /**
+     * Returns the representation of a committed value in the underlying map,
+     * for example, to load it with a {@link org.h2.mvstore.BulkLoader}.
+     *
+     * @param <V> the value type
+     * @param value the value (may not be null)
+     * @return the versioned value
+     */
+    public static <V> VersionedValue<V> getCommittedValue(V value) {
+        return VersionedValueCommitted.getInstance(value);
+    }
+
     private V set(K key, V value) {
         txDecisionMaker.initialize(key, value);
         return set(key, txDecisionMaker, -1);
@@ -354,37 +366,43 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
         Transaction blockingTransaction;
         VersionedValue<V> result;
         String mapName = null;
-        do {
-            assert transaction.getBlockerId() == 0;
-            @SuppressWarnings("unchecked")
-            K k = (K) key;
-            // second parameter (value) is not really used,
-            // since TxDecisionMaker has it embedded
-            result = map.operate(k, null, decisionMaker);
-
-            MVMap.Decision decision = decisionMaker.getDecision();
-            assert decision != null;
-            assert decision != MVMap.Decision.REPEAT;
-            blockingTransaction = decisionMaker.getBlockingTransaction();
-            if (decision != MVMap.Decision.ABORT || blockingTransaction == null) {
-                hasChanges |= decision != MVMap.Decision.ABORT;
-                V res = result == null ? null : result.getCurrentValue();
-                return res;
-            }
-            decisionMaker.reset();
-            if (timeoutMillis == -2) {
-                return null;
-            }
-            if (mapName == null) {
-                mapName = map.getName();
+        try {
+            do {
+                assert transaction.getBlockerId() == 0;
+                @SuppressWarnings("unchecked")
+                K k = (K) key;
+                // second parameter (value) is not really used,
+                // since TxDecisionMaker has it embedded
+                result = map.operate(k, null, decisionMaker);
+
+                MVMap.Decision decision = decisionMaker.getDecision();
+                assert decision != null;
+                assert decision != MVMap.Decision.REPEAT;
+                blockingTransaction = decisionMaker.getBlockingTransaction();
+                if (decision != MVMap.Decision.ABORT || blockingTransaction == null) {
+                    hasChanges |= decision != MVMap.Decision.ABORT;
+                    V res = result == null ? null : result.getCurrentValue();
+                    return res;
+                }
+                decisionMaker.reset();
+                if (timeoutMillis == -2) {
+                    return null;
+                }
+                if (mapName == null) {
+                    mapName = map.getName();
+                }
+            } while (timeoutMillis != 0 && transaction.waitFor(blockingTransaction, mapName, key, timeoutMillis));
+
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_TRANSACTION_LOCKED,
+                    "Map entry <{0}> with key <{1}> and value {2} is locked by tx {3} and can not be updated by tx {4}"
+                            + " within allocated time interval {5} ms.",
+                    mapName, key, result, blockingTransaction.transactionId, transaction.transactionId,
+                    timeoutMillis == -1 ? transaction.timeoutMillis : timeoutMillis);
+        } finally {
+            if (mapName != null) {
+                transaction.lockWaitCompleted();
             }
-        } while (timeoutMillis != 0 && transaction.waitFor(blockingTransaction, mapName, key, timeoutMillis));
-
-        throw DataUtils.newMVStoreException(DataUtils.ERROR_TRANSACTION_LOCKED,
-                "Map entry <{0}> with key <{1}> and value {2} is locked by tx {3} and can not be updated by tx {4}"
-                        + " within allocated time interval {5} ms.",
-                mapName, key, result, blockingTransaction.transactionId, transaction.transactionId,
-                timeoutMillis == -1 ? transaction.timeoutMillis : timeoutMillis);
+        }
     }
 
     /**
@@ -488,7 +506,15 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
         }
     }
 
-    private V getFromSnapshot(RootReference<K, VersionedValue<V>> rootRef, BitSet committingTransactions, K key) {
+    /**
+     * Get the value for the given key from the specified snapshot.
+     *
+     * @param rootRef the root reference of the map
+     * @param committingTransactions the committing transactions
+     * @param key the key
+     * @return the value, or null if not found
+     */
+    V getFromSnapshot(RootReference<K, VersionedValue<V>> rootRef, BitSet committingTransactions, K key) {
         VersionedValue<V> data = map.get(rootRef.root, key);
         if (data == null) {
             // doesn't exist
@@ -537,12 +563,14 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
     }
 
     /**
-     * Create a new snapshot for this map.
+     * Create a new snapshot for this map, or reuse the last snapshot of this
+     * map if it is still actual.
      *
      * @return the snapshot
      */
     Snapshot<K,VersionedValue<V>> createSnapshot() {
-        return useSnapshot(Snapshot::new);
+        return useSnapshot((root, committingTransactions) ->
+                transaction.store.getSnapshot(map.getId(), root, committingTransactions));
     }
 
     /**
@@ -856,6 +884,16 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
         return chooseIterator(from, to, false, true);
     }
 
+    /**
+     * Start capturing keys of this map changed by any transaction. The
+     * capture must be closed after use.
+     *
+     * @return the capture
+     */
+    public ChangeCapture<K, V> captureChanges() {
+        return new ChangeCapture<>(this);
+    }
+
     private <X> TMIterator<K, V, X> chooseIterator(K from, K to, boolean reverse, boolean forEntries) {
         switch (transaction.isolationLevel) {
             case READ_UNCOMMITTED:
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.tx;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class TransactionSlots is a concurrent array indexed by transaction id.
+ * Storage is allocated in pages on demand, so only the range of ids that is
+ * actually used occupies memory, and pages are never copied, which allows
+ * non-blocking reads and writes.
+ *
+ * @param <E> the type of elements
+ */
+final class TransactionSlots<E> {
+
+    private static final int PAGE_SHIFT = 10;
+
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<E>> pages;
+
+    /**
+     * Creates new slots.
+     *
+     * @param maxIndex the maximum index
+     */
+    TransactionSlots(int maxIndex) {
+        pages = new AtomicReferenceArray<>((maxIndex >>> PAGE_SHIFT) + 1);
+    }
+
+    /**
+     * Returns element at the specified index.
+     *
+     * @param index the index
+     * @return the element, or {@code null}
+     */
+    E get(int index) {
+        AtomicReferenceArray<E> page = pages.get(index >>> PAGE_SHIFT);
+        return page != null ? page.get(index & PAGE_MASK) : null;
+    }
+
+    /**
+     * Sets element at the specified index.
+     *
+     * @param index the index
+     * @param element the element, or {@code null}
+     */
+    void set(int index, E element) {
+        int pageIndex = index >>> PAGE_SHIFT;
+        AtomicReferenceArray<E> page = pages.get(pageIndex);
+        if (page == null) {
+            if (element == null) {
+                return;
+            }
+            page = new AtomicReferenceArray<>(PAGE_SIZE);
+            if (!pages.compareAndSet(pageIndex, null, page)) {
+                page = pages.get(pageIndex);
+            }
+        }
+        page.set(index & PAGE_MASK, element);
+    }
+
+}
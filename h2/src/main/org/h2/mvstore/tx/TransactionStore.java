@@ -6,13 +6,14 @@
 package org.h2.mvstore.tx;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.h2.engine.IsolationLevel;
 import org.h2.mvstore.Cursor;
 import org.h2.mvstore.DataUtils;
@@ -61,13 +62,23 @@ public class TransactionStore {
      * (write-ahead).
      * <p>
      * Key: opId, value: [ mapId, key, oldValue ].
+     * <p>
+     * Undo log maps are opened on the first change made by a transaction and
+     * reused by later transactions with the same id. Records of small
+     * transactions are kept in memory, see {@link Transaction#undoBuffer}, and
+     * are written here only when a transaction becomes large, is prepared or
+     * named, or when the store writes its changes.
      */
-    @SuppressWarnings("unchecked")
-    final MVMap<Long,Record<?,?>>[] undoLogs = new MVMap[MAX_OPEN_TRANSACTIONS];
+    private final TransactionSlots<MVMap<Long,Record<?,?>>> undoLogs = new TransactionSlots<>(MAX_TRANSACTION_ID);
     private final MVMap.Builder<Long, Record<?,?>> undoLogBuilder;
 
     private final DataType<?> dataType;
 
+    /**
+     * The manager of transactions waiting for locked entries.
+     */
+    final LockManager lockManager = new LockManager();
+
     /**
      * This BitSet is used as vacancy indicator for transaction slots in transactions[].
      * It provides easy way to find first unoccupied slot, and also allows for copy-on-write
@@ -84,21 +95,32 @@ public class TransactionStore {
      */
     final AtomicReference<BitSet> committingTransactions = new AtomicReference<>(new BitSet());
 
+    /**
+     * The last created snapshots of maps by map id. A snapshot is shared by
+     * statements of all transactions while the map root and the set of
+     * committing transactions stay the same. Cleared when a transaction with
+     * changes ends, so outdated roots aren't retained.
+     */
+    private final ConcurrentHashMap<Integer, Snapshot<?,?>> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Active captures of changed keys by map id.
+     */
+    private final ConcurrentHashMap<Integer, ChangeCapture<?,?>[]> changeCaptures = new ConcurrentHashMap<>();
+
     private boolean init;
 
     /**
      * Soft limit on the number of concurrently opened transactions.
      * Not really needed but used by some test.
      */
-    private int maxTransactionId = MAX_OPEN_TRANSACTIONS;
+    private int maxTransactionId = MAX_TRANSACTION_ID;
 
     /**
-     * Array holding all open transaction objects.
-     * Position in array is "transaction id".
-     * VolatileReferenceArray would do the job here, but there is no such thing in Java yet
+     * Slots holding all open transaction objects.
+     * Position in slots is "transaction id".
      */
-    private final AtomicReferenceArray<Transaction> transactions =
-                                                        new AtomicReferenceArray<>(MAX_OPEN_TRANSACTIONS + 1);
+    private final TransactionSlots<Transaction> transactions = new TransactionSlots<>(MAX_TRANSACTION_ID);
 
     private static final String TYPE_REGISTRY_NAME = "_";
 
@@ -112,11 +134,20 @@ public class TransactionStore {
 
     private static final char UNDO_LOG_OPEN = '.';
 
+    private static final int LOG_ID_BITS = Transaction.LOG_ID_BITS;
+    private static final long LOG_ID_MASK = (1L << LOG_ID_BITS) - 1;
+
+    /**
+     * Hard limit on transaction id, it is limited by the number of bits in
+     * operation id that remain after log id.
+     */
+    private static final int MAX_TRANSACTION_ID = (1 << (64 - LOG_ID_BITS)) - 1;
+
     /**
-     * Hard limit on the number of concurrently opened transactions
+     * The maximum number of undo log records of a transaction that are kept in
+     * memory.
      */
-    // TODO: introduce constructor parameter instead of a static field, driven by URL parameter
-    private static final int MAX_OPEN_TRANSACTIONS = 65535;
+    private static final int MAX_BUFFERED_UNDO_RECORDS = 128;
 
     /**
      * Generate a string used to name undo log map for a specific transaction.
@@ -157,6 +188,7 @@ public class TransactionStore {
         this.typeRegistry = openTypeRegistry(store, metaDataType);
         this.preparedTransactions = store.openMap("openTransactions", new MVMap.Builder<>());
         this.undoLogBuilder = createUndoLogBuilder();
+        store.setBeforeStoreCallback(this::spillUndoBuffers);
     }
 
     @SuppressWarnings({"unchecked","rawtypes"})
@@ -216,7 +248,7 @@ public class TransactionStore {
                                     name = (String) data[1];
                                 }
                                 MVMap<Long, Record<?,?>> undoLog = store.openMap(mapName, undoLogBuilder);
-                                undoLogs[transactionId] = undoLog;
+                                undoLogs.set(transactionId, undoLog);
                                 Long lastUndoKey = undoLog.lastKey();
                                 assert lastUndoKey != null;
                                 assert getTransactionId(lastUndoKey) == transactionId;
@@ -282,7 +314,7 @@ public class TransactionStore {
      * @param max the maximum id
      */
     public void setMaxTransactionId(int max) {
-        DataUtils.checkArgument(max <= MAX_OPEN_TRANSACTIONS,
+        DataUtils.checkArgument(max <= MAX_TRANSACTION_ID,
                 "Concurrent transactions limit is too high: {0}", max);
         this.maxTransactionId = max;
     }
@@ -297,9 +329,6 @@ public class TransactionStore {
         return store.hasMap(name);
     }
 
-    private static final int LOG_ID_BITS = Transaction.LOG_ID_BITS;
-    private static final long LOG_ID_MASK = (1L << LOG_ID_BITS) - 1;
-
     /**
      * Combine the transaction id and the log id to an operation id.
      *
@@ -308,7 +337,7 @@ public class TransactionStore {
      * @return the operation id
      */
     static long getOperationId(int transactionId, long logId) {
-        DataUtils.checkArgument(transactionId >= 0 && transactionId < (1 << (64 - LOG_ID_BITS)),
+        DataUtils.checkArgument(transactionId >= 0 && transactionId <= MAX_TRANSACTION_ID,
                 "Transaction id out of range: {0}", transactionId);
         DataUtils.checkArgument(logId >= 0 && logId <= LOG_ID_MASK,
                 "Transaction log id out of range: {0}", logId);
@@ -335,6 +364,15 @@ public class TransactionStore {
         return operationId & LOG_ID_MASK;
     }
 
+    /**
+     * Get the manager of transactions waiting for locked entries.
+     *
+     * @return the lock manager
+     */
+    public LockManager getLockManager() {
+        return lockManager;
+    }
+
     /**
      * Get the list of unclosed transactions that have pending writes.
      *
@@ -389,9 +427,42 @@ public class TransactionStore {
         return transaction;
     }
 
+    /**
+     * Begin a new transaction with a deferred transaction id. The id is
+     * allocated on the first change, a transaction that only reads data
+     * doesn't occupy a slot of open transactions and never gets an id.
+     *
+     * @param listener to be notified in case of a rollback
+     * @param timeoutMillis to wait for a blocking transaction
+     * @param ownerId of the owner (Session?) to be reported by getBlockerId
+     * @param isolationLevel of new transaction
+     * @return the transaction
+     */
+    public Transaction beginDeferred(RollbackListener listener, int timeoutMillis, int ownerId,
+            IsolationLevel isolationLevel) {
+        if (!init) {
+            init();
+        }
+        return new Transaction(this, Transaction.STATUS_OPEN, null, 0, timeoutMillis, ownerId, isolationLevel,
+                listener);
+    }
+
     private Transaction registerTransaction(int txId, int status, String name, long logId,
                                             int timeoutMillis, int ownerId,
                                             IsolationLevel isolationLevel, RollbackListener listener) {
+        Transaction transaction = new Transaction(this, status, name, logId,
+                timeoutMillis, ownerId, isolationLevel, listener);
+        registerTransaction(transaction, txId);
+        return transaction;
+    }
+
+    /**
+     * Allocate a transaction id and register the transaction as open.
+     *
+     * @param transaction the transaction
+     * @param txId the id to use, or 0 to allocate a free one
+     */
+    void registerTransaction(Transaction transaction, int txId) {
         int transactionId;
         long sequenceNo;
         boolean success;
@@ -416,18 +487,10 @@ public class TransactionStore {
             success = openTransactions.compareAndSet(original, clone);
         } while(!success);
 
-        Transaction transaction = new Transaction(this, transactionId, sequenceNo, status, name, logId,
-                timeoutMillis, ownerId, isolationLevel, listener);
-
+        transaction.transactionId = transactionId;
+        transaction.sequenceNum = sequenceNo;
         assert transactions.get(transactionId) == null;
         transactions.set(transactionId, transaction);
-
-        if (undoLogs[transactionId] == null) {
-            String undoName = getUndoLogName(transactionId);
-            MVMap<Long,Record<?,?>> undoLog = store.openMap(undoName, undoLogBuilder);
-            undoLogs[transactionId] = undoLog;
-        }
-        return transaction;
     }
 
     /**
@@ -438,12 +501,179 @@ public class TransactionStore {
     void storeTransaction(Transaction t) {
         if (t.getStatus() == Transaction.STATUS_PREPARED ||
                 t.getName() != null) {
+            // stored transaction needs its undo log after restart
+            spillUndoBuffer(t, true);
             Object[] v = { t.getStatus(), t.getName() };
             preparedTransactions.put(t.getId(), v);
             t.wasStored = true;
         }
     }
 
+    /**
+     * Register a capture of changed keys of a map.
+     *
+     * @param mapId the map id
+     * @param capture the capture
+     */
+    void addChangeCapture(int mapId, ChangeCapture<?,?> capture) {
+        changeCaptures.compute(mapId, (k, captures) -> {
+            if (captures == null) {
+                return new ChangeCapture<?,?>[] { capture };
+            }
+            captures = Arrays.copyOf(captures, captures.length + 1);
+            captures[captures.length - 1] = capture;
+            return captures;
+        });
+    }
+
+    /**
+     * Remove a capture of changed keys of a map.
+     *
+     * @param mapId the map id
+     * @param capture the capture
+     */
+    void removeChangeCapture(int mapId, ChangeCapture<?,?> capture) {
+        changeCaptures.computeIfPresent(mapId, (k, captures) -> {
+            int l = captures.length;
+            if (l == 1) {
+                return captures[0] == capture ? null : captures;
+            }
+            ChangeCapture<?,?>[] result = new ChangeCapture<?,?>[l - 1];
+            for (int i = 0, j = 0; i < l; i++) {
+                if (captures[i] != capture) {
+                    if (j == l - 1) {
+                        return captures;
+                    }
+                    result[j++] = captures[i];
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Pass the key of a changed entry to captures of its map, if any.
+     *
+     * @param t the transaction
+     * @param record Record(mapId, key, previousValue) of the change
+     */
+    void captureChange(Transaction t, Record<?,?> record) {
+        if (!changeCaptures.isEmpty()) {
+            ChangeCapture<?,?>[] captures = changeCaptures.get(record.mapId);
+            if (captures != null) {
+                for (ChangeCapture<?,?> capture : captures) {
+                    capture.add(record.key, t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an undo log entry. Records of small transactions are kept in memory.
+     *
+     * @param t the transaction
+     * @param logId sequential number of the log record within transaction
+     * @param record Record(mapId, key, previousValue) to add
+     * @return key for the added record
+     */
+    long addUndoLogRecord(Transaction t, long logId, Record<?,?> record) {
+        if (!t.undoLogSpilled) {
+            if (logId < MAX_BUFFERED_UNDO_RECORDS) {
+                synchronized (t) {
+                    if (!t.undoLogSpilled) {
+                        int index = (int) logId;
+                        assert index == t.undoBufferSize;
+                        Record<?,?>[] buffer = t.undoBuffer;
+                        if (buffer == null) {
+                            t.undoBuffer = buffer = new Record<?,?>[16];
+                        } else if (index == buffer.length) {
+                            t.undoBuffer = buffer = Arrays.copyOf(buffer, index << 1);
+                        }
+                        buffer[index] = record;
+                        t.undoBufferSize = index + 1;
+                        return getOperationId(t.transactionId, logId);
+                    }
+                }
+            } else {
+                spillUndoBuffer(t, true);
+            }
+        }
+        return addUndoLogRecord(t.transactionId, logId, record);
+    }
+
+    /**
+     * Write undo log records buffered in memory to the undo log map, all
+     * subsequent records of this transaction will be written there too.
+     *
+     * @param t the transaction
+     * @param openUndoLog whether undo log map should be opened before
+     *            synchronization on the transaction
+     */
+    private void spillUndoBuffer(Transaction t, boolean openUndoLog) {
+        if (!t.undoLogSpilled) {
+            int transactionId = t.transactionId;
+            if (openUndoLog && t.undoBufferSize > 0) {
+                // opening of a map may need the store lock, it should not be
+                // requested under synchronization on the transaction
+                getUndoLog(transactionId);
+            }
+            synchronized (t) {
+                if (!t.undoLogSpilled && !t.undoLogSpilling) {
+                    if (t.undoBuffer == null) {
+                        // nothing was buffered, or the transaction was already
+                        // committed from the buffer
+                        return;
+                    }
+                    // a nested store operation shouldn't spill these records
+                    // again, other threads may see the spilled state only
+                    // when all records are written
+                    t.undoLogSpilling = true;
+                    try {
+                        Record<?,?>[] buffer = t.undoBuffer;
+                        for (int i = 0, size = t.undoBufferSize; i < size; i++) {
+                            addUndoLogRecord(transactionId, i, buffer[i]);
+                        }
+                        if (committingTransactions.get().get(transactionId)) {
+                            // the transaction is being committed from the
+                            // buffer and some of its changes may be already
+                            // committed in the maps
+                            markUndoLogAsCommitted(transactionId);
+                        }
+                        t.undoBuffer = null;
+                        t.undoBufferSize = 0;
+                        t.undoLogSpilled = true;
+                    } finally {
+                        t.undoLogSpilling = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write undo log records of all open transactions buffered in memory to
+     * undo log maps. Invoked by the store before it writes changes, because
+     * changes in other maps may be written with them.
+     */
+    private void spillUndoBuffers() {
+        BitSet openTrans = openTransactions.get();
+        for (int i = openTrans.nextSetBit(1); i >= 0; i = openTrans.nextSetBit(i + 1)) {
+            Transaction t = transactions.get(i);
+            if (t != null && t.undoBufferSize > 0) {
+                spillUndoBuffer(t, false);
+            }
+        }
+    }
+
+    private MVMap<Long, Record<?,?>> getUndoLog(int transactionId) {
+        MVMap<Long, Record<?,?>> undoLog = undoLogs.get(transactionId);
+        if (undoLog == null) {
+            undoLog = store.openMap(getUndoLogName(transactionId), undoLogBuilder);
+            undoLogs.set(transactionId, undoLog);
+        }
+        return undoLog;
+    }
+
     /**
      * Add an undo log entry.
      *
@@ -452,8 +682,8 @@ public class TransactionStore {
      * @param record Record(mapId, key, previousValue) to add
      * @return key for the added record
      */
-    long addUndoLogRecord(int transactionId, long logId, Record<?,?> record) {
-        MVMap<Long, Record<?,?>> undoLog = undoLogs[transactionId];
+    private long addUndoLogRecord(int transactionId, long logId, Record<?,?> record) {
+        MVMap<Long, Record<?,?>> undoLog = getUndoLog(transactionId);
         long undoKey = getOperationId(transactionId, logId);
         if (logId == 0 && !undoLog.isEmpty()) {
             throw DataUtils.newMVStoreException(
@@ -466,12 +696,30 @@ public class TransactionStore {
         return undoKey;
     }
 
+    /**
+     * Remove the last undo log entry.
+     * @param t the transaction
+     */
+    void removeUndoLogRecord(Transaction t) {
+        if (!t.undoLogSpilled) {
+            synchronized (t) {
+                if (!t.undoLogSpilled) {
+                    int size = t.undoBufferSize - 1;
+                    t.undoBuffer[size] = null;
+                    t.undoBufferSize = size;
+                    return;
+                }
+            }
+        }
+        removeUndoLogRecord(t.transactionId);
+    }
+
     /**
      * Remove an undo log entry.
      * @param transactionId id of the transaction
      */
-    void removeUndoLogRecord(int transactionId) {
-        undoLogs[transactionId].trimLast();
+    private void removeUndoLogRecord(int transactionId) {
+        undoLogs.get(transactionId).trimLast();
     }
 
     /**
@@ -480,6 +728,7 @@ public class TransactionStore {
      * @param map the map
      */
     void removeMap(TransactionMap<?,?> map) {
+        snapshots.remove(map.map.getId());
         store.removeMap(map.map);
     }
 
@@ -492,10 +741,29 @@ public class TransactionStore {
     void commit(Transaction t, boolean recovery) {
         if (!store.isClosed()) {
             int transactionId = t.transactionId;
+            Record<?,?>[] buffer = null;
+            int bufferSize = 0;
+            if (!recovery && !t.undoLogSpilled) {
+                synchronized (t) {
+                    if (!t.undoLogSpilled) {
+                        buffer = t.undoBuffer;
+                        bufferSize = t.undoBufferSize;
+                        if (buffer != null) {
+                            // records spilled from now on are written
+                            // together with the commit marker
+                            flipCommittingTransactionsBit(transactionId, true);
+                        }
+                    }
+                }
+            }
+            if (buffer != null) {
+                commitFromBuffer(t, buffer, bufferSize);
+                return;
+            }
             // First, mark log as "committed".
             // It does not change the way this transaction is treated by others,
             // but preserves fact of commit in case of abrupt termination.
-            MVMap<Long,Record<?,?>> undoLog = undoLogs[transactionId];
+            MVMap<Long,Record<?,?>> undoLog = undoLogs.get(transactionId);
             Cursor<Long,Record<?,?>> cursor;
             if(recovery) {
                 removeUndoLogRecord(transactionId);
@@ -534,6 +802,38 @@ public class TransactionStore {
         }
     }
 
+    private void commitFromBuffer(Transaction t, Record<?,?>[] buffer, int bufferSize) {
+        int transactionId = t.transactionId;
+        CommitDecisionMaker<Object> commitDecisionMaker = new CommitDecisionMaker<>();
+        try {
+            for (int logId = 0; logId < bufferSize; logId++) {
+                Record<?,?> op = buffer[logId];
+                MVMap<Object, VersionedValue<Object>> map = openMap(op.mapId);
+                if (map != null && !map.isClosed()) { // might be null if map was removed later
+                    commitDecisionMaker.setUndoKey(getOperationId(transactionId, logId));
+                    // second parameter (value) is not really
+                    // used by CommitDecisionMaker
+                    map.operate(op.key, null, commitDecisionMaker);
+                }
+            }
+        } finally {
+            try {
+                boolean spilled;
+                synchronized (t) {
+                    spilled = t.undoLogSpilled;
+                    t.undoBuffer = null;
+                    t.undoBufferSize = 0;
+                }
+                if (spilled) {
+                    // records were written by a concurrent store operation
+                    undoLogs.get(transactionId).clear();
+                }
+            } finally {
+                flipCommittingTransactionsBit(transactionId, false);
+            }
+        }
+    }
+
     private void flipCommittingTransactionsBit(int transactionId, boolean flag) {
         boolean success;
         do {
@@ -545,6 +845,29 @@ public class TransactionStore {
         } while(!success);
     }
 
+    /**
+     * Returns a snapshot with the specified map root and committing
+     * transactions. The last snapshot of the map is reused if it has the same
+     * root and committing transactions.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param mapId the id of the map
+     * @param root the root reference of the map
+     * @param committingTransactions the committing transactions
+     * @return the snapshot
+     */
+    @SuppressWarnings("unchecked")
+    <K,V> Snapshot<K,VersionedValue<V>> getSnapshot(int mapId, RootReference<K,VersionedValue<V>> root,
+            BitSet committingTransactions) {
+        Snapshot<K,VersionedValue<V>> snapshot = (Snapshot<K,VersionedValue<V>>) snapshots.get(mapId);
+        if (snapshot == null || snapshot.root != root || snapshot.committingTransactions != committingTransactions) {
+            snapshot = new Snapshot<>(root, committingTransactions);
+            snapshots.put(mapId, snapshot);
+        }
+        return snapshot;
+    }
+
     <K,V> MVMap<K, VersionedValue<V>> openVersionedMap(String name, DataType<K> keyType, DataType<V> valueType) {
         VersionedValueType<V,?> vt = valueType == null ? null : new VersionedValueType<>(valueType);
         return openMap(name, keyType, vt);
@@ -611,16 +934,19 @@ public class TransactionStore {
     void endTransaction(Transaction t, boolean hasChanges) {
         t.closeIt();
         int txId = t.transactionId;
-        transactions.set(txId, null);
-
-        boolean success;
-        do {
-            VersionedBitSet original = openTransactions.get();
-            assert original.get(txId);
-            VersionedBitSet clone = original.clone();
-            clone.clear(txId);
-            success = openTransactions.compareAndSet(original, clone);
-        } while(!success);
+        if (txId != 0) {
+            transactions.set(txId, null);
+
+            boolean success;
+            do {
+                VersionedBitSet original = openTransactions.get();
+                assert original.get(txId);
+                VersionedBitSet clone = original.clone();
+                clone.clear(txId);
+                success = openTransactions.compareAndSet(original, clone);
+            } while(!success);
+            snapshots.clear();
+        }
 
         if (hasChanges) {
             boolean wasStored = t.wasStored;
@@ -659,7 +985,11 @@ public class TransactionStore {
         @SuppressWarnings("unchecked")
         RootReference<Long,Record<?,?>>[] undoLogRootReferences = new RootReference[opentransactions.length()];
         for (int i = opentransactions.nextSetBit(0); i >= 0; i = opentransactions.nextSetBit(i+1)) {
-            MVMap<Long,Record<?,?>> undoLog = undoLogs[i];
+            if (hasBufferedUndoRecords(i)) {
+                // records kept in memory can't be used, abort attempt
+                return null;
+            }
+            MVMap<Long,Record<?,?>> undoLog = undoLogs.get(i);
             if (undoLog != null) {
                 RootReference<Long,Record<?,?>> rootReference = undoLog.getRoot();
                 if (rootReference.needFlush()) {
@@ -692,14 +1022,19 @@ public class TransactionStore {
     private boolean isUndoEmpty() {
         BitSet openTrans = openTransactions.get();
         for (int i = openTrans.nextSetBit(0); i >= 0; i = openTrans.nextSetBit(i + 1)) {
-            MVMap<Long,Record<?,?>> undoLog = undoLogs[i];
-            if (undoLog != null && !undoLog.isEmpty()) {
+            MVMap<Long,Record<?,?>> undoLog = undoLogs.get(i);
+            if (undoLog != null && !undoLog.isEmpty() || hasBufferedUndoRecords(i)) {
                 return false;
             }
         }
         return true;
     }
 
+    private boolean hasBufferedUndoRecords(int transactionId) {
+        Transaction t = transactions.get(transactionId);
+        return t != null && t.undoBufferSize > 0;
+    }
+
     /**
      * Get Transaction object for a transaction id.
      *
@@ -719,8 +1054,28 @@ public class TransactionStore {
      */
     void rollbackTo(Transaction t, long maxLogId, long toLogId) {
         int transactionId = t.getId();
-        MVMap<Long,Record<?,?>> undoLog = undoLogs[transactionId];
         RollbackDecisionMaker decisionMaker = new RollbackDecisionMaker(this, transactionId, toLogId, t.listener);
+        Record<?,?>[] buffer = getUndoBuffer(t);
+        if (buffer != null) {
+            for (int logId = (int) maxLogId - 1; logId >= toLogId; logId--) {
+                decisionMaker.decide(buffer[logId], null);
+                decisionMaker.reset();
+            }
+            synchronized (t) {
+                if (!t.undoLogSpilled) {
+                    Arrays.fill(buffer, (int) toLogId, (int) maxLogId, null);
+                    t.undoBufferSize = (int) toLogId;
+                    return;
+                }
+            }
+            // records were written by a concurrent store operation
+            MVMap<Long,Record<?,?>> undoLog = undoLogs.get(transactionId);
+            for (long logId = maxLogId - 1; logId >= toLogId; logId--) {
+                undoLog.remove(getOperationId(transactionId, logId));
+            }
+            return;
+        }
+        MVMap<Long,Record<?,?>> undoLog = undoLogs.get(transactionId);
         for (long logId = maxLogId - 1; logId >= toLogId; logId--) {
             Long undoKey = getOperationId(transactionId, logId);
             undoLog.operate(undoKey, null, decisionMaker);
@@ -728,6 +1083,17 @@ public class TransactionStore {
         }
     }
 
+    private static Record<?,?>[] getUndoBuffer(Transaction t) {
+        if (!t.undoLogSpilled) {
+            synchronized (t) {
+                if (!t.undoLogSpilled) {
+                    return t.undoBuffer;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Get the changes of the given transaction, starting from the latest log id
      * back to the given log id.
@@ -740,7 +1106,8 @@ public class TransactionStore {
     Iterator<Change> getChanges(final Transaction t, final long maxLogId,
             final long toLogId) {
 
-        final MVMap<Long,Record<?,?>> undoLog = undoLogs[t.getId()];
+        final MVMap<Long,Record<?,?>> undoLog = undoLogs.get(t.getId());
+        final Record<?,?>[] buffer = getUndoBuffer(t);
         return new Iterator<Change>() {
 
             private long logId = maxLogId - 1;
@@ -750,7 +1117,7 @@ public class TransactionStore {
                 int transactionId = t.getId();
                 while (logId >= toLogId) {
                     Long undoKey = getOperationId(transactionId, logId);
-                    Record<?,?> op = undoLog.get(undoKey);
+                    Record<?,?> op = buffer != null ? buffer[(int) logId] : undoLog.get(undoKey);
                     logId--;
                     if (op == null) {
                         // partially rolled back: load previous
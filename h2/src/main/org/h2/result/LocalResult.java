@@ -190,6 +190,15 @@ public class LocalResult implements ResultInterface, ResultTarget {
         return copy;
     }
 
+    /**
+     * Returns whether all rows of this result are stored in memory.
+     *
+     * @return whether all rows are stored in memory
+     */
+    public boolean isInMemory() {
+        return external == null && rows != null && rows.size() >= rowCount;
+    }
+
     /**
      * Sets sort order to be used by this result. When rows are presorted by the
      * query this method should not be used.
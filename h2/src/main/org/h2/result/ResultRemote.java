@@ -7,6 +7,7 @@ package org.h2.result;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 import org.h2.api.ErrorCode;
 import org.h2.engine.SessionRemote;
@@ -21,19 +22,69 @@ import org.h2.value.Value;
  * The client side part of a result set that is kept on the server.
  * In many cases, the complete data is kept on the client side,
  * but for large results only a subset is in-memory.
+ * <p>
+ * When the application reads more than one batch of rows, the request for
+ * the next batch is sent to the server before the current batch is
+ * consumed, so the server produces and sends it while the application
+ * processes the current one. The size of batches grows when the client has
+ * to wait for them, up to a limit computed from the size of rows.
  */
 public final class ResultRemote extends FetchedResult {
 
+    /**
+     * The maximum estimated memory used by rows of a batch; the adaptive
+     * fetch size doesn't grow beyond it. Larger batches don't fit into socket
+     * buffers, the server blocks on them and can't send the next batch
+     * while the client processes the current one.
+     */
+    private static final long MAX_FETCH_MEMORY = 256L * 1024;
+
+    /**
+     * If the client waits for a batch longer than this time, the fetch size
+     * is increased.
+     */
+    private static final long FETCH_WAIT_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The number of rows used to estimate the size of rows.
+     */
+    private static final int ROW_SIZE_SAMPLE = 16;
+
     private int fetchSize;
+    private int adaptiveFetchSize;
     private SessionRemote session;
     private Transfer transfer;
     private int id;
     private final ResultColumn[] columns;
+
+    private TypeInfo[] columnTypes;
     private long rowCount;
     private long rowOffset;
     private ArrayList<Value[]> result;
     private final Trace trace;
 
+    /**
+     * The number of rows requested by a sent but not yet read prefetch
+     * request, or 0.
+     */
+    private int prefetchCount;
+
+    /**
+     * Rows of the next batch, if they were read already.
+     */
+    private ArrayList<Value[]> prefetched;
+
+    /**
+     * Whether the end of the result was reached in the prefetched batch.
+     */
+    private boolean prefetchEnd;
+
+    /**
+     * The exception thrown while reading of the prefetched batch, it is
+     * re-thrown when the application reaches this batch.
+     */
+    private DbException prefetchException;
+
     public ResultRemote(SessionRemote session, Transfer transfer, int id,
             int columnCount, int fetchSize) throws IOException {
         this.session = session;
@@ -47,6 +98,7 @@ public final class ResultRemote extends FetchedResult {
         }
         rowId = -1;
         this.fetchSize = fetchSize;
+        adaptiveFetchSize = fetchSize;
         if (rowCount >= 0) {
             fetchSize = (int) Math.min(rowCount, fetchSize);
             result = new ArrayList<>(fetchSize);
@@ -55,8 +107,11 @@ public final class ResultRemote extends FetchedResult {
         }
         synchronized (session) {
             try {
-                if (fetchRows(fetchSize)) {
+                if (readRows(result, fetchSize)) {
                     rowCount = result.size();
+                    sendClose();
+                } else if (isFetchedCompletely()) {
+                    sendClose();
                 }
             } catch (IOException e) {
                 throw DbException.convertIOException(e, null);
@@ -168,6 +223,13 @@ public final class ResultRemote extends FetchedResult {
         // TODO result sets: no reset possible for larger remote result sets
         try {
             synchronized (session) {
+                if (prefetchCount > 0) {
+                    // the response needs to be read anyway
+                    session.setPrefetchingResult(null);
+                    readPrefetchedRows();
+                }
+                prefetched = null;
+                prefetchException = null;
                 session.traceOperation("RESULT_CLOSE", id);
                 transfer.writeInt(SessionRemote.RESULT_CLOSE).writeInt(id);
             }
@@ -207,48 +269,129 @@ public final class ResultRemote extends FetchedResult {
             session.checkClosed();
             try {
                 rowOffset += result.size();
-                result.clear();
-                int fetch = fetchSize;
-                if (rowCount >= 0) {
-                    fetch = (int) Math.min(fetch, rowCount - rowOffset);
-                } else if (fetch == Integer.MAX_VALUE) {
-                    fetch = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
+                if (prefetchCount == 0 && prefetched == null) {
+                    sendFetchRequest();
+                }
+                if (prefetchCount > 0) {
+                    session.setPrefetchingResult(null);
+                    readPrefetchedRows();
+                }
+                result = prefetched;
+                prefetched = null;
+                DbException e = prefetchException;
+                if (e != null) {
+                    prefetchException = null;
+                    throw e;
+                }
+                if (prefetchEnd || isFetchedCompletely()) {
+                    sendClose();
+                } else {
+                    // request the next batch while this one is processed
+                    sendFetchRequest();
+                    session.setPrefetchingResult(this);
                 }
-                session.traceOperation("RESULT_FETCH_ROWS", id);
-                transfer.writeInt(SessionRemote.RESULT_FETCH_ROWS).writeInt(id).writeInt(fetch);
-                session.done(transfer);
-                fetchRows(fetch);
             } catch (IOException e) {
                 throw DbException.convertIOException(e, null);
             }
         }
     }
 
-    private boolean fetchRows(int fetch) throws IOException {
-        int len = columns.length;
-        for (int r = 0; r < fetch; r++) {
-            switch (transfer.readByte()) {
-            case 1: {
-                Value[] values = new Value[len];
-                for (int i = 0; i < len; i++) {
-                    values[i] = transfer.readValue(columns[i].columnType);
-                }
-                result.add(values);
-                break;
+    private boolean isFetchedCompletely() {
+        return rowCount >= 0L && rowOffset + result.size() >= rowCount;
+    }
+
+    private void sendFetchRequest() throws IOException {
+        int fetch = adaptiveFetchSize;
+        if (rowCount >= 0) {
+            fetch = (int) Math.min(fetch, rowCount - rowOffset - result.size());
+        } else if (fetch == Integer.MAX_VALUE) {
+            fetch = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
+        }
+        session.traceOperation("RESULT_FETCH_ROWS", id);
+        transfer.writeInt(SessionRemote.RESULT_FETCH_ROWS).writeInt(id).writeInt(fetch).flush();
+        prefetchCount = fetch;
+    }
+
+    /**
+     * Read the response to the sent prefetch request. This method is called
+     * by the session before any other operation, because responses need to
+     * be read in order of requests.
+     */
+    public void readPrefetchedRows() {
+        int fetch = prefetchCount;
+        prefetchCount = 0;
+        ArrayList<Value[]> rows = new ArrayList<>(Math.min(fetch, SysProperties.SERVER_RESULT_SET_FETCH_SIZE));
+        prefetched = rows;
+        prefetchEnd = false;
+        try {
+            long start = System.nanoTime();
+            session.done(transfer);
+            long waitNanos = System.nanoTime() - start;
+            prefetchEnd = readRows(rows, fetch);
+            adaptFetchSize(rows, fetch, waitNanos);
+        } catch (DbException e) {
+            prefetchException = e;
+        } catch (IOException e) {
+            prefetchException = DbException.convertIOException(e, null);
+        }
+    }
+
+    private void adaptFetchSize(ArrayList<Value[]> rows, int fetch, long waitNanos) {
+        int size = rows.size();
+        if (size == 0 || fetchSize == Integer.MAX_VALUE) {
+            return;
+        }
+        long memory = 0L;
+        int sample = Math.min(size, ROW_SIZE_SAMPLE);
+        for (int r = 0; r < sample; r++) {
+            for (Value v : rows.get(r)) {
+                memory += v.getMemory();
             }
-            case 0:
-                sendClose();
-                return true;
-            case -1:
-                throw SessionRemote.readException(transfer);
-            default:
-                throw DbException.getInternalError();
+        }
+        long limit = Math.max(MAX_FETCH_MEMORY * sample / Math.max(memory, 1L), fetchSize);
+        long newSize = adaptiveFetchSize;
+        if (waitNanos > FETCH_WAIT_THRESHOLD && size == fetch) {
+            newSize <<= 1;
+        }
+        adaptiveFetchSize = (int) Math.max(Math.min(newSize, Math.min(limit, Integer.MAX_VALUE)), fetchSize);
+    }
+
+    private boolean readRows(ArrayList<Value[]> rows, int fetch) throws IOException {
+        TypeInfo[] columnTypes = getColumnTypes();
+        transfer.beginReadFrame();
+        try {
+            for (int r = 0; r < fetch; r++) {
+                byte marker = transfer.readByte();
+                switch (marker) {
+                case 1:
+                case 2:
+                    rows.add(transfer.readRow(marker, columnTypes));
+                    break;
+                case 0:
+                    return true;
+                case -1:
+                    throw SessionRemote.readException(transfer);
+                default:
+                    throw DbException.getInternalError();
+                }
             }
+            return false;
+        } finally {
+            transfer.endReadFrame();
         }
-        if (rowCount >= 0L && rowOffset + result.size() >= rowCount) {
-            sendClose();
+    }
+
+    private TypeInfo[] getColumnTypes() {
+        TypeInfo[] types = columnTypes;
+        if (types == null) {
+            int len = columns.length;
+            types = new TypeInfo[len];
+            for (int i = 0; i < len; i++) {
+                types[i] = columns[i].columnType;
+            }
+            columnTypes = types;
         }
-        return false;
+        return types;
     }
 
     @Override
@@ -264,6 +407,7 @@ public final class ResultRemote extends FetchedResult {
     @Override
     public void setFetchSize(int fetchSize) {
         this.fetchSize = fetchSize;
+        adaptiveFetchSize = fetchSize;
     }
 
     @Override
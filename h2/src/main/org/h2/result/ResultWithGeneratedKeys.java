@@ -47,7 +47,13 @@ public class ResultWithGeneratedKeys {
 
     private final long updateCount;
 
-    ResultWithGeneratedKeys(long updateCount) {
+    /**
+     * Creates a result with update count.
+     *
+     * @param updateCount
+     *            update count
+     */
+    protected ResultWithGeneratedKeys(long updateCount) {
         this.updateCount = updateCount;
     }
 
@@ -69,4 +75,15 @@ public class ResultWithGeneratedKeys {
         return updateCount;
     }
 
+    /**
+     * Returns whether the update count isn't known yet, because the response
+     * to a pipelined remote request wasn't read. Reading of the update count
+     * waits for the response and throws the exception of the command, if any.
+     *
+     * @return whether the update count isn't known yet
+     */
+    public boolean isPending() {
+        return false;
+    }
+
 }
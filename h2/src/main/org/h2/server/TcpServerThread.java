@@ -43,6 +43,7 @@ import org.h2.util.SmallLRUCache;
 import org.h2.util.SmallMap;
 import org.h2.util.TimeZoneProvider;
 import org.h2.value.Transfer;
+import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueLob;
 
@@ -67,6 +68,7 @@ public class TcpServerThread implements Runnable {
     private int clientVersion;
     private String sessionId;
     private long lastRemoteSettingsId;
+    private volatile int batchId = -1;
 
     TcpServerThread(Socket socket, TcpServer server, int id) {
         this.server = server;
@@ -189,6 +191,9 @@ public class TcpServerThread implements Runnable {
             while (!stop) {
                 try {
                     process();
+                    if (!stop) {
+                        transfer.flushIfIdle();
+                    }
                 } catch (Throwable e) {
                     sendError(e, true);
                 }
@@ -239,26 +244,11 @@ public class TcpServerThread implements Runnable {
 
     private void sendError(Throwable t, boolean withStatus) {
         try {
-            SQLException e = DbException.convert(t).getSQLException();
-            StringWriter writer = new StringWriter();
-            e.printStackTrace(new PrintWriter(writer));
-            String trace = writer.toString();
-            String message;
-            String sql;
-            if (e instanceof JdbcException) {
-                JdbcException j = (JdbcException) e;
-                message = j.getOriginalMessage();
-                sql = j.getSQL();
-            } else {
-                message = e.getMessage();
-                sql = null;
-            }
             if (withStatus) {
                 transfer.writeInt(SessionRemote.STATUS_ERROR);
             }
-            transfer.
-                    writeString(e.getSQLState()).writeString(message).
-                    writeString(sql).writeInt(e.getErrorCode()).writeString(trace).flush();
+            writeError(t);
+            transfer.flush();
         } catch (Exception e2) {
             if (!transfer.isClosed()) {
                 server.traceError(e2);
@@ -268,6 +258,26 @@ public class TcpServerThread implements Runnable {
         }
     }
 
+    private void writeError(Throwable t) throws IOException {
+        SQLException e = DbException.convert(t).getSQLException();
+        StringWriter writer = new StringWriter();
+        e.printStackTrace(new PrintWriter(writer));
+        String trace = writer.toString();
+        String message;
+        String sql;
+        if (e instanceof JdbcException) {
+            JdbcException j = (JdbcException) e;
+            message = j.getOriginalMessage();
+            sql = j.getSQL();
+        } else {
+            message = e.getMessage();
+            sql = null;
+        }
+        transfer.
+                writeString(e.getSQLState()).writeString(message).
+                writeString(sql).writeInt(e.getErrorCode()).writeString(trace);
+    }
+
     private void setParameters(Command command) throws IOException {
         int len = transfer.readInt();
         ArrayList<? extends ParameterInterface> params = command.getParameters();
@@ -429,7 +439,43 @@ public class TcpServerThread implements Runnable {
                 sendRows(generatedKeys, rowCount);
                 generatedKeys.close();
             }
-            transfer.flush();
+            // flushed by the main loop, responses to pipelined
+            // requests are sent together
+            break;
+        }
+        case SessionRemote.SESSION_EXECUTE_BATCH: {
+            int id = transfer.readInt();
+            int size = transfer.readInt();
+            ArrayList<String> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(transfer.readString());
+            }
+            int old = session.getModificationId();
+            DbException[] exceptions = new DbException[size];
+            long[] result;
+            batchId = id;
+            try {
+                result = session.executeBatch(batch, exceptions);
+            } finally {
+                batchId = -1;
+            }
+            int status;
+            if (session.isClosed()) {
+                status = SessionRemote.STATUS_CLOSED;
+                stop = true;
+            } else {
+                status = getState(old);
+            }
+            transfer.writeInt(status);
+            for (int i = 0; i < size; i++) {
+                transfer.writeRowCount(result[i]);
+                DbException e = exceptions[i];
+                transfer.writeBoolean(e != null);
+                if (e != null) {
+                    writeError(e);
+                }
+            }
+            transfer.writeBoolean(session.getAutoCommit()).flush();
             break;
         }
         case SessionRemote.COMMAND_CLOSE: {
@@ -478,15 +524,18 @@ public class TcpServerThread implements Runnable {
             if (clientVersion >= Constants.TCP_PROTOCOL_VERSION_20) {
                 session.setTimeZone(TimeZoneProvider.ofId(transfer.readString()));
             }
+            String compression = clientVersion >= Constants.TCP_PROTOCOL_VERSION_21
+                    ? Transfer.normalizeCompression(transfer.readString()) : null;
             transfer.writeInt(SessionRemote.STATUS_OK)
                 .writeBoolean(session.getAutoCommit())
                 .flush();
+            transfer.setCompression(compression);
             break;
         }
         case SessionRemote.SESSION_SET_AUTOCOMMIT: {
             boolean autoCommit = transfer.readBoolean();
             session.setAutoCommit(autoCommit);
-            transfer.writeInt(SessionRemote.STATUS_OK).flush();
+            transfer.writeInt(SessionRemote.STATUS_OK);
             break;
         }
         case SessionRemote.SESSION_HAS_PENDING_TRANSACTION: {
@@ -565,8 +614,13 @@ public class TcpServerThread implements Runnable {
 
     private void sendRows(ResultInterface result, long count) throws IOException {
         int columnCount = result.getVisibleColumnCount();
+        TypeInfo[] columnTypes = new TypeInfo[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnTypes[i] = result.getColumnType(i);
+        }
         boolean lazy = result.isLazy();
         Session oldSession = lazy ? session.setThreadLocalSession() : null;
+        transfer.beginFrame();
         try {
             while (count-- > 0L) {
                 boolean hasNext;
@@ -578,24 +632,29 @@ public class TcpServerThread implements Runnable {
                     break;
                 }
                 if (hasNext) {
-                    transfer.writeByte((byte) 1);
-                    Value[] values = result.currentRow();
-                    for (int i = 0; i < columnCount; i++) {
-                        Value v = values[i];
-                        if (lazy && v instanceof ValueLob) {
-                            ValueLob v2 = ((ValueLob) v).copyToResult();
-                            if (v2 != v) {
-                                v = session.addTemporaryLob(v2);
+                    Value[] row = result.currentRow(), values = row;
+                    if (lazy) {
+                        for (int i = 0; i < columnCount; i++) {
+                            Value v = values[i];
+                            if (v instanceof ValueLob) {
+                                ValueLob v2 = ((ValueLob) v).copyToResult();
+                                if (v2 != v) {
+                                    if (values == row) {
+                                        values = row.clone();
+                                    }
+                                    values[i] = session.addTemporaryLob(v2);
+                                }
                             }
                         }
-                        transfer.writeValue(v);
                     }
+                    transfer.writeRow(values, columnTypes);
                 } else {
                     transfer.writeByte((byte) 0);
                     break;
                 }
             }
         } finally {
+            transfer.endFrame();
             if (lazy) {
                 session.resetThreadLocalSession(oldSession);
             }
@@ -618,6 +677,10 @@ public class TcpServerThread implements Runnable {
      */
     void cancelStatement(String targetSessionId, int statementId) {
         if (Objects.equals(targetSessionId, this.sessionId)) {
+            if (statementId == batchId) {
+                session.cancelBatch();
+                return;
+            }
             Command cmd = (Command) cache.getObject(statementId, false);
             cmd.cancel();
         }
@@ -16,6 +16,8 @@ import org.h2.engine.Constants;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionVisitor;
+import org.h2.expression.Parameter;
+import org.h2.expression.Subquery;
 import org.h2.expression.ValueExpression;
 import org.h2.message.DbException;
 import org.h2.result.Row;
@@ -76,6 +78,7 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
     private boolean primaryKey;
     private boolean visible = true;
     private boolean rowId;
+    private boolean indexExpression;
     private Domain domain;
 
     /**
@@ -137,6 +140,49 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
         this.columnId = columnId;
     }
 
+    /**
+     * Creates a column of an index with values computed from other columns of
+     * the table. Such column doesn't belong to the table, its id is larger than
+     * ids of columns of the table.
+     *
+     * @param session the session
+     * @param table the table
+     * @param columnId the column id
+     * @param expression the expression
+     * @return the column
+     * @throws DbException if the expression is not deterministic or contains
+     *             subqueries or parameters
+     */
+    public static Column createIndexExpressionColumn(SessionLocal session, Table table, int columnId,
+            Expression expression) {
+        GeneratedColumnResolver resolver = new GeneratedColumnResolver(table, true);
+        expression.mapColumns(resolver, 0, Expression.MAP_INITIAL);
+        expression = expression.optimize(session);
+        if (expression.isConstant() || !isAllowedInIndex(expression)
+                || !expression.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
+            throw DbException.getUnsupportedException("Index expression " + expression.getTraceSQL());
+        }
+        Column column = new Column(expression.getUnenclosedSQL(new StringBuilder(), DEFAULT_SQL_FLAGS).toString(),
+                expression.getType(), table, columnId);
+        column.isGeneratedAlways = true;
+        column.defaultExpression = expression;
+        column.generatedTableFilter = resolver;
+        column.indexExpression = true;
+        return column;
+    }
+
+    private static boolean isAllowedInIndex(Expression e) {
+        if (e instanceof Subquery || e instanceof Parameter) {
+            return false;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (!isAllowedInIndex(e.getSubexpression(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) {
@@ -145,6 +191,10 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
             return false;
         }
         Column other = (Column) o;
+        if (indexExpression || other.indexExpression) {
+            // expression columns of different indexes are different
+            return false;
+        }
         if (table == null || other.table == null ||
                 name == null || other.name == null) {
             return false;
@@ -274,11 +324,17 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
 
     @Override
     public String getSQL(int sqlFlags) {
+        if (indexExpression) {
+            return defaultExpression.getEnclosedSQL(new StringBuilder(), sqlFlags).toString();
+        }
         return rowId ? name : Parser.quoteIdentifier(name, sqlFlags);
     }
 
     @Override
     public StringBuilder getSQL(StringBuilder builder, int sqlFlags) {
+        if (indexExpression) {
+            return defaultExpression.getEnclosedSQL(builder, sqlFlags);
+        }
         return rowId ? builder.append(name) : ParserUtil.quoteIdentifier(builder, name, sqlFlags);
     }
 
@@ -342,6 +398,29 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
         this.rowId = rowId;
     }
 
+    /**
+     * Returns the expression of an index column.
+     *
+     * @return the expression, or {@code null} if this column is a column of
+     *         the table
+     * @see #createIndexExpressionColumn(SessionLocal, Table, int, Expression)
+     */
+    public Expression getIndexExpression() {
+        return indexExpression ? defaultExpression : null;
+    }
+
+    /**
+     * Computes the value of the expression of an index column for the
+     * specified row of the table.
+     *
+     * @param session the session
+     * @param row the row of the table
+     * @return the value
+     */
+    public Value getIndexExpressionValue(SessionLocal session, Row row) {
+        return getDefaultOrGenerated(session, row);
+    }
+
     /**
      * Validate the value, convert it if required, and update the sequence value
      * if required. If the value is null, the default value (NULL if no default
@@ -18,6 +18,8 @@ class GeneratedColumnResolver implements ColumnResolver {
 
     private final Table table;
 
+    private final boolean allColumns;
+
     private Column[] columns;
 
     private HashMap<String, Column> columnMap;
@@ -31,7 +33,20 @@ class GeneratedColumnResolver implements ColumnResolver {
      *            the table
      */
     GeneratedColumnResolver(Table table) {
+        this(table, false);
+    }
+
+    /**
+     * Column resolver for generated columns or for expressions of indexes.
+     *
+     * @param table
+     *            the table
+     * @param allColumns
+     *            whether generated columns may be referenced too
+     */
+    GeneratedColumnResolver(Table table, boolean allColumns) {
         this.table = table;
+        this.allColumns = allColumns;
     }
 
     /**
@@ -55,6 +70,9 @@ class GeneratedColumnResolver implements ColumnResolver {
 
     private Column[] createColumns() {
         Column[] allColumns = table.getColumns();
+        if (this.allColumns) {
+            return allColumns;
+        }
         int totalCount = allColumns.length, baseCount = totalCount;
         for (int i = 0; i < totalCount; i++) {
             if (allColumns[i].isGenerated()) {
@@ -5,6 +5,7 @@
  */
 package org.h2.table;
 
+import org.h2.expression.Expression;
 import org.h2.result.SortOrder;
 import org.h2.util.HasSQL;
 import org.h2.util.ParserUtil;
@@ -25,6 +26,12 @@ public class IndexColumn {
      */
     public final String columnName;
 
+    /**
+     * The expression of the column, or null if this is not an expression
+     * column.
+     */
+    public final Expression expression;
+
     /**
      * The column, or null if not set.
      */
@@ -111,6 +118,7 @@ public class IndexColumn {
      */
     public IndexColumn(String columnName) {
         this.columnName = columnName;
+        expression = null;
     }
 
     /**
@@ -123,6 +131,21 @@ public class IndexColumn {
      */
     public IndexColumn(String columnName, int sortType) {
         this.columnName = columnName;
+        expression = null;
+        this.sortType = sortType;
+    }
+
+    /**
+     * Creates a new instance with the specified expression.
+     *
+     * @param expression
+     *            the expression
+     * @param sortType
+     *            the sort type
+     */
+    public IndexColumn(Expression expression, int sortType) {
+        columnName = null;
+        this.expression = expression;
         this.sortType = sortType;
     }
 
@@ -134,6 +157,7 @@ public class IndexColumn {
      */
     public IndexColumn(Column column) {
         columnName = null;
+        expression = null;
         this.column = column;
     }
 
@@ -149,6 +173,8 @@ public class IndexColumn {
     public StringBuilder getSQL(StringBuilder builder, int sqlFlags) {
         if (column != null) {
             column.getSQL(builder, sqlFlags);
+        } else if (expression != null) {
+            expression.getEnclosedSQL(builder, sqlFlags);
         } else {
             ParserUtil.quoteIdentifier(builder, columnName, sqlFlags);
         }
@@ -175,13 +201,16 @@ public class IndexColumn {
 
     /**
      * Map the columns using the column names and the specified table.
+     * Expression columns are not mapped.
      *
      * @param indexColumns the column list with column names set
      * @param table the table from where to map the column names to columns
      */
     public static void mapColumns(IndexColumn[] indexColumns, Table table) {
         for (IndexColumn col : indexColumns) {
-            col.column = table.getColumn(col.columnName);
+            if (col.expression == null) {
+                col.column = table.getColumn(col.columnName);
+            }
         }
     }
 
@@ -23,6 +23,8 @@ import org.h2.constraint.ConstraintReferential;
 import org.h2.constraint.ConstraintUnique;
 import org.h2.engine.Constants;
 import org.h2.engine.DbObject;
+import org.h2.engine.QueryPlanCache;
+import org.h2.engine.QueryResultCache;
 import org.h2.engine.QueryStatisticsData;
 import org.h2.engine.Right;
 import org.h2.engine.RightOwner;
@@ -39,6 +41,11 @@ import org.h2.index.Index;
 import org.h2.index.IndexType;
 import org.h2.index.MetaIndex;
 import org.h2.message.DbException;
+import org.h2.mvstore.db.IndexBuildProgress;
+import org.h2.mvstore.db.MVTable;
+import org.h2.mvstore.db.Store;
+import org.h2.mvstore.tx.LockManager;
+import org.h2.mvstore.tx.LockManager.LockWaitStatistics;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
@@ -134,13 +141,17 @@ public final class InformationSchemaTable extends MetaTable {
 
     private static final int INDEXES = ENUM_VALUES + 1;
 
-    private static final int INDEX_COLUMNS = INDEXES + 1;
+    private static final int INDEX_BUILD_PROGRESS = INDEXES + 1;
+
+    private static final int INDEX_COLUMNS = INDEX_BUILD_PROGRESS + 1;
 
     private static final int IN_DOUBT = INDEX_COLUMNS + 1;
 
     private static final int LOCKS = IN_DOUBT + 1;
 
-    private static final int QUERY_STATISTICS = LOCKS + 1;
+    private static final int LOCK_WAIT_STATISTICS = LOCKS + 1;
+
+    private static final int QUERY_STATISTICS = LOCK_WAIT_STATISTICS + 1;
 
     private static final int RIGHTS = QUERY_STATISTICS + 1;
 
@@ -738,6 +749,21 @@ public final class InformationSchemaTable extends MetaTable {
             };
             indexColumnName = "TABLE_NAME";
             break;
+        case INDEX_BUILD_PROGRESS:
+            setMetaTableName("INDEX_BUILD_PROGRESS");
+            isView = false;
+            cols = new Column[] {
+                    column("SESSION_ID", TypeInfo.TYPE_INTEGER), //
+                    column("TABLE_SCHEMA"), //
+                    column("TABLE_NAME"), //
+                    column("INDEX_NAME"), //
+                    column("PHASE"), //
+                    column("THREADS", TypeInfo.TYPE_INTEGER), //
+                    column("ROWS_TOTAL", TypeInfo.TYPE_BIGINT), //
+                    column("ROWS_PROCESSED", TypeInfo.TYPE_BIGINT), //
+                    column("BUILD_START", TypeInfo.TYPE_TIMESTAMP_TZ), //
+            };
+            break;
         case IN_DOUBT:
             setMetaTableName("IN_DOUBT");
             isView = false;
@@ -756,6 +782,22 @@ public final class InformationSchemaTable extends MetaTable {
                     column("LOCK_TYPE"), //
             };
             break;
+        case LOCK_WAIT_STATISTICS:
+            setMetaTableName("LOCK_WAIT_STATISTICS");
+            isView = false;
+            cols = new Column[] {
+                    column("TABLE_SCHEMA"), //
+                    column("TABLE_NAME"), //
+                    column("MAP_NAME"), //
+                    column("LOCK_KEY"), //
+                    column("WAITING_COUNT", TypeInfo.TYPE_INTEGER), //
+                    column("WAIT_COUNT", TypeInfo.TYPE_BIGINT), //
+                    column("TIMEOUT_COUNT", TypeInfo.TYPE_BIGINT), //
+                    column("MAX_WAIT_TIME", TypeInfo.TYPE_DOUBLE), //
+                    column("CUMULATIVE_WAIT_TIME", TypeInfo.TYPE_DOUBLE), //
+                    column("AVERAGE_WAIT_TIME", TypeInfo.TYPE_DOUBLE), //
+            };
+            break;
         case QUERY_STATISTICS:
             setMetaTableName("QUERY_STATISTICS");
             isView = false;
@@ -959,6 +1001,9 @@ public final class InformationSchemaTable extends MetaTable {
         case INDEXES:
             indexes(session, indexFrom, indexTo, rows, catalog, false);
             break;
+        case INDEX_BUILD_PROGRESS:
+            indexBuildProgress(session, rows);
+            break;
         case INDEX_COLUMNS:
             indexes(session, indexFrom, indexTo, rows, catalog, true);
             break;
@@ -968,6 +1013,9 @@ public final class InformationSchemaTable extends MetaTable {
         case LOCKS:
             locks(session, rows);
             break;
+        case LOCK_WAIT_STATISTICS:
+            lockWaitStatistics(session, rows);
+            break;
         case QUERY_STATISTICS:
             queryStatistics(session, rows);
             break;
@@ -2685,6 +2733,45 @@ public final class InformationSchemaTable extends MetaTable {
         }
     }
 
+    private void indexBuildProgress(SessionLocal session, ArrayList<Row> rows) {
+        if (session.getUser().isAdmin()) {
+            for (SessionLocal s : database.getSessions(false)) {
+                indexBuildProgress(session, rows, s);
+            }
+        } else {
+            indexBuildProgress(session, rows, session);
+        }
+    }
+
+    private void indexBuildProgress(SessionLocal session, ArrayList<Row> rows, SessionLocal s) {
+        IndexBuildProgress progress = s.getIndexBuildProgress();
+        if (progress == null) {
+            return;
+        }
+        Index index = progress.getIndex();
+        Table table = index.getTable();
+        add(session, rows,
+                // SESSION_ID
+                ValueInteger.get(s.getId()),
+                // TABLE_SCHEMA
+                table.getSchema().getName(),
+                // TABLE_NAME
+                table.getName(),
+                // INDEX_NAME
+                index.getName(),
+                // PHASE
+                progress.getPhase(),
+                // THREADS
+                ValueInteger.get(progress.getThreads()),
+                // ROWS_TOTAL
+                ValueBigint.get(progress.getRowCount()),
+                // ROWS_PROCESSED
+                ValueBigint.get(progress.getProcessedRows()),
+                // BUILD_START
+                progress.getStart()
+        );
+    }
+
     private void inDoubt(SessionLocal session, ArrayList<Row> rows) {
         if (session.getUser().isAdmin()) {
             ArrayList<InDoubtTransaction> prepared = database.getInDoubtTransactions();
@@ -2724,6 +2811,45 @@ public final class InformationSchemaTable extends MetaTable {
         }
     }
 
+    private void lockWaitStatistics(SessionLocal session, ArrayList<Row> rows) {
+        if (!session.getUser().isAdmin()) {
+            return;
+        }
+        Store store = database.getStore();
+        if (store == null) {
+            return;
+        }
+        LockManager lockManager = store.getTransactionStore().getLockManager();
+        for (LockWaitStatistics s : lockManager.getStatistics()) {
+            String mapName = s.getMapName();
+            MVTable table = store.getTable(mapName);
+            long waitCount = s.getWaitCount();
+            long cumulativeNanos = s.getWaitTimeCumulativeNanos();
+            add(session, rows,
+                    // TABLE_SCHEMA
+                    table != null ? table.getSchema().getName() : null,
+                    // TABLE_NAME
+                    table != null ? table.getName() : null,
+                    // MAP_NAME
+                    mapName,
+                    // LOCK_KEY
+                    s.getKey(),
+                    // WAITING_COUNT
+                    ValueInteger.get(lockManager.getWaitingCount(s)),
+                    // WAIT_COUNT
+                    ValueBigint.get(waitCount),
+                    // TIMEOUT_COUNT
+                    ValueBigint.get(s.getTimeoutCount()),
+                    // MAX_WAIT_TIME
+                    ValueDouble.get(s.getWaitTimeMaxNanos() / 1_000_000d),
+                    // CUMULATIVE_WAIT_TIME
+                    ValueDouble.get(cumulativeNanos / 1_000_000d),
+                    // AVERAGE_WAIT_TIME
+                    ValueDouble.get(waitCount != 0 ? cumulativeNanos / 1_000_000d / waitCount : 0d)
+            );
+        }
+    }
+
     private void queryStatistics(SessionLocal session, ArrayList<Row> rows) {
         QueryStatisticsData control = database.getQueryStatisticsData();
         if (control != null) {
@@ -2970,6 +3096,19 @@ public final class InformationSchemaTable extends MetaTable {
             add(session, rows, "NON_KEYWORDS", Parser.formatNonKeywords(nonKeywords));
         }
         add(session, rows, "RETENTION_TIME", Integer.toString(database.getRetentionTime()));
+        QueryPlanCache planCache = database.getQueryPlanCache();
+        if (planCache != null) {
+            add(session, rows, "info.QUERY_PLAN_CACHE_SIZE", Integer.toString(planCache.getSize()));
+            add(session, rows, "info.QUERY_PLAN_CACHE_HITS", Long.toString(planCache.getHits()));
+            add(session, rows, "info.QUERY_PLAN_CACHE_MISSES", Long.toString(planCache.getMisses()));
+        }
+        QueryResultCache resultCache = database.getQueryResultCache();
+        if (resultCache != null) {
+            add(session, rows, "info.QUERY_RESULT_CACHE_SIZE", Integer.toString(resultCache.getSize()));
+            add(session, rows, "info.QUERY_RESULT_CACHE_MEMORY", Long.toString(resultCache.getMemory()));
+            add(session, rows, "info.QUERY_RESULT_CACHE_HITS", Long.toString(resultCache.getHits()));
+            add(session, rows, "info.QUERY_RESULT_CACHE_MISSES", Long.toString(resultCache.getMisses()));
+        }
         // database settings
         for (Map.Entry<String, String> entry : database.getSettings().getSortedSettings()) {
             add(session, rows, entry.getKey(), entry.getValue());
@@ -3134,6 +3273,8 @@ public final class InformationSchemaTable extends MetaTable {
         case IN_DOUBT:
         case SESSIONS:
         case LOCKS:
+        case LOCK_WAIT_STATISTICS:
+        case INDEX_BUILD_PROGRESS:
         case SESSION_STATE:
             return Long.MAX_VALUE;
         }
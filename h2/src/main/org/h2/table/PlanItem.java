@@ -5,6 +5,7 @@
  */
 package org.h2.table;
 
+import org.h2.command.query.AllColumnsForPlan;
 import org.h2.index.Index;
 
 /**
@@ -22,6 +23,7 @@ public class PlanItem {
     private Index index;
     private PlanItem joinPlan;
     private PlanItem nestedJoinPlan;
+    private AllColumnsForPlan allColumnsSet;
 
     void setMasks(int[] masks) {
         this.masks = masks;
@@ -47,6 +49,14 @@ public class PlanItem {
         return nestedJoinPlan;
     }
 
+    void setAllColumnsSet(AllColumnsForPlan allColumnsSet) {
+        this.allColumnsSet = allColumnsSet;
+    }
+
+    AllColumnsForPlan getAllColumnsSet() {
+        return allColumnsSet;
+    }
+
     void setJoinPlan(PlanItem joinPlan) {
         this.joinPlan = joinPlan;
     }
@@ -178,6 +178,52 @@ public abstract class Table extends SchemaObject {
     public abstract Index addIndex(SessionLocal session, String indexName, int indexId, IndexColumn[] cols,
             int uniqueColumnCount, IndexType indexType, boolean create, String indexComment);
 
+    /**
+     * Create a new index for this table without blocking writers while
+     * existing rows are indexed. The table must be locked with a shared write
+     * lock by the session. The default implementation locks the table
+     * exclusively and uses
+     * {@link #addIndex(SessionLocal, String, int, IndexColumn[], int, IndexType, boolean, String)}.
+     *
+     * @param session the session
+     * @param indexName the name of the index
+     * @param indexId the id
+     * @param cols the index columns
+     * @param uniqueColumnCount the count of unique columns
+     * @param indexType the index type
+     * @param indexComment the comment
+     * @return the index
+     */
+    public Index addIndexConcurrently(SessionLocal session, String indexName, int indexId, IndexColumn[] cols,
+            int uniqueColumnCount, IndexType indexType, String indexComment) {
+        lock(session, EXCLUSIVE_LOCK);
+        return addIndex(session, indexName, indexId, cols, uniqueColumnCount, indexType, true, indexComment);
+    }
+
+    /**
+     * Starts loading of rows into this new empty table. If the table supports
+     * it, the table is locked exclusively and rows added by the session are
+     * stored directly as committed rows until
+     * {@link #finishBulkLoad(SessionLocal)} is called. The default
+     * implementation does nothing.
+     *
+     * @param session the session
+     * @return whether the bulk load was started
+     */
+    public boolean startBulkLoad(SessionLocal session) {
+        return false;
+    }
+
+    /**
+     * Finishes loading of rows started with
+     * {@link #startBulkLoad(SessionLocal)}.
+     *
+     * @param session the session
+     */
+    public void finishBulkLoad(SessionLocal session) {
+        // nothing to do
+    }
+
     /**
      * Get the given row.
      *
@@ -658,10 +704,11 @@ public abstract class Table extends SchemaObject {
                     if (index.getCreateSQL() == null) {
                         continue;
                     }
-                    if (index.getColumnIndex(col) < 0) {
+                    HashSet<Column> columns = index.getReferencedColumns();
+                    if (!columns.contains(col)) {
                         continue;
                     }
-                    if (index.getColumns().length == 1) {
+                    if (columns.size() == 1) {
                         indexesToDrop.add(index);
                     } else {
                         throw DbException.get(ErrorCode.COLUMN_IS_REFERENCED_1, index.getTraceSQL());
@@ -841,7 +888,8 @@ public abstract class Table extends SchemaObject {
             for (int i = 1, size = indexes.size(); i < size; i++) {
                 Index index = indexes.get(i);
 
-                if (isIndexExcludedByHints(indexHints, index)) {
+                if (isIndexExcludedByHints(indexHints, index)
+                        || !index.isUsableFor(session, filters == null ? null : filters[filter])) {
                     continue;
                 }
 
@@ -1291,6 +1339,9 @@ public abstract class Table extends SchemaObject {
         if (indexes != null) {
             for (int i = 1, size = indexes.size(); i < size; i++) {
                 Index index = indexes.get(i);
+                if (index.getCondition() != null) {
+                    continue;
+                }
                 if (needGetFirstOrLast && !index.canGetFirstOrLast()) {
                     continue;
                 }
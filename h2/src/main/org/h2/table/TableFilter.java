@@ -6,9 +6,11 @@
 package org.h2.table;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.h2.api.ErrorCode;
@@ -18,6 +20,8 @@ import org.h2.engine.Database;
 import org.h2.engine.Right;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.condition.Comparison;
 import org.h2.expression.condition.ConditionAndOr;
 import org.h2.index.Index;
@@ -72,6 +76,13 @@ public class TableFilter implements ColumnResolver {
     private Index index;
     private final IndexHints indexHints;
     private int[] masks;
+
+    /**
+     * All columns used by the query, or {@code null} if the plan wasn't
+     * selected by the optimizer.
+     */
+    private AllColumnsForPlan allColumnsSet;
+
     private int scanCount;
     private boolean evaluatable;
 
@@ -233,7 +244,7 @@ public class TableFilter implements ColumnResolver {
                     break;
                 }
                 int id = condition.getColumn().getColumnId();
-                if (id >= 0) {
+                if (id >= 0 && id < len) {
                     masks[id] |= condition.getMask(indexConditions);
                 }
             }
@@ -248,6 +259,7 @@ public class TableFilter implements ColumnResolver {
         if (item1 != null && item1.cost < item.cost) {
             item = item1;
         }
+        item.setAllColumnsSet(allColumnsSet);
 
         if (nestedJoin != null) {
             setEvaluatable(true);
@@ -282,6 +294,7 @@ public class TableFilter implements ColumnResolver {
         }
         setIndex(item.getIndex());
         masks = item.getMasks();
+        allColumnsSet = item.getAllColumnsSet();
         if (nestedJoin != null) {
             if (item.getNestedJoinPlan() != null) {
                 nestedJoin.setPlanItem(item.getNestedJoinPlan());
@@ -332,6 +345,7 @@ public class TableFilter implements ColumnResolver {
                 }
             }
         }
+        cursor.setSkipScan(index.isSkipScan(session, index.getMasks(masks, this), this));
         if (nestedJoin != null) {
             if (nestedJoin == this) {
                 throw DbException.getInternalError("self join");
@@ -382,6 +396,19 @@ public class TableFilter implements ColumnResolver {
         foundOne = false;
     }
 
+    /**
+     * Release the resources of scans that are not read to the end.
+     */
+    public void close() {
+        if (nestedJoin != null) {
+            nestedJoin.close();
+        }
+        if (join != null) {
+            join.close();
+        }
+        cursor.close();
+    }
+
     /**
      * Check if there are more rows to read.
      *
@@ -771,6 +798,12 @@ public class TableFilter implements ColumnResolver {
                 planBuilder.append('\n');
             }
             StringUtils.indent(builder, planBuilder.append(" */").toString(), 4, false);
+            if (cursor.isSkipScan()) {
+                builder.append("\n    /* skip scan */");
+            }
+            if (isIndexOnly()) {
+                builder.append("\n    /* index only */");
+            }
         }
         if (isJoin) {
             builder.append("\n    ON ");
@@ -818,6 +851,59 @@ public class TableFilter implements ColumnResolver {
         return indexConditions;
     }
 
+    /**
+     * Returns expression columns of indexes of the table with the same
+     * expression as the specified expression. Expressions are compared by
+     * their SQL without qualifiers of columns.
+     *
+     * @param expression the expression that references only columns of this
+     *            filter
+     * @return column references to the expression columns, may be empty
+     */
+    public List<ExpressionColumn> getIndexExpressionColumns(Expression expression) {
+        List<ExpressionColumn> result = Collections.emptyList();
+        ArrayList<Index> indexes = table.getIndexes();
+        if (indexes == null || expression instanceof ExpressionColumn || expression.isConstant()) {
+            return result;
+        }
+        String sql = null;
+        for (Index index : indexes) {
+            Column[] expressionColumns = index.getExpressionColumns();
+            if (expressionColumns == null) {
+                continue;
+            }
+            if (sql == null) {
+                if (!isFromThisFilter(expression)
+                        || !expression.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
+                    return result;
+                }
+                sql = expression.getUnenclosedSQL(new StringBuilder(), HasSQL.NO_COLUMN_QUALIFIERS).toString();
+            }
+            for (Column column : expressionColumns) {
+                if (sql.equals(column.getIndexExpression()
+                        .getUnenclosedSQL(new StringBuilder(), HasSQL.NO_COLUMN_QUALIFIERS).toString())) {
+                    if (result.isEmpty()) {
+                        result = new ArrayList<>();
+                    }
+                    result.add(new ExpressionColumn(session.getDatabase(), column));
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isFromThisFilter(Expression expression) {
+        if (expression instanceof ExpressionColumn) {
+            return ((ExpressionColumn) expression).getTableFilter() == this;
+        }
+        for (int i = 0, l = expression.getSubexpressionCount(); i < l; i++) {
+            if (!isFromThisFilter(expression.getSubexpression(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public Index getIndex() {
         return index;
     }
@@ -827,6 +913,18 @@ public class TableFilter implements ColumnResolver {
         cursor.setIndex(index);
     }
 
+    /**
+     * Check if all columns of the table used by the query are stored in the
+     * current index, so rows are read only from this index and values are
+     * taken from its search rows without lookup of rows in the table.
+     *
+     * @return true if it is an index-only scan
+     */
+    public boolean isIndexOnly() {
+        return index != null && allColumnsSet != null && select != null && select.getForUpdate() == null
+                && index.isIndexOnlyScanSupported() && index.isCovering(allColumnsSet);
+    }
+
     public void setUsed(boolean used) {
         this.used = used;
     }
@@ -5,6 +5,7 @@
  */
 package org.h2.table;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -27,6 +28,7 @@ import org.h2.index.LinkedIndex;
 import org.h2.jdbc.JdbcConnection;
 import org.h2.jdbc.JdbcResultSet;
 import org.h2.message.DbException;
+import org.h2.mode.DefaultNullOrdering;
 import org.h2.result.LocalResult;
 import org.h2.result.ResultInterface;
 import org.h2.result.Row;
@@ -37,6 +39,7 @@ import org.h2.util.Utils;
 import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
 import org.h2.value.ValueDate;
 import org.h2.value.ValueTime;
 import org.h2.value.ValueTimestamp;
@@ -51,10 +54,31 @@ public class TableLink extends Table {
 
     private static final long ROW_COUNT_APPROXIMATION = 100_000;
 
+    /**
+     * The target database doesn't support OFFSET and FETCH clauses, or their
+     * syntax is not known.
+     */
+    private static final int OFFSET_FETCH_NONE = 0;
+
+    /**
+     * The target database supports the LIMIT and OFFSET clauses.
+     */
+    private static final int OFFSET_FETCH_LIMIT = 1;
+
+    /**
+     * The target database supports the standard OFFSET and FETCH clauses.
+     */
+    private static final int OFFSET_FETCH_STANDARD = 2;
+
+    /**
+     * The target database supports the standard OFFSET and FETCH clauses only
+     * with ORDER BY clause.
+     */
+    private static final int OFFSET_FETCH_STANDARD_SORTED = 3;
+
     private final String originalSchema;
     private String driver, url, user, password, originalTable, qualifiedTableName;
     private TableLinkConnection conn;
-    private HashMap<String, PreparedStatement> preparedMap = new HashMap<>();
     private final ArrayList<Index> indexes = Utils.newSmallArrayList();
     private final boolean emitUpdates;
     private LinkedIndex linkedIndex;
@@ -64,6 +88,10 @@ public class TableLink extends Table {
     private boolean storesMixedCaseQuoted;
     private boolean supportsMixedCaseIdentifiers;
     private String identifierQuoteString;
+    private String[] remoteColumnNames;
+    private DefaultNullOrdering remoteNullOrdering;
+    private boolean supportsNullOrdering;
+    private int offsetFetchSyntax;
     private boolean globalTemporary;
     private boolean readOnly;
     private final boolean targetsMySql;
@@ -90,6 +118,7 @@ public class TableLink extends Table {
             }
             Column[] cols = { };
             setColumns(cols);
+            remoteColumnNames = new String[0];
             linkedIndex = new LinkedIndex(this, id, IndexColumn.wrap(cols), 0, IndexType.createNonUnique(false));
             indexes.add(linkedIndex);
         }
@@ -101,16 +130,20 @@ public class TableLink extends Table {
             try {
                 conn = database.getLinkConnection(driver, url, user, password);
                 conn.setAutoCommit(autocommit);
-                synchronized (conn) {
-                    try {
-                        readMetaData();
-                        return;
-                    } catch (Exception e) {
-                        // could be SQLException or RuntimeException
-                        conn.close(true);
-                        conn = null;
-                        throw DbException.convert(e);
+                TableLinkConnection.PooledConnection c = null;
+                try {
+                    c = conn.getConnection(null);
+                    readMetaData(c.getConnection());
+                    conn.releaseConnection(c);
+                    return;
+                } catch (Exception e) {
+                    // could be SQLException or RuntimeException
+                    if (c != null) {
+                        conn.discardConnection(c);
                     }
+                    conn.close(true);
+                    conn = null;
+                    throw DbException.convert(e);
                 }
             } catch (DbException e) {
                 if (retry >= MAX_RETRY) {
@@ -121,14 +154,16 @@ public class TableLink extends Table {
         }
     }
 
-    private void readMetaData() throws SQLException {
-        DatabaseMetaData meta = conn.getConnection().getMetaData();
+    private void readMetaData(Connection c) throws SQLException {
+        DatabaseMetaData meta = c.getMetaData();
         storesLowerCase = meta.storesLowerCaseIdentifiers();
         storesMixedCase = meta.storesMixedCaseIdentifiers();
         storesMixedCaseQuoted = meta.storesMixedCaseQuotedIdentifiers();
         supportsMixedCaseIdentifiers = meta.supportsMixedCaseIdentifiers();
         identifierQuoteString = meta.getIdentifierQuoteString();
+        readDialect(meta);
         ArrayList<Column> columnList = Utils.newSmallArrayList();
+        ArrayList<String> remoteNames = Utils.newSmallArrayList();
         HashMap<String, Column> columnMap = new HashMap<>();
         String schema = null;
         boolean isQuery = originalTable.startsWith("(");
@@ -156,9 +191,11 @@ public class TableLink extends Table {
                         // use the alternative solution
                         columnMap.clear();
                         columnList.clear();
+                        remoteNames.clear();
                         break;
                     }
                     String n = rs.getString("COLUMN_NAME");
+                    remoteNames.add(n);
                     n = convertColumnName(n);
                     int sqlType = rs.getInt("DATA_TYPE");
                     String sqlTypeName = rs.getString("TYPE_NAME");
@@ -180,14 +217,16 @@ public class TableLink extends Table {
         }
         // check if the table is accessible
 
-        try (Statement stat = conn.getConnection().createStatement();
+        try (Statement stat = c.createStatement();
                 ResultSet rs = stat.executeQuery("SELECT * FROM " + qualifiedTableName + " T WHERE 1=0")) {
             if (rs instanceof JdbcResultSet) {
                 ResultInterface result = ((JdbcResultSet) rs).getResult();
                 columnList.clear();
                 columnMap.clear();
+                remoteNames.clear();
                 for (int i = 0, l = result.getVisibleColumnCount(); i < l;) {
                     String n = result.getColumnName(i);
+                    remoteNames.add(n);
                     Column col = new Column(n, result.getColumnType(i), this, ++i);
                     columnList.add(col);
                     columnMap.put(n, col);
@@ -197,6 +236,7 @@ public class TableLink extends Table {
                 ResultSetMetaData rsMeta = rs.getMetaData();
                 for (int i = 0, l = rsMeta.getColumnCount(); i < l;) {
                     String n = rsMeta.getColumnName(i + 1);
+                    remoteNames.add(n);
                     n = convertColumnName(n);
                     int sqlType = rsMeta.getColumnType(i + 1);
                     long precision = rsMeta.getPrecision(i + 1);
@@ -215,6 +255,7 @@ public class TableLink extends Table {
         }
         Column[] cols = columnList.toArray(new Column[0]);
         setColumns(cols);
+        remoteColumnNames = remoteNames.toArray(new String[0]);
         int id = getId();
         linkedIndex = new LinkedIndex(this, id, IndexColumn.wrap(cols), 0, IndexType.createNonUnique(false));
         indexes.add(linkedIndex);
@@ -345,6 +386,41 @@ public class TableLink extends Table {
         return scale;
     }
 
+    private void readDialect(DatabaseMetaData meta) throws SQLException {
+        if (meta.nullsAreSortedAtStart()) {
+            remoteNullOrdering = DefaultNullOrdering.FIRST;
+        } else if (meta.nullsAreSortedAtEnd()) {
+            remoteNullOrdering = DefaultNullOrdering.LAST;
+        } else if (meta.nullsAreSortedLow()) {
+            remoteNullOrdering = DefaultNullOrdering.LOW;
+        } else if (meta.nullsAreSortedHigh()) {
+            remoteNullOrdering = DefaultNullOrdering.HIGH;
+        } else {
+            remoteNullOrdering = null;
+        }
+        String product = StringUtils.toLowerEnglish(meta.getDatabaseProductName());
+        int majorVersion;
+        try {
+            majorVersion = meta.getDatabaseMajorVersion();
+        } catch (SQLException | AbstractMethodError e) {
+            majorVersion = 0;
+        }
+        supportsNullOrdering = product.startsWith("h2") || product.startsWith("postgresql")
+                || product.startsWith("oracle") || product.startsWith("hsql");
+        if (product.startsWith("h2") || product.startsWith("postgresql") || targetsMySql
+                || product.startsWith("mysql") || product.startsWith("mariadb") || product.startsWith("sqlite")
+                || product.startsWith("hsql")) {
+            offsetFetchSyntax = OFFSET_FETCH_LIMIT;
+        } else if (product.startsWith("oracle") && majorVersion >= 12
+                || product.startsWith("apache derby") && majorVersion >= 10) {
+            offsetFetchSyntax = OFFSET_FETCH_STANDARD;
+        } else if (product.startsWith("microsoft sql server") && majorVersion >= 11) {
+            offsetFetchSyntax = OFFSET_FETCH_STANDARD_SORTED;
+        } else {
+            offsetFetchSyntax = OFFSET_FETCH_NONE;
+        }
+    }
+
     private String convertColumnName(String columnName) {
         if(targetsMySql) {
             // MySQL column names are not case-sensitive on any platform
@@ -520,52 +596,44 @@ public class TableLink extends Table {
             throw connectException;
         }
         for (int retry = 0;; retry++) {
+            TableLinkConnection.PooledConnection c = conn.getConnection(session);
             try {
-                synchronized (conn) {
-                    PreparedStatement prep = preparedMap.remove(sql);
-                    if (prep == null) {
-                        prep = conn.getConnection().prepareStatement(sql);
-                        if (fetchSize != 0) {
-                            prep.setFetchSize(fetchSize);
-                        }
-                    }
-                    if (trace.isDebugEnabled()) {
-                        StringBuilder builder = new StringBuilder(getName()).append(":\n").append(sql);
-                        if (params != null && !params.isEmpty()) {
-                            builder.append(" {");
-                            for (int i = 0, l = params.size(); i < l;) {
-                                Value v = params.get(i);
-                                if (i > 0) {
-                                    builder.append(", ");
-                                }
-                                builder.append(++i).append(": ");
-                                v.getSQL(builder, DEFAULT_SQL_FLAGS);
-                            }
-                            builder.append('}');
-                        }
-                        builder.append(';');
-                        trace.debug(builder.toString());
-                    }
-                    if (params != null) {
-                        JdbcConnection ownConnection = session.createConnection(false);
-                        for (int i = 0, size = params.size(); i < size; i++) {
+                PreparedStatement prep = c.prepareStatement(sql, fetchSize);
+                if (trace.isDebugEnabled()) {
+                    StringBuilder builder = new StringBuilder(getName()).append(":\n").append(sql);
+                    if (params != null && !params.isEmpty()) {
+                        builder.append(" {");
+                        for (int i = 0, l = params.size(); i < l;) {
                             Value v = params.get(i);
-                            JdbcUtils.set(prep, i + 1, v, ownConnection);
+                            if (i > 0) {
+                                builder.append(", ");
+                            }
+                            builder.append(++i).append(": ");
+                            v.getSQL(builder, DEFAULT_SQL_FLAGS);
                         }
+                        builder.append('}');
                     }
-                    prep.execute();
-                    if (reusePrepared) {
-                        reusePreparedStatement(prep, sql);
-                        return null;
+                    builder.append(';');
+                    trace.debug(builder.toString());
+                }
+                if (params != null) {
+                    JdbcConnection ownConnection = session.createConnection(false);
+                    for (int i = 0, size = params.size(); i < size; i++) {
+                        Value v = params.get(i);
+                        JdbcUtils.set(prep, i + 1, v, ownConnection);
                     }
-                    return prep;
                 }
+                prep.execute();
+                if (reusePrepared) {
+                    reusePreparedStatement(prep, sql);
+                    return null;
+                }
+                return prep;
             } catch (SQLException e) {
+                conn.discardConnection(c);
                 if (retry >= MAX_RETRY) {
                     throw DbException.convert(e);
                 }
-                conn.close(true);
-                connect();
             }
         }
     }
@@ -602,7 +670,6 @@ public class TableLink extends Table {
         database.removeMeta(session, getId());
         driver = null;
         url = user = password = originalTable = null;
-        preparedMap = null;
         invalidate();
     }
 
@@ -662,8 +729,11 @@ public class TableLink extends Table {
      * @param sql the SQL statement
      */
     public void reusePreparedStatement(PreparedStatement prep, String sql) {
-        synchronized (conn) {
-            preparedMap.put(sql, prep);
+        TableLinkConnection c = conn;
+        if (c != null) {
+            c.reuseStatement(prep, sql);
+        } else {
+            JdbcUtils.closeSilently(prep);
         }
     }
 
@@ -741,6 +811,146 @@ public class TableLink extends Table {
         return fetchSize;
     }
 
+    /**
+     * Returns the pool of connections to the target database.
+     *
+     * @return the pool of connections
+     */
+    public TableLinkConnection getLinkConnection() {
+        if (conn == null) {
+            throw connectException;
+        }
+        return conn;
+    }
+
+    /**
+     * Returns the column of the single-column primary key of the target table
+     * if it has an integer data type. Ranges of values of this column may be
+     * read in parallel.
+     *
+     * @return the column, or {@code null}
+     */
+    public Column getPartitionColumn() {
+        for (Index index : indexes) {
+            if (index.getIndexType().isPrimaryKey()) {
+                Column[] columns = index.getColumns();
+                if (columns.length == 1 && columns[0] != null) {
+                    switch (columns[0].getType().getValueType()) {
+                    case Value.TINYINT:
+                    case Value.SMALLINT:
+                    case Value.INTEGER:
+                    case Value.BIGINT:
+                        return columns[0];
+                    }
+                }
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Append the name of the specified column as it is known in the target
+     * database, quoted if the target database supports quoted identifiers.
+     *
+     * @param builder the string builder
+     * @param column the column of this table
+     * @return the specified string builder
+     */
+    public StringBuilder appendRemoteColumnName(StringBuilder builder, Column column) {
+        int id = column.getColumnId();
+        String name = id < remoteColumnNames.length ? remoteColumnNames[id] : column.getName();
+        if (identifierQuoteString == null || identifierQuoteString.isEmpty() || identifierQuoteString.equals(" ")) {
+            builder.append(name);
+        } else if (identifierQuoteString.equals("\"")) {
+            /*
+             * StringUtils.quoteIdentifier() can produce Unicode identifiers,
+             * but target DBMS isn't required to support them
+             */
+            builder.append('"');
+            int i = name.indexOf('"');
+            if (i < 0) {
+                builder.append(name);
+            } else {
+                builder.append(name, 0, ++i).append('"');
+                for (int l = name.length(); i < l; i++) {
+                    char c = name.charAt(i);
+                    if (c == '"') {
+                        builder.append('"');
+                    }
+                    builder.append(c);
+                }
+            }
+            builder.append('"');
+        } else {
+            builder.append(identifierQuoteString).append(name).append(identifierQuoteString);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the default ordering of NULL values in the target database.
+     *
+     * @return the default ordering of NULL values, or {@code null} if unknown
+     */
+    public DefaultNullOrdering getRemoteNullOrdering() {
+        return remoteNullOrdering;
+    }
+
+    /**
+     * Returns whether the target database supports NULLS FIRST and NULLS LAST
+     * clauses in the ORDER BY clause.
+     *
+     * @return whether NULLS FIRST and NULLS LAST are supported
+     */
+    public boolean supportsNullOrdering() {
+        return supportsNullOrdering;
+    }
+
+    /**
+     * Append the OFFSET and FETCH clauses in the syntax of the target
+     * database, if it is known.
+     *
+     * @param builder the string builder
+     * @param params the list of parameters to add values to
+     * @param offset the number of rows to skip
+     * @param fetch the maximum number of rows to return, or -1
+     * @param sorted whether the query has the ORDER BY clause
+     * @return whether the clauses were appended
+     */
+    public boolean appendOffsetFetch(StringBuilder builder, ArrayList<Value> params, long offset, long fetch,
+            boolean sorted) {
+        switch (offsetFetchSyntax) {
+        case OFFSET_FETCH_LIMIT:
+            if (fetch < 0) {
+                // MySQL and SQLite don't allow OFFSET without LIMIT
+                return false;
+            }
+            builder.append(" LIMIT ?");
+            params.add(ValueBigint.get(fetch));
+            if (offset > 0) {
+                builder.append(" OFFSET ?");
+                params.add(ValueBigint.get(offset));
+            }
+            return true;
+        case OFFSET_FETCH_STANDARD_SORTED:
+            if (!sorted) {
+                return false;
+            }
+            //$FALL-THROUGH$
+        case OFFSET_FETCH_STANDARD:
+            builder.append(" OFFSET ? ROWS");
+            params.add(ValueBigint.get(offset));
+            if (fetch >= 0) {
+                builder.append(" FETCH NEXT ? ROWS ONLY");
+                params.add(ValueBigint.get(fetch));
+            }
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * Returns the identifier quote string or space.
      *
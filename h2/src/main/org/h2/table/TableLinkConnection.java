@@ -6,15 +6,30 @@
 package org.h2.table;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Objects;
+
+import org.h2.api.ErrorCode;
+import org.h2.engine.Constants;
+import org.h2.engine.SessionLocal;
 import org.h2.message.DbException;
 import org.h2.util.JdbcUtils;
 
 /**
- * A connection for a linked table. The same connection may be used for multiple
- * tables, that means a connection may be shared.
+ * A pool of connections for linked tables. The same pool may be used for
+ * multiple tables, that means connections may be shared.
+ * <p>
+ * A session uses one connection of the pool until the end of its statement,
+ * or until the end of its transaction if results of the statement are still
+ * open. Sessions wait for a connection if the maximum number of connections is
+ * reached. Additional connections for parallel scans are taken only if they
+ * are available without waiting.
+ * </p>
  */
 public class TableLinkConnection {
 
@@ -29,9 +44,35 @@ public class TableLinkConnection {
     private final String driver, url, user, password;
 
     /**
-     * The database connection.
+     * The maximum number of open connections.
+     */
+    private final int maxConnections;
+
+    /**
+     * The connections that are not used.
+     */
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+
+    /**
+     * The connections that are used by sessions.
+     */
+    private final ArrayList<PooledConnection> leased = new ArrayList<>();
+
+    /**
+     * All open connections.
+     */
+    private final IdentityHashMap<Connection, PooledConnection> connections = new IdentityHashMap<>();
+
+    /**
+     * The number of open connections, including connections that are being
+     * opened.
      */
-    private Connection conn;
+    private int size;
+
+    /**
+     * Whether the pool is closed.
+     */
+    private boolean closed;
 
     /**
      * How many times the connection is used.
@@ -39,14 +80,101 @@ public class TableLinkConnection {
     private int useCounter;
     private boolean autocommit =true;
 
+    /**
+     * A connection of the pool with its prepared statements.
+     */
+    public static final class PooledConnection {
+
+        private final Connection conn;
+
+        private final HashMap<String, PreparedStatement> preparedMap = new HashMap<>();
+
+        /**
+         * The session that uses this connection, or {@code null}.
+         */
+        SessionLocal owner;
+
+        /**
+         * Whether this connection is used by its owner for statements that
+         * are executed in the thread of the session.
+         */
+        boolean primary;
+
+        /**
+         * The number of statements that were prepared and not yet returned
+         * for reuse, guarded by the map of prepared statements.
+         */
+        int openStatements;
+
+        private volatile boolean canceled;
+
+        PooledConnection(Connection conn) {
+            this.conn = conn;
+        }
+
+        /**
+         * Get the JDBC connection.
+         *
+         * @return the connection
+         */
+        public Connection getConnection() {
+            return conn;
+        }
+
+        /**
+         * Get a prepared statement for the specified SQL statement, either a
+         * statement that was returned for reuse, or a new one. The statement
+         * needs to be returned with
+         * {@link TableLinkConnection#reuseStatement(PreparedStatement, String)}.
+         *
+         * @param sql the SQL statement
+         * @param fetchSize the fetch size of new statements, or 0
+         * @return the prepared statement
+         * @throws SQLException on failure
+         */
+        public PreparedStatement prepareStatement(String sql, int fetchSize) throws SQLException {
+            PreparedStatement prep;
+            synchronized (preparedMap) {
+                prep = preparedMap.remove(sql);
+                openStatements++;
+            }
+            if (prep == null) {
+                prep = conn.prepareStatement(sql);
+                if (fetchSize != 0) {
+                    prep.setFetchSize(fetchSize);
+                }
+            }
+            return prep;
+        }
+
+        int getOpenStatements() {
+            synchronized (preparedMap) {
+                return openStatements;
+            }
+        }
+
+        /**
+         * Returns whether the owner of this additional connection has ended
+         * its transaction and the scan that uses this connection should be
+         * stopped.
+         *
+         * @return whether the scan should be stopped
+         */
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+    }
+
     private TableLinkConnection(
             HashMap<TableLinkConnection, TableLinkConnection> map,
-            String driver, String url, String user, String password) {
+            String driver, String url, String user, String password, int maxConnections) {
         this.map = map;
         this.driver = driver;
         this.url = url;
         this.user = user;
         this.password = password;
+        this.maxConnections = Math.max(1, maxConnections);
     }
 
     /**
@@ -59,14 +187,15 @@ public class TableLinkConnection {
      * @param user the user name
      * @param password the password
      * @param shareLinkedConnections if connections should be shared
+     * @param maxConnections the maximum number of open connections
      * @return a connection
      */
     public static TableLinkConnection open(
             HashMap<TableLinkConnection, TableLinkConnection> map,
             String driver, String url, String user, String password,
-            boolean shareLinkedConnections) {
+            boolean shareLinkedConnections, int maxConnections) {
         TableLinkConnection t = new TableLinkConnection(map, driver, url,
-                user, password);
+                user, password, maxConnections);
         if (!shareLinkedConnections) {
             t.open();
             return t;
@@ -86,8 +215,20 @@ public class TableLinkConnection {
     }
 
     private void open() {
+        PooledConnection c = openConnection();
+        synchronized (this) {
+            size++;
+            idle.push(c);
+        }
+    }
+
+    private PooledConnection openConnection() {
         try {
-            conn = JdbcUtils.getConnection(driver, url, user, password);
+            PooledConnection c = new PooledConnection(JdbcUtils.getConnection(driver, url, user, password));
+            synchronized (this) {
+                connections.put(c.conn, c);
+            }
+            return c;
         } catch (SQLException e) {
             throw DbException.convert(e);
         }
@@ -114,32 +255,245 @@ public class TableLinkConnection {
     }
 
     /**
-     * Get the connection.
-     * This method and methods on the statement must be
-     * synchronized on this object.
+     * Get the connection used by the specified session, waiting for a free
+     * connection if required. The connection is returned to the pool at the
+     * end of the statement or the transaction of the session. If the session
+     * is {@code null}, the connection needs to be returned with
+     * {@link #releaseConnection(PooledConnection)}.
      *
+     * @param session the session, or {@code null}
      * @return the connection
      */
-    Connection getConnection() {
-        return conn;
+    PooledConnection getConnection(SessionLocal session) {
+        synchronized (this) {
+            if (session != null) {
+                for (PooledConnection c : leased) {
+                    if (c.owner == session && c.primary) {
+                        return c;
+                    }
+                }
+            }
+        }
+        long timeout = session != null ? session.getLockTimeout() : Constants.INITIAL_LOCK_TIMEOUT;
+        return take(session, timeout, true);
+    }
+
+    /**
+     * Get an additional connection for the specified session if a connection
+     * is available without waiting. The connection needs to be returned with
+     * {@link #releaseConnection(PooledConnection)}, it is canceled at the end
+     * of the transaction of the session.
+     *
+     * @param session the session
+     * @return the connection, or {@code null}
+     */
+    public PooledConnection tryGetConnection(SessionLocal session) {
+        return take(session, -1L, false);
+    }
+
+    /**
+     * Take a connection from the pool.
+     *
+     * @param session the session, or {@code null}
+     * @param timeout the maximum time to wait in milliseconds, or -1 to
+     *            return {@code null} if no connection is available
+     * @param primary whether the connection is used in the thread of the
+     *            session
+     * @return the connection, or {@code null}
+     */
+    private PooledConnection take(SessionLocal session, long timeout, boolean primary) {
+        PooledConnection c;
+        synchronized (this) {
+            long deadline = System.nanoTime() + timeout * 1_000_000L;
+            while (true) {
+                if (closed) {
+                    if (timeout < 0L) {
+                        return null;
+                    }
+                    throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, url);
+                }
+                c = idle.poll();
+                if (c != null) {
+                    break;
+                }
+                if (size < maxConnections) {
+                    // reserve the connection, it is opened without the lock
+                    size++;
+                    break;
+                }
+                if (timeout < 0L) {
+                    return null;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    throw DbException.get(ErrorCode.LOCK_TIMEOUT_1, "linked connection " + url);
+                }
+                try {
+                    wait(Math.max(1L, remaining / 1_000_000L));
+                } catch (InterruptedException e) {
+                    throw DbException.convert(e);
+                }
+            }
+        }
+        if (c == null) {
+            try {
+                c = openConnection();
+            } catch (DbException e) {
+                synchronized (this) {
+                    size--;
+                    notifyAll();
+                }
+                if (timeout < 0L) {
+                    return null;
+                }
+                throw e;
+            }
+        }
+        if (session != null) {
+            synchronized (this) {
+                c.owner = session;
+                c.primary = primary;
+                leased.add(c);
+            }
+            session.addLinkConnection(this);
+        }
+        return c;
+    }
+
+    /**
+     * Return a prepared statement for reuse.
+     *
+     * @param prep the prepared statement
+     * @param sql the SQL statement
+     */
+    public void reuseStatement(PreparedStatement prep, String sql) {
+        PooledConnection c;
+        try {
+            Connection conn = prep.getConnection();
+            synchronized (this) {
+                c = connections.get(conn);
+            }
+        } catch (SQLException e) {
+            c = null;
+        }
+        if (c == null) {
+            // the connection was closed
+            JdbcUtils.closeSilently(prep);
+            return;
+        }
+        synchronized (c.preparedMap) {
+            PreparedStatement old = c.preparedMap.put(sql, prep);
+            if (old != null && old != prep) {
+                JdbcUtils.closeSilently(old);
+            }
+            if (c.openStatements > 0) {
+                c.openStatements--;
+            }
+        }
+    }
+
+    /**
+     * Return a connection to the pool.
+     *
+     * @param c the connection
+     */
+    public synchronized void releaseConnection(PooledConnection c) {
+        leased.remove(c);
+        returnConnection(c);
     }
 
     /**
-     * Closes the connection if this is the last link to it.
+     * Close a connection that is broken and remove it from the pool.
      *
-     * @param force if the connection needs to be closed even if it is still
-     *            used elsewhere (for example, because the connection is broken)
+     * @param c the connection
+     */
+    public void discardConnection(PooledConnection c) {
+        synchronized (this) {
+            leased.remove(c);
+            connections.remove(c.conn);
+            size--;
+            notifyAll();
+        }
+        JdbcUtils.closeSilently(c.conn);
+    }
+
+    /**
+     * Return the connections of the specified session to the pool.
+     *
+     * @param session the session
+     * @param transactionEnd {@code true} at the end of a transaction,
+     *            {@code false} at the end of a statement, when connections
+     *            with open results are not returned
+     * @return whether the session still uses connections of this pool
+     */
+    public synchronized boolean release(SessionLocal session, boolean transactionEnd) {
+        boolean used = false;
+        for (int i = leased.size() - 1; i >= 0; i--) {
+            PooledConnection c = leased.get(i);
+            if (c.owner != session) {
+                continue;
+            }
+            if (!c.primary) {
+                if (transactionEnd) {
+                    // the scan returns the connection when it is stopped
+                    c.canceled = true;
+                } else {
+                    used = true;
+                }
+            } else if (transactionEnd || c.getOpenStatements() == 0) {
+                leased.remove(i);
+                returnConnection(c);
+            } else {
+                used = true;
+            }
+        }
+        return used;
+    }
+
+    private void returnConnection(PooledConnection c) {
+        c.owner = null;
+        c.primary = false;
+        c.canceled = false;
+        synchronized (c.preparedMap) {
+            c.openStatements = 0;
+        }
+        if (closed) {
+            connections.remove(c.conn);
+            size--;
+            JdbcUtils.closeSilently(c.conn);
+        } else {
+            idle.push(c);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Closes the connections if this is the last link to them.
+     *
+     * @param force if the connections need to be closed even if they are
+     *            still used elsewhere (for example, because a connection is
+     *            broken)
      */
     void close(boolean force) {
-        boolean actuallyClose = false;
         synchronized (map) {
-            if (--useCounter <= 0 || force) {
-                actuallyClose = true;
-                map.remove(this);
+            if (--useCounter > 0 && !force) {
+                return;
+            }
+            map.remove(this);
+        }
+        ArrayList<PooledConnection> list;
+        synchronized (this) {
+            closed = true;
+            list = new ArrayList<>(idle);
+            idle.clear();
+            for (PooledConnection c : list) {
+                connections.remove(c.conn);
+                size--;
             }
+            notifyAll();
         }
-        if (actuallyClose) {
-            JdbcUtils.closeSilently(conn);
+        for (PooledConnection c : list) {
+            JdbcUtils.closeSilently(c.conn);
         }
     }
 
@@ -31,6 +31,11 @@ public interface HasSQL {
      */
     int ADD_PLAN_INFORMATION = 8;
 
+    /**
+     * Don't add schema names and table aliases to column references.
+     */
+    int NO_COLUMN_QUALIFIERS = 16;
+
     /**
      * Default flags.
      */
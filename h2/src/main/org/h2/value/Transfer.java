@@ -7,6 +7,8 @@ package org.h2.value;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -14,6 +16,7 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -28,6 +31,7 @@ import org.h2.message.DbException;
 import org.h2.security.SHA256;
 import org.h2.store.Data;
 import org.h2.store.DataReader;
+import org.h2.tools.CompressTool;
 import org.h2.util.Bits;
 import org.h2.util.DateTimeUtils;
 import org.h2.util.IOUtils;
@@ -146,6 +150,13 @@ public final class Transfer {
     private boolean ssl;
     private int version;
     private byte[] lobMacSalt;
+    private String compression;
+    private CompressTool compressTool;
+    private ByteArrayOutputStream frameBuffer;
+    private DataOutputStream frameTarget;
+    private DataInputStream frameSource;
+    private byte[] rowBitmaps;
+    private byte[] stringBuffer;
 
     /**
      * Create a new transfer object for the specified session.
@@ -182,6 +193,18 @@ public final class Transfer {
         out.flush();
     }
 
+    /**
+     * Write pending changes unless the next request was already received.
+     * This allows to send responses to pipelined requests together.
+     *
+     * @throws IOException on failure
+     */
+    public void flushIfIdle() throws IOException {
+        if (in.available() == 0) {
+            out.flush();
+        }
+    }
+
     /**
      * Write a boolean.
      *
@@ -1187,19 +1210,8 @@ public final class Transfer {
         case JSON:
             // Do not trust the value
             return ValueJson.fromJson(readBytes());
-        case DECFLOAT: {
-            String s = readString();
-            switch (s) {
-            case "-Infinity":
-                return ValueDecfloat.NEGATIVE_INFINITY;
-            case "Infinity":
-                return ValueDecfloat.POSITIVE_INFINITY;
-            case "NaN":
-                return ValueDecfloat.NAN;
-            default:
-                return ValueDecfloat.get(new BigDecimal(s));
-            }
-        }
+        case DECFLOAT:
+            return readDecfloat(readString());
         default:
             throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, "type=" + type);
         }
@@ -1235,6 +1247,432 @@ public final class Transfer {
                 : writeInt(rowCount < Integer.MAX_VALUE ? (int) rowCount : Integer.MAX_VALUE);
     }
 
+    /**
+     * Write a row of a result. Since the protocol version 21 values of
+     * columns with fixed data types are written without type tags and NULL
+     * values are written only as bits in a bitmap.
+     *
+     * @param values the values
+     * @param columnTypes the data types of the columns
+     * @throws IOException on failure
+     */
+    public void writeRow(Value[] values, TypeInfo[] columnTypes) throws IOException {
+        int columnCount = columnTypes.length;
+        if (version < Constants.TCP_PROTOCOL_VERSION_21) {
+            writeByte((byte) 1);
+            for (int i = 0; i < columnCount; i++) {
+                writeValue(values[i]);
+            }
+            return;
+        }
+        int bitmapLength = (columnCount + 7) >>> 3;
+        byte[] bitmaps = rowBitmaps;
+        if (bitmaps == null || bitmaps.length < bitmapLength << 1) {
+            rowBitmaps = bitmaps = new byte[bitmapLength << 1];
+        } else {
+            Arrays.fill(bitmaps, 0, bitmapLength << 1, (byte) 0);
+        }
+        boolean tagged = false;
+        for (int i = 0; i < columnCount; i++) {
+            int type = values[i].getValueType();
+            if (type == Value.NULL) {
+                bitmaps[i >>> 3] |= 1 << (i & 7);
+            } else {
+                int columnType = columnTypes[i].getValueType();
+                if (type != columnType && isCompact(columnType)) {
+                    // Value of unexpected data type needs a type tag
+                    bitmaps[bitmapLength + (i >>> 3)] |= 1 << (i & 7);
+                    tagged = true;
+                }
+            }
+        }
+        out.writeByte(tagged ? 2 : 1);
+        out.write(bitmaps, 0, tagged ? bitmapLength << 1 : bitmapLength);
+        for (int i = 0; i < columnCount; i++) {
+            int bit = 1 << (i & 7);
+            if ((bitmaps[i >>> 3] & bit) == 0) {
+                Value v = values[i];
+                if ((bitmaps[bitmapLength + (i >>> 3)] & bit) == 0 && isCompact(columnTypes[i].getValueType())) {
+                    writeCompactValue(v);
+                } else {
+                    writeValue(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a row of a result written with {@link #writeRow(Value[], TypeInfo[])}.
+     *
+     * @param marker the already read row marker
+     * @param columnTypes the data types of the columns
+     * @return the values
+     * @throws IOException on failure
+     */
+    public Value[] readRow(int marker, TypeInfo[] columnTypes) throws IOException {
+        int columnCount = columnTypes.length;
+        Value[] values = new Value[columnCount];
+        if (version < Constants.TCP_PROTOCOL_VERSION_21) {
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = readValue(columnTypes[i]);
+            }
+            return values;
+        }
+        int bitmapLength = (columnCount + 7) >>> 3;
+        byte[] bitmaps = new byte[bitmapLength << 1];
+        in.readFully(bitmaps, 0, marker == 2 ? bitmapLength << 1 : bitmapLength);
+        for (int i = 0; i < columnCount; i++) {
+            int bit = 1 << (i & 7);
+            TypeInfo columnType = columnTypes[i];
+            if ((bitmaps[i >>> 3] & bit) != 0) {
+                values[i] = ValueNull.INSTANCE;
+            } else if ((bitmaps[bitmapLength + (i >>> 3)] & bit) == 0 && isCompact(columnType.getValueType())) {
+                values[i] = readCompactValue(columnType);
+            } else {
+                values[i] = readValue(columnType);
+            }
+        }
+        return values;
+    }
+
+    private static boolean isCompact(int valueType) {
+        switch (valueType) {
+        case Value.BOOLEAN:
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+        case Value.REAL:
+        case Value.DOUBLE:
+        case Value.NUMERIC:
+        case Value.DECFLOAT:
+        case Value.DATE:
+        case Value.TIME:
+        case Value.TIME_TZ:
+        case Value.TIMESTAMP:
+        case Value.TIMESTAMP_TZ:
+        case Value.CHAR:
+        case Value.VARCHAR:
+        case Value.VARCHAR_IGNORECASE:
+        case Value.BINARY:
+        case Value.VARBINARY:
+        case Value.JAVA_OBJECT:
+        case Value.GEOMETRY:
+        case Value.JSON:
+        case Value.UUID:
+        case Value.ENUM:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private void writeCompactValue(Value v) throws IOException {
+        switch (v.getValueType()) {
+        case Value.BOOLEAN:
+            out.writeBoolean(v.getBoolean());
+            break;
+        case Value.TINYINT:
+            out.writeByte(v.getByte());
+            break;
+        case Value.SMALLINT:
+            out.writeShort(v.getShort());
+            break;
+        case Value.INTEGER:
+        case Value.ENUM:
+            out.writeInt(v.getInt());
+            break;
+        case Value.BIGINT:
+            out.writeLong(v.getLong());
+            break;
+        case Value.REAL:
+            out.writeFloat(v.getFloat());
+            break;
+        case Value.DOUBLE:
+            out.writeDouble(v.getDouble());
+            break;
+        case Value.DATE:
+            out.writeLong(((ValueDate) v).getDateValue());
+            break;
+        case Value.TIME:
+            out.writeLong(((ValueTime) v).getNanos());
+            break;
+        case Value.TIME_TZ: {
+            ValueTimeTimeZone t = (ValueTimeTimeZone) v;
+            out.writeLong(t.getNanos());
+            out.writeInt(t.getTimeZoneOffsetSeconds());
+            break;
+        }
+        case Value.TIMESTAMP: {
+            ValueTimestamp ts = (ValueTimestamp) v;
+            out.writeLong(ts.getDateValue());
+            out.writeLong(ts.getTimeNanos());
+            break;
+        }
+        case Value.TIMESTAMP_TZ: {
+            ValueTimestampTimeZone ts = (ValueTimestampTimeZone) v;
+            out.writeLong(ts.getDateValue());
+            out.writeLong(ts.getTimeNanos());
+            out.writeInt(ts.getTimeZoneOffsetSeconds());
+            break;
+        }
+        case Value.UUID: {
+            ValueUuid uuid = (ValueUuid) v;
+            out.writeLong(uuid.getHigh());
+            out.writeLong(uuid.getLow());
+            break;
+        }
+        case Value.NUMERIC:
+        case Value.DECFLOAT:
+        case Value.CHAR:
+        case Value.VARCHAR:
+        case Value.VARCHAR_IGNORECASE:
+            writeCompactString(v.getString());
+            break;
+        default: {
+            byte[] b = v.getBytesNoCopy();
+            out.writeInt(b.length);
+            out.write(b);
+        }
+        }
+    }
+
+    private Value readCompactValue(TypeInfo columnType) throws IOException {
+        switch (columnType.getValueType()) {
+        case Value.BOOLEAN:
+            return ValueBoolean.get(in.readBoolean());
+        case Value.TINYINT:
+            return ValueTinyint.get(in.readByte());
+        case Value.SMALLINT:
+            return ValueSmallint.get(in.readShort());
+        case Value.INTEGER:
+            return ValueInteger.get(in.readInt());
+        case Value.ENUM:
+            return ((ExtTypeInfoEnum) columnType.getExtTypeInfo()).getValue(in.readInt(), session);
+        case Value.BIGINT:
+            return ValueBigint.get(in.readLong());
+        case Value.REAL:
+            return ValueReal.get(in.readFloat());
+        case Value.DOUBLE:
+            return ValueDouble.get(in.readDouble());
+        case Value.DATE:
+            return ValueDate.fromDateValue(in.readLong());
+        case Value.TIME:
+            return ValueTime.fromNanos(in.readLong());
+        case Value.TIME_TZ:
+            return ValueTimeTimeZone.fromNanos(in.readLong(), in.readInt());
+        case Value.TIMESTAMP:
+            return ValueTimestamp.fromDateValueAndNanos(in.readLong(), in.readLong());
+        case Value.TIMESTAMP_TZ: {
+            long dateValue = in.readLong(), timeNanos = in.readLong();
+            return ValueTimestampTimeZone.fromDateValueAndNanos(dateValue, timeNanos, in.readInt());
+        }
+        case Value.UUID:
+            return ValueUuid.get(in.readLong(), in.readLong());
+        case Value.NUMERIC:
+            return ValueNumeric.get(new BigDecimal(readCompactString()));
+        case Value.DECFLOAT:
+            return readDecfloat(readCompactString());
+        case Value.CHAR:
+            return ValueChar.get(readCompactString());
+        case Value.VARCHAR:
+            return ValueVarchar.get(readCompactString());
+        case Value.VARCHAR_IGNORECASE:
+            return ValueVarcharIgnoreCase.get(readCompactString());
+        case Value.BINARY:
+            return ValueBinary.getNoCopy(readCompactBytes());
+        case Value.VARBINARY:
+            return ValueVarbinary.getNoCopy(readCompactBytes());
+        case Value.JAVA_OBJECT:
+            return ValueJavaObject.getNoCopy(readCompactBytes());
+        case Value.GEOMETRY:
+            return ValueGeometry.get(readCompactBytes());
+        case Value.JSON:
+            // Do not trust the value
+            return ValueJson.fromJson(readCompactBytes());
+        default:
+            throw DbException.get(ErrorCode.CONNECTION_BROKEN_1, "type=" + columnType.getValueType());
+        }
+    }
+
+    private byte[] readCompactBytes() throws IOException {
+        byte[] b = Utils.newBytes(in.readInt());
+        in.readFully(b);
+        return b;
+    }
+
+    /**
+     * Write a string as the number of characters followed by its characters
+     * in the same variable-length encoding as used by the MVStore, one to
+     * three bytes per character.
+     */
+    private void writeCompactString(String s) throws IOException {
+        int len = s.length();
+        byte[] buff = stringBuffer;
+        if (buff == null || buff.length < len * 3) {
+            stringBuffer = buff = new byte[Math.max(len * 3, 64)];
+        }
+        int pos = 0;
+        for (int i = 0; i < len; i++) {
+            int c = s.charAt(i);
+            if (c < 0x80) {
+                buff[pos++] = (byte) c;
+            } else if (c >= 0x800) {
+                buff[pos++] = (byte) (0xe0 | (c >> 12));
+                buff[pos++] = (byte) ((c >> 6) & 0x3f);
+                buff[pos++] = (byte) (c & 0x3f);
+            } else {
+                buff[pos++] = (byte) (0xc0 | (c >> 6));
+                buff[pos++] = (byte) (c & 0x3f);
+            }
+        }
+        out.writeInt(len);
+        out.write(buff, 0, pos);
+    }
+
+    private String readCompactString() throws IOException {
+        int len = in.readInt();
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            int x = in.readUnsignedByte();
+            if (x < 0x80) {
+                chars[i] = (char) x;
+            } else if (x >= 0xe0) {
+                chars[i] = (char) (((x & 0xf) << 12) + ((in.readUnsignedByte() & 0x3f) << 6)
+                        + (in.readUnsignedByte() & 0x3f));
+            } else {
+                chars[i] = (char) (((x & 0x1f) << 6) + (in.readUnsignedByte() & 0x3f));
+            }
+        }
+        return new String(chars);
+    }
+
+    private static Value readDecfloat(String s) {
+        switch (s) {
+        case "-Infinity":
+            return ValueDecfloat.NEGATIVE_INFINITY;
+        case "Infinity":
+            return ValueDecfloat.POSITIVE_INFINITY;
+        case "NaN":
+            return ValueDecfloat.NAN;
+        default:
+            return ValueDecfloat.get(new BigDecimal(s));
+        }
+    }
+
+    /**
+     * Start a frame of data to be sent. If compression is enabled, the data
+     * written until {@link #endFrame()} is buffered and sent as one
+     * compressed block, otherwise this method does nothing.
+     */
+    public void beginFrame() {
+        if (compression != null && frameTarget == null) {
+            if (frameBuffer == null) {
+                frameBuffer = new ByteArrayOutputStream(BUFFER_SIZE);
+            } else {
+                frameBuffer.reset();
+            }
+            frameTarget = out;
+            out = new DataOutputStream(frameBuffer);
+        }
+    }
+
+    /**
+     * Finish the current frame and write its data in compressed form.
+     *
+     * @throws IOException on failure
+     */
+    public void endFrame() throws IOException {
+        DataOutputStream target = frameTarget;
+        if (target != null) {
+            out.flush();
+            out = target;
+            frameTarget = null;
+            writeBytes(getCompressTool().compress(frameBuffer.toByteArray(), compression));
+            if (frameBuffer.size() > BUFFER_SIZE * 4) {
+                // Don't keep large buffers
+                frameBuffer = null;
+            }
+        }
+    }
+
+    /**
+     * Start reading a frame written with {@link #beginFrame()} and
+     * {@link #endFrame()}.
+     *
+     * @throws IOException on failure
+     */
+    public void beginReadFrame() throws IOException {
+        if (compression != null && frameSource == null) {
+            byte[] data = getCompressTool().expand(readBytes());
+            frameSource = in;
+            in = new DataInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    /**
+     * Finish reading of the current frame.
+     */
+    public void endReadFrame() {
+        DataInputStream source = frameSource;
+        if (source != null) {
+            in = source;
+            frameSource = null;
+        }
+    }
+
+    private CompressTool getCompressTool() {
+        CompressTool tool = compressTool;
+        if (tool == null) {
+            compressTool = tool = CompressTool.getInstance();
+        }
+        return tool;
+    }
+
+    /**
+     * Set the compression algorithm for frames of rows.
+     *
+     * @param compression the compression algorithm ("NO", "LZF", or
+     *            "DEFLATE"), or {@code null} to disable compression
+     * @throws DbException if the algorithm is not supported
+     */
+    public void setCompression(String compression) {
+        this.compression = normalizeCompression(compression);
+    }
+
+    /**
+     * Validates the name of the compression algorithm for frames of rows.
+     *
+     * @param compression the compression algorithm ("NO", "LZF", or
+     *            "DEFLATE"), or {@code null}
+     * @return the algorithm name in upper case, or {@code null} if data
+     *         should not be compressed
+     * @throws DbException if the algorithm is not supported
+     */
+    public static String normalizeCompression(String compression) {
+        if (compression == null) {
+            return null;
+        }
+        switch (compression = StringUtils.toUpperEnglish(compression)) {
+        case "NO":
+            return null;
+        case "LZF":
+        case "DEFLATE":
+            return compression;
+        default:
+            throw DbException.get(ErrorCode.UNSUPPORTED_COMPRESSION_ALGORITHM_1, compression);
+        }
+    }
+
+    /**
+     * Returns the compression algorithm for frames of rows.
+     *
+     * @return the compression algorithm, or {@code null}
+     */
+    public String getCompression() {
+        return compression;
+    }
+
     /**
      * Get the socket.
      *
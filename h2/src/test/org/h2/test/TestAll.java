@@ -138,6 +138,7 @@ import org.h2.test.store.TestMVRTree;
 import org.h2.test.store.TestMVStore;
 import org.h2.test.store.TestMVStoreBenchmark;
 import org.h2.test.store.TestMVStoreConcurrent;
+import org.h2.test.store.TestMVStoreReplication;
 import org.h2.test.store.TestMVStoreStopCompact;
 import org.h2.test.store.TestMVStoreTool;
 import org.h2.test.store.TestMVTableEngine;
@@ -911,6 +912,7 @@ kill -9 `jps -l | grep "org.h2.test." | cut -d " " -f 1`
         addTest(new TestMVRTree());
         addTest(new TestMVStore());
         addTest(new TestMVStoreBenchmark());
+        addTest(new TestMVStoreReplication());
         addTest(new TestMVStoreStopCompact());
         addTest(new TestMVStoreTool());
         addTest(new TestObjectDataType());
@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.api.DatabaseEventListener;
 import org.h2.api.ErrorCode;
 import org.h2.command.query.Select;
 import org.h2.test.TestBase;
@@ -47,6 +48,9 @@ public class TestIndex extends TestDb {
     public void test() throws SQLException {
         deleteDb("index");
         testOrderIndex();
+        testIndexScanRowBatches();
+        testParallelIndexBuild();
+        testConcurrentIndexBuild();
         testIndexTypes();
         testHashIndexOnMemoryTable();
         testErrorMessage();
@@ -128,6 +132,210 @@ public class TestIndex extends TestDb {
         deleteDb("index");
     }
 
+    private void testIndexScanRowBatches() throws SQLException {
+        Connection conn = getConnection("index");
+        stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, v int, name varchar)");
+        stat.execute("insert into test select x, mod(x * 7919, 3001), 'n' || x from system_range(1, 3000)");
+        stat.execute("create index idx_v on test(v)");
+        // rows of batches are fetched in order of primary keys,
+        // but returned in order of the index
+        ResultSet rs = stat.executeQuery("select v, name, id from test where v > 100 order by v");
+        int count = 0, last = 100;
+        while (rs.next()) {
+            int v = rs.getInt(1);
+            assertTrue(v > last);
+            assertEquals("n" + rs.getInt(3), rs.getString(2));
+            last = v;
+            count++;
+        }
+        assertEquals(2900, count);
+        rs = stat.executeQuery("select name from test where v between 10 and 20 order by v limit 3");
+        for (String name : new String[] { "n1877", "n2965", "n1052" }) {
+            assertTrue(rs.next());
+            assertEquals(name, rs.getString(1));
+        }
+        assertFalse(rs.next());
+        conn.close();
+        deleteDb("index");
+    }
+
+    private void testParallelIndexBuild() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        Connection conn = getConnection("index;CREATE_INDEX_PARALLELISM=4;DATABASE_EVENT_LISTENER='"
+                + IndexBuildListener.class.getName() + "'");
+        stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, v int, name varchar)");
+        stat.execute("insert into test select x, mod(x * 7919, 100003), 'n' || x from system_range(1, 200000)");
+        stat.execute("set max_memory_rows 20000");
+        Connection conn2 = getConnection("index");
+        IndexBuildListener.conn = conn2;
+        try {
+            stat.execute("create index idx_v on test(v)");
+        } finally {
+            IndexBuildListener.conn = null;
+            conn2.close();
+        }
+        assertEquals("SCANNING 2 200000 true", IndexBuildListener.result);
+        ResultSet rs = stat.executeQuery("select count(*) from information_schema.index_build_progress");
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        rs = stat.executeQuery("select v, id from test use index (idx_v) order by v, id");
+        int count = 0, lastV = -1, lastId = 0;
+        while (rs.next()) {
+            int v = rs.getInt(1), id = rs.getInt(2);
+            assertEquals((int) (id * 7919L % 100003), v);
+            assertTrue(v > lastV || v == lastV && id > lastId);
+            lastV = v;
+            lastId = id;
+            count++;
+        }
+        assertEquals(200000, count);
+        stat.execute("update test set name = 'n1' where id = 150000");
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).execute("create unique index idx_name on test(name)");
+        stat.execute("update test set name = 'n150000' where id = 150000");
+        stat.execute("create unique index idx_name on test(name)");
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).execute("insert into test values (200001, 0, 'n2')");
+        conn.close();
+        deleteDb("index");
+    }
+
+    /**
+     * A database event listener that reads the progress of an index build.
+     */
+    public static final class IndexBuildListener implements DatabaseEventListener {
+
+        /**
+         * The connection to read the progress with.
+         */
+        static volatile Connection conn;
+
+        /**
+         * The progress read in the middle of the build.
+         */
+        static volatile String result;
+
+        @Override
+        public void setProgress(int state, String name, long x, long max) {
+            Connection c = conn;
+            if (state == STATE_CREATE_INDEX && c != null && x >= max / 2) {
+                conn = null;
+                try (ResultSet rs = c.createStatement().executeQuery("select phase, threads, rows_total, "
+                        + "rows_processed >= rows_total / 2 from information_schema.index_build_progress")) {
+                    rs.next();
+                    result = rs.getString(1) + ' ' + rs.getInt(2) + ' ' + rs.getLong(3) + ' ' + rs.getBoolean(4);
+                } catch (SQLException e) {
+                    result = e.toString();
+                }
+            }
+        }
+
+    }
+
+    private void testConcurrentIndexBuild() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        deleteDb("index");
+        Connection conn = getConnection("index;DATABASE_EVENT_LISTENER='" + ConcurrentWriteListener.class.getName()
+                + "'");
+        stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, v int, u int)");
+        stat.execute("insert into test select x, mod(x, 1000), x from system_range(1, 20000)");
+        stat.execute("set max_memory_rows 5000");
+        for (String sql : new String[] { "create index concurrently idx_v on test(v)",
+                "create unique index concurrently idx_u on test(u)",
+                "create index concurrently idx_p on test(v) where u > 10000" }) {
+            Connection conn2 = getConnection("index");
+            ConcurrentWriteListener.count = 0;
+            ConcurrentWriteListener.stat = conn2.createStatement();
+            try {
+                stat.execute(sql);
+            } finally {
+                ConcurrentWriteListener.stat = null;
+                conn2.close();
+            }
+            assertTrue(ConcurrentWriteListener.count > 0);
+        }
+        HashMap<Integer, int[]> rows = new HashMap<>();
+        ResultSet rs = stat.executeQuery("select id, v, u from test");
+        while (rs.next()) {
+            rows.put(rs.getInt(1), new int[] { rs.getInt(2), rs.getInt(3) });
+        }
+        for (String index : new String[] { "idx_v", "idx_u", "idx_p" }) {
+            String condition = index.equals("idx_p") ? " where u > 10000" : "";
+            rs = stat.executeQuery("select id, v, u from test use index (" + index + ")" + condition);
+            HashSet<Integer> ids = new HashSet<>();
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                assertTrue(ids.add(id));
+                int[] row = rows.get(id);
+                assertEquals(row[0], rs.getInt(2));
+                assertEquals(row[1], rs.getInt(3));
+            }
+            rs = stat.executeQuery("select count(*) from test" + condition.replace("u", "u + 0"));
+            rs.next();
+            assertEquals(rs.getInt(1), ids.size());
+        }
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).execute("insert into test values (50000, 0, 5000)");
+        stat.execute("update test set u = 1000000 - u where mod(id, 2) = 0");
+        stat.execute("update test set u = 1000000 - u where mod(id, 2) = 0");
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).execute("create unique index concurrently idx_v2 on test(v)");
+        assertEquals(0, getSize("select count(*) from information_schema.indexes where index_name = 'IDX_V2'"));
+        stat.execute("update test set v = id");
+        stat.execute("create unique index concurrently idx_v2 on test(v)");
+        assertThrows(ErrorCode.INDEX_ALREADY_EXISTS_1, stat)
+                .execute("create unique index concurrently idx_v2 on test(v)");
+        conn.close();
+        deleteDb("index");
+    }
+
+    private int getSize(String sql) throws SQLException {
+        ResultSet rs = stat.executeQuery(sql);
+        rs.next();
+        return rs.getInt(1);
+    }
+
+    /**
+     * A database event listener that changes rows of the table while an index
+     * is built concurrently.
+     */
+    public static final class ConcurrentWriteListener implements DatabaseEventListener {
+
+        /**
+         * The statement to change rows with.
+         */
+        static volatile Statement stat;
+
+        /**
+         * The number of changes.
+         */
+        static volatile int count;
+
+        private static int nextId = 100_000;
+
+        @Override
+        public void setProgress(int state, String name, long x, long max) {
+            Statement s = stat;
+            if (state == STATE_CREATE_INDEX && s != null && x % 500 == 0) {
+                int id = (int) x + 1;
+                try {
+                    s.execute("update test set v = v + 1 where id = " + id);
+                    s.execute("update test set u = u + 100000 where id = " + (id + 1));
+                    s.execute("delete from test where id = " + (id + 2));
+                    int newId = nextId++;
+                    s.execute("insert into test values (" + newId + ", 7, " + (newId + 200000) + ')');
+                    count++;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+    }
+
     private void testIndexTypes() throws SQLException {
         Connection conn = getConnection("index");
         stat = conn.createStatement();
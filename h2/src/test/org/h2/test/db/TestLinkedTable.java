@@ -55,6 +55,9 @@ public class TestLinkedTable extends TestDb {
         testFetchSize();
         testFetchSizeWithAutoCommit();
         testQuotedIdentifiers();
+        testPushDown();
+        testConnectionPool();
+        testParallelScan();
         deleteDb("linkedTable");
     }
 
@@ -799,4 +802,220 @@ public class TestLinkedTable extends TestDb {
         cb.close();
     }
 
+    private void testPushDown() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        org.h2.Driver.load();
+        Connection ca = DriverManager.getConnection("jdbc:h2:mem:one", "sa", "sa");
+        Connection cb = DriverManager.getConnection("jdbc:h2:mem:two", "sa", "sa");
+        Statement sa = ca.createStatement();
+        Statement sb = cb.createStatement();
+        sa.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR, V INT, G INT)");
+        sa.execute("INSERT INTO TEST SELECT X, 'n' || MOD(X, 10), X, MOD(X, 10) FROM SYSTEM_RANGE(1, 1000)");
+        sa.execute("UPDATE TEST SET V = NULL WHERE MOD(ID, 7) = 0");
+        sa.execute("SET QUERY_STATISTICS TRUE");
+        sb.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        // a local copy evaluates the same queries without the target database
+        sb.execute("CREATE TABLE L AS SELECT * FROM T");
+        String[] queries = {
+                "SELECT NAME FROM %1$s WHERE V > 990 ORDER BY ID",
+                "SELECT NAME, COUNT(*), COUNT(V), SUM(V), MIN(V), MAX(V), AVG(V) FROM %1$s GROUP BY NAME ORDER BY NAME",
+                "SELECT G, SUM(V) S FROM %1$s WHERE ID BETWEEN 100 AND 500 GROUP BY G "
+                        + "HAVING MIN(V) > 100 ORDER BY S DESC, G OFFSET 1 ROW FETCH FIRST 3 ROWS ONLY",
+                "SELECT G, AVG(V), AVG(V * 0.5), MAX(NAME), COUNT(DISTINCT NAME) FROM %1$s GROUP BY G ORDER BY G",
+                "SELECT DISTINCT NAME FROM %1$s WHERE NAME LIKE 'n1%%' OR NAME IN('n2', 'n3') ORDER BY NAME",
+                "SELECT ID, V * 2 + 1, 'x' FROM %1$s WHERE V IS NOT NULL AND NOT ID > 10 "
+                        + "ORDER BY ID DESC FETCH FIRST 5 ROWS ONLY",
+                "SELECT V FROM %1$s ORDER BY V NULLS LAST, ID FETCH FIRST 3 ROWS ONLY",
+                "SELECT V FROM %1$s ORDER BY V, ID FETCH FIRST 3 ROWS ONLY",
+                "SELECT COUNT(*), MAX(Y.ID) FROM %1$s X JOIN %1$s Y ON X.ID = Y.V WHERE Y.NAME = 'n5'",
+                "SELECT X.ID, Y.NAME FROM %1$s X LEFT JOIN %1$s Y ON X.V = Y.ID AND Y.ID > 3 "
+                        + "WHERE X.ID < 10 ORDER BY X.ID",
+                "SELECT COUNT(*) FROM %1$s WHERE NAME = LOWER(NAME)",
+                "SELECT ID FROM %1$s WHERE V > 990.5 AND ID IN('991', '995', 996) ORDER BY ID",
+        };
+        for (String query : queries) {
+            assertEquals(query, getResult(sb, String.format(query, "L")), getResult(sb, String.format(query, "T")));
+        }
+        // the whole query is evaluated by the target database
+        assertContains(getResult(sb, "EXPLAIN SELECT G, COUNT(*) FROM T WHERE ID > 10 GROUP BY G"),
+                "(SELECT \"G\", COUNT(*) FROM PUBLIC.TEST T WHERE (\"ID\" > ?) GROUP BY \"G\")");
+        assertContains(getResult(sb, "EXPLAIN SELECT G, AVG(V * 0.5) FROM T GROUP BY G"),
+                "(SELECT \"G\", AVG((\"V\" * ?)) FROM PUBLIC.TEST T GROUP BY \"G\")");
+        // strings may be compared with other collations, AVG of integer
+        // values may be truncated
+        String[][] localQueries = {
+                { "SELECT NAME, COUNT(*) FROM T GROUP BY NAME", "NAME" },
+                { "SELECT DISTINCT NAME FROM T", "NAME" },
+                { "SELECT NAME FROM T ORDER BY NAME FETCH FIRST 2 ROWS ONLY", "NAME" },
+                { "SELECT G, MAX(NAME) FROM T GROUP BY G", "NAME\", \"G" },
+                { "SELECT G, COUNT(DISTINCT NAME) FROM T GROUP BY G", "NAME\", \"G" },
+                { "SELECT G, AVG(V) FROM T GROUP BY G", "V\", \"G" },
+        };
+        for (String[] query : localQueries) {
+            assertContains(getResult(sb, "EXPLAIN " + query[0]),
+                    "(SELECT \"" + query[1] + "\" FROM PUBLIC.TEST T)");
+        }
+        assertContains(getResult(sb, "EXPLAIN SELECT NAME FROM T ORDER BY V DESC NULLS LAST FETCH FIRST 2 ROWS ONLY"),
+                "(SELECT \"NAME\", \"V\" FROM PUBLIC.TEST T ORDER BY 2 DESC)");
+        // only used columns and supported conditions are passed
+        assertContains(getResult(sb, "EXPLAIN SELECT X.NAME FROM T X JOIN L Y ON X.ID = Y.ID "
+                + "WHERE X.V > 5 AND X.NAME = LOWER(Y.NAME)"),
+                "(SELECT \"ID\", \"NAME\", \"V\" FROM PUBLIC.TEST T WHERE (\"V\" > ?))");
+        assertContains(getResult(sb, "EXPLAIN SELECT ID FROM T WHERE NAME = LOWER(NAME)"),
+                "(SELECT \"ID\", \"NAME\" FROM PUBLIC.TEST T)");
+        // operands of different data types are compared locally
+        assertContains(getResult(sb, "EXPLAIN SELECT ID FROM T WHERE V > '990' AND ID BETWEEN 1 AND 999.5 "
+                + "AND ID IN(991, '995')"), "(SELECT \"ID\", \"V\" FROM PUBLIC.TEST T WHERE (\"V\" > ?))");
+        try (ResultSet rs = sa.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.QUERY_STATISTICS "
+                + "WHERE SQL_STATEMENT LIKE '%GROUP BY \"G\" HAVING%'")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+        PreparedStatement prep = cb.prepareStatement(
+                "SELECT COUNT(*), SUM(V) FROM T WHERE V > ? GROUP BY NAME ORDER BY NAME FETCH FIRST ? ROWS ONLY");
+        for (int i = 0; i < 3; i++) {
+            prep.setInt(1, i * 400);
+            prep.setInt(2, i + 1);
+            assertEquals(getResult(sb, "SELECT COUNT(*), SUM(V) FROM L WHERE V > " + i * 400
+                    + " GROUP BY NAME ORDER BY NAME FETCH FIRST " + (i + 1) + " ROWS ONLY"),
+                    getResult(prep.executeQuery()));
+        }
+        // values of parameters are converted to the data types of columns
+        prep = cb.prepareStatement("SELECT NAME FROM T WHERE ID = ?");
+        prep.setString(1, "15");
+        assertEquals("n5\n", getResult(prep.executeQuery()));
+        prep.setBigDecimal(1, new BigDecimal("25"));
+        assertEquals("n5\n", getResult(prep.executeQuery()));
+        // NULL values are sorted differently by the target database, the
+        // null ordering needs to be specified explicitly
+        sa.execute("SET DEFAULT_NULL_ORDERING HIGH");
+        sb.execute("DROP TABLE T");
+        sb.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        assertContains(getResult(sb, "EXPLAIN SELECT V, ID FROM T ORDER BY V, ID FETCH FIRST 3 ROWS ONLY"),
+                "(SELECT \"V\", \"ID\" FROM PUBLIC.TEST T ORDER BY 1 NULLS FIRST, 2 NULLS FIRST)");
+        assertContains(getResult(sb, "EXPLAIN SELECT V FROM T ORDER BY V DESC NULLS FIRST FETCH FIRST 3 ROWS ONLY"),
+                "(SELECT \"V\" FROM PUBLIC.TEST T ORDER BY 1 DESC)");
+        assertEquals(getResult(sb, "SELECT V, ID FROM L ORDER BY V, ID FETCH FIRST 3 ROWS ONLY"),
+                getResult(sb, "SELECT V, ID FROM T ORDER BY V, ID FETCH FIRST 3 ROWS ONLY"));
+        for (int i = 5; i < 7; i++) {
+            assertEquals(getResult(sb, String.format(queries[i], "L")),
+                    getResult(sb, String.format(queries[i], "T")));
+        }
+        sb.execute("DROP TABLE T, L");
+        ca.close();
+        cb.close();
+    }
+
+    private void testConnectionPool() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        org.h2.Driver.load();
+        Connection ca = DriverManager.getConnection("jdbc:h2:mem:one", "sa", "sa");
+        Statement sa = ca.createStatement();
+        sa.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+        sa.execute("INSERT INTO TEST VALUES (1, 'Hello'), (2, 'World')");
+        String url = "jdbc:h2:mem:two;MAX_LINKED_CONNECTIONS=2";
+        Connection cb1 = DriverManager.getConnection(url, "sa", "sa");
+        Connection cb2 = DriverManager.getConnection(url, "sa", "sa");
+        Connection cb3 = DriverManager.getConnection(url, "sa", "sa");
+        Statement sb1 = cb1.createStatement();
+        Statement sb2 = cb2.createStatement();
+        Statement sb3 = cb3.createStatement();
+        sb1.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        // connections are returned to the pool at the end of each statement
+        for (int i = 0; i < 3; i++) {
+            for (Statement stat : new Statement[] { sb1, sb2, sb3 }) {
+                assertEquals("2\n", getResult(stat, "SELECT COUNT(*) FROM T WHERE LENGTH(NAME) > 0"));
+            }
+        }
+        // open results keep their connections until the end of transactions
+        sb1.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        sb2.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        cb1.setAutoCommit(false);
+        cb2.setAutoCommit(false);
+        ResultSet rs1 = sb1.executeQuery("SELECT NAME FROM T WHERE LENGTH(NAME) > 0");
+        assertTrue(rs1.next());
+        ResultSet rs2 = sb2.executeQuery("SELECT NAME FROM T WHERE LENGTH(NAME) > 0");
+        assertTrue(rs2.next());
+        assertEquals("3\n", getResult(sa, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS"));
+        sb3.execute("SET LOCK_TIMEOUT 100");
+        assertThrows(ErrorCode.ERROR_ACCESSING_LINKED_TABLE_2, sb3).executeQuery("SELECT * FROM T WHERE LENGTH(NAME) > 0");
+        rs1.close();
+        cb1.commit();
+        assertEquals("2\n", getResult(sb3, "SELECT COUNT(*) FROM T WHERE LENGTH(NAME) > 0"));
+        assertTrue(rs2.next());
+        assertFalse(rs2.next());
+        cb2.commit();
+        assertEquals("3\n", getResult(sa, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS"));
+        sb3.execute("DROP TABLE T");
+        sa.execute("DROP TABLE TEST");
+        cb1.close();
+        cb2.close();
+        cb3.close();
+        ca.close();
+    }
+
+    private void testParallelScan() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        org.h2.Driver.load();
+        Connection ca = DriverManager.getConnection("jdbc:h2:mem:one", "sa", "sa");
+        Statement sa = ca.createStatement();
+        sa.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT)");
+        sa.execute("INSERT INTO TEST SELECT X, MOD(X, 100) FROM SYSTEM_RANGE(1, 100000)");
+        Connection cb = DriverManager.getConnection("jdbc:h2:mem:two;LINKED_SCAN_PARALLELISM=4", "sa", "sa");
+        Statement sb = cb.createStatement();
+        sb.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        // ABS() is not passed to the target database, the table is scanned
+        assertEquals("100000, 5000050000, 4950000\n",
+                getResult(sb, "SELECT COUNT(*), SUM(ID), SUM(V) FROM T WHERE ABS(V) >= 0"));
+        // three additional connections were used
+        assertEquals("5\n", getResult(sa, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS"));
+        assertEquals("50000, 3750025000\n",
+                getResult(sb, "SELECT COUNT(*), SUM(ID) FROM T WHERE ID > 50000 AND ABS(V) >= 0"));
+        assertEquals("15000, 112507500\n",
+                getResult(sb, "SELECT COUNT(*), SUM(ID) FROM T WHERE ID <= 15000 AND ABS(V) >= 0"));
+        sb.execute("DROP TABLE T");
+        cb.close();
+        // connections of scans stopped by FETCH are returned before the end
+        // of the transaction
+        String url = "jdbc:h2:mem:two;LINKED_SCAN_PARALLELISM=4;MAX_LINKED_CONNECTIONS=4";
+        cb = DriverManager.getConnection(url, "sa", "sa");
+        sb = cb.createStatement();
+        sb.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        cb.setAutoCommit(false);
+        assertEquals("10\n", getResult(sb,
+                "SELECT COUNT(*) FROM (SELECT ID FROM T WHERE ABS(V) >= 0 FETCH FIRST 10 ROWS ONLY)"));
+        try (Connection cb2 = DriverManager.getConnection(url, "sa", "sa")) {
+            Statement sb2 = cb2.createStatement();
+            sb2.execute("SET LOCK_TIMEOUT 5000");
+            assertEquals("100000\n", getResult(sb2, "SELECT COUNT(*) FROM T"));
+        }
+        cb.commit();
+        sb.execute("DROP TABLE T");
+        sa.execute("DROP TABLE TEST");
+        cb.close();
+        ca.close();
+    }
+
+    private static String getResult(Statement stat, String sql) throws SQLException {
+        return getResult(stat.executeQuery(sql));
+    }
+
+    private static String getResult(ResultSet rs) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        int columnCount = rs.getMetaData().getColumnCount();
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                builder.append(rs.getString(i)).append(i < columnCount ? ", " : "\n");
+            }
+        }
+        rs.close();
+        return builder.toString();
+    }
+
 }
@@ -33,6 +33,8 @@ public class TestQueryCache extends TestDb {
         deleteDb("queryCache");
         test1();
         testClearingCacheWithTableStructureChanges();
+        testSharedPlans();
+        testSharedResults();
         deleteDb("queryCache");
     }
 
@@ -107,4 +109,133 @@ public class TestQueryCache extends TestDb {
                     prepareStatement("SELECT * FROM TEST");
         }
     }
+
+    private void testSharedPlans() throws Exception {
+        if (config.networked) {
+            // Plans are prepared by the server
+            return;
+        }
+        String url = "queryCache;QUERY_CACHE_SIZE=1";
+        String sql = "SELECT NAME FROM TEST WHERE ID = ?";
+        try (Connection conn1 = getConnection(url); Connection conn2 = getConnection(url)) {
+            Statement stat1 = conn1.createStatement();
+            stat1.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+            stat1.execute("INSERT INTO TEST VALUES (1, 'a')");
+            long hits = getPlanCacheInfo(stat1, "HITS");
+            conn1.setAutoCommit(false);
+            stat1.execute("UPDATE TEST SET NAME = 'b' WHERE ID = 1");
+            PreparedStatement prep = conn1.prepareStatement(sql);
+            prep.setInt(1, 1);
+            ResultSet rs = prep.executeQuery();
+            assertTrue(rs.next());
+            assertEquals("b", rs.getString(1));
+            prep.close();
+            // evicts the plan from the query cache of the first session
+            stat1.executeQuery("SELECT 1").close();
+            prep = conn2.prepareStatement(sql);
+            assertEquals(hits + 1, getPlanCacheInfo(stat1, "HITS"));
+            // parameter values and results of another session aren't visible
+            assertThrows(ErrorCode.PARAMETER_NOT_SET_1, prep).executeQuery();
+            prep.setInt(1, 1);
+            rs = prep.executeQuery();
+            assertTrue(rs.next());
+            assertEquals("a", rs.getString(1));
+            prep.close();
+            conn1.commit();
+            conn1.setAutoCommit(true);
+            // plans with local temporary tables aren't shared
+            stat1.execute("CREATE LOCAL TEMPORARY TABLE T(ID INT)");
+            stat1.executeQuery("SELECT * FROM T").close();
+            stat1.executeQuery("SELECT 1").close();
+            hits = getPlanCacheInfo(stat1, "HITS");
+            Statement stat2 = conn2.createStatement();
+            stat2.execute("CREATE LOCAL TEMPORARY TABLE T(ID INT)");
+            stat2.executeQuery("SELECT * FROM T").close();
+            assertEquals(hits, getPlanCacheInfo(stat1, "HITS"));
+            // plans are shared only between sessions with the same settings
+            stat1.execute("CREATE SCHEMA S");
+            stat1.execute("CREATE TABLE S.TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+            stat1.execute("INSERT INTO S.TEST VALUES (1, 'c')");
+            stat2.execute("SET SCHEMA S");
+            stat1.executeQuery("SELECT NAME FROM TEST").close();
+            stat1.executeQuery("SELECT 1").close();
+            rs = stat2.executeQuery("SELECT NAME FROM TEST");
+            assertTrue(rs.next());
+            assertEquals("c", rs.getString(1));
+            stat1.execute("DROP SCHEMA S CASCADE");
+            stat1.execute("DROP TABLE TEST");
+        }
+    }
+
+    private void testSharedResults() throws Exception {
+        String url = "queryCache;SHARED_RESULT_CACHE_SIZE=1024";
+        String sql = "SELECT SUM(ID) FROM TEST WHERE ID > ?";
+        try (Connection conn1 = getConnection(url); Connection conn2 = getConnection(url)) {
+            Statement stat1 = conn1.createStatement();
+            stat1.execute("CREATE TABLE TEST(ID INT PRIMARY KEY) AS SELECT X FROM SYSTEM_RANGE(1, 100)");
+            PreparedStatement prep1 = conn1.prepareStatement(sql);
+            PreparedStatement prep2 = conn2.prepareStatement(sql);
+            prep1.setInt(1, 90);
+            prep2.setInt(1, 90);
+            long hits = getResultCacheInfo(stat1, "HITS");
+            assertResult(955, prep1);
+            assertEquals(hits, getResultCacheInfo(stat1, "HITS"));
+            assertResult(955, prep2);
+            assertEquals(hits + 1, getResultCacheInfo(stat1, "HITS"));
+            prep2.setInt(1, 95);
+            assertResult(490, prep2);
+            assertEquals(hits + 1, getResultCacheInfo(stat1, "HITS"));
+            // uncommitted changes are visible only to their own session
+            conn1.setAutoCommit(false);
+            stat1.execute("INSERT INTO TEST VALUES 101");
+            assertResult(1056, prep1);
+            prep2.setInt(1, 90);
+            assertResult(955, prep2);
+            assertResult(1056, prep1);
+            assertResult(955, prep2);
+            conn1.rollback();
+            assertResult(955, prep1);
+            stat1.execute("INSERT INTO TEST VALUES 102");
+            conn1.commit();
+            conn1.setAutoCommit(true);
+            hits = getResultCacheInfo(stat1, "HITS");
+            assertResult(1057, prep2);
+            assertResult(1057, prep1);
+            assertEquals(hits + 1, getResultCacheInfo(stat1, "HITS"));
+            // results with local temporary tables aren't shared
+            stat1.execute("CREATE LOCAL TEMPORARY TABLE T(ID INT) AS VALUES 1");
+            Statement stat2 = conn2.createStatement();
+            stat2.execute("CREATE LOCAL TEMPORARY TABLE T(ID INT) AS VALUES 2");
+            ResultSet rs = stat1.executeQuery("SELECT ID FROM T");
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            rs = stat2.executeQuery("SELECT ID FROM T");
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            assertTrue(getResultCacheInfo(stat1, "SIZE") > 0);
+            stat1.execute("DROP TABLE TEST");
+        }
+    }
+
+    private void assertResult(long expected, PreparedStatement prep) throws Exception {
+        ResultSet rs = prep.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(expected, rs.getLong(1));
+    }
+
+    private static long getResultCacheInfo(Statement stat, String name) throws Exception {
+        ResultSet rs = stat.executeQuery("SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS"
+                + " WHERE SETTING_NAME = 'info.QUERY_RESULT_CACHE_" + name + '\'');
+        rs.next();
+        return rs.getLong(1);
+    }
+
+    private static long getPlanCacheInfo(Statement stat, String name) throws Exception {
+        // plans of queries with derived tables aren't shared
+        ResultSet rs = stat.executeQuery("SELECT SETTING_VALUE FROM (SELECT * FROM INFORMATION_SCHEMA.SETTINGS)"
+                + " WHERE SETTING_NAME = 'info.QUERY_PLAN_CACHE_" + name + '\'');
+        rs.next();
+        return rs.getLong(1);
+    }
+
 }
@@ -13,10 +13,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import org.h2.api.ErrorCode;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
+import org.h2.util.Task;
 
 /**
  * Test for batch updates.
@@ -61,11 +63,15 @@ public class TestBatchUpdates extends TestDb {
     }
 
     @Override
-    public void test() throws SQLException {
+    public void test() throws Exception {
         testRootCause();
         testExecuteCall();
         testException();
         testCoffee();
+        testPipelining();
+        testPipeliningLargeBatch();
+        testStatementBatch();
+        testCancelStatementBatch();
         deleteDb("batchUpdates");
     }
 
@@ -111,6 +117,170 @@ public class TestBatchUpdates extends TestDb {
         conn.close();
     }
 
+    private void testPipelining() throws SQLException {
+        if (!config.networked) {
+            return;
+        }
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates;NETWORK_PIPELINING=TRUE");
+        stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT)");
+        prep = conn.prepareStatement("INSERT INTO TEST VALUES(?, ?)");
+        for (int i : new int[] { 1, 2, 2, 3 }) {
+            prep.setInt(1, i);
+            prep.setInt(2, i);
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            assertEquals("[1, 1, -3, 1]", Arrays.toString(e.getUpdateCounts()));
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getNextException().getErrorCode());
+            assertNull(e.getNextException().getNextException());
+        }
+        // update counts are read when requested
+        PreparedStatement update = conn.prepareStatement("UPDATE TEST SET V = V + 1 WHERE ID <= ?");
+        update.setInt(1, 2);
+        assertFalse(update.execute());
+        update.setInt(1, 3);
+        assertFalse(update.execute());
+        assertEquals(3, update.getUpdateCount());
+        update.setInt(1, 2);
+        assertEquals(2, update.executeUpdate());
+        // the error of a pipelined command is thrown by the next operation
+        prep.setInt(1, 1);
+        prep.setInt(2, 1);
+        assertFalse(prep.execute());
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).executeQuery("SELECT 1");
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, prep).getUpdateCount();
+        ResultSet rs = stat.executeQuery("SELECT SUM(V) FROM TEST");
+        rs.next();
+        assertEquals(13, rs.getInt(1));
+        conn.setAutoCommit(false);
+        prep.setInt(1, 4);
+        prep.setInt(2, 4);
+        assertFalse(prep.execute());
+        conn.rollback();
+        conn.setAutoCommit(true);
+        rs = stat.executeQuery("SELECT COUNT(*) FROM TEST");
+        rs.next();
+        assertEquals(3, rs.getInt(1));
+        conn.close();
+    }
+
+    private void testPipeliningLargeBatch() throws SQLException {
+        if (!config.networked) {
+            return;
+        }
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates;NETWORK_PIPELINING=TRUE");
+        stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY)");
+        prep = conn.prepareStatement("INSERT INTO TEST VALUES ?");
+        // responses are read while rows are sent, otherwise the client and the
+        // server wait for each other when socket buffers are full
+        int count = 500_000, duplicate = 1_000;
+        for (int i = 0; i < count; i++) {
+            prep.setInt(1, i == duplicate ? 0 : i);
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            int[] updateCounts = e.getUpdateCounts();
+            assertEquals(count, updateCounts.length);
+            for (int i = 0; i < count; i++) {
+                assertEquals(i == duplicate ? Statement.EXECUTE_FAILED : 1, updateCounts[i]);
+            }
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getNextException().getErrorCode());
+            assertNull(e.getNextException().getNextException());
+        }
+        // the reported error isn't thrown again
+        ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM TEST");
+        rs.next();
+        assertEquals(count - 1, rs.getInt(1));
+        conn.close();
+    }
+
+    private void testStatementBatch() throws SQLException {
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates");
+        Connection conn2 = getConnection("batchUpdates");
+        stat = conn.createStatement();
+        stat.addBatch("CREATE TABLE TEST(ID INT PRIMARY KEY)");
+        stat.addBatch("INSERT INTO TEST VALUES 1");
+        stat.addBatch("INSERT INTO TEST VALUES 1");
+        stat.addBatch("INSERT INTO TEST VALUES 2");
+        stat.addBatch("UPDATE TEST SET ID = ID + 10 WHERE ID = 2");
+        try {
+            stat.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            assertEquals("[0, 1, -3, 1, 1]", Arrays.toString(e.getUpdateCounts()));
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getNextException().getErrorCode());
+            assertNull(e.getNextException().getNextException());
+        }
+        // all successful commands are committed
+        assertTrue(conn.getAutoCommit());
+        ResultSet rs = conn2.createStatement().executeQuery("SELECT LISTAGG(ID) WITHIN GROUP (ORDER BY ID) FROM TEST");
+        rs.next();
+        assertEquals("1,12", rs.getString(1));
+        conn.setAutoCommit(false);
+        stat.addBatch("INSERT INTO TEST VALUES 3");
+        stat.addBatch("DELETE FROM TEST WHERE ID = 1");
+        assertEquals("[1, 1]", Arrays.toString(stat.executeLargeBatch()));
+        assertFalse(conn.getAutoCommit());
+        conn.rollback();
+        conn.setAutoCommit(true);
+        rs = stat.executeQuery("SELECT COUNT(*) FROM TEST");
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+        conn2.close();
+        conn.close();
+    }
+
+    private void testCancelStatementBatch() throws Exception {
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates");
+        stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(V BIGINT)");
+        int count = 10;
+        for (int i = 0; i < count; i++) {
+            stat.addBatch("INSERT INTO TEST SELECT SUM(X) FROM SYSTEM_RANGE(1, 1000000000)");
+        }
+        Task task = new Task() {
+            @Override
+            public void call() throws Exception {
+                Thread.sleep(200);
+                stat.cancel();
+            }
+        };
+        task.execute();
+        long time = System.nanoTime();
+        try {
+            stat.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            int[] expected = new int[count];
+            Arrays.fill(expected, Statement.EXECUTE_FAILED);
+            assertEquals(Arrays.toString(expected), Arrays.toString(e.getUpdateCounts()));
+            SQLException next = e.getNextException();
+            for (int i = 0; i < count; i++) {
+                assertEquals(ErrorCode.STATEMENT_WAS_CANCELED, next.getErrorCode());
+                next = next.getNextException();
+            }
+            assertNull(next);
+        }
+        task.get();
+        assertSmaller(System.nanoTime() - time, 10_000_000_000L);
+        ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM TEST");
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        conn.close();
+    }
+
     private void testExecuteCall() throws SQLException {
         deleteDb("batchUpdates");
         conn = getConnection("batchUpdates");
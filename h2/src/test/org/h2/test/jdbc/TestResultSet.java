@@ -92,6 +92,9 @@ public class TestResultSet extends TestDb {
         testColumnLabelColumnName();
         testAbsolute();
         testFetchSize();
+        testPrefetch();
+        testLazySort();
+        testNetworkCompression();
         testOwnUpdates();
         testUpdatePrimaryKey();
         testFindColumn();
@@ -433,6 +436,143 @@ public class TestResultSet extends TestDb {
         assertEquals(a + 1, b);
     }
 
+    private void testPrefetch() throws SQLException {
+        if (!config.networked || config.memory) {
+            return;
+        }
+        testPrefetch(false);
+        testPrefetch(true);
+    }
+
+    private void testPrefetch(boolean lazy) throws SQLException {
+        stat.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+        Statement stat2 = conn.createStatement();
+        stat2.setFetchSize(10);
+        ResultSet rs = stat2.executeQuery("SELECT X FROM SYSTEM_RANGE(1, 1000)");
+        for (int i = 1; i <= 1000; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            if (i % 99 == 0) {
+                // other operations of the session while a batch is prefetched
+                ResultSet rs2 = stat.executeQuery("SELECT " + i);
+                assertTrue(rs2.next());
+                assertEquals(i, rs2.getInt(1));
+            }
+        }
+        assertFalse(rs.next());
+        rs = stat2.executeQuery("SELECT X FROM SYSTEM_RANGE(1, 1000)");
+        for (int i = 1; i <= 35; i++) {
+            assertTrue(rs.next());
+        }
+        rs.close();
+        rs = stat.executeQuery("SELECT 1");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        stat.execute("SET LAZY_QUERY_EXECUTION FALSE");
+    }
+
+    private void testLazySort() throws SQLException {
+        deleteDb("resultSetLazySort");
+        Connection conn = getConnection("resultSetLazySort;MAX_MEMORY_ROWS=10;LAZY_QUERY_EXECUTION=1");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7919, 1000) FROM SYSTEM_RANGE(1, 5000)");
+        // 500 sorted runs are merged in two passes
+        Statement stat2 = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs = stat2.executeQuery("SELECT ID, V FROM TEST ORDER BY V");
+        for (int pass = 0; pass < 2; pass++) {
+            int lastId = 0, lastV = -1;
+            for (int i = 0; i < 5000; i++) {
+                assertTrue(rs.next());
+                int id = rs.getInt(1), v = rs.getInt(2);
+                assertTrue(v >= lastV);
+                if (v == lastV) {
+                    // the sort is stable
+                    assertTrue(id > lastId);
+                }
+                lastId = id;
+                lastV = v;
+            }
+            assertFalse(rs.next());
+            rs.beforeFirst();
+        }
+        rs.close();
+        rs = stat.executeQuery("SELECT ID FROM TEST ORDER BY V DESC, ID FETCH FIRST 20 ROWS ONLY");
+        for (int i = 0; i < 20; i++) {
+            assertTrue(rs.next());
+        }
+        assertFalse(rs.next());
+        conn.close();
+        deleteDb("resultSetLazySort");
+    }
+
+    private void testNetworkCompression() throws SQLException {
+        if (!config.networked || config.memory) {
+            return;
+        }
+        testNetworkCompression("NO");
+        testNetworkCompression("LZF");
+        testNetworkCompression("DEFLATE");
+        assertThrows(ErrorCode.UNSUPPORTED_COMPRESSION_ALGORITHM_1,
+                () -> getConnection("resultSet;NETWORK_COMPRESSION=ZIP"));
+    }
+
+    private void testNetworkCompression(String compression) throws SQLException {
+        Connection conn2 = getConnection("resultSet;NETWORK_COMPRESSION=" + compression);
+        Statement stat2 = conn2.createStatement();
+        stat2.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, B BOOLEAN, T TINYINT, S SMALLINT, L BIGINT, "
+                + "R REAL, D DOUBLE PRECISION, N NUMERIC(20, 2), F DECFLOAT, DT DATE, TM TIME, TT TIME WITH TIME ZONE, "
+                + "TS TIMESTAMP, TZ TIMESTAMP WITH TIME ZONE, C CHAR(3), V VARCHAR, VI VARCHAR_IGNORECASE, "
+                + "BI BINARY(2), VB VARBINARY, J JSON, U UUID, E ENUM('A', 'B'), A INT ARRAY, CL CLOB)");
+        stat2.execute("INSERT INTO TEST VALUES(1, TRUE, 1, 2, 3, 1.5, 2.5, 10.25, 'Infinity', DATE '2020-01-02', "
+                + "TIME '10:11:12', TIME WITH TIME ZONE '10:11:12+05:30', TIMESTAMP '2020-01-02 10:11:12.123', "
+                + "TIMESTAMP WITH TIME ZONE '2020-01-02 10:11:12+01:00:30', 'ab', 'Hello \u00e4\u20ac\ud83d\ude00', "
+                + "'xY', X'0102', X'030405', JSON '{\"a\":1}', '01234567-89ab-cdef-0123-456789abcdef', 'B', "
+                + "ARRAY[1, NULL], 'clob')");
+        stat2.execute("INSERT INTO TEST(ID) VALUES 2");
+        stat2.execute("INSERT INTO TEST(ID, V) SELECT X + 2, REPEAT('data', 100) FROM SYSTEM_RANGE(1, 200)");
+        stat2.setFetchSize(7);
+        ResultSet rs = stat2.executeQuery("SELECT * FROM TEST ORDER BY ID");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        assertTrue(rs.getBoolean(2));
+        assertEquals(1, rs.getByte(3));
+        assertEquals(2, rs.getShort(4));
+        assertEquals(3L, rs.getLong(5));
+        assertEquals(1.5f, rs.getFloat(6));
+        assertEquals(2.5d, rs.getDouble(7));
+        assertEquals(new BigDecimal("10.25"), rs.getBigDecimal(8));
+        assertEquals("Infinity", rs.getString(9));
+        assertEquals("2020-01-02", rs.getString(10));
+        assertEquals("10:11:12", rs.getString(11));
+        assertEquals("10:11:12+05:30", rs.getString(12));
+        assertEquals("2020-01-02 10:11:12.123", rs.getString(13));
+        assertEquals("2020-01-02 10:11:12+01:00:30", rs.getString(14));
+        assertEquals("ab ", rs.getString(15));
+        assertEquals("Hello \u00e4\u20ac\ud83d\ude00", rs.getString(16));
+        assertEquals("xY", rs.getString(17));
+        assertEquals(new byte[] { 1, 2 }, rs.getBytes(18));
+        assertEquals(new byte[] { 3, 4, 5 }, rs.getBytes(19));
+        assertEquals("{\"a\":1}", rs.getString(20));
+        assertEquals("01234567-89ab-cdef-0123-456789abcdef", rs.getString(21));
+        assertEquals("B", rs.getString(22));
+        assertEquals(new Object[] { 1, null }, (Object[]) rs.getArray(23).getArray());
+        assertEquals("clob", rs.getString(24));
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        for (int i = 2; i <= 24; i++) {
+            assertNull(rs.getObject(i));
+        }
+        for (int i = 3; i <= 202; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            assertEquals(400, rs.getString(16).length());
+        }
+        assertFalse(rs.next());
+        stat2.execute("DROP TABLE TEST");
+        conn2.close();
+    }
+
     private void testOwnUpdates() throws SQLException {
         DatabaseMetaData meta = conn.getMetaData();
         for (int i = 0; i < 3; i++) {
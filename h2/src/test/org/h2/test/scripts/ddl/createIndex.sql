@@ -22,7 +22,35 @@ CREATE TABLE TEST(A INT, B INT, C INT);
 > ok
 
 CREATE INDEX TEST_IDX ON TEST(C) INCLUDE(B);
-> exception SYNTAX_ERROR_1
+> ok
+
+SELECT DB_OBJECT_SQL('INDEX', 'PUBLIC', 'TEST_IDX');
+>> CREATE INDEX "PUBLIC"."TEST_IDX" ON "PUBLIC"."TEST"("C" NULLS FIRST) INCLUDE("B" NULLS FIRST)
+
+INSERT INTO TEST VALUES (1, 2, 3), (4, 5, 3);
+> update count: 2
+
+SELECT B FROM TEST WHERE C = 3 ORDER BY B;
+> B
+> -
+> 2
+> 5
+> rows (ordered): 2
+
+EXPLAIN SELECT B FROM TEST WHERE C = 3;
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: C = 3 */ /* index only */ WHERE "C" = 3
+
+EXPLAIN SELECT A, B FROM TEST WHERE C = 3;
+>> SELECT "A", "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: C = 3 */ WHERE "C" = 3
+
+EXPLAIN SELECT B FROM TEST WHERE C = 3 FOR UPDATE;
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: C = 3 */ WHERE "C" = 3 FOR UPDATE
+
+DROP INDEX TEST_IDX;
+> ok
+
+DELETE FROM TEST;
+> update count: 2
 
 CREATE UNIQUE INDEX TEST_IDX ON TEST(C) INCLUDE(B);
 > ok
@@ -78,3 +106,24 @@ INSERT INTO TEST VALUES (1, NULL, NULL);
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, V INT) AS SELECT X, MOD(X, 10) FROM SYSTEM_RANGE(1, 100);
+> ok
+
+CREATE INDEX CONCURRENTLY TEST_IDX_1 ON TEST(V);
+> ok
+
+CREATE UNIQUE INDEX CONCURRENTLY TEST_IDX_2 ON TEST(V);
+> exception DUPLICATE_KEY_1
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS TEST_IDX_1 ON TEST(V);
+> ok
+
+SELECT COUNT(*) FROM TEST USE INDEX (TEST_IDX_1) WHERE V = 3;
+>> 10
+
+SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'TEST' AND INDEX_TYPE_NAME = 'INDEX';
+>> TEST_IDX_1
+
+DROP TABLE TEST;
+> ok
@@ -292,3 +292,33 @@ SELECT CONSTRAINT_NAME, NULLS_DISTINCT, INDEX_NAME FROM INFORMATION_SCHEMA.TABLE
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID BIGINT PRIMARY KEY, V INT) AS SELECT X, X * 2 FROM SYSTEM_RANGE(1, 5000);
+> ok
+
+SELECT COUNT(*), SUM(V), MIN(ID), MAX(ID) FROM TEST;
+> COUNT(*) SUM(V)   MIN(ID) MAX(ID)
+> -------- -------- ------- -------
+> 5000     25005000 1       5000
+> rows: 1
+
+INSERT INTO TEST VALUES (5000, 0);
+> exception DUPLICATE_KEY_1
+
+DROP TABLE TEST;
+> ok
+
+CREATE TABLE TEST(ID BIGINT PRIMARY KEY) AS SELECT MOD(X, 3000) FROM SYSTEM_RANGE(1, 5000);
+> exception DUPLICATE_KEY_1
+
+CREATE TABLE TEST(ID BIGINT PRIMARY KEY) AS SELECT 5000 - X FROM SYSTEM_RANGE(1, 5000);
+> ok
+
+SELECT COUNT(*), MIN(ID), MAX(ID) FROM TEST;
+> COUNT(*) MIN(ID) MAX(ID)
+> -------- ------- -------
+> 5000     0       4999
+> rows: 1
+
+DROP TABLE TEST;
+> ok
@@ -42,7 +42,7 @@ CREATE INDEX TEST_IDX ON TEST(V NULLS LAST);
 > ok
 
 EXPLAIN SELECT MAX(V) FROM TEST;
->> SELECT MAX("V") FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* direct lookup */
+>> SELECT MAX("V") FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* index only */ /* direct lookup */
 
 SELECT MAX(V) FROM TEST;
 >> 5
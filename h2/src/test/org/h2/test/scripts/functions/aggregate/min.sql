@@ -42,7 +42,7 @@ CREATE INDEX TEST_IDX ON TEST(V NULLS FIRST);
 > ok
 
 EXPLAIN SELECT MIN(V) FROM TEST;
->> SELECT MIN("V") FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* direct lookup */
+>> SELECT MIN("V") FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* index only */ /* direct lookup */
 
 SELECT MIN(V) FROM TEST;
 >> null
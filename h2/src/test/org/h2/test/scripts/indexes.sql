@@ -33,7 +33,7 @@ SELECT A FROM TEST ORDER BY A;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -60,7 +60,7 @@ SELECT A FROM TEST ORDER BY A ASC;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A ASC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -87,7 +87,7 @@ SELECT A FROM TEST ORDER BY A ASC NULLS FIRST;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A ASC NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 NULLS FIRST /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -114,7 +114,7 @@ SELECT A FROM TEST ORDER BY A ASC NULLS LAST;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A ASC NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 NULLS LAST /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -141,7 +141,7 @@ SELECT A FROM TEST ORDER BY A DESC;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 DESC /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 DESC /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -168,7 +168,7 @@ SELECT A FROM TEST ORDER BY A DESC NULLS FIRST;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -195,7 +195,7 @@ SELECT A FROM TEST ORDER BY A DESC NULLS LAST;
 > rows (ordered): 3
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ ORDER BY 1 DESC NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX */ /* index only */ ORDER BY 1 DESC NULLS LAST /* index sorted */
 
 DROP INDEX A_IDX;
 > ok
@@ -215,25 +215,25 @@ CREATE INDEX A_IDX_DESC_NF ON TEST(A DESC NULLS FIRST);
 > ok
 
 EXPLAIN SELECT A FROM TEST ORDER BY A;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ /* index only */ ORDER BY 1 /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A ASC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ /* index only */ ORDER BY 1 /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ ORDER BY 1 NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC */ /* index only */ ORDER BY 1 NULLS FIRST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NL */ ORDER BY 1 NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NL */ /* index only */ ORDER BY 1 NULLS LAST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC */ ORDER BY 1 DESC /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC */ /* index only */ ORDER BY 1 DESC /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NF */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NF */ /* index only */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC */ ORDER BY 1 DESC NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC */ /* index only */ ORDER BY 1 DESC NULLS LAST /* index sorted */
 
 DROP INDEX A_IDX_ASC;
 > ok
@@ -248,25 +248,25 @@ CREATE INDEX A_IDX_DESC_NL ON TEST(A DESC NULLS LAST);
 > ok
 
 EXPLAIN SELECT A FROM TEST ORDER BY A;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ /* index only */ ORDER BY 1 /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A ASC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ ORDER BY 1 /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ /* index only */ ORDER BY 1 /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ ORDER BY 1 NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NF */ /* index only */ ORDER BY 1 NULLS FIRST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NL */ ORDER BY 1 NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_ASC_NL */ /* index only */ ORDER BY 1 NULLS LAST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NL */ ORDER BY 1 DESC /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NL */ /* index only */ ORDER BY 1 DESC /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS FIRST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NF */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NF */ /* index only */ ORDER BY 1 DESC NULLS FIRST /* index sorted */
 
 EXPLAIN SELECT A FROM TEST ORDER BY A DESC NULLS LAST;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NL */ ORDER BY 1 DESC NULLS LAST /* index sorted */
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.A_IDX_DESC_NL */ /* index only */ ORDER BY 1 DESC NULLS LAST /* index sorted */
 
 DROP TABLE TEST;
 > ok
@@ -410,3 +410,317 @@ SELECT * FROM TEST WHERE _ROWID_ >= 2 AND _ROWID_ <= 3;
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, TENANT INT, STATUS INT, V INT);
+> ok
+
+CREATE INDEX TEST_IDX ON TEST(TENANT, STATUS);
+> ok
+
+INSERT INTO TEST SELECT X, CASEWHEN(MOD(X, 7) = 0, NULL, MOD(X, 3)), MOD(X, 10), X FROM SYSTEM_RANGE(1, 1000);
+> update count: 1000
+
+EXPLAIN SELECT TENANT, ID FROM TEST WHERE STATUS = 5;
+>> SELECT "TENANT", "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: STATUS = 5 */ /* index only */ WHERE "STATUS" = 5
+
+ANALYZE TABLE TEST;
+> ok
+
+EXPLAIN SELECT TENANT, ID FROM TEST WHERE STATUS = 5;
+>> SELECT "TENANT", "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: STATUS = 5 */ /* skip scan */ /* index only */ WHERE "STATUS" = 5
+
+SELECT TENANT, COUNT(*), SUM(ID) FROM TEST WHERE STATUS = 5 GROUP BY TENANT;
+> TENANT COUNT(*) SUM(ID)
+> ------ -------- -------
+> 0      28       13710
+> 1      29       14705
+> 2      29       14725
+> null   14       6860
+> rows: 4
+
+SELECT COUNT(*), SUM(ID) FROM TEST WHERE STATUS BETWEEN 2 AND 3;
+> COUNT(*) SUM(ID)
+> -------- -------
+> 200      99500
+> rows: 1
+
+EXPLAIN SELECT * FROM TEST WHERE STATUS = 5 AND TENANT = 1;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."TENANT", "PUBLIC"."TEST"."STATUS", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX: STATUS = 5 AND TENANT = 1 */ WHERE ("STATUS" = 5) AND ("TENANT" = 1)
+
+-- IN(..) conditions on the next columns can't be used by a skip scan
+EXPLAIN SELECT V FROM TEST WHERE STATUS IN (5, 6);
+>> SELECT "V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE "STATUS" IN(5, 6)
+
+DROP TABLE TEST;
+> ok
+
+CREATE TABLE TEST(CODE VARCHAR PRIMARY KEY HASH, NAME VARCHAR, V INT);
+> ok
+
+CREATE HASH INDEX TEST_NAME_IDX ON TEST(NAME);
+> ok
+
+INSERT INTO TEST SELECT 'C' || X, 'N' || MOD(X, 10), X FROM SYSTEM_RANGE(1, 100);
+> update count: 100
+
+EXPLAIN ANALYZE SELECT V FROM TEST WHERE CODE = 'C15';
+>> SELECT "V" FROM "PUBLIC"."TEST" /* PUBLIC.PRIMARY_KEY_2: CODE = 'C15' */ /* scanCount: 2 */ WHERE "CODE" = 'C15'
+
+SELECT COUNT(*), SUM(V) FROM TEST WHERE NAME = 'N3';
+> COUNT(*) SUM(V)
+> -------- ------
+> 10       480
+> rows: 1
+
+EXPLAIN SELECT V FROM TEST WHERE NAME IN ('N3', 'N5');
+>> SELECT "V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_NAME_IDX: NAME IN('N3', 'N5') */ WHERE "NAME" IN('N3', 'N5')
+
+EXPLAIN SELECT V FROM TEST WHERE CODE < 'C2';
+>> SELECT "V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE "CODE" < 'C2'
+
+SELECT COUNT(*) FROM TEST WHERE CODE < 'C2';
+>> 12
+
+UPDATE TEST SET NAME = 'X' WHERE CODE = 'C15';
+> update count: 1
+
+DELETE FROM TEST WHERE CODE = 'C25';
+> update count: 1
+
+SELECT COUNT(*), SUM(V) FROM TEST WHERE NAME = 'N5';
+> COUNT(*) SUM(V)
+> -------- ------
+> 8        460
+> rows: 1
+
+SELECT CODE FROM TEST WHERE NAME = 'X';
+>> C15
+
+INSERT INTO TEST VALUES ('C1', 'Y', 1);
+> exception DUPLICATE_KEY_1
+
+DROP TABLE TEST;
+> ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, C CHAR(5));
+> ok
+
+CREATE HASH INDEX TEST_C_IDX ON TEST(C);
+> ok
+
+INSERT INTO TEST VALUES (1, 'a'), (2, 'b ');
+> update count: 2
+
+SELECT ID FROM TEST WHERE C = 'a';
+>> 1
+
+SELECT ID FROM TEST WHERE C = 'a  ';
+>> 1
+
+SELECT ID FROM TEST WHERE C = CAST('b' AS CHAR(2));
+>> 2
+
+DROP TABLE TEST;
+> ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, STATUS VARCHAR, CREATED INT);
+> ok
+
+INSERT INTO TEST SELECT X, CASE WHEN MOD(X, 100) = 0 THEN 'PENDING' ELSE 'DONE' END, X FROM SYSTEM_RANGE(1, 10000);
+> update count: 10000
+
+CREATE INDEX TEST_PENDING_IDX ON TEST(CREATED) WHERE STATUS = 'PENDING' AND CREATED IS NOT NULL;
+> ok
+
+EXPLAIN ANALYZE SELECT ID FROM TEST WHERE STATUS = 'PENDING' AND CREATED > 9500;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_PENDING_IDX: CREATED > 9500 */ /* scanCount: 7 */ WHERE ("STATUS" = 'PENDING') AND ("CREATED" > 9500)
+
+EXPLAIN SELECT ID FROM TEST WHERE STATUS IN ('PENDING') AND CREATED = 9500;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_PENDING_IDX: CREATED = 9500 */ WHERE ("STATUS" = 'PENDING') AND ("CREATED" = 9500)
+
+EXPLAIN SELECT ID FROM TEST WHERE STATUS = 'PENDING' ORDER BY CREATED;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE "STATUS" = 'PENDING' ORDER BY "CREATED"
+
+EXPLAIN SELECT ID FROM TEST WHERE CREATED > 9500;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE "CREATED" > 9500
+
+EXPLAIN SELECT ID FROM TEST WHERE STATUS = 'DONE' AND CREATED > 9500;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE ("STATUS" = 'DONE') AND ("CREATED" > 9500)
+
+UPDATE TEST SET STATUS = 'PENDING' WHERE ID = 9999;
+> update count: 1
+
+UPDATE TEST SET STATUS = 'DONE' WHERE ID = 9900;
+> update count: 1
+
+UPDATE TEST SET CREATED = 9950 WHERE ID = 9700;
+> update count: 1
+
+DELETE FROM TEST WHERE ID = 9800;
+> update count: 1
+
+SELECT ID, CREATED FROM TEST WHERE STATUS = 'PENDING' AND CREATED > 9500;
+> ID    CREATED
+> ----- -------
+> 10000 10000
+> 9600  9600
+> 9700  9950
+> 9999  9999
+> rows: 4
+
+SELECT ID FROM TEST USE INDEX (TEST_PENDING_IDX) WHERE CREATED > 9997;
+> ID
+> -----
+> 10000
+> 9998
+> 9999
+> rows: 3
+
+CREATE UNIQUE INDEX TEST_CREATED_IDX ON TEST(CREATED) WHERE STATUS = 'PENDING';
+> ok
+
+INSERT INTO TEST VALUES (20000, 'DONE', 9600);
+> update count: 1
+
+INSERT INTO TEST VALUES (20001, 'PENDING', 9600);
+> exception DUPLICATE_KEY_1
+
+CREATE INDEX TEST_IDX ON TEST(CREATED) WHERE STATUS = RANDOM_UUID();
+> exception FEATURE_NOT_SUPPORTED_1
+
+ALTER TABLE TEST DROP COLUMN STATUS;
+> exception COLUMN_IS_REFERENCED_1
+
+DROP TABLE TEST;
+> ok
+
+CREATE MEMORY TABLE TEST(ID INT, V INT);
+> ok
+
+CREATE INDEX TEST_IDX ON TEST(V) WHERE ID > 0;
+> ok
+
+SCRIPT NODATA NOPASSWORDS NOSETTINGS NOVERSION TABLE TEST;
+> SCRIPT
+> ------------------------------------------------------------------------------------
+> CREATE USER IF NOT EXISTS "SA" PASSWORD '' ADMIN;
+> CREATE MEMORY TABLE "PUBLIC"."TEST"( "ID" INTEGER, "V" INTEGER );
+> -- 0 +/- SELECT COUNT(*) FROM PUBLIC.TEST;
+> CREATE INDEX "PUBLIC"."TEST_IDX" ON "PUBLIC"."TEST"("V" NULLS FIRST) WHERE "ID" > 0;
+> rows (ordered): 4
+
+DROP TABLE TEST;
+> ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, EMAIL VARCHAR, CREATED TIMESTAMP);
+> ok
+
+INSERT INTO TEST SELECT X, 'User' || X || '@Example.com', TIMESTAMP '2024-01-01 00:00:00' + X * INTERVAL '1' HOUR
+    FROM SYSTEM_RANGE(1, 1000);
+> update count: 1000
+
+CREATE INDEX TEST_EMAIL_IDX ON TEST((LOWER(EMAIL)));
+> ok
+
+CREATE INDEX TEST_DAY_IDX ON TEST((CAST(CREATED AS DATE)) DESC, ID);
+> ok
+
+SELECT COLUMN_NAME, ORDERING_SPECIFICATION FROM INFORMATION_SCHEMA.INDEX_COLUMNS
+    WHERE INDEX_NAME IN ('TEST_EMAIL_IDX', 'TEST_DAY_IDX') ORDER BY INDEX_NAME, ORDINAL_POSITION;
+> COLUMN_NAME             ORDERING_SPECIFICATION
+> ----------------------- ----------------------
+> CAST("CREATED" AS DATE) DESC
+> ID                      ASC
+> LOWER("EMAIL")          ASC
+> rows (ordered): 3
+
+EXPLAIN SELECT ID FROM TEST WHERE LOWER(EMAIL) = 'user5@example.com';
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_EMAIL_IDX: (LOWER(EMAIL)) = 'user5@example.com' */ WHERE LOWER("EMAIL") = 'user5@example.com'
+
+SELECT ID FROM TEST WHERE LOWER(EMAIL) = 'user5@example.com';
+>> 5
+
+EXPLAIN SELECT ID FROM TEST T WHERE LOWER(T.EMAIL) IN ('user5@example.com', 'user7@example.com');
+>> SELECT "ID" FROM "PUBLIC"."TEST" "T" /* PUBLIC.TEST_EMAIL_IDX: (LOWER(EMAIL)) IN('user5@example.com', 'user7@example.com') */ WHERE LOWER("T"."EMAIL") IN('user5@example.com', 'user7@example.com')
+
+SELECT ID FROM TEST T WHERE LOWER(T.EMAIL) IN ('user5@example.com', 'user7@example.com');
+> ID
+> --
+> 5
+> 7
+> rows: 2
+
+EXPLAIN SELECT COUNT(*) FROM TEST WHERE CAST(CREATED AS DATE) BETWEEN DATE '2024-01-03' AND DATE '2024-01-04';
+>> SELECT COUNT(*) FROM "PUBLIC"."TEST" /* PUBLIC.TEST_DAY_IDX: (CAST(CREATED AS DATE)) >= DATE '2024-01-03' AND (CAST(CREATED AS DATE)) <= DATE '2024-01-04' */ WHERE CAST("CREATED" AS DATE) BETWEEN DATE '2024-01-03' AND DATE '2024-01-04'
+
+SELECT COUNT(*) FROM TEST WHERE CAST(CREATED AS DATE) BETWEEN DATE '2024-01-03' AND DATE '2024-01-04';
+>> 48
+
+EXPLAIN SELECT ID FROM TEST WHERE UPPER(EMAIL) = 'USER5@EXAMPLE.COM';
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE UPPER("EMAIL") = 'USER5@EXAMPLE.COM'
+
+UPDATE TEST SET EMAIL = 'New@Example.com' WHERE ID = 5;
+> update count: 1
+
+SELECT ID FROM TEST WHERE LOWER(EMAIL) IN ('user5@example.com', 'new@example.com');
+>> 5
+
+DELETE FROM TEST WHERE ID = 5;
+> update count: 1
+
+SELECT ID FROM TEST WHERE LOWER(EMAIL) = 'new@example.com';
+> ID
+> --
+> rows: 0
+
+CREATE UNIQUE INDEX TEST_EMAIL_UNIQUE_IDX ON TEST((LOWER(EMAIL)));
+> ok
+
+INSERT INTO TEST VALUES (2000, 'USER6@example.com', NULL);
+> exception DUPLICATE_KEY_1
+
+CREATE INDEX TEST_IDX ON TEST((RAND() + ID));
+> exception FEATURE_NOT_SUPPORTED_1
+
+CREATE INDEX TEST_IDX ON TEST((ID + (SELECT COUNT(*) FROM TEST)));
+> exception FEATURE_NOT_SUPPORTED_1
+
+CREATE HASH INDEX TEST_IDX ON TEST((ID + 1));
+> exception FEATURE_NOT_SUPPORTED_1
+
+ALTER TABLE TEST ADD COLUMN V INT;
+> ok
+
+EXPLAIN SELECT ID FROM TEST WHERE LOWER(EMAIL) = 'user6@example.com';
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_EMAIL_UNIQUE_IDX: (LOWER(EMAIL)) = 'user6@example.com' */ WHERE LOWER("EMAIL") = 'user6@example.com'
+
+ALTER TABLE TEST DROP COLUMN EMAIL;
+> ok
+
+SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'TEST' AND INDEX_TYPE_NAME <> 'PRIMARY KEY';
+>> TEST_DAY_IDX
+
+DROP TABLE TEST;
+> ok
+
+CREATE MEMORY TABLE TEST(A INT, B INT GENERATED ALWAYS AS (A * 2));
+> ok
+
+CREATE INDEX TEST_IDX ON TEST((A + B) DESC);
+> ok
+
+CREATE INDEX TEST_A_IDX ON TEST((A));
+> ok
+
+SCRIPT NODATA NOPASSWORDS NOSETTINGS NOVERSION TABLE TEST;
+> SCRIPT
+> ----------------------------------------------------------------------------------------------
+> CREATE USER IF NOT EXISTS "SA" PASSWORD '' ADMIN;
+> CREATE MEMORY TABLE "PUBLIC"."TEST"( "A" INTEGER, "B" INTEGER GENERATED ALWAYS AS ("A" * 2) );
+> -- 0 +/- SELECT COUNT(*) FROM PUBLIC.TEST;
+> CREATE INDEX "PUBLIC"."TEST_IDX" ON "PUBLIC"."TEST"(("A" + "B") DESC NULLS LAST);
+> CREATE INDEX "PUBLIC"."TEST_A_IDX" ON "PUBLIC"."TEST"("A" NULLS FIRST);
+> rows (ordered): 5
+
+DROP TABLE TEST;
+> ok
@@ -56,16 +56,16 @@ SELECT B, NOT B IS NOT UNKNOWN, NOT N IS NOT UNKNOWN, NOT B IS NOT FALSE, NOT N
 > rows: 3
 
 EXPLAIN SELECT B FROM TEST WHERE B IS UNKNOWN;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS UNKNOWN */ WHERE "B" IS UNKNOWN
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS UNKNOWN */ /* index only */ WHERE "B" IS UNKNOWN
 
 SELECT B FROM TEST WHERE B IS UNKNOWN;
 >> null
 
 EXPLAIN SELECT N FROM TEST WHERE N IS UNKNOWN;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS UNKNOWN
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS UNKNOWN
 
 EXPLAIN SELECT B FROM TEST WHERE B IS NOT UNKNOWN;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IN(FALSE, TRUE) */ WHERE "B" IS NOT UNKNOWN
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IN(FALSE, TRUE) */ /* index only */ WHERE "B" IS NOT UNKNOWN
 
 SELECT B FROM TEST WHERE B IS NOT UNKNOWN;
 > B
@@ -75,19 +75,19 @@ SELECT B FROM TEST WHERE B IS NOT UNKNOWN;
 > rows: 2
 
 EXPLAIN SELECT N FROM TEST WHERE N IS NOT UNKNOWN;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS NOT UNKNOWN
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS NOT UNKNOWN
 
 EXPLAIN SELECT B FROM TEST WHERE B IS FALSE;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS FALSE */ WHERE "B" IS FALSE
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS FALSE */ /* index only */ WHERE "B" IS FALSE
 
 SELECT B FROM TEST WHERE B IS FALSE;
 >> FALSE
 
 EXPLAIN SELECT N FROM TEST WHERE N IS FALSE;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS FALSE
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS FALSE
 
 EXPLAIN SELECT B FROM TEST WHERE B IS NOT FALSE;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ WHERE "B" IS NOT FALSE
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ /* index only */ WHERE "B" IS NOT FALSE
 
 SELECT B FROM TEST WHERE B IS NOT FALSE;
 > B
@@ -97,19 +97,19 @@ SELECT B FROM TEST WHERE B IS NOT FALSE;
 > rows: 2
 
 EXPLAIN SELECT N FROM TEST WHERE N IS NOT FALSE;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS NOT FALSE
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS NOT FALSE
 
 EXPLAIN SELECT B FROM TEST WHERE B IS TRUE;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS TRUE */ WHERE "B" IS TRUE
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX: B IS TRUE */ /* index only */ WHERE "B" IS TRUE
 
 SELECT B FROM TEST WHERE B IS TRUE;
 >> TRUE
 
 EXPLAIN SELECT N FROM TEST WHERE N IS TRUE;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS TRUE
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS TRUE
 
 EXPLAIN SELECT B FROM TEST WHERE B IS NOT TRUE;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ WHERE "B" IS NOT TRUE
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ /* index only */ WHERE "B" IS NOT TRUE
 
 SELECT B FROM TEST WHERE B IS NOT TRUE;
 > B
@@ -119,7 +119,7 @@ SELECT B FROM TEST WHERE B IS NOT TRUE;
 > rows: 2
 
 EXPLAIN SELECT N FROM TEST WHERE N IS NOT TRUE;
->> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ WHERE "N" IS NOT TRUE
+>> SELECT "N" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_N_IDX */ /* index only */ WHERE "N" IS NOT TRUE
 
 DELETE FROM TEST WHERE B IS NULL;
 > update count: 1
@@ -129,7 +129,7 @@ ALTER TABLE TEST ALTER COLUMN B SET NOT NULL;
 
 -- If column is NOT NULL index condition for IS NOT UNKNOWN shouldn't exist
 EXPLAIN SELECT B FROM TEST WHERE B IS NOT UNKNOWN;
->> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ WHERE "B" IS NOT UNKNOWN
+>> SELECT "B" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_B_IDX */ /* index only */ WHERE "B" IS NOT UNKNOWN
 
 DROP TABLE TEST;
 > ok
@@ -49,7 +49,7 @@ SELECT CONSTRAINT_NAME, TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION FROM INFORMATI
 > rows: 1
 
 EXPLAIN SELECT B, C FROM TEST ORDER BY C, B;
->> SELECT "B", "C" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ ORDER BY 2, 1 /* index sorted */
+>> SELECT "B", "C" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* index only */ ORDER BY 2, 1 /* index sorted */
 
 DROP TABLE TEST;
 > ok
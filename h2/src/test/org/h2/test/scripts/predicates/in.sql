@@ -390,7 +390,7 @@ SELECT V, V IN (1, 1000000000000) FROM TEST;
 > rows: 2
 
 EXPLAIN SELECT V, V IN (1, 1000000000000) FROM TEST;
->> SELECT "V", "V" IN(1, 1000000000000) FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */
+>> SELECT "V", "V" IN(1, 1000000000000) FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX */ /* index only */
 
 DROP TABLE TEST;
 > ok
@@ -426,3 +426,66 @@ EXPLAIN SELECT V, V IN (SELECT * FROM TEST) FROM (VALUES 1, 1000000000000) T(V);
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(A INT, B INT, C INT, PRIMARY KEY(A, B)) AS SELECT X / 10, MOD(X, 10), X FROM SYSTEM_RANGE(0, 99);
+> ok
+
+SELECT * FROM TEST WHERE (A, B) IN ((3, 4), (1, 2), (1, 5), (3, 4), (NULL, 1));
+> A B C
+> - - --
+> 1 2 12
+> 1 5 15
+> 3 4 34
+> rows: 3
+
+EXPLAIN ANALYZE SELECT * FROM TEST WHERE (A, B) IN ((3, 4), (1, 2), (1, 5), (3, 4), (NULL, 1));
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.PRIMARY_KEY_2: A IN(3, 1, 1, 3, NULL) AND B IN(4, 2, 5, 4, 1) */ /* scanCount: 4 */ WHERE ROW ("A", "B") IN(ROW (3, 4), ROW (1, 2), ROW (1, 5), ROW (3, 4), ROW (NULL, 1))
+
+SELECT * FROM TEST WHERE A IN (5, 1) AND B IN (3, 2);
+> A B C
+> - - --
+> 1 2 12
+> 1 3 13
+> 5 2 52
+> 5 3 53
+> rows: 4
+
+EXPLAIN ANALYZE SELECT * FROM TEST WHERE A IN (5, 1) AND B IN (3, 2);
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.PRIMARY_KEY_2: A IN(5, 1) AND B IN(3, 2) */ /* scanCount: 5 */ WHERE ("A" IN(5, 1)) AND ("B" IN(3, 2))
+
+SELECT * FROM TEST WHERE A = 2 AND B IN (7, 1, 1);
+> A B C
+> - - --
+> 2 1 21
+> 2 7 27
+> rows: 2
+
+EXPLAIN ANALYZE SELECT * FROM TEST WHERE A = 2 AND B IN (7, 1, 1);
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.PRIMARY_KEY_2: B IN(7, 1, 1) AND A = 2 */ /* scanCount: 3 */ WHERE ("B" IN(7, 1, 1)) AND ("A" = 2)
+
+SELECT * FROM TEST WHERE A IN (SELECT X FROM SYSTEM_RANGE(3, 4)) AND B IN (1, 2);
+> A B C
+> - - --
+> 3 1 31
+> 3 2 32
+> 4 1 41
+> 4 2 42
+> rows: 4
+
+CREATE INDEX TEST_B_C_IDX ON TEST(B DESC, C);
+> ok
+
+SELECT * FROM TEST USE INDEX (TEST_B_C_IDX) WHERE B IN (5, 1) AND C IN (55, 21, 11, 15);
+> A B C
+> - - --
+> 1 1 11
+> 1 5 15
+> 2 1 21
+> 5 5 55
+> rows: 4
+
+EXPLAIN ANALYZE SELECT * FROM TEST USE INDEX (TEST_B_C_IDX) WHERE B IN (5, 1) AND C IN (55, 21, 11, 15);
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" USE INDEX ("TEST_B_C_IDX") /* PUBLIC.TEST_B_C_IDX: B IN(5, 1) AND C IN(55, 21, 11, 15) */ /* scanCount: 5 */ WHERE ("B" IN(5, 1)) AND ("C" IN(55, 21, 11, 15))
+
+DROP TABLE TEST;
+> ok
@@ -217,7 +217,7 @@ CREATE INDEX T1_V_IDX ON T1(V);
 > ok
 
 EXPLAIN SELECT * FROM T1 WHERE V = ANY(ARRAY[1, 3]);
->> SELECT "PUBLIC"."T1"."V" FROM "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V IN(1, 3) */ WHERE "V" = ANY(ARRAY [1, 3])
+>> SELECT "PUBLIC"."T1"."V" FROM "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V IN(1, 3) */ /* index only */ WHERE "V" = ANY(ARRAY [1, 3])
 
 SELECT * FROM T1 WHERE V = ANY(ARRAY[1, 3]);
 > V
@@ -235,7 +235,7 @@ SELECT * FROM T1 WHERE V = ANY(ARRAY[]);
 > rows: 0
 
 EXPLAIN SELECT V, A FROM T1 JOIN T2 ON T1.V = ANY(T2.A);
->> SELECT "V", "A" FROM "PUBLIC"."T2" /* PUBLIC.T2.tableScan */ INNER JOIN "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V = ANY(T2.A) */ ON 1=1 WHERE "T1"."V" = ANY("T2"."A")
+>> SELECT "V", "A" FROM "PUBLIC"."T2" /* PUBLIC.T2.tableScan */ INNER JOIN "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V = ANY(T2.A) */ /* index only */ ON 1=1 WHERE "T1"."V" = ANY("T2"."A")
 
 SELECT V, A FROM T1 JOIN T2 ON T1.V = ANY(T2.A);
 > V A
@@ -249,7 +249,7 @@ SELECT V, A FROM T1 JOIN T2 ON T1.V = ANY(T2.A);
 > rows: 6
 
 EXPLAIN SELECT * FROM T1 WHERE T1.V = ANY(CAST((SELECT ARRAY_AGG(S.V) FROM T1 S) AS INTEGER ARRAY));
->> SELECT "PUBLIC"."T1"."V" FROM "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V = ANY(CAST((SELECT ARRAY_AGG(S.V) FROM PUBLIC.T1 S /* PUBLIC.T1_V_IDX */) AS INTEGER ARRAY)) */ WHERE "T1"."V" = ANY(CAST((SELECT ARRAY_AGG("S"."V") FROM "PUBLIC"."T1" "S" /* PUBLIC.T1_V_IDX */) AS INTEGER ARRAY))
+>> SELECT "PUBLIC"."T1"."V" FROM "PUBLIC"."T1" /* PUBLIC.T1_V_IDX: V = ANY(CAST((SELECT ARRAY_AGG(S.V) FROM PUBLIC.T1 S /* PUBLIC.T1_V_IDX */ /* index only */) AS INTEGER ARRAY)) */ /* index only */ WHERE "T1"."V" = ANY(CAST((SELECT ARRAY_AGG("S"."V") FROM "PUBLIC"."T1" "S" /* PUBLIC.T1_V_IDX */ /* index only */) AS INTEGER ARRAY))
 
 SELECT * FROM T1 WHERE T1.V = ANY(CAST((SELECT ARRAY_AGG(S.V) FROM T1 S) AS INTEGER ARRAY));
 > V
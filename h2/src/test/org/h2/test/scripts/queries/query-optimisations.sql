@@ -16,7 +16,7 @@ insert into person select convert(x,varchar) as firstname, (convert(x,varchar) |
 -- can directly use the index.
 --
 explain analyze SELECT * FROM person WHERE firstname IN ('FirstName1', 'FirstName2') AND lastname='LastName1';
->> SELECT "PUBLIC"."PERSON"."FIRSTNAME", "PUBLIC"."PERSON"."LASTNAME" FROM "PUBLIC"."PERSON" /* PUBLIC.PERSON_1: FIRSTNAME IN('FirstName1', 'FirstName2') AND LASTNAME = 'LastName1' */ /* scanCount: 1 */ WHERE ("FIRSTNAME" IN('FirstName1', 'FirstName2')) AND ("LASTNAME" = 'LastName1')
+>> SELECT "PUBLIC"."PERSON"."FIRSTNAME", "PUBLIC"."PERSON"."LASTNAME" FROM "PUBLIC"."PERSON" /* PUBLIC.PERSON_1: FIRSTNAME IN('FirstName1', 'FirstName2') AND LASTNAME = 'LastName1' */ /* index only */ /* scanCount: 1 */ WHERE ("FIRSTNAME" IN('FirstName1', 'FirstName2')) AND ("LASTNAME" = 'LastName1')
 
 CREATE TABLE TEST(A SMALLINT PRIMARY KEY, B SMALLINT);
 > ok
@@ -31,13 +31,13 @@ INSERT INTO TEST VALUES (1, 2), (3, 4);
 > update count: 2
 
 EXPLAIN SELECT _ROWID_ FROM TEST WHERE B = 4;
->> SELECT _ROWID_ FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT _ROWID_ FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 EXPLAIN SELECT _ROWID_, A FROM TEST WHERE B = 4;
->> SELECT _ROWID_, "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT _ROWID_, "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 EXPLAIN SELECT A FROM TEST WHERE B = 4;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 SELECT _ROWID_, A FROM TEST WHERE B = 4;
 > _ROWID_ A
@@ -61,13 +61,13 @@ INSERT INTO TEST VALUES (1, 2), (3, 4);
 > update count: 2
 
 EXPLAIN SELECT _ROWID_ FROM TEST WHERE B = 4;
->> SELECT _ROWID_ FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT _ROWID_ FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 EXPLAIN SELECT _ROWID_, A FROM TEST WHERE B = 4;
->> SELECT _ROWID_, "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT _ROWID_, "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 EXPLAIN SELECT A FROM TEST WHERE B = 4;
->> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ WHERE "B" = 4
+>> SELECT "A" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_IDX_1: B = 4 */ /* index only */ WHERE "B" = 4
 
 SELECT _ROWID_, A FROM TEST WHERE B = 4;
 > _ROWID_ A
@@ -89,10 +89,10 @@ SELECT * FROM TEST WHERE V >= -1;
 
 -- H2 may use the index for a table scan, but may not create index conditions due to incompatible type
 EXPLAIN SELECT * FROM TEST WHERE V >= -1;
->> SELECT "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_INDEX */ WHERE "V" >= -1
+>> SELECT "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_INDEX */ /* index only */ WHERE "V" >= -1
 
 EXPLAIN SELECT * FROM TEST WHERE V IN (-1, -3);
->> SELECT "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_INDEX */ WHERE "V" IN(-1, -3)
+>> SELECT "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_INDEX */ /* index only */ WHERE "V" IN(-1, -3)
 
 SELECT * FROM TEST WHERE V < -1;
 >> -2
@@ -168,7 +168,7 @@ SELECT T FROM A JOIN B ON T >= D;
 >> 2020-01-01 00:01:02+01
 
 EXPLAIN SELECT T FROM A JOIN B ON T >= D;
->> SELECT "T" FROM "PUBLIC"."B" /* PUBLIC.B.tableScan */ INNER JOIN "PUBLIC"."A" /* PUBLIC.CONSTRAINT_INDEX_4: T >= D */ ON 1=1 WHERE "T" >= "D"
+>> SELECT "T" FROM "PUBLIC"."B" /* PUBLIC.B.tableScan */ INNER JOIN "PUBLIC"."A" /* PUBLIC.CONSTRAINT_INDEX_4: T >= D */ /* index only */ ON 1=1 WHERE "T" >= "D"
 
 SET TIME ZONE LOCAL;
 > ok
@@ -204,7 +204,7 @@ SELECT T AT TIME ZONE 'UTC' FROM TEST GROUP BY T;
 > rows: 3
 
 EXPLAIN SELECT T AT TIME ZONE 'UTC' FROM TEST GROUP BY T;
->> SELECT "T" AT TIME ZONE 'UTC' FROM "PUBLIC"."TEST" /* PUBLIC.TEST_T_IDX */ GROUP BY "T" /* group sorted */
+>> SELECT "T" AT TIME ZONE 'UTC' FROM "PUBLIC"."TEST" /* PUBLIC.TEST_T_IDX */ /* index only */ GROUP BY "T" /* group sorted */
 
 DROP TABLE TEST;
 > ok
@@ -293,10 +293,10 @@ CREATE INDEX T1_A_B_IDX ON T1(A, B);
 > ok
 
 EXPLAIN SELECT * FROM T1 WHERE (A, B) = (1, 2);
->> SELECT "PUBLIC"."T1"."A", "PUBLIC"."T1"."B" FROM "PUBLIC"."T1" /* PUBLIC.T1_A_B_IDX: A = 1 AND B = 2 */ WHERE ROW ("A", "B") = ROW (1, 2)
+>> SELECT "PUBLIC"."T1"."A", "PUBLIC"."T1"."B" FROM "PUBLIC"."T1" /* PUBLIC.T1_A_B_IDX: A = 1 AND B = 2 */ /* index only */ WHERE ROW ("A", "B") = ROW (1, 2)
 
 EXPLAIN SELECT * FROM T1 WHERE (A, B) > (1, 2);
->> SELECT "PUBLIC"."T1"."A", "PUBLIC"."T1"."B" FROM "PUBLIC"."T1" /* PUBLIC.T1_A_B_IDX: A >= 1 */ WHERE ROW ("A", "B") > ROW (1, 2)
+>> SELECT "PUBLIC"."T1"."A", "PUBLIC"."T1"."B" FROM "PUBLIC"."T1" /* PUBLIC.T1_A_B_IDX: A >= 1 */ /* index only */ WHERE ROW ("A", "B") > ROW (1, 2)
 
 DROP TABLE T1;
 > ok
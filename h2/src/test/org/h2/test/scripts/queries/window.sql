@@ -230,3 +230,76 @@ SELECT SUM(A) OVER (ORDER BY A, B RANGE BETWEEN UNBOUNDED PRECEDING AND 1 FOLLOW
 
 SELECT SUM(A) OVER (GROUPS BETWEEN UNBOUNDED PRECEDING AND 1 FOLLOWING) S FROM VALUES (1, 2) T(A, B);
 > exception SYNTAX_ERROR_2
+
+SELECT I, V,
+    SUM(V) OVER W S, COUNT(V) OVER W C, COUNT(*) OVER W CA, AVG(V) OVER W A, MIN(V) OVER W MI, MAX(V) OVER W MA
+    FROM VALUES (1, 3), (2, NULL), (3, 1), (4, 5), (5, 2), (6, NULL), (7, 4), (8, 1) T(I, V)
+    WINDOW W AS (ORDER BY I ROWS BETWEEN 2 PRECEDING AND CURRENT ROW) ORDER BY I;
+> I V    S C CA A                  MI MA
+> - ---- - - -- ------------------ -- --
+> 1 3    3 1 1  3.0                3  3
+> 2 null 3 1 2  3.0                3  3
+> 3 1    4 2 3  2.0                1  3
+> 4 5    6 2 3  3.0                1  5
+> 5 2    8 3 3  2.6666666666666665 1  5
+> 6 null 7 2 3  3.5                2  5
+> 7 4    6 2 3  3.0                2  4
+> 8 1    5 2 3  2.5                1  4
+> rows (ordered): 8
+
+SELECT I, V, SUM(V) OVER W1 S1, MIN(V) OVER W1 MI1, MAX(V) OVER W1 MA1,
+    SUM(V) OVER W2 S2, MIN(V) OVER W2 MI2, MAX(V) OVER W2 MA2
+    FROM VALUES (1, 3), (2, NULL), (3, 1), (4, 5), (5, 2), (6, NULL), (7, 4), (8, 1) T(I, V)
+    WINDOW W1 AS (ORDER BY I ROWS BETWEEN 1 FOLLOWING AND 3 FOLLOWING),
+    W2 AS (ORDER BY I ROWS BETWEEN 3 PRECEDING AND 2 PRECEDING) ORDER BY I;
+> I V    S1   MI1  MA1  S2   MI2  MA2
+> - ---- ---- ---- ---- ---- ---- ----
+> 1 3    6    1    5    null null null
+> 2 null 8    1    5    null null null
+> 3 1    7    2    5    3    3    3
+> 4 5    6    2    4    3    3    3
+> 5 2    5    1    4    1    1    1
+> 6 null 5    1    4    6    1    5
+> 7 4    1    1    1    7    2    5
+> 8 1    null null null 2    2    2
+> rows (ordered): 8
+
+SELECT G, V, SUM(V) FILTER (WHERE V > 1) OVER W S, COUNT(*) OVER W C,
+    MIN(V) FILTER (WHERE V > 1) OVER W MI, MAX(V) OVER W MA, VAR_POP(V) OVER W VP
+    FROM VALUES (1, 4), (1, 2), (2, 1), (4, 8), (5, 2), (5, 6), (6, 3), (9, 5) T(G, V)
+    WINDOW W AS (ORDER BY G RANGE BETWEEN 1 PRECEDING AND 1 FOLLOWING) ORDER BY G, V;
+> G V S  C MI MA VP
+> - - -- - -- -- ------------------
+> 1 2 6  3 2  4  1.5555555555555556
+> 1 4 6  3 2  4  1.5555555555555556
+> 2 1 6  3 2  4  1.5555555555555556
+> 4 8 16 3 2  8  6.222222222222222
+> 5 2 19 4 2  8  5.6875
+> 5 6 19 4 2  8  5.6875
+> 6 3 11 3 2  6  2.888888888888889
+> 9 5 5  1 5  5  0.0
+> rows (ordered): 8
+
+SELECT I, VAR_POP(V) OVER W VP, STDDEV_SAMP(V) OVER W SS
+    FROM VALUES (1, 1e17), (2, 1), (3, 2), (4, 3) T(I, V)
+    WINDOW W AS (ORDER BY I ROWS BETWEEN CURRENT ROW AND 1 FOLLOWING) ORDER BY I;
+> I VP     SS
+> - ------ ---------------------
+> 1 2.5E33 7.0710678118654752E16
+> 2 0.25   0.7071067811865476
+> 3 0.25   0.7071067811865476
+> 4 0.0    null
+> rows (ordered): 4
+
+SELECT I, VAR_SAMP(V) OVER W VS, STDDEV_POP(V) OVER W SP
+    FROM VALUES (1, CAST('Infinity' AS DOUBLE PRECISION)), (2, CAST('NaN' AS DOUBLE PRECISION)), (3, 1), (4, 2),
+        (5, 4) T(I, V)
+    WINDOW W AS (ORDER BY I ROWS BETWEEN CURRENT ROW AND 1 FOLLOWING) ORDER BY I;
+> I VS   SP
+> - ---- ---
+> 1 NaN  NaN
+> 2 NaN  NaN
+> 3 0.5  0.5
+> 4 2.0  1.0
+> 5 null 0.0
+> rows (ordered): 5
@@ -17,6 +17,7 @@ import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import org.h2.mvstore.BulkLoader;
 import org.h2.mvstore.FileStore;
 import org.h2.mvstore.Chunk;
 import org.h2.mvstore.Cursor;
@@ -103,6 +104,7 @@ public class TestMVStore extends TestBase {
         testMeta();
         testInMemory();
         testLargeImport();
+        testBulkLoad();
         testBtreeStore();
         testCompact();
         testCompactMapNotOpen();
@@ -1656,6 +1658,86 @@ public class TestMVStore extends TestBase {
         }
     }
 
+    private void testBulkLoad() {
+        try (MVStore s = new MVStore.Builder().open()) {
+            for (int count : new int[] { 0, 1, 47, 48, 49, 2500, 100_000 }) {
+                MVMap<Integer, String> m = s.openMap("data" + count);
+                BulkLoader<Integer, String> loader = new BulkLoader<>(m);
+                for (int i = 0; i < count; i++) {
+                    loader.add(i * 2, "v" + i);
+                }
+                assertEquals(0, m.size());
+                loader.finish();
+                assertEquals(count, loader.getCount());
+                checkBulkLoad(m, count);
+            }
+            MVMap<Integer, String> m = s.openMap("data1");
+            assertThrows(IllegalArgumentException.class, () -> new BulkLoader<>(m));
+            MVMap<Integer, String> m2 = s.openMap("unordered");
+            BulkLoader<Integer, String> loader = new BulkLoader<>(m2).setFillFactor(50);
+            loader.add(2, "a");
+            assertThrows(IllegalArgumentException.class, () -> loader.add(2, "b"));
+            assertThrows(IllegalArgumentException.class, () -> loader.add(1, "b"));
+            assertThrows(IllegalArgumentException.class, () -> loader.setFillFactor(90));
+            loader.finish();
+            assertEquals(1, m2.size());
+        }
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        int count = 300_000;
+        try (MVStore s = new MVStore.Builder().fileName(fileName).autoCommitBufferSize(64).open()) {
+            MVMap<Integer, String> m = s.openMap("data");
+            BulkLoader<Integer, String> loader = new BulkLoader<>(m).setFillFactor(90);
+            for (int i = 0; i < count; i++) {
+                loader.add(i * 2, "v" + i);
+            }
+            // pages were attached and saved during the load
+            assertTrue(m.size() > 0);
+            loader.finish();
+            checkBulkLoad(m, count);
+            s.commit();
+        }
+        try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+            MVMap<Integer, String> m = s.openMap("data");
+            checkBulkLoad(m, count);
+            for (int i = 0; i < count; i += 3) {
+                m.remove(i * 2);
+            }
+            s.commit();
+            s.compact(100, 1024 * 1024);
+            assertEquals(count - (count + 2) / 3, m.size());
+            assertEquals("v1", m.get(2));
+            assertNull(m.get(0));
+        }
+        FileUtils.delete(fileName);
+    }
+
+    private void checkBulkLoad(MVMap<Integer, String> m, int count) {
+        assertEquals(count, m.size());
+        int i = 0;
+        for (Entry<Integer, String> e : m.entrySet()) {
+            assertEquals(i * 2, e.getKey().intValue());
+            assertEquals("v" + i, e.getValue());
+            i++;
+        }
+        assertEquals(count, i);
+        for (i = 0; i < count; i += 97) {
+            assertEquals("v" + i, m.get(i * 2));
+            assertNull(m.get(i * 2 + 1));
+            assertEquals(i, (int) m.getKeyIndex(i * 2));
+        }
+        if (count > 0) {
+            assertEquals(count * 2 - 2, m.lastKey().intValue());
+        }
+        m.put(-1, "x");
+        m.put(count * 2 + 9, "y");
+        m.put(3, "z");
+        assertEquals(count + 3, m.size());
+        assertEquals("z", m.remove(3));
+        assertEquals("x", m.remove(-1));
+        assertEquals("y", m.remove(count * 2 + 9));
+    }
+
     private void testBtreeStore() {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2004-2023 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.test.store;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.Replica;
+import org.h2.mvstore.ReplicationSource;
+import org.h2.store.fs.FileUtils;
+import org.h2.test.TestBase;
+
+/**
+ * Tests asynchronous replication of the MVStore.
+ */
+public class TestMVStoreReplication extends TestBase {
+
+    private static final String SECRET = "replication secret";
+
+    /**
+     * Run just this test.
+     *
+     * @param a ignored
+     */
+    public static void main(String... a) throws Exception {
+        TestBase.createCaller().init().testFromMain();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !config.memory;
+    }
+
+    @Override
+    public void test() throws Exception {
+        FileUtils.createDirectories(getBaseDir());
+        testReplication();
+        testAuthentication();
+        testConsistentSnapshots();
+        testCompaction();
+        testSlowReplica();
+        testConnectDuringWrites();
+    }
+
+    private String getFileName(String name) {
+        String fileName = getBaseDir() + '/' + name + ".mv.db";
+        FileUtils.delete(fileName);
+        return fileName;
+    }
+
+    private void testReplication() throws Exception {
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            for (int i = 0; i < 100; i++) {
+                map.put(i, "Hello " + i);
+            }
+            s.commit();
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                assertEquals(1, source.getReplicaCount());
+                MVMap<Integer, String> r = replica.getStore().openMap("data");
+                assertEquals(100, r.size());
+                assertEquals("Hello 5", r.get(5));
+                assertEquals(s.getCurrentVersion(), replica.getVersion());
+
+                map.put(200, "World");
+                map.remove(5);
+                MVMap<String, String> other = s.openMap("other");
+                other.put("a", "b");
+                long version = s.commit();
+                assertTrue(replica.waitForVersion(version, 10_000));
+                assertEquals(version, replica.getVersion());
+                assertEquals(100, r.size());
+                assertEquals("World", r.get(200));
+                assertNull(r.get(5));
+                assertEquals("b", replica.getStore().<String, String>openMap("other").get("a"));
+
+                s.removeMap(other);
+                version = s.commit();
+                assertTrue(replica.waitForVersion(version, 10_000));
+                assertFalse(replica.getStore().hasMap("other"));
+
+                // heartbeats keep the lag small while nothing is written
+                Thread.sleep(300);
+                assertEquals(version, replica.getSourceVersion());
+                assertTrue(replica.isConnected());
+                assertSmaller(replica.getLag(), 5_000);
+            }
+        } finally {
+            source.close();
+        }
+        // the copy is a valid store
+        try (MVStore s = new MVStore.Builder().fileName(replicaName).readOnly().open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            assertEquals(100, map.size());
+            assertEquals("World", map.get(200));
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+    private void testAuthentication() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new ReplicationSource(0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ReplicationSource(null, 0, SECRET));
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            map.put(1, "Hello");
+            s.commit();
+            assertThrows(MVStoreException.class,
+                    () -> Replica.open("localhost", source.getPort(), replicaName, "wrong"));
+            assertEquals(0, source.getReplicaCount());
+            // nothing was received
+            assertFalse(FileUtils.exists(replicaName));
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                assertEquals("Hello", replica.getStore().<Integer, String>openMap("data").get(1));
+            }
+        } finally {
+            source.close();
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+    private void testConsistentSnapshots() throws Exception {
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            s.setAutoCommitDelay(0);
+            MVMap<Integer, Integer> map = s.openMap("data");
+            for (int i = 0; i < 1000; i++) {
+                map.put(i, 100);
+            }
+            s.commit();
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                MVMap<Integer, Integer> r = replica.getStore().openMap("data");
+                AtomicBoolean stop = new AtomicBoolean();
+                AtomicReference<String> error = new AtomicReference<>();
+                Thread reader = new Thread(() -> {
+                    while (!stop.get()) {
+                        // each committed version keeps the total
+                        long sum = 0;
+                        int count = 0;
+                        for (Integer v : r.values()) {
+                            sum += v;
+                            count++;
+                        }
+                        if (count != 1000 || sum != 100_000) {
+                            error.set("count " + count + " sum " + sum);
+                            break;
+                        }
+                    }
+                });
+                reader.start();
+                Random random = new Random(1);
+                long version = 0;
+                for (int i = 0; i < 2000; i++) {
+                    int from = random.nextInt(1000), to = random.nextInt(1000);
+                    int amount = random.nextInt(10);
+                    map.put(from, map.get(from) - amount);
+                    map.put(to, map.get(to) + amount);
+                    version = s.commit();
+                }
+                assertTrue(replica.waitForVersion(version, 10_000));
+                stop.set(true);
+                reader.join();
+                assertNull(error.get());
+                for (int i = 0; i < 1000; i++) {
+                    assertEquals(map.get(i), r.get(i));
+                }
+            }
+        } finally {
+            source.close();
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+    private void testCompaction() throws Exception {
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            s.setRetentionTime(0);
+            s.setVersionsToKeep(0);
+            MVMap<Integer, String> map = s.openMap("data");
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                MVMap<Integer, String> r = replica.getStore().openMap("data");
+                Random random = new Random(1);
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < 500; i++) {
+                        map.put(random.nextInt(2000), "Hello World " + round + ' ' + i);
+                    }
+                    for (int i = 0; i < 200; i++) {
+                        map.remove(random.nextInt(2000));
+                    }
+                    s.commit();
+                    if (round % 5 == 4) {
+                        s.compactFile(1000);
+                    }
+                }
+                long version = s.commit();
+                assertTrue(replica.waitForVersion(version, 10_000));
+                assertEquals(map.size(), r.size());
+                for (Integer key : map.keySet()) {
+                    assertEquals(map.get(key), r.get(key));
+                }
+            }
+        } finally {
+            source.close();
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+    private void testSlowReplica() throws Exception {
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        source.setMaxQueueSize(1);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            map.put(1, "Hello");
+            s.commit();
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                map.put(2, "World");
+                s.commit();
+                // the source is not blocked, the replica is disconnected
+                assertEquals(0, source.getReplicaCount());
+                assertFalse(replica.waitForVersion(s.getCurrentVersion(), 10_000));
+                assertFalse(replica.isConnected());
+                MVMap<Integer, String> r = replica.getStore().openMap("data");
+                assertEquals("Hello", r.get(1));
+                assertNull(r.get(2));
+            }
+        } finally {
+            source.close();
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+    private void testConnectDuringWrites() throws Exception {
+        String fileName = getFileName("replicationSource");
+        String replicaName = getFileName("replica");
+        ReplicationSource source = new ReplicationSource(0, SECRET);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).replicationSource(source).open()) {
+            s.setRetentionTime(0);
+            s.setVersionsToKeep(0);
+            MVMap<Integer, String> map = s.openMap("data");
+            String data = new String(new char[100]).replace((char) 0, 'x');
+            for (int i = 0; i < 50_000; i++) {
+                map.put(i, data + i);
+            }
+            s.commit();
+            AtomicBoolean stop = new AtomicBoolean();
+            Thread writer = new Thread(() -> {
+                Random random = new Random(1);
+                for (int i = 0; !stop.get(); i++) {
+                    map.put(random.nextInt(60_000), data + i);
+                    if (i % 100 == 0) {
+                        s.commit();
+                    }
+                    if (i % 10_000 == 0) {
+                        s.compactFile(10);
+                    }
+                }
+            });
+            writer.start();
+            // the copy of the file is created while the store is modified
+            try (Replica replica = Replica.open("localhost", source.getPort(), replicaName, SECRET)) {
+                stop.set(true);
+                writer.join();
+                s.commit();
+                long version = s.getCurrentVersion();
+                assertTrue(replica.waitForVersion(version, 10_000));
+                MVMap<Integer, String> r = replica.getStore().openMap("data");
+                assertEquals(map.size(), r.size());
+                for (Integer key : map.keySet()) {
+                    assertEquals(map.get(key), r.get(key));
+                }
+            } finally {
+                stop.set(true);
+                writer.join();
+            }
+        } finally {
+            source.close();
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(replicaName);
+    }
+
+}
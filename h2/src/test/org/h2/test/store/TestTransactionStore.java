@@ -5,6 +5,7 @@
  */
 package org.h2.test.store;
 
+import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
@@ -18,9 +19,12 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.engine.IsolationLevel;
 import org.h2.mvstore.DataUtils;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.tx.LockManager;
+import org.h2.mvstore.tx.LockManager.LockWaitStatistics;
 import org.h2.mvstore.tx.Transaction;
 import org.h2.mvstore.tx.TransactionMap;
 import org.h2.mvstore.tx.TransactionStore;
@@ -55,11 +59,16 @@ public class TestTransactionStore extends TestBase {
         testConcurrentAdd();
         testCountWithOpenTransactions();
         testConcurrentUpdate();
+        testLockWaitStatistics();
         testRepeatedChange();
         testTransactionAge();
+        testManyOpenTransactions();
+        testDeferredTransactionId();
         testGetModifiedMaps();
         testKeyIterator();
         testTwoPhaseCommit();
+        testUndoLogWrittenOnStore();
+        testCrashDuringBufferedCommit();
         testSavepoint();
         testConcurrentTransactionsReadCommitted();
         testSingleConnection();
@@ -286,6 +295,49 @@ public class TestTransactionStore extends TestBase {
         }
     }
 
+    private void testLockWaitStatistics() throws Exception {
+        try (MVStore s = MVStore.open(null)) {
+            TransactionStore ts = new TransactionStore(s,
+                    new MetaType<>(null, s.backgroundExceptionHandler), new ObjectDataType(), 100);
+            ts.init();
+            LockManager lockManager = ts.getLockManager();
+            assertEquals(0, lockManager.getStatistics().size());
+
+            Transaction tx1 = ts.begin();
+            TransactionMap<Integer, Integer> map1 = tx1.openMap("data");
+            map1.put(1, 10);
+
+            Transaction tx2 = ts.begin();
+            TransactionMap<Integer, Integer> map2 = tx2.openMap("data");
+            assertThrows(DataUtils.ERROR_TRANSACTION_LOCKED, () -> map2.put(1, 20));
+            List<LockWaitStatistics> list = lockManager.getStatistics();
+            assertEquals(1, list.size());
+            LockWaitStatistics stat = list.get(0);
+            assertEquals("data", stat.getMapName());
+            assertEquals("1", stat.getKey());
+            assertEquals(1, stat.getWaitCount());
+            assertEquals(1, stat.getTimeoutCount());
+            assertEquals(0, lockManager.getWaitingCount(stat));
+
+            Task task = new Task() {
+                @Override
+                public void call() {
+                    map2.put(1, 20);
+                }
+            }.execute();
+            while (lockManager.getWaitingCount(stat) == 0) {
+                Thread.sleep(1);
+            }
+            tx1.commit();
+            task.get();
+            tx2.commit();
+            assertEquals(2, stat.getWaitCount());
+            assertEquals(1, stat.getTimeoutCount());
+            assertEquals(0, lockManager.getWaitingCount(stat));
+            assertTrue(stat.getWaitTimeMaxNanos() <= stat.getWaitTimeCumulativeNanos());
+        }
+    }
+
     private void testRepeatedChange() {
         try (MVStore s = MVStore.open(null)) {
             TransactionStore ts = new TransactionStore(s);
@@ -351,6 +403,60 @@ public class TestTransactionStore extends TestBase {
         s.close();
     }
 
+    private void testManyOpenTransactions() {
+        try (MVStore s = MVStore.open(null)) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            int count = 70_000;
+            Transaction[] transactions = new Transaction[count];
+            for (int i = 0; i < count; i++) {
+                transactions[i] = ts.begin();
+            }
+            Transaction last = transactions[count - 1];
+            assertEquals(count, last.getId());
+            TransactionMap<Integer, Integer> map = last.openMap("data");
+            map.put(1, 10);
+            last.commit();
+            for (int i = 0; i < count - 1; i++) {
+                assertEquals(10, transactions[i].openMap("data").get(1));
+                transactions[i].commit();
+            }
+            assertEquals(0, ts.getOpenTransactions().size());
+            Transaction tx = ts.begin();
+            assertEquals(1, tx.getId());
+            tx.commit();
+        }
+    }
+
+    private void testDeferredTransactionId() {
+        try (MVStore s = MVStore.open(null)) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            Transaction tx = ts.begin();
+            tx.openMap("data").put(1, 10);
+            tx.commit();
+            TransactionStore.RollbackListener listener = (m, key, existingValue, restoredValue) -> {};
+            Transaction reader = ts.beginDeferred(listener, 0, 0, IsolationLevel.READ_COMMITTED);
+            TransactionMap<Integer, Integer> map = reader.openMap("data");
+            assertEquals(10, (int) map.get(1));
+            assertEquals(0, reader.getId());
+            assertEquals(0, ts.getOpenTransactions().size());
+            Transaction writer = ts.beginDeferred(listener, 0, 0, IsolationLevel.READ_COMMITTED);
+            TransactionMap<Integer, Integer> map2 = writer.openMap("data");
+            map2.put(1, 20);
+            assertEquals(1, writer.getId());
+            assertEquals(1, ts.getOpenTransactions().size());
+            assertEquals(10, (int) map.get(1));
+            reader.commit();
+            writer.commit();
+            assertEquals(0, ts.getOpenTransactions().size());
+            tx = ts.begin();
+            assertEquals(20, tx.openMap("data").get(1));
+            assertEquals(1, tx.getId());
+            tx.commit();
+        }
+    }
+
     private void testGetModifiedMaps() {
         try (MVStore s = MVStore.open(null)) {
             TransactionStore ts = new TransactionStore(s);
@@ -465,6 +571,90 @@ public class TestTransactionStore extends TestBase {
         }
     }
 
+    private void testUndoLogWrittenOnStore() {
+        String fileName = getBaseDir() + "/testUndoLogWrittenOnStore.h3";
+        FileUtils.delete(fileName);
+        try (MVStore s = MVStore.open(fileName)) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            Transaction tx = ts.begin();
+            TransactionMap<Integer, String> m = tx.openMap("test");
+            m.put(1, "Hello");
+            m.put(2, "World");
+            tx.commit();
+            tx = ts.begin();
+            m = tx.openMap("test");
+            m.put(1, "Hi");
+            m.remove(2);
+            m.put(3, "!");
+            // uncommitted changes are written with their undo log
+            s.commit();
+            s.closeImmediately();
+        }
+        try (MVStore s = MVStore.open(fileName)) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            List<Transaction> list = ts.getOpenTransactions();
+            assertEquals(1, list.size());
+            list.get(0).rollback();
+            Transaction tx = ts.begin();
+            TransactionMap<Integer, String> m = tx.openMap("test");
+            assertEquals("Hello", m.get(1));
+            assertEquals("World", m.get(2));
+            assertNull(m.get(3));
+            assertEquals(2, m.size());
+            tx.commit();
+        }
+        FileUtils.delete(fileName);
+    }
+
+    private void testCrashDuringBufferedCommit() {
+        String fileName = getBaseDir() + "/testCrashDuringBufferedCommit.h3";
+        FileUtils.delete(fileName);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).autoCommitDisabled().open()) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            Transaction tx = ts.begin();
+            TransactionMap<Integer, String> m = tx.openMap("test");
+            TransactionMap<CrashKey, String> m2 = tx.openMap("crash");
+            for (int i = 0; i < 10; i++) {
+                m.put(i, "v" + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                m2.put(new CrashKey(i), "c" + i);
+            }
+            for (int i = 10; i < 20; i++) {
+                m.put(i, "v" + i);
+            }
+            // the store writes changes when the first half is already
+            // committed, then the process is terminated
+            CrashKey.onCompare = () -> {
+                CrashKey.onCompare = null;
+                s.commit();
+                s.closeImmediately();
+                throw new IllegalStateException("crash");
+            };
+            assertThrows(RuntimeException.class, () -> tx.commit());
+        } finally {
+            CrashKey.onCompare = null;
+        }
+        try (MVStore s = MVStore.open(fileName)) {
+            TransactionStore ts = new TransactionStore(s);
+            ts.init();
+            ts.endLeftoverTransactions();
+            Transaction tx = ts.begin();
+            TransactionMap<Integer, String> m = tx.openMap("test");
+            TransactionMap<CrashKey, String> m2 = tx.openMap("crash");
+            assertEquals(20, m.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals("v" + i, m.get(i));
+            }
+            assertEquals(3, m2.size());
+            tx.commit();
+        }
+        FileUtils.delete(fileName);
+    }
+
     private void testTwoPhaseCommit() {
         String fileName = getBaseDir() + "/testTwoPhaseCommit.h3";
         FileUtils.delete(fileName);
@@ -997,4 +1187,44 @@ public class TestTransactionStore extends TestBase {
             assertEquals(" "+stepCount, (stepCount+1) * (threadCount - failureCount), count);
         }
     }
+
+    /**
+     * A key that runs an action when it is compared.
+     */
+    static final class CrashKey implements Comparable<CrashKey>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The action to run on comparison, or {@code null}.
+         */
+        static volatile Runnable onCompare;
+
+        private final int value;
+
+        CrashKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(CrashKey o) {
+            Runnable action = onCompare;
+            if (action != null) {
+                action.run();
+            }
+            return Integer.compare(value, o.value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CrashKey && ((CrashKey) obj).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+
+    }
+
 }